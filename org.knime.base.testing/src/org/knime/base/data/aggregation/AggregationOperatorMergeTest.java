@@ -0,0 +1,209 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.base.data.aggregation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.base.data.aggregation.general.CountOperator;
+import org.knime.base.data.aggregation.general.FirstOperator;
+import org.knime.base.data.aggregation.general.LastOperator;
+import org.knime.base.data.aggregation.general.MaxOperator;
+import org.knime.base.data.aggregation.general.MinOperator;
+import org.knime.base.data.aggregation.general.UniqueCountOperator;
+import org.knime.base.data.aggregation.numerical.MeanOperator;
+import org.knime.base.data.aggregation.numerical.MedianOperator;
+import org.knime.base.data.aggregation.numerical.ProductOperator;
+import org.knime.base.data.aggregation.numerical.StdDeviationOperator;
+import org.knime.base.data.aggregation.numerical.SumOperator;
+import org.knime.base.data.aggregation.numerical.VarianceOperator;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContent;
+
+/**
+ * Tests the merging of partial results of {@link AggregationOperator}s.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class AggregationOperatorMergeTest {
+
+    private static final DataColumnSpec COL_SPEC = new DataColumnSpecCreator("Value", DoubleCell.TYPE).createSpec();
+
+    private DataRow[] m_rows;
+
+    /**
+     * Creates the rows to aggregate.
+     */
+    @Before
+    public void setUp() {
+        final Random rand = new Random(42);
+        m_rows = new DataRow[1000];
+        for (int i = 0; i < m_rows.length; i++) {
+            final DataCell cell;
+            if (rand.nextInt(10) == 0) {
+                cell = DataType.getMissingCell();
+            } else {
+                //round the values to get duplicates for the unique count
+                cell = new DoubleCell(1 + Math.round(rand.nextGaussian() * 10) / 1000.0);
+            }
+            m_rows[i] = new DefaultRow("Row" + i, cell);
+        }
+    }
+
+    /**
+     * Tests that merging the partial results of disjoint parts returns the same result as aggregating all rows
+     * with a single operator.
+     *
+     * @throws InvalidSettingsException if the partial state can not be loaded
+     */
+    @Test
+    public void testMerge() throws InvalidSettingsException {
+        final AggregationOperator[] templates = new AggregationOperator[]{
+            new SumOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING),
+            new CountOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_INCL_MISSING),
+            new MeanOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING),
+            new VarianceOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING),
+            new StdDeviationOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING),
+            new ProductOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING),
+            new MinOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING),
+            new MaxOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING),
+            new FirstOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_INCL_MISSING),
+            new LastOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_INCL_MISSING),
+            new UniqueCountOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING)};
+        for (final AggregationOperator template : templates) {
+            assertTrue(template.getLabel() + " should support merging", template.supportsMerge());
+            final AggregationOperator expected = createOperator(template);
+            aggregate(expected, 0, m_rows.length);
+
+            final AggregationOperator merged = createOperator(template);
+            aggregate(merged, 0, 300);
+            final AggregationOperator second = createOperator(template);
+            aggregate(second, 300, 301);
+            merged.merge(second);
+            //an empty operator must not change the result
+            merged.merge(createOperator(template));
+            //the last part is merged from its saved partial state
+            final AggregationOperator third = createOperator(template);
+            aggregate(third, 301, m_rows.length);
+            final ModelContent content = new ModelContent("partialState");
+            third.savePartialState(content);
+            final AggregationOperator loaded = createOperator(template);
+            loaded.loadPartialState(content);
+            merged.merge(loaded);
+
+            assertEquals("Wrong number of missing values for " + template.getLabel(),
+                expected.getMissingValuesCount(), merged.getMissingValuesCount());
+            assertCellEquals(template.getLabel(), expected.getResult(), merged.getResult());
+        }
+    }
+
+    /**
+     * Tests that operators which keep all values do not support merging.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testMergeUnsupported() {
+        final AggregationOperator template =
+            new MedianOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING);
+        assertFalse(template.supportsMerge());
+        assertFalse(new ColumnAggregator(COL_SPEC, template).supportsMerge());
+        createOperator(template).merge(createOperator(template));
+    }
+
+    /**
+     * Tests that the skipped flag is propagated when merging.
+     */
+    @Test
+    public void testMergeSkipped() {
+        final GlobalSettings globalSettings = GlobalSettings.builder().setMaxUniqueValues(10)
+            .setGroupColNames(Collections.<String> emptyList()).build();
+        final AggregationOperator template =
+            new UniqueCountOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING);
+        final AggregationOperator op1 = template.createOperator(globalSettings,
+            new OperatorColumnSettings(false, COL_SPEC));
+        final AggregationOperator op2 = template.createOperator(globalSettings,
+            new OperatorColumnSettings(false, COL_SPEC));
+        aggregate(op1, 0, 8);
+        aggregate(op2, 8, 100);
+        assertTrue(op2.isSkipped());
+        op1.merge(op2);
+        assertTrue(op1.isSkipped());
+        assertTrue(op1.getResult().isMissing());
+    }
+
+    private static AggregationOperator createOperator(final AggregationOperator template) {
+        return template.createOperator(GlobalSettings.DEFAULT,
+            new OperatorColumnSettings(template.inclMissingCells(), COL_SPEC));
+    }
+
+    private void aggregate(final AggregationOperator op, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            op.compute(m_rows[i], 0);
+        }
+    }
+
+    private static void assertCellEquals(final String label, final DataCell expected, final DataCell actual) {
+        if (expected instanceof DoubleCell && actual instanceof DoubleCell) {
+            final double e = ((DoubleValue)expected).getDoubleValue();
+            assertEquals("Wrong result for " + label, e, ((DoubleValue)actual).getDoubleValue(),
+                Math.abs(e) * 1e-9);
+        } else {
+            assertEquals("Wrong result for " + label, expected, actual);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.base.data.aggregation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.knime.base.data.aggregation.general.ApproximateUniqueCountOperator;
+import org.knime.base.data.aggregation.general.ReservoirSampleOperator;
+import org.knime.base.data.aggregation.numerical.ApproximateQuantileOperator;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.collection.ListCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettings;
+
+/**
+ * Tests the approximate {@link AggregationOperator}s that require a bounded
+ * amount of memory per group.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ApproximateAggregationOperatorTest {
+
+    private static final DataColumnSpec COL_SPEC = new DataColumnSpecCreator("Value", LongCell.TYPE).createSpec();
+
+    /**
+     * Tests the HyperLogLog based unique count.
+     */
+    @Test
+    public void testApproximateUniqueCount() {
+        final AggregationOperator template =
+            new ApproximateUniqueCountOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_INCL_MISSING);
+
+        //small groups are counted exactly
+        final AggregationOperator small = createOperator(template);
+        aggregate(small, 0, 2000, 20);
+        assertEquals(100, getLong(small.getResult()));
+
+        final int distinct = 200000;
+        final AggregationOperator all = createOperator(template);
+        aggregate(all, 0, 2 * distinct, 2);
+        final long estimate = getLong(all.getResult());
+        assertTrue("Estimate " + estimate + " differs more than 3% from " + distinct,
+            Math.abs(estimate - distinct) < 0.03 * distinct);
+
+        //merging is exact since it only combines the registers
+        final AggregationOperator merged = createOperator(template);
+        aggregate(merged, 0, distinct, 2);
+        final AggregationOperator part = createOperator(template);
+        aggregate(part, distinct, 2 * distinct, 2);
+        merged.merge(part);
+        assertEquals(estimate, getLong(merged.getResult()));
+    }
+
+    /**
+     * Tests that the unique count distinguishes cells by their equality, not by their string representation.
+     */
+    @Test
+    public void testApproximateUniqueCountSameString() {
+        final AggregationOperator op = createOperator(
+            new ApproximateUniqueCountOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_INCL_MISSING));
+        for (int i = 0; i < 100; i++) {
+            op.compute(new DefaultRow("Row" + i, new SameStringCell(i % 50)), 0);
+        }
+        assertEquals(50, getLong(op.getResult()));
+    }
+
+    /**
+     * Tests that numbers and strings are hashed with 64 bits, not by their 32 bit hash codes.
+     */
+    @Test
+    public void testApproximateUniqueCountHashCodeCollisions() {
+        final AggregationOperator template =
+            new ApproximateUniqueCountOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_INCL_MISSING);
+
+        //all have the hash code 0
+        final AggregationOperator longs = createOperator(template);
+        for (long i = 0; i < 100; i++) {
+            longs.compute(new DefaultRow("Row" + i, new LongCell((i << 32) | i)), 0);
+        }
+        assertEquals(100, getLong(longs.getResult()));
+
+        //"Aa" and "BB" have the same hash code, hence all their combinations of the same length as well
+        final AggregationOperator strings = createOperator(template);
+        for (int i = 0; i < 64; i++) {
+            final StringBuilder b = new StringBuilder();
+            for (int bit = 0; bit < 6; bit++) {
+                b.append((i & (1 << bit)) == 0 ? "Aa" : "BB");
+            }
+            strings.compute(new DefaultRow("Row" + i, new StringCell(b.toString())), 0);
+        }
+        assertEquals(64, getLong(strings.getResult()));
+
+        //equal cells are counted once
+        final AggregationOperator doubles = createOperator(template);
+        doubles.compute(new DefaultRow("Row0", new DoubleCell(0.0)), 0);
+        doubles.compute(new DefaultRow("Row1", new DoubleCell(-0.0)), 0);
+        doubles.compute(new DefaultRow("Row2", new DoubleCell(Double.NaN)), 0);
+        doubles.compute(new DefaultRow("Row3", new DoubleCell(0.0 / 0.0)), 0);
+        assertEquals(2, getLong(doubles.getResult()));
+    }
+
+    /** A cell whose string representation doesn't identify it. */
+    @SuppressWarnings("serial")
+    private static final class SameStringCell extends DataCell {
+        private final int m_value;
+
+        SameStringCell(final int value) {
+            m_value = value;
+        }
+
+        @Override
+        public String toString() {
+            return "...";
+        }
+
+        @Override
+        protected boolean equalsDataCell(final DataCell dc) {
+            return m_value == ((SameStringCell)dc).m_value;
+        }
+
+        @Override
+        public int hashCode() {
+            return m_value;
+        }
+    }
+
+    /**
+     * Tests the quantile sketch.
+     *
+     * @throws InvalidSettingsException if the settings can not be loaded
+     */
+    @Test
+    public void testApproximateQuantile() throws InvalidSettingsException {
+        final AggregationOperator template =
+            new ApproximateQuantileOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING);
+        final int n = 100000;
+        for (final double percentile : new double[]{0, 10, 50, 90, 100}) {
+            final NodeSettings settings = new NodeSettings("operator");
+            settings.addDouble("percentile", percentile);
+            settings.addInt("sketchSize", 200);
+            template.loadValidatedSettings(settings);
+
+            final AggregationOperator op = createOperator(template);
+            //add the values in a scrambled order
+            for (long i = 0; i < n; i++) {
+                op.compute(new DefaultRow("Row" + i, new LongCell(i * 7919 % n)), 0);
+            }
+            final double result = ((DoubleValue)op.getResult()).getDoubleValue();
+            if (percentile == 0 || percentile == 100) {
+                assertEquals("Minimum and maximum must be exact", percentile / 100 * (n - 1), result, 0);
+            } else {
+                assertEquals("Wrong " + percentile + "th percentile", percentile / 100 * n, result, 0.02 * n);
+            }
+        }
+    }
+
+    /**
+     * Tests the reservoir sample.
+     */
+    @Test
+    public void testReservoirSample() {
+        final AggregationOperator template =
+            new ReservoirSampleOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_INCL_MISSING);
+
+        final AggregationOperator small = createOperator(template);
+        aggregate(small, 0, 50, 1);
+        assertEquals(50, ((ListCell)small.getResult()).size());
+
+        final AggregationOperator op = createOperator(template);
+        aggregate(op, 0, 5000, 1);
+        final AggregationOperator part = createOperator(template);
+        aggregate(part, 5000, 10000, 1);
+        op.merge(part);
+        final ListCell sample = (ListCell)op.getResult();
+        assertEquals(100, sample.size());
+        final Set<Long> values = new HashSet<>();
+        int fromPart = 0;
+        for (final DataCell cell : sample) {
+            final long value = ((LongValue)cell).getLongValue();
+            assertTrue("Value " + value + " sampled twice", values.add(value));
+            if (value >= 5000) {
+                fromPart++;
+            }
+        }
+        //both parts are equally large and should contribute about the same number of cells
+        assertTrue("Unbalanced sample: " + fromPart + " of 100 cells from second part", fromPart > 25 && fromPart < 75);
+    }
+
+    private static AggregationOperator createOperator(final AggregationOperator template) {
+        return template.createOperator(GlobalSettings.DEFAULT,
+            new OperatorColumnSettings(template.inclMissingCells(), COL_SPEC));
+    }
+
+    private static void aggregate(final AggregationOperator op, final int from, final int to, final int duplicates) {
+        for (int i = from; i < to; i++) {
+            op.compute(new DefaultRow("Row" + i, new LongCell(i / duplicates)), 0);
+        }
+    }
+
+    private static long getLong(final DataCell cell) {
+        return ((LongValue)cell).getLongValue();
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.groupby;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.GlobalSettings.AggregationContext;
+import org.knime.base.data.aggregation.OperatorColumnSettings;
+import org.knime.base.data.aggregation.general.ConcatenateOperator;
+import org.knime.base.data.aggregation.general.CountOperator;
+import org.knime.base.data.aggregation.general.FirstOperator;
+import org.knime.base.data.aggregation.general.PercentOperator;
+import org.knime.base.data.aggregation.numerical.SumOperator;
+import org.knime.base.data.sort.SortedTable;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.streamable.BufferedDataTableRowOutput;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests for {@link SortedInputGroupBy}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class SortedInputGroupByTest {
+    private static final List<String> GROUP_COLS = Arrays.asList("Group", "Flag");
+
+    private ExecutionContext m_exec;
+
+    private BufferedDataTable m_table;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec =
+            new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+                SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+
+        DataTableSpec spec = new DataTableSpec(new String[]{"Group", "Flag", "Value"},
+            new DataType[]{StringCell.TYPE, IntCell.TYPE, IntCell.TYPE});
+        BufferedDataContainer cont = m_exec.createDataContainer(spec);
+        Random rand = new Random(1);
+        for (int i = 0; i < 5000; i++) {
+            int group = rand.nextInt(100);
+            DataCell groupCell = group == 0 ? DataType.getMissingCell() : new StringCell("Group " + group);
+            DataCell valueCell = rand.nextInt(10) == 0 ? DataType.getMissingCell() : new IntCell(rand.nextInt(1000));
+            cont.addRowToTable(new DefaultRow("Row" + i, groupCell, new IntCell(rand.nextInt(3)), valueCell));
+        }
+        cont.close();
+        m_table = cont.getTable();
+    }
+
+    /**
+     * Checks whether aggregating a sorted input as it arrives gives the same result as the sort-based aggregation,
+     * including operators that depend on the order of the rows within a group.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSameAsBigGroupByTable() throws Exception {
+        BufferedDataTable sortedTable =
+            new SortedTable(m_table, GROUP_COLS, new boolean[]{true, true}, m_exec).getBufferedDataTable();
+        GroupByTable reference = new BigGroupByTable(m_exec, sortedTable, GROUP_COLS, createAggregators(),
+            createGlobalSettings(), true, ColumnNamePolicy.getDefault(), false);
+        BufferedDataTable refTable = reference.getBufferedTable();
+
+        SortedInputGroupBy groupBy = new SortedInputGroupBy(sortedTable.getDataTableSpec(), GROUP_COLS,
+            createAggregators(), createGlobalSettings(), true);
+        BufferedDataTableRowOutput output =
+            new BufferedDataTableRowOutput(m_exec.createDataContainer(refTable.getDataTableSpec()));
+        groupBy.aggregate(new DataTableRowInput(sortedTable), output, m_exec, sortedTable.size());
+        output.close();
+        BufferedDataTable testTable = output.getDataTable();
+
+        assertThat("Unequal number of groups", testTable.size(), is(refTable.size()));
+        RowIterator refIter = refTable.iterator();
+        RowIterator testIter = testTable.iterator();
+        while (refIter.hasNext()) {
+            DataRow refRow = refIter.next();
+            DataRow testRow = testIter.next();
+            assertThat("Unexpected row key", testRow.getKey(), is(refRow.getKey()));
+            Iterator<DataCell> refCell = refRow.iterator();
+            Iterator<DataCell> testCell = testRow.iterator();
+            while (refCell.hasNext()) {
+                assertThat("Unexpected cell in row " + refRow.getKey(), testCell.next(), is(refCell.next()));
+            }
+        }
+        assertThat("Unexpected hilite mapping", groupBy.getHiliteMapping(), is(reference.getHiliteMapping()));
+    }
+
+    /**
+     * Checks that an input which is not sorted by the group columns is rejected.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testUnsortedInput() throws Exception {
+        SortedInputGroupBy groupBy = new SortedInputGroupBy(m_table.getDataTableSpec(), GROUP_COLS,
+            createAggregators(), createGlobalSettings(), false);
+        BufferedDataTableRowOutput output = new BufferedDataTableRowOutput(m_exec.createDataContainer(
+            GroupByTable.createGroupByTableSpec(m_table.getDataTableSpec(), GROUP_COLS, createAggregators(),
+                ColumnNamePolicy.getDefault())));
+        try {
+            groupBy.aggregate(new DataTableRowInput(m_table), output, m_exec, m_table.size());
+            fail("Unsorted input not detected");
+        } catch (IllegalStateException e) {
+            // expected
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Checks that the percentage of a group is missing if the input is streamed, i.e. the total number of rows is
+     * unknown, and correct otherwise.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testStreamedPercent() throws Exception {
+        BufferedDataTable sortedTable =
+            new SortedTable(m_table, GROUP_COLS, new boolean[]{true, true}, m_exec).getBufferedDataTable();
+        for (long rowCount : new long[]{-1, sortedTable.size()}) {
+            ColumnAggregator[] aggregators = new ColumnAggregator[]{new ColumnAggregator(
+                m_table.getDataTableSpec().getColumnSpec("Value"),
+                new PercentOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_INCL_MISSING))};
+            GlobalSettings globalSettings = GlobalSettings.builder().setGroupColNames(GROUP_COLS)
+                .setDataTableSpec(m_table.getDataTableSpec()).setNoOfRows(rowCount)
+                .setAggregationContext(AggregationContext.ROW_AGGREGATION).build();
+            SortedInputGroupBy groupBy = new SortedInputGroupBy(sortedTable.getDataTableSpec(), GROUP_COLS,
+                aggregators, globalSettings, false);
+            BufferedDataTableRowOutput output = new BufferedDataTableRowOutput(m_exec.createDataContainer(
+                GroupByTable.createGroupByTableSpec(sortedTable.getDataTableSpec(), GROUP_COLS, aggregators,
+                    ColumnNamePolicy.getDefault())));
+            groupBy.aggregate(new DataTableRowInput(sortedTable), output, m_exec, rowCount);
+            output.close();
+
+            double sum = 0;
+            for (DataRow row : output.getDataTable()) {
+                DataCell percent = row.getCell(GROUP_COLS.size());
+                if (rowCount < 0) {
+                    assertThat("Percentage without row count", percent.isMissing(), is(true));
+                } else {
+                    double value = ((DoubleValue)percent).getDoubleValue();
+                    assertThat("Negative percentage " + value, value >= 0, is(true));
+                    sum += value;
+                }
+            }
+            if (rowCount >= 0) {
+                assertThat("Percentages don't add up", Math.abs(sum - 100) < 1e-6, is(true));
+            }
+        }
+    }
+
+    private ColumnAggregator[] createAggregators() {
+        DataTableSpec spec = m_table.getDataTableSpec();
+        return new ColumnAggregator[]{
+            new ColumnAggregator(spec.getColumnSpec("Value"),
+                new SumOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING)),
+            new ColumnAggregator(spec.getColumnSpec("Value"),
+                new CountOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_INCL_MISSING), true),
+            new ColumnAggregator(spec.getColumnSpec("Value"),
+                new FirstOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_INCL_MISSING), true),
+            new ColumnAggregator(spec.getColumnSpec("Value"),
+                new ConcatenateOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING))};
+    }
+
+    private GlobalSettings createGlobalSettings() {
+        return GlobalSettings.builder().setGroupColNames(GROUP_COLS).setDataTableSpec(m_table.getDataTableSpec())
+            .setNoOfRows(m_table.size()).setAggregationContext(AggregationContext.ROW_AGGREGATION).build();
+    }
+}
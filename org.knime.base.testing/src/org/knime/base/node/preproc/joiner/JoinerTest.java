@@ -50,6 +50,7 @@
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Random;
@@ -57,6 +58,7 @@
 import org.junit.Before;
 import org.junit.Test;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.JoinMode;
+import org.knime.base.node.preproc.joiner.SortMergeJoiner.UnsortedInputException;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTable;
@@ -67,6 +69,8 @@
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.StringCell;
+import org.knime.core.data.sort.BufferedDataTableSorter;
+import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.DefaultNodeProgressMonitor;
 import org.knime.core.node.ExecutionContext;
@@ -74,6 +78,8 @@
 import org.knime.core.node.NodeFactory;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.port.PortType;
+import org.knime.core.node.streamable.BufferedDataTableRowOutput;
+import org.knime.core.node.streamable.DataTableRowInput;
 import org.knime.core.node.workflow.SingleNodeContainer;
 import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
 
@@ -405,6 +411,176 @@ public void testSortPartitionsFullOuterJoin() throws Exception {
     }
 
 
+    /**
+     * Checks whether joining with several threads gives the same result as the sequential join, for the primitive
+     * keys of an int column as well as for string and row key columns, also when memory is low.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testParallelJoin() throws Exception {
+        BufferedDataTable leftTable = m_exec.createBufferedDataTable(new TestData(1000, 1), m_exec);
+        BufferedDataTable rightTable = m_exec.createBufferedDataTable(new TestData(3000, 1), m_exec);
+        for (String col : new String[]{"Index", "Data", Joiner2Settings.ROW_KEY_IDENTIFIER}) {
+            for (JoinMode mode : JoinMode.values()) {
+                Joiner2Settings settings = createReferenceSettings(col);
+                settings.setJoinMode(mode);
+
+                Joiner joinerRef = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settings);
+                BufferedDataTable reference = joinerRef.computeJoinTable(leftTable, rightTable, m_exec);
+                if (mode == JoinMode.InnerJoin) {
+                    assertThat("Unexpected number of matches", reference.size(), is(1000L));
+                }
+
+                Joiner joinerTest = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settings);
+                joinerTest.setParallelism(4);
+                compareTables(reference, joinerTest.computeJoinTable(leftTable, rightTable, m_exec));
+
+                joinerTest = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settings);
+                joinerTest.setParallelism(4);
+                joinerTest.setRowsAddedBeforeOOM(100);
+                compareTables(reference, joinerTest.computeJoinTable(leftTable, rightTable, m_exec));
+            }
+        }
+    }
+
+    /**
+     * Checks whether pre-filtering the larger table with a Bloom filter does not change the result, for either
+     * table being the larger one.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testBloomFilter() throws Exception {
+        BufferedDataTable smallTable = m_exec.createBufferedDataTable(new TestData(100, 1), m_exec);
+        BufferedDataTable largeTable = m_exec.createBufferedDataTable(new TestData(5000, 1), m_exec);
+        for (boolean leftIsLarge : new boolean[]{true, false}) {
+            BufferedDataTable leftTable = leftIsLarge ? largeTable : smallTable;
+            BufferedDataTable rightTable = leftIsLarge ? smallTable : largeTable;
+            for (String col : new String[]{"Index", "Data", Joiner2Settings.ROW_KEY_IDENTIFIER}) {
+                for (JoinMode mode : JoinMode.values()) {
+                    Joiner2Settings settingsRef = createReferenceSettings(col);
+                    settingsRef.setJoinMode(mode);
+                    Joiner joinerRef =
+                        new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsRef);
+                    BufferedDataTable reference = joinerRef.computeJoinTable(leftTable, rightTable, m_exec);
+
+                    Joiner2Settings settingsTest = createReferenceSettings(col);
+                    settingsTest.setJoinMode(mode);
+                    settingsTest.setUseBloomFilter(true);
+                    Joiner joinerTest =
+                        new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsTest);
+                    joinerTest.setRowsAddedBeforeOOM(10);
+                    compareTables(reference, joinerTest.computeJoinTable(leftTable, rightTable, m_exec));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether the sort-merge join of tables that are sorted by their joining columns gives the same rows as
+     * the hash join, the matches in the same order.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSortMergeJoin() throws Exception {
+        BufferedDataTable leftData = m_exec.createBufferedDataTable(new TestData(1000, 1), m_exec);
+        BufferedDataTable rightData = m_exec.createBufferedDataTable(new TestData(3000, 1), m_exec);
+        for (String col : new String[]{"Index", "Data", Joiner2Settings.ROW_KEY_IDENTIFIER}) {
+            BufferedDataTable leftTable = sort(leftData, col);
+            BufferedDataTable rightTable = sort(rightData, col);
+            for (JoinMode mode : JoinMode.values()) {
+                Joiner2Settings settings = createReferenceSettings(col);
+                settings.setJoinMode(mode);
+                settings.setEnableHiLite(true);
+
+                Joiner joinerRef = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settings);
+                BufferedDataTable reference = joinerRef.computeJoinTable(leftTable, rightTable, m_exec);
+
+                Joiner joinerTest = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settings);
+                BufferedDataTable test = computeSortMergeJoin(joinerTest, leftTable, rightTable);
+                if (mode == JoinMode.InnerJoin) {
+                    assertThat("Unexpected number of matches", test.size(), is(1000L));
+                    compareTables(reference, test);
+                } else {
+                    // rows without a match are interleaved
+                    String rowKey = BufferedDataTableSorter.ROWKEY_SORT_SPEC.getName();
+                    compareTables(sort(reference, rowKey), sort(test, rowKey));
+                }
+                assertThat("Unexpected hilite mapping", joinerTest.getLeftRowKeyMap(),
+                    is(joinerRef.getLeftRowKeyMap()));
+                assertThat("Unexpected hilite mapping", joinerTest.getRightRowKeyMap(),
+                    is(joinerRef.getRightRowKeyMap()));
+            }
+        }
+    }
+
+    /**
+     * Checks whether the sort-merge join fails if an input table is not sorted by its joining columns.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test(expected = UnsortedInputException.class)
+    public void testSortMergeJoinUnsortedInput() throws Exception {
+        BufferedDataTable leftTable = sort(m_exec.createBufferedDataTable(new TestData(100, 1), m_exec), "Index");
+        // random values
+        BufferedDataTable rightTable = m_exec.createBufferedDataTable(new TestData(100, 1), m_exec);
+        Joiner2Settings settings = createReferenceSettings("Index");
+        Joiner joiner = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settings);
+        computeSortMergeJoin(joiner, leftTable, rightTable);
+    }
+
+    /**
+     * Checks whether the sort-merge join, like the hash join, doesn't match missing values with each other.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSortMergeJoinMissingValues() throws Exception {
+        BufferedDataTable leftTable = sort(createTableWithMissings("Left", "a", null, null, "b"), "Data");
+        BufferedDataTable rightTable = sort(createTableWithMissings("Right", null, "a", "b", null), "Data");
+        for (JoinMode mode : JoinMode.values()) {
+            Joiner2Settings settings = createReferenceSettings("Data");
+            settings.setJoinMode(mode);
+            Joiner joinerRef = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settings);
+            BufferedDataTable reference = joinerRef.computeJoinTable(leftTable, rightTable, m_exec);
+            Joiner joinerTest = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settings);
+            BufferedDataTable test = computeSortMergeJoin(joinerTest, leftTable, rightTable);
+            if (mode == JoinMode.InnerJoin) {
+                assertThat("Unexpected number of matches", test.size(), is(2L));
+            }
+            String rowKey = BufferedDataTableSorter.ROWKEY_SORT_SPEC.getName();
+            compareTables(sort(reference, rowKey), sort(test, rowKey));
+        }
+    }
+
+    private BufferedDataTable createTableWithMissings(final String prefix, final String... values) {
+        BufferedDataContainer cont = m_exec.createDataContainer(new TestData(0, 1).getDataTableSpec());
+        for (int i = 0; i < values.length; i++) {
+            cont.addRowToTable(new DefaultRow(prefix + i, new IntCell(i),
+                values[i] == null ? DataType.getMissingCell() : new StringCell(values[i])));
+        }
+        cont.close();
+        return cont.getTable();
+    }
+
+    private BufferedDataTable sort(final BufferedDataTable table, final String col) throws Exception {
+        String sortCol =
+            Joiner2Settings.ROW_KEY_IDENTIFIER.equals(col) ? BufferedDataTableSorter.ROWKEY_SORT_SPEC.getName() : col;
+        return new BufferedDataTableSorter(table, Collections.singletonList(sortCol), new boolean[]{true})
+            .sort(m_exec);
+    }
+
+    private BufferedDataTable computeSortMergeJoin(final Joiner joiner, final BufferedDataTable leftTable,
+        final BufferedDataTable rightTable) throws Exception {
+        BufferedDataContainer cont = m_exec.createDataContainer(joiner.getOutputSpec());
+        joiner.computeSortMergeJoin(new DataTableRowInput(leftTable), new DataTableRowInput(rightTable),
+            new BufferedDataTableRowOutput(cont), m_exec);
+        cont.close();
+        return cont.getTable();
+    }
+
     private Joiner2Settings createReferenceSettings(final String col) {
         Joiner2Settings settingsRef = new Joiner2Settings();
         String[] joinColumns = new String[]{col};
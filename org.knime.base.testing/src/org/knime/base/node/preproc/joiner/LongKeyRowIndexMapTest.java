@@ -0,0 +1,115 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.joiner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link LongKeyRowIndexMap}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class LongKeyRowIndexMapTest {
+
+    /** Compares lookups against a {@link HashMap} with many duplicate keys. */
+    @Test
+    public void testAddAndLookup() {
+        Random rand = new Random(3);
+        LongKeyRowIndexMap map = new LongKeyRowIndexMap();
+        Map<Long, Set<Integer>> reference = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            long key = rand.nextInt(20000) - 10000L + (rand.nextBoolean() ? Long.MIN_VALUE : 0);
+            map.add(key, i);
+            reference.computeIfAbsent(key, k -> new HashSet<>()).add(i);
+        }
+        map.addMissing(-5);
+        assertEquals(reference.size(), map.getNumKeys());
+        for (Map.Entry<Long, Set<Integer>> e : reference.entrySet()) {
+            assertEquals(e.getValue(), lookup(map, e.getKey()));
+        }
+        assertTrue(lookup(map, 4711L << 32).isEmpty());
+
+        List<Integer> all = new ArrayList<>();
+        map.forEachRowIndex(all::add);
+        assertEquals(100001, all.size());
+    }
+
+    /** Checks that only the accepted keys and rows are retained. */
+    @Test
+    public void testRetainKeys() {
+        LongKeyRowIndexMap map = new LongKeyRowIndexMap();
+        for (int i = 0; i < 1000; i++) {
+            map.add(i % 100, i);
+        }
+        map.addMissing(1000);
+        map.retainKeys(k -> k % 2 == 0, false);
+        assertEquals(50, map.getNumKeys());
+        assertEquals(10, lookup(map, 42).size());
+        assertTrue(lookup(map, 43).isEmpty());
+        Set<Integer> all = new HashSet<>();
+        map.forEachRowIndex(all::add);
+        assertEquals(500, all.size());
+        assertTrue(!all.contains(1000));
+    }
+
+    private static Set<Integer> lookup(final LongKeyRowIndexMap map, final long key) {
+        Set<Integer> result = new HashSet<>();
+        for (int e = map.getFirstEntry(key); e >= 0; e = map.getNextEntry(e)) {
+            assertTrue("Duplicate row index", result.add(map.getRowIndex(e)));
+        }
+        return result;
+    }
+}
@@ -88,6 +88,7 @@
 import org.knime.base.data.aggregation.date.DayRangeOperator;
 import org.knime.base.data.aggregation.date.MedianDateOperator;
 import org.knime.base.data.aggregation.date.MillisRangeOperator;
+import org.knime.base.data.aggregation.general.ApproximateUniqueCountOperator;
 import org.knime.base.data.aggregation.general.ConcatenateOperator;
 import org.knime.base.data.aggregation.general.CountOperator;
 import org.knime.base.data.aggregation.general.FirstOperator;
@@ -98,11 +99,13 @@
 import org.knime.base.data.aggregation.general.MissingValueCountOperator;
 import org.knime.base.data.aggregation.general.ModeOperator;
 import org.knime.base.data.aggregation.general.PercentOperator;
+import org.knime.base.data.aggregation.general.ReservoirSampleOperator;
 import org.knime.base.data.aggregation.general.SetCellOperator;
 import org.knime.base.data.aggregation.general.SortedListCellOperator;
 import org.knime.base.data.aggregation.general.UniqueConcatenateOperator;
 import org.knime.base.data.aggregation.general.UniqueConcatenateWithCountOperator;
 import org.knime.base.data.aggregation.general.UniqueCountOperator;
+import org.knime.base.data.aggregation.numerical.ApproximateQuantileOperator;
 import org.knime.base.data.aggregation.numerical.CorrelationOperator;
 import org.knime.base.data.aggregation.numerical.CovarianceOperator;
 import org.knime.base.data.aggregation.numerical.GeometricMeanOperator;
@@ -253,6 +256,8 @@ private AggregationMethods() {
             addOperator(new SkewnessOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING));
             addOperator(new PSquarePercentileOperator(GlobalSettings.DEFAULT,
                 OperatorColumnSettings.DEFAULT_EXCL_MISSING));
+            addOperator(new ApproximateQuantileOperator(GlobalSettings.DEFAULT,
+                OperatorColumnSettings.DEFAULT_EXCL_MISSING));
             addOperator(new SumOfSquaresOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING));
             addOperator(new SumOfLogsOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING));
             addOperator(new CorrelationOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING));
@@ -311,6 +316,9 @@ private AggregationMethods() {
                 OperatorColumnSettings.DEFAULT_EXCL_MISSING));
             /**Counts the number of unique group members.*/
             addOperator(new UniqueCountOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_INCL_MISSING));
+            /**Estimates the number of unique group members with bounded memory.*/
+            addOperator(new ApproximateUniqueCountOperator(GlobalSettings.DEFAULT,
+                OperatorColumnSettings.DEFAULT_INCL_MISSING));
             /**Counts the number of group members.*/
             addOperator(new CountOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_INCL_MISSING));
             /**Returns the percentage of the group.*/
@@ -322,6 +330,9 @@ private AggregationMethods() {
             addOperator(new SetCellOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_INCL_MISSING));
             /** List collection.*/
             addOperator(new ListCellOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_INCL_MISSING));
+            /** Random sample list collection.*/
+            addOperator(new ReservoirSampleOperator(GlobalSettings.DEFAULT,
+                OperatorColumnSettings.DEFAULT_INCL_MISSING));
             /** Sorted list collection.*/
             addOperator(new SortedListCellOperator(GlobalSettings.DEFAULT,
                 OperatorColumnSettings.DEFAULT_INCL_MISSING));
@@ -58,6 +58,8 @@
 import org.knime.core.data.def.StringCell;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettings;
 import org.knime.core.node.NodeSettingsRO;
@@ -92,6 +94,14 @@
  * actual settings from the node dialog in the
  * {@link #createInstance(GlobalSettings, OperatorColumnSettings)} method.
  *
+ * Operators whose partial results can be combined override
+ * {@link #supportsMerge()} and the {@link #mergeInternal(AggregationOperator)},
+ * {@link #savePartialStateInternal(ModelContentWO)} and
+ * {@link #loadPartialStateInternal(ModelContentRO)} methods. Such operators
+ * can aggregate disjoint parts of a group independently (e.g. in different
+ * threads) and combine them afterwards using the
+ * {@link #merge(AggregationOperator)} method.
+ *
  * All registered classes can be used in the nodes that use the
  * aggregation operators such as the group by or pivoting node.
  * AggregationMethods are sorted first by the supported data type and then
@@ -104,6 +114,12 @@
 public abstract class AggregationOperator implements AggregationMethod {
 
     private static final NodeLogger LOGGER = NodeLogger.getLogger(AggregationOperator.class);
+
+    private static final String CFG_SKIPPED = "skipped";
+    private static final String CFG_SKIP_MSG = "skipMessage";
+    private static final String CFG_MISSING_COUNT = "missingValuesCount";
+    private static final String CFG_OPERATOR_STATE = "operatorState";
+
     /**If the aggregator should be skipped.*/
     private boolean m_skipped;
     private String m_skipMsg = "";
@@ -449,6 +465,153 @@ public final void reset() {
      */
     protected abstract void resetInternal();
 
+    /**
+     * Override this method and return <code>true</code> if the partial
+     * results of two instances of this operator can be combined. Operators
+     * that return <code>true</code> have to implement the
+     * {@link #mergeInternal(AggregationOperator)},
+     * {@link #savePartialStateInternal(ModelContentWO)} and
+     * {@link #loadPartialStateInternal(ModelContentRO)} methods. Subclasses of
+     * a mergeable operator that hold additional state have to override these
+     * methods as well or return <code>false</code>.
+     *
+     * @return <code>true</code> if this operator supports the
+     * {@link #merge(AggregationOperator)} method
+     * @since 3.5
+     */
+    public boolean supportsMerge() {
+        return false;
+    }
+
+    /**
+     * Combines the partial result of the given operator with the partial
+     * result of this operator. The given operator has to be of the same class
+     * and has to be created with the same settings. Order dependent operators
+     * such as first or last assume that the given operator has seen the rows
+     * that follow the rows seen by this operator. The given operator is not
+     * altered.
+     *
+     * @param other the operator to merge into this operator
+     * @throws UnsupportedOperationException if this operator does not support
+     * merging
+     * @throws IllegalArgumentException if the given operator is not of the
+     * same class
+     * @see #supportsMerge()
+     * @since 3.5
+     */
+    public final void merge(final AggregationOperator other) {
+        checkSupportsMerge();
+        if (other == null) {
+            throw new NullPointerException("operator must not be null");
+        }
+        if (!getClass().equals(other.getClass())) {
+            throw new IllegalArgumentException("Operator '" + other.getLabel()
+                + "' can not be merged into operator '" + getLabel() + "'");
+        }
+        m_missingValuesCount += other.m_missingValuesCount;
+        if (m_skipped) {
+            return;
+        }
+        if (other.m_skipped) {
+            m_skipped = true;
+            m_skipMsg = other.m_skipMsg;
+            return;
+        }
+        m_skipped = mergeInternal(other);
+    }
+
+    /**
+     * Override this method if the operator supports merging. The given
+     * operator is of the same class as this operator and neither of both has
+     * been skipped.
+     *
+     * @param other the operator whose partial result should be combined with
+     * the partial result of this operator
+     * @return <code>true</code> if this column should be skipped in further
+     * calculations
+     * @see #supportsMerge()
+     * @since 3.5
+     */
+    protected boolean mergeInternal(final AggregationOperator other) {
+        throw new UnsupportedOperationException(
+            "Operator '" + getLabel() + "' does not support merging");
+    }
+
+    /**
+     * Saves the partial result of this operator. The saved state can be
+     * loaded into a new instance of this operator that was created with the
+     * same settings using the {@link #loadPartialState(ModelContentRO)}
+     * method e.g. to merge partial results computed in another process.
+     *
+     * @param content the {@link ModelContentWO} to write to
+     * @throws UnsupportedOperationException if this operator does not support
+     * merging
+     * @see #supportsMerge()
+     * @since 3.5
+     */
+    public final void savePartialState(final ModelContentWO content) {
+        checkSupportsMerge();
+        content.addBoolean(CFG_SKIPPED, m_skipped);
+        content.addString(CFG_SKIP_MSG, m_skipMsg);
+        content.addLong(CFG_MISSING_COUNT, m_missingValuesCount);
+        savePartialStateInternal(content.addModelContent(CFG_OPERATOR_STATE));
+    }
+
+    /**
+     * Replaces the partial result of this operator with the one saved by the
+     * {@link #savePartialState(ModelContentWO)} method.
+     *
+     * @param content the {@link ModelContentRO} to read from
+     * @throws InvalidSettingsException if the content is invalid
+     * @throws UnsupportedOperationException if this operator does not support
+     * merging
+     * @see #supportsMerge()
+     * @since 3.5
+     */
+    public final void loadPartialState(final ModelContentRO content) throws InvalidSettingsException {
+        checkSupportsMerge();
+        reset();
+        m_skipped = content.getBoolean(CFG_SKIPPED);
+        m_skipMsg = content.getString(CFG_SKIP_MSG);
+        m_missingValuesCount = content.getLong(CFG_MISSING_COUNT);
+        loadPartialStateInternal(content.getModelContent(CFG_OPERATOR_STATE));
+    }
+
+    /**
+     * Override this method if the operator supports merging.
+     *
+     * @param content the {@link ModelContentWO} to write the operator
+     * specific partial result to
+     * @see #supportsMerge()
+     * @since 3.5
+     */
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        throw new UnsupportedOperationException(
+            "Operator '" + getLabel() + "' does not support merging");
+    }
+
+    /**
+     * Override this method if the operator supports merging. The operator
+     * has been reset prior calling this method.
+     *
+     * @param content the {@link ModelContentRO} to read the operator
+     * specific partial result from
+     * @throws InvalidSettingsException if the content is invalid
+     * @see #supportsMerge()
+     * @since 3.5
+     */
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        throw new UnsupportedOperationException(
+            "Operator '" + getLabel() + "' does not support merging");
+    }
+
+    private void checkSupportsMerge() {
+        if (!supportsMerge()) {
+            throw new UnsupportedOperationException(
+                "Operator '" + getLabel() + "' does not support merging");
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
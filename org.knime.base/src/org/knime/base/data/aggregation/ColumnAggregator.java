@@ -189,6 +189,17 @@ public void reset() {
         m_operator = null;
     }
 
+    /**
+     * @return <code>true</code> if the partial results of the operators
+     * created by this aggregator can be combined
+     * @see AggregationOperator#supportsMerge()
+     * @since 3.5
+     */
+    public boolean supportsMerge() {
+        final AggregationMethod method = getMethodTemplate();
+        return method instanceof AggregationOperator && ((AggregationOperator)method).supportsMerge();
+    }
+
     /**
      * @return the column name that should be used for the operator
      */
@@ -45,6 +45,7 @@
 
 package org.knime.base.data.aggregation.collection;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -60,6 +61,9 @@
 import org.knime.core.data.collection.CollectionCellFactory;
 import org.knime.core.data.collection.CollectionDataValue;
 import org.knime.core.data.collection.SetCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
 
 /**
@@ -180,6 +184,57 @@ protected void resetInternal() {
         m_containsMissing = false;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final AndElementOperator operator = (AndElementOperator)other;
+        if (operator.m_containsMissing) {
+            m_vals.clear();
+            m_containsMissing = true;
+            m_first = false;
+        } else if (!operator.m_first && (m_first || !m_vals.isEmpty())) {
+            if (m_first) {
+                //the size limit has already been checked by the other operator
+                m_vals.addAll(operator.m_vals);
+                m_first = false;
+            } else {
+                //keep only the matching ones
+                m_vals.retainAll(operator.m_vals);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        content.addDataCellArray("values", m_vals.toArray(new DataCell[0]));
+        content.addBoolean("first", m_first);
+        content.addBoolean("containsMissing", m_containsMissing);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        m_vals.addAll(Arrays.asList(content.getDataCellArray("values")));
+        m_first = content.getBoolean("first");
+        m_containsMissing = content.getBoolean("containsMissing");
+    }
+
     /**
      * {@inheritDoc}
      */
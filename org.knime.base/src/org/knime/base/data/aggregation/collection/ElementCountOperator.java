@@ -53,6 +53,9 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.collection.CollectionDataValue;
 import org.knime.core.data.def.IntCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
 
 /**
@@ -134,6 +137,40 @@ protected void resetInternal() {
         m_counter = 0;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final ElementCountOperator operator = (ElementCountOperator)other;
+        m_counter += operator.m_counter;
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        content.addInt("counter", m_counter);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        m_counter = content.getInt("counter");
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -45,6 +45,7 @@
 
 package org.knime.base.data.aggregation.collection;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
@@ -59,6 +60,9 @@
 import org.knime.core.data.collection.CollectionCellFactory;
 import org.knime.core.data.collection.CollectionDataValue;
 import org.knime.core.data.collection.SetCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
 
 /**
@@ -162,6 +166,51 @@ protected void resetInternal() {
         m_vals.clear();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final OrElementOperator operator = (OrElementOperator)other;
+        for (final DataCell valCell : operator.m_vals) {
+            if (m_vals.contains(valCell)) {
+                continue;
+            }
+            //check if the set contains more values than allowed
+            //before adding a new value
+            if (m_vals.size() >= getMaxUniqueValues()) {
+                setSkipMessage("Group contains too many unique values");
+                return true;
+            }
+            m_vals.add(valCell);
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        content.addDataCellArray("values", m_vals.toArray(new DataCell[0]));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        m_vals.addAll(Arrays.asList(content.getDataCellArray("values")));
+    }
+
     /**
      * {@inheritDoc}
      */
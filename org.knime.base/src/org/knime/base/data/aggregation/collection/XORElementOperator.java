@@ -45,6 +45,7 @@
 
 package org.knime.base.data.aggregation.collection;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -60,6 +61,9 @@
 import org.knime.core.data.collection.CollectionCellFactory;
 import org.knime.core.data.collection.CollectionDataValue;
 import org.knime.core.data.collection.SetCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
 
 /**
@@ -166,6 +170,56 @@ protected void resetInternal() {
         m_allVals.clear();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final XORElementOperator operator = (XORElementOperator)other;
+        for (final DataCell valCell : operator.m_allVals) {
+            if (m_allVals.add(valCell)) {
+                if (operator.m_vals.contains(valCell)) {
+                    //check if the set contains more values than allowed before adding a new value
+                    if (m_vals.size() + 1 >= getMaxUniqueValues()) {
+                        setSkipMessage("Group contains too many unique values");
+                        return true;
+                    }
+                    m_vals.add(valCell);
+                }
+            } else {
+                //the element is contained in both operators->remove it from the values
+                m_vals.remove(valCell);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        content.addDataCellArray("values", m_vals.toArray(new DataCell[0]));
+        content.addDataCellArray("allValues", m_allVals.toArray(new DataCell[0]));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        m_vals.addAll(Arrays.asList(content.getDataCellArray("values")));
+        m_allVals.addAll(Arrays.asList(content.getDataCellArray("allValues")));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -53,6 +53,9 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.date.DateAndTimeCell;
 import org.knime.core.data.date.DateAndTimeValue;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
 
 /**
@@ -154,6 +157,57 @@ protected void resetInternal() {
         m_hasMilis = false;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final DateMeanOperator operator = (DateMeanOperator)other;
+        if (operator.m_count == 0) {
+            return false;
+        }
+        m_hasDate |= operator.m_hasDate;
+        m_hasTime |= operator.m_hasTime;
+        m_hasMilis |= operator.m_hasMilis;
+        final int count = m_count + operator.m_count;
+        m_mean = m_mean * ((double)m_count / count)
+            + operator.m_mean * ((double)operator.m_count / count);
+        m_count = count;
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        content.addInt("count", m_count);
+        content.addDouble("mean", m_mean);
+        content.addBoolean("hasDate", m_hasDate);
+        content.addBoolean("hasTime", m_hasTime);
+        content.addBoolean("hasMillis", m_hasMilis);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        m_count = content.getInt("count");
+        m_mean = content.getDouble("mean");
+        m_hasDate = content.getBoolean("hasDate");
+        m_hasTime = content.getBoolean("hasTime");
+        m_hasMilis = content.getBoolean("hasMillis");
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -55,6 +55,9 @@
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValueComparator;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
 /**
  * Abstract base class for range aggregation operators that perform calculations using the minimal and the maximal
@@ -87,6 +90,55 @@ protected AbstractRangeOperator(final DataType inType, final OperatorData operat
         m_comparator = inType.getComparator();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final AbstractRangeOperator operator = (AbstractRangeOperator)other;
+        if (operator.m_min == null || operator.m_max == null) {
+            return false;
+        }
+        if (m_min == null || m_max == null) {
+            m_min = operator.m_min;
+            m_max = operator.m_max;
+            return false;
+        }
+        if (m_comparator.compare(m_min, operator.m_min) > 0) {
+            m_min = operator.m_min;
+        }
+        if (m_comparator.compare(m_max, operator.m_max) < 0) {
+            m_max = operator.m_max;
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        content.addDataCell("minimum", m_min);
+        content.addDataCell("maximum", m_max);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        m_min = content.getDataCell("minimum");
+        m_max = content.getDataCell("maximum");
+    }
+
     /**
      * {@inheritDoc}
      */
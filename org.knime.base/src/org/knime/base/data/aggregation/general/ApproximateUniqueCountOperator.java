@@ -0,0 +1,399 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.base.data.aggregation.general;
+
+import java.awt.Component;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.knime.base.data.aggregation.AggregationOperator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.OperatorColumnSettings;
+import org.knime.base.data.aggregation.OperatorData;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValue;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+
+/**
+ * Returns the approximate number of distinct values per group using the
+ * HyperLogLog algorithm. In contrast to the {@link UniqueCountOperator} the
+ * memory required per group is bounded by 2^precision bytes independent of
+ * the number of distinct values. Small groups are counted exactly until the
+ * number of distinct values exceeds a small fraction of the register size.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.5
+ */
+public class ApproximateUniqueCountOperator extends AggregationOperator {
+
+    private static final int MIN_PRECISION = 4;
+
+    private static final int MAX_PRECISION = 18;
+
+    /**Default precision which results in a standard error of about 0.8%.*/
+    private static final int DEFAULT_PRECISION = 14;
+
+    private final SettingsModelIntegerBounded m_precision =
+            new SettingsModelIntegerBounded("precision", DEFAULT_PRECISION, MIN_PRECISION, MAX_PRECISION);
+
+    private DialogComponentNumber m_precisionComponent;
+
+    /**The hashes of the distinct values as long as the group is small.*/
+    private Set<Long> m_hashes = new HashSet<>();
+
+    /**The HyperLogLog registers once the group has become too large.*/
+    private byte[] m_registers;
+
+    /**Constructor for class ApproximateUniqueCountOperator.
+     * @param operatorData the operator data
+     * @param globalSettings the global settings
+     * @param opColSettings the operator column specific settings
+     */
+    protected ApproximateUniqueCountOperator(final OperatorData operatorData, final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings) {
+        super(operatorData, globalSettings, opColSettings);
+    }
+
+    /**Constructor for class ApproximateUniqueCountOperator.
+     * @param globalSettings the global settings
+     * @param opColSettings the operator column specific settings
+     */
+    public ApproximateUniqueCountOperator(final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings) {
+        this(new OperatorData("Unique count (approximate)", "Approx. unique count", false, false, DataValue.class,
+            true), globalSettings, opColSettings);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AggregationOperator createInstance(final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings) {
+        final ApproximateUniqueCountOperator operator =
+                new ApproximateUniqueCountOperator(getOperatorData(), globalSettings, opColSettings);
+        operator.m_precision.setIntValue(m_precision.getIntValue());
+        return operator;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataType getDataType(final DataType origType) {
+        return LongCell.TYPE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean computeInternal(final DataCell cell) {
+        add(hash(cell));
+        return false;
+    }
+
+    private void add(final long hash) {
+        if (m_registers != null) {
+            addToRegisters(hash);
+        } else if (m_hashes.add(hash) && m_hashes.size() > getMaxExactValues()) {
+            //storing the hashes requires more memory than the registers
+            m_registers = new byte[1 << m_precision.getIntValue()];
+            for (final Long h : m_hashes) {
+                addToRegisters(h);
+            }
+            m_hashes = null;
+        }
+    }
+
+    private void addToRegisters(final long hash) {
+        final int precision = m_precision.getIntValue();
+        final int idx = (int)(hash >>> (Long.SIZE - precision));
+        final int rank = Math.min(Long.numberOfLeadingZeros(hash << precision) + 1, Long.SIZE - precision + 1);
+        if (m_registers[idx] < rank) {
+            m_registers[idx] = (byte)rank;
+        }
+    }
+
+    private int getMaxExactValues() {
+        //a boxed long in a hash set requires about 64 bytes
+        return (1 << m_precision.getIntValue()) / 64;
+    }
+
+    /**
+     * Computes a 64 bit hash of the cell's value for numbers and strings. Other cells are hashed via
+     * {@link DataCell#hashCode()}, which is consistent with equals but has only 32 bits, so the estimate for such
+     * cells becomes increasingly biased towards lower counts beyond about 10^8 distinct values.
+     *
+     * @param cell the cell to hash
+     * @return a 64 bit hash of the given cell, equal cells (as of {@link DataCell#equals(Object)}) have the same
+     *         hash
+     */
+    static long hash(final DataCell cell) {
+        long h;
+        if (cell instanceof LongValue) {
+            h = ((LongValue)cell).getLongValue();
+        } else if (cell instanceof DoubleValue) {
+            final double d = ((DoubleValue)cell).getDoubleValue();
+            //0.0 and -0.0 are equal, all NaNs are mapped to the same bits
+            h = d == 0 ? 0 : Double.doubleToLongBits(d);
+        } else if (cell instanceof StringValue) {
+            //FNV-1a hash of the string, which is what string cells are compared by
+            final String str = ((StringValue)cell).getStringValue();
+            h = 0xcbf29ce484222325L;
+            for (int i = 0, length = str.length(); i < length; i++) {
+                h ^= str.charAt(i);
+                h *= 0x100000001b3L;
+            }
+        } else {
+            //not the string representation, which may be the same for distinct cells
+            h = cell.hashCode();
+        }
+        //MurmurHash3 finalizer to spread the bits
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataCell getResultInternal() {
+        if (m_registers == null) {
+            return new LongCell(m_hashes.size());
+        }
+        final int m = m_registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (final byte rank : m_registers) {
+            sum += Math.scalb(1.0, -rank);
+            if (rank == 0) {
+                zeros++;
+            }
+        }
+        final double alpha;
+        if (m == 16) {
+            alpha = 0.673;
+        } else if (m == 32) {
+            alpha = 0.697;
+        } else if (m == 64) {
+            alpha = 0.709;
+        } else {
+            alpha = 0.7213 / (1 + 1.079 / m);
+        }
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            //small range correction
+            estimate = m * Math.log((double)m / zeros);
+        }
+        return new LongCell(Math.round(estimate));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void resetInternal() {
+        m_hashes = new HashSet<>();
+        m_registers = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final ApproximateUniqueCountOperator operator = (ApproximateUniqueCountOperator)other;
+        if (operator.m_registers == null) {
+            for (final Long h : operator.m_hashes) {
+                add(h);
+            }
+            return false;
+        }
+        if (m_registers == null) {
+            m_registers = operator.m_registers.clone();
+            for (final Long h : m_hashes) {
+                addToRegisters(h);
+            }
+            m_hashes = null;
+            return false;
+        }
+        for (int i = 0; i < m_registers.length; i++) {
+            m_registers[i] = (byte)Math.max(m_registers[i], operator.m_registers[i]);
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        if (m_registers == null) {
+            final long[] hashes = new long[m_hashes.size()];
+            int i = 0;
+            for (final Long h : m_hashes) {
+                hashes[i++] = h;
+            }
+            content.addLongArray("hashes", hashes);
+        } else {
+            content.addByteArray("registers", m_registers);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        if (content.containsKey("registers")) {
+            final byte[] registers = content.getByteArray("registers");
+            if (registers.length != 1 << m_precision.getIntValue()) {
+                throw new InvalidSettingsException("Partial state has been created with a different precision");
+            }
+            m_registers = registers;
+            m_hashes = null;
+        } else {
+            for (final long h : content.getLongArray("hashes")) {
+                m_hashes.add(h);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasOptionalSettings() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Component getSettingsPanel() {
+        return getPrecisionComponent().getComponentPanel();
+    }
+
+    private DialogComponentNumber getPrecisionComponent() {
+        if (m_precisionComponent == null) {
+            m_precisionComponent = new DialogComponentNumber(m_precision, "Precision: ", 1);
+            m_precisionComponent.setToolTipText("The standard error is about 1.04 / sqrt(2^precision) and "
+                + "each group requires up to 2^precision bytes");
+        }
+        return m_precisionComponent;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSpec spec)
+        throws NotConfigurableException {
+        getPrecisionComponent().loadSettingsFrom(settings, new DataTableSpec[]{spec});
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void loadValidatedSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_precision.loadSettingsFrom(settings);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveSettingsTo(final NodeSettingsWO settings) {
+        m_precision.saveSettingsTo(settings);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_precision.validateSettings(settings);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDescription() {
+        return "Estimates the number of distinct values per group using the HyperLogLog algorithm. "
+            + "Requires at most 2^precision bytes per group. The standard error is about "
+            + "1.04 / sqrt(2^precision), e.g. 0.8% for the default precision of " + DEFAULT_PRECISION + ". "
+            + "Values other than numbers and strings are hashed with 32 bits only, which underestimates counts "
+            + "beyond about 100 million distinct values.";
+    }
+}
@@ -54,6 +54,9 @@
 import org.knime.core.data.DataValue;
 import org.knime.core.data.DataValueComparator;
 import org.knime.core.data.def.DoubleCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
 /**
  * Returns the maximum per group.
@@ -147,6 +150,43 @@ protected void resetInternal() {
         m_maxVal = null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final MaxOperator operator = (MaxOperator)other;
+        final DataCell maxVal = operator.m_maxVal;
+        if (maxVal != null && (m_maxVal == null || m_comparator.compare(maxVal, m_maxVal) > 0)) {
+            m_maxVal = maxVal;
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        content.addDataCell("maximum", m_maxVal);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        m_maxVal = content.getDataCell("maximum");
+    }
+
     /**
      * {@inheritDoc}
      */
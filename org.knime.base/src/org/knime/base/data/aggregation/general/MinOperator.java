@@ -54,6 +54,9 @@
 import org.knime.core.data.DataValue;
 import org.knime.core.data.DataValueComparator;
 import org.knime.core.data.def.DoubleCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
 /**
  * Returns the minimum per group.
@@ -146,6 +149,43 @@ protected void resetInternal() {
         m_minVal = null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final MinOperator operator = (MinOperator)other;
+        final DataCell minVal = operator.m_minVal;
+        if (minVal != null && (m_minVal == null || m_comparator.compare(minVal, m_minVal) < 0)) {
+            m_minVal = minVal;
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        content.addDataCell("minimum", m_minVal);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        m_minVal = content.getDataCell("minimum");
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -52,6 +52,7 @@
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValue;
+import org.knime.core.data.MissingCell;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
 
@@ -113,6 +114,10 @@ protected DataType getDataType(final DataType origType) {
     @Override
     protected DataCell getResultInternal() {
         final long itemCount = getGlobalSettings().getNoOfItems();
+        if (itemCount < 0) {
+            //e.g. the number of rows if the input is streamed
+            return new MissingCell("Percentage not available as the total number of rows is unknown");
+        }
         if (itemCount == 0) {
             return ZERO_PERCENTAGE;
         }
@@ -127,6 +132,7 @@ protected DataCell getResultInternal() {
      */
     @Override
     public String getDescription() {
-        return "Number of group members in percentage.";
+        return "Number of group members in percentage. Missing if the total number of rows is unknown, e.g. "
+            + "if the input is streamed.";
     }
 }
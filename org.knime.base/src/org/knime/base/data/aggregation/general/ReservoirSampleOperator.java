@@ -0,0 +1,304 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.base.data.aggregation.general;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.knime.base.data.aggregation.AggregationOperator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.OperatorColumnSettings;
+import org.knime.base.data.aggregation.OperatorData;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValue;
+import org.knime.core.data.collection.CollectionCellFactory;
+import org.knime.core.data.collection.ListCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+
+/**
+ * Returns a {@link ListCell} with a uniform random sample of fixed size per
+ * group. In contrast to the {@link ListCellOperator} the memory required per
+ * group is bounded by the sample size. The sample is drawn using reservoir
+ * sampling with a fixed seed in order to get reproducible results.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.5
+ */
+public class ReservoirSampleOperator extends AggregationOperator {
+
+    //use a fixed seed to get reproducible results
+    private static final long SEED = 0x5DEECE66DL;
+
+    private final SettingsModelIntegerBounded m_sampleSize =
+            new SettingsModelIntegerBounded("sampleSize", 100, 1, Integer.MAX_VALUE);
+
+    private DialogComponentNumber m_sampleSizeComponent;
+
+    private final List<DataCell> m_sample = new ArrayList<>();
+
+    private final Random m_random = new Random(SEED);
+
+    /**The number of cells the sample has been drawn from.*/
+    private long m_count;
+
+    /**Constructor for class ReservoirSampleOperator.
+     * @param operatorData the operator data
+     * @param globalSettings the global settings
+     * @param opColSettings the operator column specific settings
+     */
+    protected ReservoirSampleOperator(final OperatorData operatorData, final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings) {
+        super(operatorData, globalSettings, opColSettings);
+    }
+
+    /**Constructor for class ReservoirSampleOperator.
+     * @param globalSettings the global settings
+     * @param opColSettings the operator column specific settings
+     */
+    public ReservoirSampleOperator(final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings) {
+        this(new OperatorData("List (random sample)", "Sample", false, false, DataValue.class, true),
+            globalSettings, opColSettings);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AggregationOperator createInstance(final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings) {
+        final ReservoirSampleOperator operator =
+                new ReservoirSampleOperator(getOperatorData(), globalSettings, opColSettings);
+        operator.m_sampleSize.setIntValue(m_sampleSize.getIntValue());
+        return operator;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataType getDataType(final DataType origType) {
+        return ListCell.getCollectionType(origType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean computeInternal(final DataCell cell) {
+        m_count++;
+        if (m_sample.size() < m_sampleSize.getIntValue()) {
+            m_sample.add(cell);
+        } else {
+            final long idx = (long)(m_random.nextDouble() * m_count);
+            if (idx < m_sample.size()) {
+                m_sample.set((int)idx, cell);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataCell getResultInternal() {
+        if (m_sample.isEmpty()) {
+            return DataType.getMissingCell();
+        }
+        return CollectionCellFactory.createListCell(m_sample);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void resetInternal() {
+        m_sample.clear();
+        m_random.setSeed(SEED);
+        m_count = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * Draws the merged sample from both samples where the probability to pick
+     * a cell of a sample is proportional to the number of cells the sample
+     * still represents.
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final ReservoirSampleOperator operator = (ReservoirSampleOperator)other;
+        if (operator.m_count == 0) {
+            return false;
+        }
+        final List<DataCell> sample1 = new ArrayList<>(m_sample);
+        final List<DataCell> sample2 = new ArrayList<>(operator.m_sample);
+        long count1 = m_count;
+        long count2 = operator.m_count;
+        final int size = (int)Math.min(m_sampleSize.getIntValue(), count1 + count2);
+        m_sample.clear();
+        while (m_sample.size() < size) {
+            final List<DataCell> source;
+            if (sample2.isEmpty() || (!sample1.isEmpty() && m_random.nextDouble() * (count1 + count2) < count1)) {
+                source = sample1;
+                count1--;
+            } else {
+                source = sample2;
+                count2--;
+            }
+            //remove a random cell in constant time
+            final int idx = m_random.nextInt(source.size());
+            final DataCell cell = source.get(idx);
+            source.set(idx, source.get(source.size() - 1));
+            source.remove(source.size() - 1);
+            m_sample.add(cell);
+        }
+        m_count += operator.m_count;
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        content.addLong("count", m_count);
+        content.addDataCellArray("sample", m_sample.toArray(new DataCell[0]));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        m_count = content.getLong("count");
+        m_sample.addAll(Arrays.asList(content.getDataCellArray("sample")));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasOptionalSettings() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Component getSettingsPanel() {
+        return getSampleSizeComponent().getComponentPanel();
+    }
+
+    private DialogComponentNumber getSampleSizeComponent() {
+        if (m_sampleSizeComponent == null) {
+            m_sampleSizeComponent = new DialogComponentNumber(m_sampleSize, "Sample size: ", 10);
+        }
+        return m_sampleSizeComponent;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSpec spec)
+        throws NotConfigurableException {
+        getSampleSizeComponent().loadSettingsFrom(settings, new DataTableSpec[]{spec});
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void loadValidatedSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_sampleSize.loadSettingsFrom(settings);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveSettingsTo(final NodeSettingsWO settings) {
+        m_sampleSize.saveSettingsTo(settings);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_sampleSize.validateSettings(settings);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDescription() {
+        return "Creates a ListCell that contains a uniform random sample of the group members. "
+            + "The sample contains all members if the group is smaller than the sample size.";
+    }
+}
@@ -45,6 +45,7 @@
 
 package org.knime.base.data.aggregation.general;
 
+import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -57,6 +58,9 @@
 import org.knime.core.data.DataValue;
 import org.knime.core.data.collection.CollectionCellFactory;
 import org.knime.core.data.collection.SetCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
 /**
  * Returns all values as a {@link SetCell} per group.
@@ -151,6 +155,51 @@ protected void resetInternal() {
         m_cells.clear();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final SetCellOperator operator = (SetCellOperator)other;
+        for (final DataCell cell : operator.m_cells) {
+            if (m_cells.contains(cell)) {
+                continue;
+            }
+            //check if the set contains more values than allowed
+            //before adding the new value
+            if (m_cells.size() >= getMaxUniqueValues()) {
+                setSkipMessage("Group contains too many unique values");
+                return true;
+            }
+            m_cells.add(cell);
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        content.addDataCellArray("members", m_cells.toArray(new DataCell[0]));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        m_cells.addAll(Arrays.asList(content.getDataCellArray("members")));
+    }
+
     /**
      * {@inheritDoc}
      */
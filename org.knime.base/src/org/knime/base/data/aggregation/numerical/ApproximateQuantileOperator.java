@@ -0,0 +1,508 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.base.data.aggregation.numerical;
+
+import java.awt.Component;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.swing.BoxLayout;
+import javax.swing.JPanel;
+
+import org.knime.base.data.aggregation.AggregationOperator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.OperatorColumnSettings;
+import org.knime.base.data.aggregation.OperatorData;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
+import org.knime.core.node.defaultnodesettings.SettingsModelDoubleBounded;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+
+/**
+ * Returns an approximation of the pth percentile per group using a KLL
+ * quantile sketch. The sketch holds a bounded number of values per group which
+ * is determined by the sketch size and not by the number of group members.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.5
+ */
+public class ApproximateQuantileOperator extends AggregationOperator {
+
+    private static final DataType TYPE = DoubleCell.TYPE;
+
+    /**Default sketch size which results in a rank error of about 1.65%.*/
+    private static final int DEFAULT_SKETCH_SIZE = 200;
+
+    private final SettingsModelDoubleBounded m_percentile =
+            new SettingsModelDoubleBounded("percentile", 50, 0, 100);
+
+    private final SettingsModelIntegerBounded m_sketchSize =
+            new SettingsModelIntegerBounded("sketchSize", DEFAULT_SKETCH_SIZE, 8, Short.MAX_VALUE);
+
+    private DialogComponentNumber m_percentileComponent;
+
+    private DialogComponentNumber m_sketchSizeComponent;
+
+    private QuantileSketch m_sketch;
+
+    /**Constructor for class ApproximateQuantileOperator.
+     * @param operatorData the operator data
+     * @param globalSettings the global settings
+     * @param opColSettings the operator column specific settings
+     */
+    protected ApproximateQuantileOperator(final OperatorData operatorData, final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings) {
+        super(operatorData, globalSettings, opColSettings);
+    }
+
+    /**Constructor for class ApproximateQuantileOperator.
+     * @param globalSettings the global settings
+     * @param opColSettings the operator column specific settings
+     */
+    public ApproximateQuantileOperator(final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings) {
+        this(new OperatorData("Percentile (approximate)", "Approx. percentile", false, false, DoubleValue.class,
+            false), globalSettings, AggregationOperator.setInclMissingFlag(opColSettings, false));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AggregationOperator createInstance(final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings) {
+        final ApproximateQuantileOperator operator =
+                new ApproximateQuantileOperator(getOperatorData(), globalSettings, opColSettings);
+        operator.m_percentile.setDoubleValue(m_percentile.getDoubleValue());
+        operator.m_sketchSize.setIntValue(m_sketchSize.getIntValue());
+        return operator;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getColumnLabel() {
+        return m_percentile.getDoubleValue() + "-approx. percentile";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataType getDataType(final DataType origType) {
+        return TYPE;
+    }
+
+    private QuantileSketch getSketch() {
+        if (m_sketch == null) {
+            m_sketch = new QuantileSketch(m_sketchSize.getIntValue());
+        }
+        return m_sketch;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean computeInternal(final DataCell cell) {
+        getSketch().update(((DoubleValue)cell).getDoubleValue());
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataCell getResultInternal() {
+        if (m_sketch == null || m_sketch.getCount() == 0) {
+            return DataType.getMissingCell();
+        }
+        return new DoubleCell(m_sketch.getQuantile(m_percentile.getDoubleValue() / 100));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void resetInternal() {
+        m_sketch = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final ApproximateQuantileOperator operator = (ApproximateQuantileOperator)other;
+        if (operator.m_sketch != null) {
+            getSketch().merge(operator.m_sketch);
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        getSketch().save(content);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        getSketch().load(content);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasOptionalSettings() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Component getSettingsPanel() {
+        final JPanel panel = new JPanel();
+        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+        panel.add(getPercentileComponent().getComponentPanel());
+        panel.add(getSketchSizeComponent().getComponentPanel());
+        return panel;
+    }
+
+    private DialogComponentNumber getPercentileComponent() {
+        if (m_percentileComponent == null) {
+            m_percentileComponent = new DialogComponentNumber(m_percentile, "Percentile: ", 10);
+        }
+        return m_percentileComponent;
+    }
+
+    private DialogComponentNumber getSketchSizeComponent() {
+        if (m_sketchSizeComponent == null) {
+            m_sketchSizeComponent = new DialogComponentNumber(m_sketchSize, "Sketch size: ", 50);
+            m_sketchSizeComponent.setToolTipText("Larger sketches are more accurate but require more memory. "
+                + "A size of 200 results in a rank error of about 1.65%");
+        }
+        return m_sketchSizeComponent;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSpec spec)
+        throws NotConfigurableException {
+        final DataTableSpec[] specs = new DataTableSpec[]{spec};
+        getPercentileComponent().loadSettingsFrom(settings, specs);
+        getSketchSizeComponent().loadSettingsFrom(settings, specs);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void loadValidatedSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_percentile.loadSettingsFrom(settings);
+        m_sketchSize.loadSettingsFrom(settings);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveSettingsTo(final NodeSettingsWO settings) {
+        m_percentile.saveSettingsTo(settings);
+        m_sketchSize.saveSettingsTo(settings);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_percentile.validateSettings(settings);
+        m_sketchSize.validateSettings(settings);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDescription() {
+        return "Approximates the pth percentile per group using a KLL quantile sketch which requires a bounded "
+            + "amount of memory per group. The default sketch size of " + DEFAULT_SKETCH_SIZE
+            + " results in a rank error of about 1.65%. The 0th and 100th percentile are exact.";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDetailedDescription() {
+        return getDescription() + " For details see <a href=\"https://arxiv.org/abs/1603.05346\">"
+            + "Karnin, Lang, Liberty: Optimal Quantile Approximation in Streams</a>.";
+    }
+
+    /**
+     * KLL sketch that stores the values in a hierarchy of compactors. Each
+     * value in level h represents 2^h values of the input. A level that
+     * exceeds its capacity is sorted and every other value is promoted to the
+     * next level.
+     */
+    static final class QuantileSketch {
+
+        private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+        private static final int MIN_CAPACITY = 2;
+
+        //use a fixed seed to get reproducible results
+        private static final long SEED = 0x5DEECE66DL;
+
+        private final int m_k;
+
+        private final Random m_random = new Random(SEED);
+
+        private double[][] m_levels = new double[1][];
+
+        private int[] m_sizes = new int[1];
+
+        private long m_count;
+
+        private double m_min = Double.NaN;
+
+        private double m_max = Double.NaN;
+
+        /**
+         * @param k the capacity of the top level
+         */
+        QuantileSketch(final int k) {
+            m_k = k;
+        }
+
+        /**
+         * @return the number of values added to this sketch
+         */
+        long getCount() {
+            return m_count;
+        }
+
+        /**
+         * @param value the value to add
+         */
+        void update(final double value) {
+            if (m_count == 0) {
+                m_min = value;
+                m_max = value;
+            } else {
+                m_min = Math.min(m_min, value);
+                m_max = Math.max(m_max, value);
+            }
+            m_count++;
+            append(0, value);
+            compress();
+        }
+
+        /**
+         * @param other the sketch to merge into this sketch
+         */
+        void merge(final QuantileSketch other) {
+            if (other.m_count == 0) {
+                return;
+            }
+            if (m_count == 0) {
+                m_min = other.m_min;
+                m_max = other.m_max;
+            } else {
+                m_min = Math.min(m_min, other.m_min);
+                m_max = Math.max(m_max, other.m_max);
+            }
+            m_count += other.m_count;
+            for (int level = 0; level < other.m_levels.length; level++) {
+                for (int i = 0; i < other.m_sizes[level]; i++) {
+                    append(level, other.m_levels[level][i]);
+                }
+            }
+            compress();
+        }
+
+        /**
+         * @param fraction the quantile between 0 and 1
+         * @return the approximate quantile
+         */
+        double getQuantile(final double fraction) {
+            if (fraction <= 0) {
+                return m_min;
+            }
+            if (fraction >= 1) {
+                return m_max;
+            }
+            int size = 0;
+            for (final int s : m_sizes) {
+                size += s;
+            }
+            //pack the values and their level to sort them together
+            final double[] values = new double[size];
+            final int[] levels = new int[size];
+            final Integer[] order = new Integer[size];
+            int idx = 0;
+            for (int level = 0; level < m_levels.length; level++) {
+                for (int i = 0; i < m_sizes[level]; i++) {
+                    values[idx] = m_levels[level][i];
+                    levels[idx] = level;
+                    order[idx] = idx;
+                    idx++;
+                }
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+            final double rank = fraction * m_count;
+            long weight = 0;
+            for (final Integer i : order) {
+                weight += 1L << levels[i];
+                if (weight >= rank) {
+                    return values[i];
+                }
+            }
+            return m_max;
+        }
+
+        private int getCapacity(final int level) {
+            final int depth = m_levels.length - level - 1;
+            return Math.max(MIN_CAPACITY, (int)Math.ceil(m_k * Math.pow(CAPACITY_DECAY, depth)));
+        }
+
+        private void append(final int level, final double value) {
+            if (level >= m_levels.length) {
+                m_levels = Arrays.copyOf(m_levels, level + 1);
+                m_sizes = Arrays.copyOf(m_sizes, level + 1);
+            }
+            double[] values = m_levels[level];
+            if (values == null) {
+                values = new double[getCapacity(level) + 1];
+                m_levels[level] = values;
+            } else if (m_sizes[level] == values.length) {
+                values = Arrays.copyOf(values, Math.max(2 * values.length, getCapacity(level) + 1));
+                m_levels[level] = values;
+            }
+            values[m_sizes[level]++] = value;
+        }
+
+        private void compress() {
+            for (int level = 0; level < m_levels.length; level++) {
+                if (m_sizes[level] > getCapacity(level)) {
+                    compact(level);
+                }
+            }
+        }
+
+        private void compact(final int level) {
+            final double[] values = m_levels[level];
+            final int size = m_sizes[level];
+            Arrays.sort(values, 0, size);
+            //an odd value stays in the current level
+            final int keep = size % 2;
+            for (int i = keep + (m_random.nextBoolean() ? 1 : 0); i < size; i += 2) {
+                append(level + 1, values[i]);
+            }
+            m_sizes[level] = keep;
+        }
+
+        /**
+         * @param content the content to save the sketch to
+         */
+        void save(final ModelContentWO content) {
+            content.addLong("count", m_count);
+            content.addDouble("min", m_min);
+            content.addDouble("max", m_max);
+            content.addInt("levels", m_levels.length);
+            for (int level = 0; level < m_levels.length; level++) {
+                final double[] values =
+                        m_levels[level] == null ? new double[0] : Arrays.copyOf(m_levels[level], m_sizes[level]);
+                content.addDoubleArray("level_" + level, values);
+            }
+        }
+
+        /**
+         * @param content the content to load the sketch from
+         * @throws InvalidSettingsException if the content is invalid
+         */
+        void load(final ModelContentRO content) throws InvalidSettingsException {
+            final int levels = content.getInt("levels");
+            m_levels = new double[levels][];
+            m_sizes = new int[levels];
+            for (int level = 0; level < levels; level++) {
+                m_levels[level] = content.getDoubleArray("level_" + level);
+                m_sizes[level] = m_levels[level].length;
+            }
+            m_count = content.getLong("count");
+            m_min = content.getDouble("min");
+            m_max = content.getDouble("max");
+        }
+    }
+}
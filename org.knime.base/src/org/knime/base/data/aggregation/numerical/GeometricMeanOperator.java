@@ -53,6 +53,9 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
 import org.knime.core.data.def.DoubleCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
 /**
  * Returns the geometric mean per group.
@@ -136,6 +139,43 @@ protected void resetInternal() {
         m_count = 0;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final GeometricMeanOperator operator = (GeometricMeanOperator)other;
+        m_count += operator.m_count;
+        m_logSum += operator.m_logSum;
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        content.addInt("count", m_count);
+        content.addDouble("logSum", m_logSum);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        m_count = content.getInt("count");
+        m_logSum = content.getDouble("logSum");
+    }
+
     /**
      * {@inheritDoc}
      */
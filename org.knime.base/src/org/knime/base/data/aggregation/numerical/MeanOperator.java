@@ -53,6 +53,9 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
 import org.knime.core.data.def.DoubleCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
 /**
  * Returns the mean per group.
@@ -136,6 +139,48 @@ protected void resetInternal() {
         m_count = 0;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final MeanOperator operator = (MeanOperator)other;
+        if (operator.m_count == 0) {
+            return false;
+        }
+        final int count = m_count + operator.m_count;
+        m_mean = m_mean * ((double)m_count / count)
+                + operator.m_mean * ((double)operator.m_count / count);
+        m_count = count;
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        content.addInt("count", m_count);
+        content.addDouble("mean", m_mean);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        m_count = content.getInt("count");
+        m_mean = content.getDouble("mean");
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -53,6 +53,9 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
 import org.knime.core.data.def.DoubleCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
 /**
  * Returns the product per group.
@@ -137,6 +140,43 @@ protected void resetInternal() {
         m_product = 1;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final ProductOperator operator = (ProductOperator)other;
+        m_valid |= operator.m_valid;
+        m_product *= operator.m_product;
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        content.addBoolean("valid", m_valid);
+        content.addDouble("product", m_product);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        m_valid = content.getBoolean("valid");
+        m_product = content.getDouble("product");
+    }
+
     /**
      * {@inheritDoc}
      */
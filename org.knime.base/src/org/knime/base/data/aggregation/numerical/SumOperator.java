@@ -58,6 +58,9 @@
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.LongCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
 /**
  * Returns the sum per group.
@@ -176,6 +179,43 @@ protected void resetInternal() {
         m_sum = 0;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final SumOperator operator = (SumOperator)other;
+        m_valid |= operator.m_valid;
+        m_sum += operator.m_sum;
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        content.addBoolean("valid", m_valid);
+        content.addDouble("sum", m_sum);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        m_valid = content.getBoolean("valid");
+        m_sum = content.getDouble("sum");
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -53,9 +53,13 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
 import org.knime.core.data.def.DoubleCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
 /**
- * Returns the variance per group.
+ * Returns the variance per group. The variance is computed using Welford's
+ * online algorithm which also allows to combine partial results.
  *
  * @author Tobias Koetter, University of Konstanz
  */
@@ -63,9 +67,10 @@ public class VarianceOperator extends AggregationOperator {
 
     private final DataType m_type = DoubleCell.TYPE;
 
-    private double m_sumSquare = 0;
-    private double m_sum = 0;
     private int m_validCount = 0;
+    private double m_mean = 0;
+    /**Sum of the squared differences from the current mean.*/
+    private double m_m2 = 0;
 
     /**Constructor for class VarianceOperator.
      * @param operatorData the operator data
@@ -113,8 +118,9 @@ public AggregationOperator createInstance(
     protected boolean computeInternal(final DataCell cell) {
         final double d = ((DoubleValue)cell).getDoubleValue();
         m_validCount++;
-        m_sum += d;
-        m_sumSquare += d * d;
+        final double delta = d - m_mean;
+        m_mean += delta / m_validCount;
+        m_m2 += delta * (d - m_mean);
         return false;
     }
 
@@ -129,16 +135,7 @@ protected DataCell getResultInternal() {
         if (m_validCount == 1) {
             return new DoubleCell(0);
         }
-        double variance = (m_sumSquare - ((m_sum * m_sum)
-                / m_validCount)) / (m_validCount - 1);
-        // unreported bug fix: in cases in which a column contains
-        // almost only one value (for instance 1.0) but one single
-        // 'outlier' whose value is, for instance 0.9999998, we get
-        // round-off errors resulting in negative variance values
-        if (variance < 0.0 && variance > -1.0E8) {
-            variance = 0.0;
-        }
-        return new DoubleCell(variance);
+        return new DoubleCell(m_m2 / (m_validCount - 1));
     }
 
     /**
@@ -146,9 +143,54 @@ protected DataCell getResultInternal() {
      */
     @Override
     protected void resetInternal() {
-        m_sumSquare = 0;
-        m_sum = 0;
         m_validCount = 0;
+        m_mean = 0;
+        m_m2 = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator other) {
+        final VarianceOperator operator = (VarianceOperator)other;
+        if (operator.m_validCount == 0) {
+            return false;
+        }
+        final int count = m_validCount + operator.m_validCount;
+        final double delta = operator.m_mean - m_mean;
+        m_mean += delta * operator.m_validCount / count;
+        m_m2 += operator.m_m2 + delta * delta * m_validCount / count * operator.m_validCount;
+        m_validCount = count;
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void savePartialStateInternal(final ModelContentWO content) {
+        content.addInt("count", m_validCount);
+        content.addDouble("mean", m_mean);
+        content.addDouble("m2", m_m2);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void loadPartialStateInternal(final ModelContentRO content) throws InvalidSettingsException {
+        m_validCount = content.getInt("count");
+        m_mean = content.getDouble("mean");
+        m_m2 = content.getDouble("m2");
     }
 
     /**
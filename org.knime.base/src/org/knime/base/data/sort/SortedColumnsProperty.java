@@ -0,0 +1,160 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.base.data.sort;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataTableSpecCreator;
+
+/**
+ * Annotates a {@link DataTableSpec} with the columns its rows are sorted by, using a
+ * {@linkplain DataTableSpec#getProperties() table spec property}. Nodes that sort their output, such as the Sorter,
+ * set the property, nodes that benefit from sorted input, such as the Joiner, may read it.
+ *
+ * <p>The order is the one defined by the {@linkplain org.knime.core.data.DataType#getComparator() comparators} of
+ * the column types, which sort missing values first, and by the string order of the row keys. The property is only a
+ * hint. Nodes that reorder rows but pass on the spec of their input keep the property, so that readers must not rely
+ * on it without verifying the order of the rows they actually process.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.5
+ */
+public final class SortedColumnsProperty {
+
+    /** The key of the table spec property. */
+    public static final String PROPERTY_KEY = "knime.sortedColumns";
+
+    private static final String ENCODING = "UTF-8";
+
+    private SortedColumnsProperty() {
+        // utility class
+    }
+
+    /**
+     * Returns a copy of the given spec that declares the table to be sorted by the given columns.
+     *
+     * @param spec the spec of the sorted table
+     * @param columns the names of the sort columns in the order of their precedence, <code>null</code> elements denote
+     *            the row key
+     * @param ascending the sort direction of each column
+     * @return the annotated spec
+     */
+    public static DataTableSpec setSortedColumns(final DataTableSpec spec, final String[] columns,
+        final boolean[] ascending) {
+        if (columns.length != ascending.length) {
+            throw new IllegalArgumentException("Number of columns and sort directions differ: " + columns.length
+                + " vs. " + ascending.length);
+        }
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                value.append(',');
+            }
+            value.append(ascending[i] ? '+' : '-');
+            // column names are never empty, the empty string stands for the row key
+            value.append(columns[i] == null ? "" : encode(columns[i]));
+        }
+        return new DataTableSpecCreator(spec).putProperty(PROPERTY_KEY, value.toString()).createSpec();
+    }
+
+    /**
+     * Returns a copy of the given spec that does not declare any sort columns, e.g. because the table is sorted in an
+     * order that differs from the one described above.
+     *
+     * @param spec the spec of a table
+     * @return the spec without the property, or the argument if it does not have the property
+     */
+    public static DataTableSpec removeSortedColumns(final DataTableSpec spec) {
+        if (!spec.getProperties().containsKey(PROPERTY_KEY)) {
+            return spec;
+        }
+        Map<String, String> properties = new LinkedHashMap<String, String>(spec.getProperties());
+        properties.remove(PROPERTY_KEY);
+        DataTableSpecCreator creator = new DataTableSpecCreator();
+        creator.setName(spec.getName());
+        creator.addColumns(spec);
+        creator.putProperties(properties);
+        return creator.createSpec();
+    }
+
+    /**
+     * Returns whether the spec declares the table to be sorted ascending by the given columns, i.e. whether they
+     * are, in the same order, a prefix of the declared sort columns and all of them are sorted ascending.
+     *
+     * @param spec the spec of a table
+     * @param columns the names of the columns, <code>null</code> elements denote the row key
+     * @return true if the table is declared to be sorted ascending by the columns
+     */
+    public static boolean isSortedAscendingBy(final DataTableSpec spec, final String[] columns) {
+        String value = spec.getProperties().get(PROPERTY_KEY);
+        if (value == null || columns.length == 0) {
+            return false;
+        }
+        String[] entries = value.split(",", -1);
+        if (entries.length < columns.length) {
+            return false;
+        }
+        for (int i = 0; i < columns.length; i++) {
+            String expected = "+" + (columns[i] == null ? "" : encode(columns[i]));
+            if (!entries[i].equals(expected)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String encode(final String name) {
+        try {
+            return URLEncoder.encode(name, ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is always supported
+            throw new IllegalStateException(e);
+        }
+    }
+}
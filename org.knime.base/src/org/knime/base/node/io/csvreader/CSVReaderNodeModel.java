@@ -60,6 +60,7 @@
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.IOBoundNode;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeCreationContext;
 import org.knime.core.node.NodeModel;
@@ -80,7 +81,7 @@
  * @author Bernd Wiswedel, KNIME AG, Zurich, Switzerland
  */
 // extended in wide data plug-in
-public class CSVReaderNodeModel extends NodeModel {
+public class CSVReaderNodeModel extends NodeModel implements IOBoundNode {
 
     private CSVReaderConfig m_config;
 
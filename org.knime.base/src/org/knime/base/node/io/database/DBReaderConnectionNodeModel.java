@@ -50,6 +50,7 @@
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.IOBoundNode;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
@@ -65,7 +66,7 @@
  *
  * @author Thomas Gabriel, University of Konstanz
  */
-final class DBReaderConnectionNodeModel extends DBNodeModel implements FlowVariableProvider {
+final class DBReaderConnectionNodeModel extends DBNodeModel implements FlowVariableProvider, IOBoundNode {
 
     private DatabaseQueryConnectionSettings m_conn = new DatabaseQueryConnectionSettings();
 
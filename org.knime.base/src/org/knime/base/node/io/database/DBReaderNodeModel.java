@@ -59,6 +59,7 @@
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.IOBoundNode;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettings;
@@ -79,7 +80,7 @@
  *
  * @author Thomas Gabriel, University of Konstanz
  */
-class DBReaderNodeModel extends NodeModel implements FlowVariableProvider {
+class DBReaderNodeModel extends NodeModel implements FlowVariableProvider, IOBoundNode {
 
     protected final DatabaseQueryConnectionSettings m_settings = new DatabaseQueryConnectionSettings();
 
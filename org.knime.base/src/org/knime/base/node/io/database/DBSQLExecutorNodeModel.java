@@ -51,6 +51,7 @@
 import org.knime.base.util.flowvariable.FlowVariableResolver;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.IOBoundNode;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
@@ -66,7 +67,7 @@
  * @author Thomas Gabriel, University of Konstanz
  * @author Patrick Winter, KNIME AG, Zurich, Switzerland
  */
-final class DBSQLExecutorNodeModel extends DBNodeModel implements FlowVariableProvider {
+final class DBSQLExecutorNodeModel extends DBNodeModel implements FlowVariableProvider, IOBoundNode {
 
     /**
      * Settings key for sort columns.
@@ -58,6 +58,7 @@
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.IOBoundNode;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeCreationContext;
 import org.knime.core.node.NodeLogger;
@@ -78,7 +79,7 @@
 /**
  * @author Peter Ohl, University of Konstanz
  */
-public class FileReaderNodeModel extends NodeModel {
+public class FileReaderNodeModel extends NodeModel implements IOBoundNode {
     /**
      * The id this objects uses to store its file history in the
      * <code>StringHistory</code> object. Don't reuse this id unless you want to
@@ -124,6 +124,11 @@ public class GroupByNodeDialog extends NodeDialogPane {
     private final SettingsModelBoolean m_inMemory =
         new SettingsModelBoolean(GroupByNodeModel.CFG_IN_MEMORY, false);
 
+    private final SettingsModelBoolean m_inputSorted =
+        new SettingsModelBoolean(GroupByNodeModel.CFG_INPUT_SORTED, false);
+
+    private final boolean m_showInputSorted;
+
     private final SettingsModelString m_columnNamePolicy =
         new SettingsModelString(GroupByNodeModel.CFG_COLUMN_NAME_POLICY,
                 ColumnNamePolicy.getDefault().getLabel());
@@ -150,8 +155,19 @@ public GroupByNodeDialog() {
      * @param showType <code>true</code> if the type based aggregation selection should be displayed
      * @since 2.11
      */
-    @SuppressWarnings("unchecked")
     public GroupByNodeDialog(final boolean showPattern, final boolean showType) {
+        this(showPattern, showType, false);
+    }
+
+    /**Constructor for class GroupByNodeDialog.
+     * @param showPattern <code>true</code> if the pattern based aggregation selection should be displayed
+     * @param showType <code>true</code> if the type based aggregation selection should be displayed
+     * @param showInputSorted <code>true</code> if the input sorted option should be displayed
+     * @since 3.5
+     */
+    @SuppressWarnings("unchecked")
+    public GroupByNodeDialog(final boolean showPattern, final boolean showType, final boolean showInputSorted) {
+        m_showInputSorted = showInputSorted;
 //create the root tab
         m_tabs = new JTabbedPane();
         m_tabs.setBorder(BorderFactory.createTitledBorder(""));
@@ -233,6 +249,12 @@ public void stateChanged(final ChangeEvent e) {
                 inMemoryChanged();
             }
         });
+        m_inputSorted.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(final ChangeEvent e) {
+                inputSortedChanged();
+            }
+        });
 
 //add description tab
         final Component descriptionTab = AggregationMethods.createDescriptionPane();
@@ -270,6 +292,13 @@ protected void inMemoryChanged() {
         m_retainOrder.setEnabled(!inMem);
     }
 
+    private void inputSortedChanged() {
+        //the groups of a sorted input are aggregated as they arrive which retains the row order
+        final boolean sorted = m_inputSorted.getBooleanValue();
+        m_inMemory.setEnabled(!sorted);
+        m_retainOrder.setEnabled(!sorted && !m_inMemory.getBooleanValue());
+    }
+
     private JComponent createAdvancedOptionsBox() {
         final DialogComponent maxNoneNumericVals = new DialogComponentNumber(m_maxUniqueValues,
                     "Maximum unique values per group", new Integer(1000), 5);
@@ -284,6 +313,9 @@ private JComponent createAdvancedOptionsBox() {
         inMemory.setToolTipText("Processes all data in memory.");
         final DialogComponent retainOrder = new DialogComponentBoolean(m_retainOrder, "Retain row order");
         retainOrder.setToolTipText("Retains the original row order of the input table.");
+        final DialogComponent inputSorted = new DialogComponentBoolean(m_inputSorted, "Input is sorted");
+        inputSorted.setToolTipText("Aggregates each group as soon as it is complete. "
+                + "Requires the input to be sorted by the group columns.");
 
         final JPanel rootPanel = new JPanel(new GridBagLayout());
         rootPanel.setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(),
@@ -303,6 +335,10 @@ private JComponent createAdvancedOptionsBox() {
         rootPanel.add(inMemory.getComponentPanel(), c);
         c.gridx++;
         rootPanel.add(retainOrder.getComponentPanel(), c);
+        if (m_showInputSorted) {
+            c.gridx++;
+            rootPanel.add(inputSorted.getComponentPanel(), c);
+        }
 
         c.gridy++;
         c.gridx = 0;
@@ -385,6 +421,13 @@ protected void loadSettingsFrom(final NodeSettingsRO settings,
         } catch (final InvalidSettingsException e) {
             m_inMemory.setBooleanValue(false);
         }
+        try {
+            //this option was introduced in KNIME 3.5
+            m_inputSorted.loadSettingsFrom(settings);
+        } catch (final InvalidSettingsException e) {
+            m_inputSorted.setBooleanValue(false);
+        }
+        inputSortedChanged();
         // this option was introduced in Knime 2.4+
         try {
             m_valueDelimiter.loadSettingsFrom(settings);
@@ -419,6 +462,9 @@ protected void saveSettingsTo(final NodeSettingsWO settings)
         m_dataTypeAggrPanel.saveSettingsTo(settings);
         m_retainOrder.saveSettingsTo(settings);
         m_inMemory.saveSettingsTo(settings);
+        if (m_showInputSorted) {
+            m_inputSorted.saveSettingsTo(settings);
+        }
 
         m_version.saveSettingsTo(settings);
     }
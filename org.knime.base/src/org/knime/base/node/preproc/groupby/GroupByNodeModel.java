@@ -69,6 +69,7 @@
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.filestore.FileStoreFactory;
+import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
@@ -90,6 +91,15 @@
 import org.knime.core.node.property.hilite.DefaultHiLiteMapper;
 import org.knime.core.node.property.hilite.HiLiteHandler;
 import org.knime.core.node.property.hilite.HiLiteTranslator;
+import org.knime.core.node.streamable.BufferedDataTableRowOutput;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
 
 /**
  * The {@link NodeModel} implementation of the group by node which uses the
@@ -164,6 +174,10 @@ public class GroupByNodeModel extends NodeModel {
     /**Configuration key for the value delimiter option.*/
     protected static final String CFG_VALUE_DELIMITER = "valueDelimiter";
 
+    /**Configuration key for the input sorted option.
+     * @since 3.5*/
+    protected static final String CFG_INPUT_SORTED = "inputSorted";
+
     /**Configuration key for the data type based aggregation methods.*/
     static final String CFG_DATA_TYPE_AGGREGATORS = "dataTypeAggregators";
 
@@ -187,6 +201,8 @@ public class GroupByNodeModel extends NodeModel {
 
     private final SettingsModelBoolean m_inMemory = new SettingsModelBoolean(CFG_IN_MEMORY, false);
 
+    private final SettingsModelBoolean m_inputSorted = new SettingsModelBoolean(CFG_INPUT_SORTED, false);
+
     private final SettingsModelString m_columnNamePolicy =
         new SettingsModelString(GroupByNodeModel.CFG_COLUMN_NAME_POLICY,
                 ColumnNamePolicy.getDefault().getLabel());
@@ -300,6 +316,7 @@ protected void saveSettingsTo(final NodeSettingsWO settings) {
         m_columnNamePolicy.saveSettingsTo(settings);
         m_retainOrder.saveSettingsTo(settings);
         m_inMemory.saveSettingsTo(settings);
+        m_inputSorted.saveSettingsTo(settings);
         m_valueDelimiter.saveSettingsTo(settings);
         m_version.saveSettingsTo(settings);
     }
@@ -434,6 +451,12 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws I
         } catch (final InvalidSettingsException e) {
             m_inMemory.setBooleanValue(false);
         }
+        try {
+            // this option was introduced in KNIME 3.5
+            m_inputSorted.loadSettingsFrom(settings);
+        } catch (final InvalidSettingsException e) {
+            m_inputSorted.setBooleanValue(false);
+        }
         m_maxUniqueValues.loadSettingsFrom(settings);
         m_enableHilite.loadSettingsFrom(settings);
         try {
@@ -607,11 +630,93 @@ protected PortObject[] execute(final PortObject[] inData,
 
         // be compatible to versions prior KNIME 2.0
         compCheckColumnAggregators(groupByCols, table.getDataTableSpec());
+        if (isInputSorted()) {
+            final BufferedDataContainer dc =
+                exec.createDataContainer(createGroupBySpec(table.getDataTableSpec(), groupByCols));
+            final BufferedDataTableRowOutput output = new BufferedDataTableRowOutput(dc);
+            aggregateSortedInput(exec, new DataTableRowInput(table), output, groupByCols, table.size());
+            output.close();
+            return new BufferedDataTable[] {output.getDataTable()};
+        }
         final GroupByTable resultTable = createGroupByTable(exec, table,
                 groupByCols);
         return new BufferedDataTable[] {resultTable.getBufferedTable()};
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 3.5
+     */
+    @Override
+    public InputPortRole[] getInputPortRoles() {
+        if (isInputSorted()) {
+            return new InputPortRole[] {InputPortRole.NONDISTRIBUTED_STREAMABLE};
+        }
+        return super.getInputPortRoles();
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.5
+     */
+    @Override
+    public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+        final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+        if (!isInputSorted()) {
+            return super.createStreamableOperator(partitionInfo, inSpecs);
+        }
+        return new StreamableOperator() {
+
+            @Override
+            public void runFinal(final PortInput[] inputs, final PortOutput[] outputs, final ExecutionContext exec)
+                throws Exception {
+                final RowInput input = (RowInput)inputs[0];
+                final RowOutput output = (RowOutput)outputs[0];
+                final List<String> groupByCols = m_groupByCols.getIncludeList();
+                // be compatible to versions prior KNIME 2.0
+                compCheckColumnAggregators(groupByCols, input.getDataTableSpec());
+                aggregateSortedInput(exec, input, output, groupByCols, -1);
+                input.close();
+                output.close();
+            }
+        };
+    }
+
+    /**
+     * Aggregates an input that is sorted by the group columns and pushes each group row to the output as soon as
+     * the group is complete.
+     * @param exec execution context
+     * @param input the sorted input
+     * @param output the output to push the group rows to
+     * @param groupByCols column selected for group-by operation
+     * @param rowCount the number of input rows or -1 if unknown
+     * @throws InterruptedException if the thread was interrupted while reading or writing rows
+     * @throws CanceledExecutionException if the execution was canceled
+     */
+    private void aggregateSortedInput(final ExecutionContext exec, final RowInput input, final RowOutput output,
+        final List<String> groupByCols, final long rowCount) throws InterruptedException, CanceledExecutionException {
+        final DataTableSpec spec = input.getDataTableSpec();
+        final GlobalSettings globalSettings =
+                createGlobalSettings(exec, spec, groupByCols, m_maxUniqueValues.getIntValue(), rowCount);
+        //reset all aggregators in order to use enforce operator creation
+        for (final ColumnAggregator colAggr : m_columnAggregators2Use) {
+            colAggr.reset();
+        }
+        final SortedInputGroupBy groupBy = new SortedInputGroupBy(spec, groupByCols,
+            m_columnAggregators2Use.toArray(new ColumnAggregator[0]), globalSettings, m_enableHilite.getBooleanValue());
+        exec.setMessage("Aggregating sorted input...");
+        groupBy.aggregate(input, output, exec, rowCount);
+        if (m_enableHilite.getBooleanValue()) {
+            setHiliteMapping(new DefaultHiLiteMapper(groupBy.getHiliteMapping()));
+        }
+        // check for skipped columns
+        final String warningMsg = groupBy.getSkippedGroupsMessage(3, 3);
+        if (warningMsg != null) {
+            setWarningMessage(warningMsg);
+            LOGGER.info(groupBy.getSkippedGroupsMessage(Integer.MAX_VALUE, Integer.MAX_VALUE));
+        }
+    }
+
     /**
      * Create group-by table.
      * @param exec execution context
@@ -681,8 +786,8 @@ protected final GroupByTable createGroupByTable(final ExecutionContext exec, fin
             resultTable = new MemoryGroupByTable(exec, table, groupByCols, aggregators.toArray(new ColumnAggregator[0]),
                 globalSettings, enableHilite, colNamePolicy, retainOrder);
         } else {
-            resultTable = new BigGroupByTable(exec, table, groupByCols, aggregators.toArray(new ColumnAggregator[0]),
-                    globalSettings, enableHilite, colNamePolicy, retainOrder);
+            resultTable = createHashOrBigGroupByTable(exec, table, groupByCols, retainOrder, aggregators,
+                globalSettings, enableHilite, colNamePolicy);
         }
         if (m_enableHilite.getBooleanValue()) {
             setHiliteMapping(new DefaultHiLiteMapper(resultTable.getHiliteMapping()));
@@ -696,6 +801,27 @@ protected final GroupByTable createGroupByTable(final ExecutionContext exec, fin
         return resultTable;
     }
 
+    /**
+     * Aggregates the groups using the {@link HashGroupByTable} and falls back to the {@link BigGroupByTable} if
+     * the groups of a single partition don't fit into memory.
+     */
+    private static GroupByTable createHashOrBigGroupByTable(final ExecutionContext exec,
+        final BufferedDataTable table, final List<String> groupByCols, final boolean retainOrder,
+        final List<ColumnAggregator> aggregators, final GlobalSettings globalSettings, final boolean enableHilite,
+        final ColumnNamePolicy colNamePolicy) throws CanceledExecutionException {
+        try {
+            return new HashGroupByTable(exec, table, groupByCols, aggregators.toArray(new ColumnAggregator[0]),
+                globalSettings, enableHilite, colNamePolicy, retainOrder);
+        } catch (final HashGroupByTable.InsufficientMemoryException e) {
+            LOGGER.debug(e.getMessage() + " Aggregating sorted chunks instead.");
+            for (final ColumnAggregator colAggr : aggregators) {
+                colAggr.reset();
+            }
+            return new BigGroupByTable(exec, table, groupByCols, aggregators.toArray(new ColumnAggregator[0]),
+                globalSettings, enableHilite, colNamePolicy, retainOrder);
+        }
+    }
+
     /**
      * Creates the {@link GlobalSettings} object that is passed to all
      * {@link AggregationMethod}s.
@@ -708,13 +834,18 @@ protected final GroupByTable createGroupByTable(final ExecutionContext exec, fin
      */
     protected GlobalSettings createGlobalSettings(final ExecutionContext exec, final BufferedDataTable table,
         final List<String> groupByCols, final int maxUniqueVals) {
+        return createGlobalSettings(exec, table.getDataTableSpec(), groupByCols, maxUniqueVals, table.size());
+    }
+
+    private GlobalSettings createGlobalSettings(final ExecutionContext exec, final DataTableSpec spec,
+        final List<String> groupByCols, final int maxUniqueVals, final long noOfRows) {
         return GlobalSettings.builder()
                 .setFileStoreFactory(FileStoreFactory.createWorkflowFileStoreFactory(exec))
                 .setGroupColNames(groupByCols)
                 .setMaxUniqueValues(maxUniqueVals)
                 .setValueDelimiter(getDefaultValueDelimiter())
-                .setDataTableSpec(table.getDataTableSpec())
-                .setNoOfRows(table.size())
+                .setDataTableSpec(spec)
+                .setNoOfRows(noOfRows)
                 .setAggregationContext(AggregationContext.ROW_AGGREGATION).build();
     }
 
@@ -737,6 +868,15 @@ protected boolean isRetainOrder() {
         return m_retainOrder.getBooleanValue();
     }
 
+    /**
+     * @return <code>true</code> if the input is sorted by the group columns and
+     * the groups should be aggregated as they arrive
+     * @since 3.5
+     */
+    protected boolean isInputSorted() {
+        return m_inputSorted.getBooleanValue();
+    }
+
     /**
      * @return <code>true</code> if all operations should be processed in
      * memory
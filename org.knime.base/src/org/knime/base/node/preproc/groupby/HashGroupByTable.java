@@ -0,0 +1,437 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.groupby;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.knime.base.data.aggregation.AggregationOperator;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.util.PartitionedBatches;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.Pair;
+import org.knime.core.util.ThreadPool;
+
+
+/**
+ * A data table that groups a given input table by the given columns using
+ * hash tables instead of sorting the input table first, which is much faster
+ * if the number of groups is small compared to the number of rows.
+ *
+ * <p>The groups are distributed to a fixed number of partitions by the hash
+ * code of their group values. Each partition is owned by one of several
+ * concurrent tasks, hence the aggregation operators of a group are only
+ * accessed by a single thread and process the rows of their group in the
+ * order of the input table. If memory gets low, half of the partitions are
+ * discarded and aggregated in another pass over the input table, so that the
+ * memory usage is bounded by the groups of the remaining partitions. If memory
+ * is still low when only a single partition is left, an
+ * {@link InsufficientMemoryException} is thrown; the caller is then supposed
+ * to fall back to the {@link BigGroupByTable}, which works on sorted chunks
+ * written to disk.
+ *
+ * <p>The groups of the result table are sorted by their group values, as with
+ * the {@link BigGroupByTable}. Call the {@link #getBufferedTable()} method
+ * after instance creation to get the grouped table.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.5
+ */
+public class HashGroupByTable extends GroupByTable {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(HashGroupByTable.class);
+
+    /** The number of partitions the groups are distributed to. */
+    private static final int NUM_PARTITIONS = 128;
+
+    /** The number of rows that are collected before they are handed to the
+     * tasks that own their partitions. */
+    private static final int BATCH_SIZE = 4096;
+
+    /**Constructor for class HashGroupByTable.
+     * @param exec the <code>ExecutionContext</code>
+     * @param inDataTable the table to aggregate
+     * @param groupByCols the name of all columns to group by
+     * @param colAggregators the aggregation columns with the aggregation method
+     * to use in the order the columns should be appear in the result table
+     * numerical columns
+     * @param globalSettings the global settings
+     * @param enableHilite <code>true</code> if a row key map should be
+     * maintained to enable hiliting
+     * @param colNamePolicy the {@link ColumnNamePolicy} for the
+     * aggregation columns
+     * @param retainOrder returns the row of the table in the same order as the
+     * input table if set to <code>true</code>
+     * @throws CanceledExecutionException if the user has canceled the execution
+     */
+    public HashGroupByTable(final ExecutionContext exec,
+            final BufferedDataTable inDataTable,
+            final List<String> groupByCols,
+            final ColumnAggregator[] colAggregators,
+            final GlobalSettings globalSettings, final boolean enableHilite,
+            final ColumnNamePolicy colNamePolicy, final boolean retainOrder)
+    throws CanceledExecutionException {
+        super(exec, inDataTable, groupByCols, colAggregators, globalSettings,
+                enableHilite, colNamePolicy, retainOrder);
+    }
+
+    /**
+     * Returns the number of threads used to aggregate the groups. This method
+     * is called from within the constructor. The default implementation
+     * returns the number of available processors.
+     *
+     * @return the number of threads, at least 1
+     */
+    protected int getParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Used for testing, only. Simulates a low memory event after that many
+     * rows have been aggregated. This method is called from within the
+     * constructor.
+     *
+     * @return the number of rows or 0 if no events are simulated
+     */
+    int getRowsBeforeForcedLowMemory() {
+        return 0;
+    }
+
+    /**
+     * Used for testing, only. Checks whether memory is low.
+     *
+     * @param indicator the indicator of the current pass
+     * @return whether memory is low
+     */
+    boolean isLowMemory(final MemoryActionIndicator indicator) {
+        return indicator.lowMemoryActionRequired();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected BufferedDataTable createGroupByTable(final ExecutionContext exec,
+            final BufferedDataTable table, final DataTableSpec resultSpec,
+            final int[] groupColIdx) throws CanceledExecutionException {
+        final DataTableSpec origSpec = table.getDataTableSpec();
+        final ColumnAggregator[] colAggregators = getColAggregators();
+        final int[] aggrColIdx = new int[colAggregators.length];
+        for (int i = 0, length = colAggregators.length; i < length; i++) {
+            aggrColIdx[i] =
+                origSpec.findColumnIndex(colAggregators[i].getOriginalColName());
+        }
+        final int parallelism = Math.max(1, getParallelism());
+        final ThreadPool pool = parallelism > 1
+                ? KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(parallelism)
+                : null;
+        final ExecutionContext groupExec = exec.createSubExecutionContext(0.8);
+        final BufferedDataContainer dc = exec.createDataContainer(resultSpec);
+        final Map<RowKey, Set<RowKey>> rowKeys = isEnableHilite() ? new HashMap<>() : null;
+        final List<Integer> pendingParts = new ArrayList<>();
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            pendingParts.add(i);
+        }
+        int pass = 0;
+        try {
+            while (!pendingParts.isEmpty()) {
+                pass++;
+                final Collection<Integer> processedParts = aggregatePartitions(groupExec, table, groupColIdx,
+                    aggrColIdx, pendingParts, pass, pool, parallelism, dc, rowKeys);
+                pendingParts.removeAll(processedParts);
+            }
+        } catch (final InsufficientMemoryException e) {
+            dc.close();
+            exec.clearTable(dc.getTable());
+            throw e;
+        }
+        dc.close();
+        if (pass > 1) {
+            LOGGER.debug("Aggregated groups in " + pass + " passes due to low memory.");
+        }
+        //sort the groups by their group values, as the BigGroupByTable does
+        exec.setMessage("Sorting groups...");
+        final BufferedDataTable sortedTable =
+                sortTable(exec.createSubExecutionContext(0.1), dc.getTable(), getGroupCols());
+        final ExecutionContext keyExec = exec.createSubExecutionContext(0.1);
+        final BufferedDataContainer resultDc = keyExec.createDataContainer(resultSpec);
+        final double numOfGroups = sortedTable.size();
+        long groupCounter = 0;
+        for (final DataRow row : sortedTable) {
+            keyExec.checkCanceled();
+            keyExec.setProgress(groupCounter / numOfGroups);
+            final RowKey rowKey = RowKey.createRowKey(groupCounter++);
+            resultDc.addRowToTable(new DefaultRow(rowKey, row));
+            if (rowKeys != null) {
+                addHiliteMapping(rowKey, rowKeys.get(row.getKey()));
+            }
+        }
+        resultDc.close();
+        return resultDc.getTable();
+    }
+
+    /**
+     * Reads the input table and aggregates the groups of the given partitions.
+     * If memory gets low, partitions are discarded. The groups of the
+     * remaining partitions are added to the data container.
+     *
+     * @return the partitions that were aggregated
+     */
+    private Collection<Integer> aggregatePartitions(final ExecutionContext exec, final BufferedDataTable table,
+        final int[] groupColIdx, final int[] aggrColIdx, final List<Integer> pendingParts, final int pass,
+        final ThreadPool pool, final int parallelism, final BufferedDataContainer dc,
+        final Map<RowKey, Set<RowKey>> rowKeys) throws CanceledExecutionException {
+        final Partition[] partitions = new Partition[NUM_PARTITIONS];
+        final List<Integer> activeParts = new ArrayList<>(pendingParts);
+        for (final Integer part : activeParts) {
+            partitions[part] = new Partition(aggrColIdx);
+        }
+        final MemoryActionIndicator memIndicator = MemoryAlertSystem.getInstance().newIndicator();
+        final int rowsBeforeForcedLowMemory = getRowsBeforeForcedLowMemory();
+        //a task owns a disjoint set of partitions, hence the rows of a group are aggregated in input order
+        final PartitionedBatches batches = new PartitionedBatches(pool, parallelism, BATCH_SIZE);
+        final double numOfRows = table.size();
+        long rowCounter = 0;
+        long rowsAdded = 0;
+        final String message = pass > 1 ? "Aggregating groups (pass " + pass + ")" : "Aggregating groups";
+        for (final DataRow row : table) {
+            exec.checkCanceled();
+            final long rowIndex = rowCounter++;
+            exec.setProgress(rowIndex / numOfRows, () -> message + ", row " + rowIndex);
+            final DataCell[] currentGroup = new DataCell[groupColIdx.length];
+            //fetch the current group column values
+            for (int i = 0, length = groupColIdx.length; i < length; i++) {
+                currentGroup[i] = row.getCell(groupColIdx[i]);
+            }
+            final GroupKey groupKey = new GroupKey(currentGroup);
+            final int part = getPartition(groupKey);
+            if (partitions[part] == null) {
+                //aggregated in a previous or a later pass
+                continue;
+            }
+            final boolean isLowMemory = isLowMemory(memIndicator);
+            if (isLowMemory || (rowsBeforeForcedLowMemory > 0
+                    && rowsAdded % rowsBeforeForcedLowMemory == rowsBeforeForcedLowMemory - 1)) {
+                //partitions must not change while rows are added to them
+                batches.flush();
+                if (!discardPartitions(partitions, activeParts) && isLowMemory) {
+                    throw new InsufficientMemoryException("Memory is low but there is only one partition of "
+                        + "groups left to aggregate (pass " + pass + ").");
+                }
+                if (partitions[part] == null) {
+                    continue;
+                }
+            }
+            final Partition partition = partitions[part];
+            batches.add(part, () -> partition.add(groupKey, row));
+            rowsAdded++;
+        }
+        batches.flush();
+        for (final Integer part : activeParts) {
+            exec.checkCanceled();
+            writeGroups(partitions[part], dc, rowKeys);
+            partitions[part] = null;
+        }
+        return activeParts;
+    }
+
+    /**
+     * Discards the groups of half of the non-empty partitions, unless only a
+     * single one is left. They are aggregated in the next pass.
+     *
+     * @return false if only a single non-empty partition is left
+     */
+    private static boolean discardPartitions(final Partition[] partitions, final List<Integer> activeParts) {
+        final List<Integer> nonEmptyParts = new ArrayList<>();
+        for (final Integer part : activeParts) {
+            if (!partitions[part].m_groups.isEmpty()) {
+                nonEmptyParts.add(part);
+            }
+        }
+        if (nonEmptyParts.size() < 2) {
+            return false;
+        }
+        for (int i = nonEmptyParts.size() / 2; i < nonEmptyParts.size(); i++) {
+            final Integer part = nonEmptyParts.get(i);
+            partitions[part] = null;
+            activeParts.remove(part);
+        }
+        //empty partitions might grow as large as the discarded ones
+        for (final Integer part : new ArrayList<>(activeParts)) {
+            if (partitions[part].m_groups.isEmpty()) {
+                partitions[part] = null;
+                activeParts.remove(part);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a result row for each group of the partition to the given data
+     * container, using temporary row keys.
+     */
+    private void writeGroups(final Partition partition, final BufferedDataContainer dc,
+        final Map<RowKey, Set<RowKey>> rowKeys) {
+        for (final Entry<GroupKey, Pair<ColumnAggregator[], Set<RowKey>>> e : partition.m_groups.entrySet()) {
+            final DataCell[] groupVals = e.getKey().getGroupVals();
+            final ColumnAggregator[] colAggregators = e.getValue().getFirst();
+            final RowKey rowKey = RowKey.createRowKey(dc.size());
+            final DataCell[] rowVals = new DataCell[groupVals.length + colAggregators.length];
+            //add the group values first
+            int valIdx = 0;
+            for (final DataCell groupCell : groupVals) {
+                rowVals[valIdx++] = groupCell;
+            }
+            //add the aggregation values
+            for (final ColumnAggregator colAggr : colAggregators) {
+                final AggregationOperator operator = colAggr.getOperator(getGlobalSettings());
+                rowVals[valIdx++] = operator.getResult();
+                if (operator.isSkipped()) {
+                    //add skipped groups and the column that causes the
+                    //skipping into the skipped groups map
+                    addSkippedGroup(colAggr.getOriginalColName(), operator.getSkipMessage(), groupVals);
+                }
+            }
+            dc.addRowToTable(new DefaultRow(rowKey, rowVals));
+            if (rowKeys != null) {
+                rowKeys.put(rowKey, e.getValue().getSecond());
+            }
+        }
+    }
+
+    /**
+     * @param groupKey the group values
+     * @return the partition of the group
+     */
+    private static int getPartition(final GroupKey groupKey) {
+        //spread the bits of the hash code, which are often clustered
+        long h = groupKey.hashCode() * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int)(h & (NUM_PARTITIONS - 1));
+    }
+
+    /**
+     * The groups of a partition with their aggregators and row keys. A
+     * partition is only modified by one thread at a time.
+     */
+    private final class Partition {
+        private final int[] m_aggrColIdx;
+
+        private final Map<GroupKey, Pair<ColumnAggregator[], Set<RowKey>>> m_groups = new LinkedHashMap<>();
+
+        Partition(final int[] aggrColIdx) {
+            m_aggrColIdx = aggrColIdx;
+        }
+
+        void add(final GroupKey groupKey, final DataRow row) {
+            Pair<ColumnAggregator[], Set<RowKey>> member = m_groups.get(groupKey);
+            if (member == null) {
+                final Set<RowKey> rowKeys;
+                if (isEnableHilite()) {
+                    rowKeys = new HashSet<>();
+                } else {
+                    rowKeys = Collections.emptySet();
+                }
+                member = new Pair<>(cloneColumnAggregators(), rowKeys);
+                m_groups.put(groupKey, member);
+            }
+            //compute the current row values
+            final ColumnAggregator[] colAggregators = member.getFirst();
+            for (int i = 0, length = colAggregators.length; i < length; i++) {
+                colAggregators[i].getOperator(getGlobalSettings()).compute(row, m_aggrColIdx[i]);
+            }
+            if (isEnableHilite()) {
+                member.getSecond().add(row.getKey());
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the column aggregators
+     */
+    private ColumnAggregator[] cloneColumnAggregators() {
+        final ColumnAggregator[] origAggregators = getColAggregators();
+        final ColumnAggregator[] aggregators = new ColumnAggregator[origAggregators.length];
+        for (int i = 0, length = origAggregators.length; i < length; i++) {
+            aggregators[i] = origAggregators[i].clone();
+        }
+        return aggregators;
+    }
+
+    /**
+     * Thrown if memory is low although only the groups of a single partition
+     * are kept in memory.
+     */
+    @SuppressWarnings("serial")
+    static final class InsufficientMemoryException extends RuntimeException {
+        /**
+         * @param message the detail message
+         */
+        InsufficientMemoryException(final String message) {
+            super(message);
+        }
+    }
+}
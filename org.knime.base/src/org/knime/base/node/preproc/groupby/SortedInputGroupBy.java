@@ -0,0 +1,248 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.groupby;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.knime.base.data.aggregation.AggregationOperator;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.util.Pair;
+
+/**
+ * Aggregates an input that is sorted by the group columns. Since all rows of a group are adjacent the aggregated
+ * row of a group is pushed to the output as soon as the group values change, thus only the operators of the current
+ * group are kept in memory. The rows must be sorted by the group columns in the order they are selected, each
+ * column either ascending or descending. Unsorted input is detected while reading and results in an
+ * {@link IllegalStateException}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class SortedInputGroupBy {
+
+    private final List<String> m_groupCols;
+
+    private final int[] m_groupColIdx;
+
+    private final DataValueComparator[] m_comparators;
+
+    /** The sort direction of each group column, 0 as long as it is unknown. */
+    private final int[] m_sortDirections;
+
+    private final ColumnAggregator[] m_colAggregators;
+
+    private final int[] m_aggrColIdx;
+
+    private final GlobalSettings m_globalSettings;
+
+    private final Map<RowKey, Set<RowKey>> m_hiliteMapping;
+
+    private final Map<String, Collection<Pair<String, String>>> m_skippedGroupsByColName = new HashMap<>();
+
+    /**
+     * @param spec the {@link DataTableSpec} of the input
+     * @param groupCols the names of the columns to group by
+     * @param colAggregators the aggregation columns in the order they appear in the result
+     * @param globalSettings the {@link GlobalSettings}
+     * @param enableHilite <code>true</code> if the hilite mapping should be maintained
+     */
+    SortedInputGroupBy(final DataTableSpec spec, final List<String> groupCols,
+        final ColumnAggregator[] colAggregators, final GlobalSettings globalSettings, final boolean enableHilite) {
+        GroupByTable.checkGroupCols(spec, groupCols);
+        m_groupCols = groupCols;
+        m_groupColIdx = new int[groupCols.size()];
+        m_comparators = new DataValueComparator[groupCols.size()];
+        m_sortDirections = new int[groupCols.size()];
+        for (int i = 0, length = groupCols.size(); i < length; i++) {
+            m_groupColIdx[i] = spec.findColumnIndex(groupCols.get(i));
+            m_comparators[i] = spec.getColumnSpec(m_groupColIdx[i]).getType().getComparator();
+        }
+        m_colAggregators = new ColumnAggregator[colAggregators.length];
+        m_aggrColIdx = new int[colAggregators.length];
+        for (int i = 0, length = colAggregators.length; i < length; i++) {
+            m_colAggregators[i] = colAggregators[i].clone();
+            m_aggrColIdx[i] = spec.findColumnIndex(colAggregators[i].getOriginalColName());
+        }
+        m_globalSettings = globalSettings;
+        m_hiliteMapping = enableHilite ? new HashMap<RowKey, Set<RowKey>>() : null;
+    }
+
+    /**
+     * Reads all rows of the input and pushes one aggregated row per group to the output. Neither the input nor the
+     * output is closed by this method.
+     *
+     * @param input the sorted input
+     * @param output the output to push the aggregated rows to
+     * @param exec the {@link ExecutionContext} to check for cancellation
+     * @param rowCount the number of input rows or -1 if unknown
+     * @throws InterruptedException if the thread was interrupted while reading or writing
+     * @throws CanceledExecutionException if the execution was canceled
+     * @throws IllegalStateException if the input is not sorted by the group columns
+     */
+    void aggregate(final RowInput input, final RowOutput output, final ExecutionContext exec, final long rowCount)
+            throws InterruptedException, CanceledExecutionException {
+        DataCell[] groupVals = null;
+        Set<RowKey> groupRowKeys = null;
+        long rowCounter = 0;
+        long groupCounter = 0;
+        DataRow row;
+        while ((row = input.poll()) != null) {
+            exec.checkCanceled();
+            if (rowCount > 0) {
+                exec.setProgress(rowCounter / (double)rowCount, "Analyzing row " + rowCounter + " of " + rowCount);
+            }
+            rowCounter++;
+            final DataCell[] currentGroup = new DataCell[m_groupColIdx.length];
+            for (int i = 0, length = m_groupColIdx.length; i < length; i++) {
+                currentGroup[i] = row.getCell(m_groupColIdx[i]);
+            }
+            if (groupVals == null || checkGroupChanged(groupVals, currentGroup)) {
+                if (groupVals != null) {
+                    output.push(createResultRow(groupCounter++, groupVals, groupRowKeys));
+                }
+                groupVals = currentGroup;
+                groupRowKeys = m_hiliteMapping != null ? new HashSet<RowKey>() : null;
+            }
+            if (groupRowKeys != null) {
+                groupRowKeys.add(row.getKey());
+            }
+            for (int i = 0, length = m_colAggregators.length; i < length; i++) {
+                m_colAggregators[i].getOperator(m_globalSettings).compute(row, m_aggrColIdx[i]);
+            }
+        }
+        if (groupVals != null) {
+            output.push(createResultRow(groupCounter, groupVals, groupRowKeys));
+        }
+    }
+
+    /**
+     * @param groupVals the values of the current group
+     * @param newVals the group values of the next row
+     * @return <code>true</code> if the next row starts a new group
+     * @throws IllegalStateException if the next row violates the sort order seen so far
+     */
+    private boolean checkGroupChanged(final DataCell[] groupVals, final DataCell[] newVals) {
+        for (int i = 0, length = groupVals.length; i < length; i++) {
+            final int comp = m_comparators[i].compare(groupVals[i], newVals[i]);
+            if (comp == 0) {
+                continue;
+            }
+            final int direction = comp < 0 ? 1 : -1;
+            if (m_sortDirections[i] == 0) {
+                m_sortDirections[i] = direction;
+            } else if (m_sortDirections[i] != direction) {
+                throw new IllegalStateException("Input table is not sorted by the group column '"
+                    + m_groupCols.get(i) + "': group " + GroupByTable.createSkippedGroupName(newVals)
+                    + " follows group " + GroupByTable.createSkippedGroupName(groupVals));
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private DataRow createResultRow(final long groupCounter, final DataCell[] groupVals,
+        final Set<RowKey> groupRowKeys) {
+        final RowKey rowKey = RowKey.createRowKey(groupCounter);
+        final DataCell[] rowVals = new DataCell[groupVals.length + m_colAggregators.length];
+        System.arraycopy(groupVals, 0, rowVals, 0, groupVals.length);
+        int valIdx = groupVals.length;
+        for (final ColumnAggregator colAggr : m_colAggregators) {
+            final AggregationOperator operator = colAggr.getOperator(m_globalSettings);
+            rowVals[valIdx++] = operator.getResult();
+            if (operator.isSkipped()) {
+                addSkippedGroup(colAggr.getOriginalColName(), operator.getSkipMessage(), groupVals);
+            }
+            //reset the operator for the next group
+            operator.reset();
+        }
+        if (m_hiliteMapping != null) {
+            m_hiliteMapping.put(rowKey, groupRowKeys);
+        }
+        return new DefaultRow(rowKey, rowVals);
+    }
+
+    private void addSkippedGroup(final String colName, final String skipMsg, final DataCell[] groupVals) {
+        Collection<Pair<String, String>> groupNames = m_skippedGroupsByColName.get(colName);
+        if (groupNames == null) {
+            groupNames = new ArrayList<>();
+            m_skippedGroupsByColName.put(colName, groupNames);
+        }
+        groupNames.add(new Pair<>(GroupByTable.createSkippedGroupName(groupVals), skipMsg));
+    }
+
+    /**
+     * @return the hilite translation map or <code>null</code> if hiliting is disabled
+     * @see GroupByTable#getHiliteMapping()
+     */
+    Map<RowKey, Set<RowKey>> getHiliteMapping() {
+        return m_hiliteMapping;
+    }
+
+    /**
+     * @param maxGroups the maximum number of skipped groups to display
+     * @param maxCols the maximum number of columns to display per group
+     * @return message with the skipped groups per column or <code>null</code> if no groups were skipped
+     * @see GroupByTable#getSkippedGroupsMessage(int, int)
+     */
+    String getSkippedGroupsMessage(final int maxGroups, final int maxCols) {
+        return GroupByTable.createSkippedGroupsMessage(m_skippedGroupsByColName, maxGroups, maxCols);
+    }
+}
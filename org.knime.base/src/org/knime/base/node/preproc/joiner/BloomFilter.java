@@ -0,0 +1,132 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.joiner;
+
+/**
+ * A Bloom filter on 64 bit hashes of join values. It answers whether a value may be contained (with a configurable
+ * probability of false positives) or is definitely not contained. Used by the {@link Joiner} to discard rows of the
+ * larger table that cannot match any row of the smaller one.
+ *
+ * <p>Instances are not thread-safe for adding values but can be queried concurrently.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BloomFilter {
+
+    /** Upper bound for the number of bits, limited by the maximal length of the long array. */
+    private static final long MAX_BITS = (Integer.MAX_VALUE - 8) * 64L;
+
+    private final long[] m_words;
+
+    private final long m_numBits;
+
+    private final int m_numHashFunctions;
+
+    /**
+     * Creates an empty filter.
+     *
+     * @param expectedNumValues the expected number of distinct values that are added
+     * @param falsePositiveProbability the desired probability of false positives, between 0 and 1 (exclusive)
+     */
+    BloomFilter(final long expectedNumValues, final double falsePositiveProbability) {
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException(
+                "False positive probability must be between 0 and 1: " + falsePositiveProbability);
+        }
+        long n = Math.max(1, expectedNumValues);
+        // m = -n ln(p) / (ln 2)^2, k = m / n ln 2
+        double bits = -n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2));
+        long numWords = Math.max(1, (long)Math.ceil(Math.min(bits, MAX_BITS) / 64));
+        m_words = new long[(int)numWords];
+        m_numBits = numWords * 64;
+        m_numHashFunctions = Math.max(1, (int)Math.round(m_numBits / (double)n * Math.log(2)));
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param hash the hash of the value
+     */
+    void add(final long hash) {
+        long h = mix(hash);
+        long h1 = h;
+        long h2 = (h >>> 32) | 1;
+        for (int i = 0; i < m_numHashFunctions; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % m_numBits;
+            m_words[(int)(bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @param hash the hash of the value
+     * @return false if the value has definitely not been added, true if it may have been added
+     */
+    boolean mightContain(final long hash) {
+        long h = mix(hash);
+        long h1 = h;
+        long h2 = (h >>> 32) | 1;
+        for (int i = 0; i < m_numHashFunctions; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % m_numBits;
+            if ((m_words[(int)(bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finalizer of MurmurHash3, spreads the (possibly only 32 significant) bits of a hash over all 64 bits. The hash
+     * is scrambled first, so that the result is unrelated to the partition of a join value in the {@link Joiner}.
+     */
+    private static long mix(final long hash) {
+        long h = hash * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -47,6 +47,7 @@
  */
 package org.knime.base.node.preproc.joiner;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -57,23 +58,30 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Future;
 
 import org.knime.base.data.sort.SortedTable;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.CompositionMode;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.DuplicateHandling;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.JoinMode;
+import org.knime.base.node.preproc.joiner.SortMergeJoiner.UnsortedInputException;
+import org.knime.base.util.PartitionedBatches;
+import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
+import org.knime.core.data.LongValue;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
 import org.knime.core.data.def.StringCell;
 import org.knime.core.data.util.memory.MemoryAlertSystem;
 import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
@@ -81,8 +89,13 @@
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
 import org.knime.core.node.util.ConvenienceMethods;
+import org.knime.core.util.ThreadPool;
+import org.knime.core.util.ThreadUtils;
 import org.knime.core.util.UniqueNameGenerator;
 
 /**
@@ -145,6 +158,43 @@ public final class Joiner {
     /** Only used for testcases, simulates an out-of-memory event after that many rows added in memory. */
     private int m_rowsAddedBeforeForcedOOM;
 
+    /** Number of rows of the inner table that are collected before they are added to their partitions by
+     * {@link #m_pool}. */
+    private static final int BUILD_BATCH_SIZE = 4096;
+
+    /** Number of rows of the outer table that are probed in one task of {@link #m_pool}. */
+    private static final int PROBE_BATCH_SIZE = 1024;
+
+    /** The partition hash of rows with a missing join value when joining on primitive keys. */
+    private static final int MISSING_KEY_HASH = 0;
+
+    /** Number of threads used to build and probe the partitions, see {@link #setParallelism(int)}. */
+    private int m_parallelism = 1;
+
+    /** The pool to build and probe partitions concurrently; only non-null during
+     * {@link #computeJoinTable(BufferedDataTable, BufferedDataTable, ExecutionContext)} when {@link #m_parallelism}
+     * is larger than 1. */
+    private ThreadPool m_pool;
+
+    /** The type of the join column when joining on a single int, long or double column, in which case the partitions
+     * of the inner table are hashed in {@link LongKeyRowIndexMap}s; null otherwise. */
+    private DataType m_primitiveKeyType;
+
+    /** The index of the join column in the left table if {@link #m_primitiveKeyType} is set. */
+    private int m_leftKeyIndex;
+
+    /** The index of the join column in the right table if {@link #m_primitiveKeyType} is set. */
+    private int m_rightKeyIndex;
+
+    /** The probability of false positives of {@link #m_bloomFilter}. */
+    private static final double BLOOM_FILTER_FPP = 0.01;
+
+    /** Contains the join values of the smaller table if rows of the larger one are pre-filtered, null otherwise. */
+    private BloomFilter m_bloomFilter;
+
+    /** True if {@link #m_bloomFilter} is applied to the left (inner) table, false if to the right one. */
+    private boolean m_bloomFilterOnLeft;
+
     /**
      * Creates a new instance.
      *
@@ -440,6 +490,31 @@ public List<String> getRuntimeWarnings() {
         return m_runtimeWarnings;
     }
 
+    /**
+     * @return the number of threads used to build and probe the partitions, see {@link #setParallelism(int)}.
+     * @since 3.5
+     */
+    public int getParallelism() {
+        return m_parallelism;
+    }
+
+    /**
+     * Sets the number of threads used to join the tables. If larger than 1, the rows of the inner (top) table are
+     * added to their partitions by concurrent tasks, each of which owns a disjoint set of partitions, while the
+     * table is still being read. The rows of the outer (bottom) table are then probed against these partitions in
+     * batches by concurrent tasks; their results are added to the output in the order of the outer table, hence
+     * the joined table does not depend on this setting. The default is 1, i.e. the join runs in the calling thread.
+     *
+     * @param parallelism the number of threads, at least 1
+     * @since 3.5
+     */
+    public void setParallelism(final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        m_parallelism = parallelism;
+    }
+
     /**
      * Create the DataTableSpec of the output.
      *
@@ -515,7 +590,13 @@ public BufferedDataTable computeJoinTable(
 
         m_inputDataRowSettings = createInputDataRowSettings(leftTable,
                 rightTable);
-        int[] rightSurvivors = getIndicesOf(rightTable, m_rightSurvivors);
+        m_primitiveKeyType = getPrimitiveKeyType(leftTable, rightTable);
+        m_bloomFilter = null;
+        if (m_settings.getUseBloomFilter() && !m_matchAny) {
+            createBloomFilter(leftTable, rightTable, exec);
+        }
+        int[] rightSurvivors = getIndicesOf(rightTable.getDataTableSpec(),
+                m_rightSurvivors);
         m_outputDataRowSettings = new OutputRow.Settings(
                 rightTable.getDataTableSpec(),
                 rightSurvivors);
@@ -548,11 +629,19 @@ public BufferedDataTable computeJoinTable(
 
         double[] progressIntervals = new double[] {0.6, 0.2, 0.2};
         exec.setProgress(0.0);
-        while (pendingParts.size() > 0) {
-            Collection<Integer> processedParts = performJoin(
-                    innerTable, outerTable,
-                    joinCont, pendingParts, exec, progressIntervals[0]);
-            pendingParts.removeAll(processedParts);
+        if (m_parallelism > 1) {
+            m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(m_parallelism);
+        }
+        try {
+            while (pendingParts.size() > 0) {
+                Collection<Integer> processedParts = performJoin(
+                        innerTable, outerTable,
+                        joinCont, pendingParts, exec, progressIntervals[0]);
+                pendingParts.removeAll(processedParts);
+            }
+        } finally {
+            m_pool = null;
+            m_bloomFilter = null;
         }
 
 
@@ -594,13 +683,15 @@ public BufferedDataTable computeJoinTable(
 
         exec.setMessage("Merge Joined Partitions");
         // Build sorted table
-        int[] leftSurvivors = getIndicesOf(leftTable, m_leftSurvivors);
+        int[] leftSurvivors = getIndicesOf(leftTable.getDataTableSpec(),
+                m_leftSurvivors);
 
         DataHiliteOutputContainer oc =
             new DataHiliteOutputContainer(joinedTableSpec,
                     m_settings.getEnableHiLite(), leftTable,
                     leftSurvivors, rightSurvivors,
-                    createRowKeyFactory(leftTable, rightTable));
+                    createRowKeyFactory(leftTable.getDataTableSpec(),
+                            rightTable.getDataTableSpec()));
         oc.addTableAndFilterDuplicates(matches,
                 exec.createSubExecutionContext(
                         progressIntervals[2] * numMatches / totalNumJoins));
@@ -618,6 +709,93 @@ public BufferedDataTable computeJoinTable(
         return oc.getTable();
     }
 
+    /**
+     * Returns whether the tables can be joined by
+     * {@link #computeSortMergeJoin(RowInput, RowInput, RowOutput, ExecutionContext)},
+     * which is not the case if rows match when any of several joining column
+     * pairs match.
+     *
+     * @return true if the sort-merge join supports the settings
+     */
+    boolean supportsSortMergeJoin() {
+        return !(m_settings.getCompositionMode().equals(
+                CompositionMode.MatchAny)
+                && m_settings.getLeftJoinColumns().length > 1);
+    }
+
+    /**
+     * Joins the rows of the <code>leftInput</code> and the
+     * <code>rightInput</code> by merging them, both of which must be sorted
+     * ascending by their joining columns. Unlike
+     * {@link #computeJoinTable(BufferedDataTable, BufferedDataTable, ExecutionContext)}
+     * the inputs are read only once and only the rows of the right input
+     * that share the current joining values are kept in memory. For the same
+     * reason duplicate columns that are filtered are not compared. The inputs
+     * and the output are not closed.
+     *
+     * @param leftInput The left input.
+     * @param rightInput The right input.
+     * @param output The output receiving the joined rows.
+     * @param exec The execution context for this execution.
+     * @throws InvalidSettingsException when inconsistent settings are provided
+     *             or they are not supported by the sort-merge join
+     * @throws UnsortedInputException when an input is not sorted; rows
+     *             may have been pushed to the output already
+     * @throws InterruptedException when reading or writing rows is
+     *             interrupted
+     * @throws CanceledExecutionException when execution is canceled
+     */
+    void computeSortMergeJoin(final RowInput leftInput,
+            final RowInput rightInput, final RowOutput output,
+            final ExecutionContext exec)
+    throws InvalidSettingsException, UnsortedInputException,
+    InterruptedException, CanceledExecutionException {
+        m_runtimeWarnings.clear();
+        DataTableSpec leftSpec = leftInput.getDataTableSpec();
+        DataTableSpec rightSpec = rightInput.getDataTableSpec();
+        // This does some input data checking, too
+        createSpec(new DataTableSpec[] {leftSpec, rightSpec});
+        if (!supportsSortMergeJoin()) {
+            throw new InvalidSettingsException("The sort-merge join does not "
+                    + "support the option \"Match any of the following\".");
+        }
+        m_matchAny = false;
+        m_retainRight = JoinMode.RightOuterJoin.equals(m_settings.getJoinMode())
+            || JoinMode.FullOuterJoin.equals(m_settings.getJoinMode());
+        m_retainLeft = JoinMode.LeftOuterJoin.equals(m_settings.getJoinMode())
+            || JoinMode.FullOuterJoin.equals(m_settings.getJoinMode());
+
+        List<Integer> leftJoinIndices = getLeftJoinIndices(leftSpec);
+        List<Integer> rightJoinIndices = getRightJoinIndices(rightSpec);
+        int numJoinAttributes = leftJoinIndices.size();
+        int[] leftIndices = new int[numJoinAttributes];
+        int[] rightIndices = new int[numJoinAttributes];
+        DataType[] joinTypes = new DataType[numJoinAttributes];
+        for (int i = 0; i < numJoinAttributes; i++) {
+            leftIndices[i] = leftJoinIndices.get(i);
+            rightIndices[i] = rightJoinIndices.get(i);
+            // row keys are compared as strings, see InputRow
+            DataType leftType = leftIndices[i] >= 0
+                ? leftSpec.getColumnSpec(leftIndices[i]).getType()
+                : StringCell.TYPE;
+            DataType rightType = rightIndices[i] >= 0
+                ? rightSpec.getColumnSpec(rightIndices[i]).getType()
+                : StringCell.TYPE;
+            joinTypes[i] = DataType.getCommonSuperType(leftType, rightType);
+        }
+
+        SortMergeJoiner joiner = new SortMergeJoiner(leftIndices,
+                rightIndices, joinTypes,
+                getIndicesOf(leftSpec, m_leftSurvivors),
+                getIndicesOf(rightSpec, m_rightSurvivors),
+                createRowKeyFactory(leftSpec, rightSpec),
+                m_retainLeft, m_retainRight, m_settings.getEnableHiLite());
+        joiner.join(leftInput, rightInput, output, exec);
+
+        m_leftRowKeyMap = joiner.getLeftRowKeyMap();
+        m_rightRowKeyMap = joiner.getRightRowKeyMap();
+    }
+
     /** This method start with reading the partitions of the left table defined
      * in currParts. If memory is low, partitions will be skipped or the
      * number of partitions will be raised which leads to smaller partitions.
@@ -652,6 +830,9 @@ private Collection<Integer> performJoin(
         // Partition left table
         Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed =
             new HashMap<Integer, Map<JoinTuple, Set<Integer>>>();
+        // Used instead of leftTableHashed when joining on primitive keys
+        Map <Integer, LongKeyRowIndexMap> leftKeysHashed =
+            new HashMap<Integer, LongKeyRowIndexMap>();
         // This is only used when m_leftRetain is true and m_matchAny is false.
         // It holds the row indices of the left table that do not match to
         // any row of the right table
@@ -659,6 +840,8 @@ private Collection<Integer> performJoin(
             new HashMap<Integer, Set<Integer>>();
 
         MemoryActionIndicator memIndicator = MemoryAlertSystem.getInstance().newIndicator();
+        PartitionedBatches builder =
+            new PartitionedBatches(m_pool, m_parallelism, BUILD_BATCH_SIZE);
 
         int counter = 0;
         long rowsAdded = 0;
@@ -672,17 +855,31 @@ private Collection<Integer> performJoin(
 
             if (saveToAddMoreRows) {
                 DataRow row = leftIter.next();
-                InputRow inputDataRow = new InputRow(row, counter,
-                        InputRow.Settings.InDataPort.Left,
-                        m_inputDataRowSettings);
-
-                for (JoinTuple tuple : inputDataRow.getJoinTuples()) {
-                    int partition = tuple.hashCode() & m_bitMask;
-                    if (currParts.contains(partition)) {
-                        addRow(leftTableHashed, leftOuterJoins,
-                                partition, tuple, inputDataRow);
+                if (null != m_primitiveKeyType) {
+                    DataCell cell = row.getCell(m_leftKeyIndex);
+                    long key = cell.isMissing() ? 0 : getPrimitiveKey(cell);
+                    int partition = (cell.isMissing() ? MISSING_KEY_HASH
+                        : getPartitionHash(key)) & m_bitMask;
+                    if (currParts.contains(partition)
+                            && !isFilteredOut(key, true)) {
+                        addRow(leftKeysHashed, leftOuterJoins, partition,
+                                key, cell.isMissing(), counter, builder);
                         rowsAdded++;
                     }
+                } else {
+                    InputRow inputDataRow = new InputRow(row, counter,
+                            InputRow.Settings.InDataPort.Left,
+                            m_inputDataRowSettings);
+
+                    for (JoinTuple tuple : inputDataRow.getJoinTuples()) {
+                        int partition = tuple.hashCode() & m_bitMask;
+                        if (currParts.contains(partition)
+                                && !isFilteredOut(tuple.hashCode(), true)) {
+                            addRow(leftTableHashed, leftOuterJoins,
+                                    partition, tuple, inputDataRow, builder);
+                            rowsAdded++;
+                        }
+                    }
                 }
                 counter++;
                 // report progress
@@ -690,11 +887,14 @@ private Collection<Integer> performJoin(
                 exec.getProgressMonitor().setProgress(progress);
             } else {
                 rowsAdded++;
+                // partitions must not change while rows are added to them
+                builder.flush();
 
                 // Build list of partitions that are not empty
                 List<Integer> nonEmptyPartitions = new ArrayList<Integer>();
                 for (Integer i : currParts) {
-                    if (null != leftTableHashed.get(i)) {
+                    if (null != leftTableHashed.get(i)
+                            || null != leftKeysHashed.get(i)) {
                         nonEmptyPartitions.add(i);
                     }
                 }
@@ -708,6 +908,7 @@ private Collection<Integer> performJoin(
                     // remove collected data of the no longer processed
                     for (int i : removeParts) {
                         leftTableHashed.remove(i);
+                        leftKeysHashed.remove(i);
                         if (m_retainLeft && !m_matchAny) {
                             leftOuterJoins.remove(i);
                         }
@@ -743,8 +944,13 @@ private Collection<Integer> performJoin(
                         currParts.clear();
                         currParts.add(currPart);
                         // update chunk size
-                        retainPartitions(leftTableHashed, leftOuterJoins,
-                                currPart);
+                        if (null != m_primitiveKeyType) {
+                            retainKeyPartitions(leftKeysHashed, leftOuterJoins,
+                                    currPart);
+                        } else {
+                            retainPartitions(leftTableHashed, leftOuterJoins,
+                                    currPart);
+                        }
                         // update increment for reporting progress
                         numRows += leftTable.size() + rightTable.size();
                         inc = (progressDiff - progress) / numRows;
@@ -768,10 +974,11 @@ private Collection<Integer> performJoin(
                 }
             }
         }
+        builder.flush();
 
         setMessage("Join", exec, pendingParts, currParts);
         // Join with outer table
-        joinInMemory(leftTableHashed, leftOuterJoins,
+        joinInMemory(leftTableHashed, leftKeysHashed, leftOuterJoins,
                 currParts, rightTable,
                 outputContainer,
                 exec, inc);
@@ -780,13 +987,16 @@ private Collection<Integer> performJoin(
         // Log which parts were successfully joined
         for (int part : currParts) {
             int numTuples = leftTableHashed.get(part) != null
-            ? leftTableHashed.get(part).values().size() : 0;
+            ? leftTableHashed.get(part).values().size()
+            : leftKeysHashed.get(part) != null
+            ? leftKeysHashed.get(part).getNumKeys() : 0;
             LOGGER.debug("Joined " + part + " with "
                     + numTuples + " tuples.");
         }
 
         // Garbage collector has problems without this explicit clearance.
         leftTableHashed.clear();
+        leftKeysHashed.clear();
         leftOuterJoins.clear();
 
         // return successfully joined parts
@@ -843,23 +1053,49 @@ private void retainPartitions(
     }
 
     /**
-     * Add a row to innerHash and innerIndexMap.
+     * Same as {@link #retainPartitions(Map, Map, int)} when joining on
+     * primitive keys.
+     */
+    private void retainKeyPartitions(
+            final Map<Integer, LongKeyRowIndexMap> innerKeys,
+            final Map<Integer, Set<Integer>> innerIndexMap,
+            final int part) {
+        innerIndexMap.clear();
+
+        LongKeyRowIndexMap thisInnerKeys = innerKeys.get(part);
+        thisInnerKeys.retainKeys(
+            key -> (getPartitionHash(key) & m_bitMask) == part,
+            (MISSING_KEY_HASH & m_bitMask) == part);
+        if (m_retainLeft && !m_matchAny) {
+            Set<Integer> thisInnerIndexMap = new HashSet<Integer>();
+            thisInnerKeys.forEachRowIndex(thisInnerIndexMap::add);
+            innerIndexMap.put(part, thisInnerIndexMap);
+        }
+    }
+
+    /**
+     * Add a row to innerHash and innerIndexMap. The maps of the partition
+     * are created in the calling thread, the row is added to them by the
+     * builder.
      * @param partition The index of the partition.
      * @param joinTuple The join tuples of the row.
      * @param row The row to be added.
+     * @param builder Adds the row to the partition.
+     * @throws CanceledExecutionException when execution is canceled
      */
     private void addRow(
             final Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed,
             final Map <Integer, Set<Integer>> leftOuterJoins,
             final int partition, final JoinTuple joinTuple,
-            final InputRow row) {
+            final InputRow row, final PartitionedBatches builder)
+    throws CanceledExecutionException {
+        Set<Integer> indices = null;
         if (m_retainLeft  && !m_matchAny) {
-            Set<Integer> indices = leftOuterJoins.get(partition);
+            indices = leftOuterJoins.get(partition);
             if (null == indices) {
                 indices = new HashSet<Integer>();
                 leftOuterJoins.put(partition, indices);
             }
-            indices.add(row.getIndex());
         }
 
         Map<JoinTuple, Set<Integer>> partTuples =
@@ -869,24 +1105,79 @@ private void addRow(
             leftTableHashed.put(partition, partTuples);
         }
 
+        final Set<Integer> outerIndices = indices;
+        final Map<JoinTuple, Set<Integer>> tuples = partTuples;
+        final int index = row.getIndex();
+        builder.add(partition, () -> {
+            if (null != outerIndices) {
+                outerIndices.add(index);
+            }
+            Set<Integer> c = tuples.get(joinTuple);
+            if (null != c) {
+                c.add(index);
+            } else {
+                Set<Integer> list = new HashSet<Integer>();
+                list.add(index);
+                tuples.put(joinTuple, list);
+            }
+        });
+    }
 
-        Set<Integer> c = partTuples.get(joinTuple);
-        if (null != c) {
-            c.add(row.getIndex());
-        } else {
-            Set<Integer> list = new HashSet<Integer>();
-            list.add(row.getIndex());
-            partTuples.put(joinTuple, list);
+    /**
+     * Same as {@link #addRow(Map, Map, int, JoinTuple, InputRow,
+     * PartitionedBatches)} when joining on primitive keys.
+     * @param partition The index of the partition.
+     * @param key The join value of the row.
+     * @param isMissing Whether the join value is missing.
+     * @param index The index of the row.
+     * @param builder Adds the row to the partition.
+     * @throws CanceledExecutionException when execution is canceled
+     */
+    private void addRow(
+            final Map <Integer, LongKeyRowIndexMap> leftKeysHashed,
+            final Map <Integer, Set<Integer>> leftOuterJoins,
+            final int partition, final long key, final boolean isMissing,
+            final int index, final PartitionedBatches builder)
+    throws CanceledExecutionException {
+        Set<Integer> indices = null;
+        if (m_retainLeft) {
+            indices = leftOuterJoins.get(partition);
+            if (null == indices) {
+                indices = new HashSet<Integer>();
+                leftOuterJoins.put(partition, indices);
+            }
         }
 
+        LongKeyRowIndexMap partKeys = leftKeysHashed.get(partition);
+        if (null == partKeys) {
+            partKeys = new LongKeyRowIndexMap();
+            leftKeysHashed.put(partition, partKeys);
+        }
 
+        final Set<Integer> outerIndices = indices;
+        final LongKeyRowIndexMap keys = partKeys;
+        builder.add(partition, () -> {
+            if (null != outerIndices) {
+                outerIndices.add(index);
+            }
+            if (isMissing) {
+                keys.addMissing(index);
+            } else {
+                keys.add(key, index);
+            }
+        });
     }
 
 
     /**
      * Join given rows in memory and append joined row to the outputCont.
+     * The rows of the outer table are probed in batches, concurrently if
+     * {@link #m_pool} is set. The results are added to outputCont in the
+     * order of the outer table.
      *
      * @param leftTableHashed Stores the rows of the left input table in parts.
+     * @param leftKeysHashed Used instead of leftTableHashed when joining on
+     * primitive keys.
      * @param leftOuterJoins The same number as found in leftTableHashed used
      * for left outer joins.
      * @param currParts The parts of the outer table that will be joined.
@@ -898,6 +1189,7 @@ private void addRow(
      */
     private void joinInMemory(
             final Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed,
+            final Map <Integer, LongKeyRowIndexMap> leftKeysHashed,
             final Map <Integer, Set<Integer>> leftOuterJoins,
             final Collection<Integer> currParts,
             final BufferedDataTable rightTable,
@@ -905,92 +1197,347 @@ private void joinInMemory(
             final ExecutionContext exec,
             final double incProgress) throws CanceledExecutionException {
         double progress = exec.getProgressMonitor().getProgress();
+        Queue<Future<ProbedRows>> pending = new ArrayDeque<Future<ProbedRows>>();
         int counter = 0;
-        for (DataRow dataRow : rightTable) {
-            progress += incProgress;
-            exec.getProgressMonitor().setProgress(progress);
+        DataRow[] batch = new DataRow[PROBE_BATCH_SIZE];
+        int batchSize = 0;
+        for (Iterator<DataRow> it = rightTable.iterator(); it.hasNext();) {
             exec.checkCanceled();
+            batch[batchSize++] = it.next();
+            if (batchSize == batch.length || !it.hasNext()) {
+                final DataRow[] rows = batch;
+                final int numRows = batchSize;
+                final int firstIndex = counter;
+                if (null == m_pool) {
+                    addProbedRows(probe(rows, numRows, firstIndex,
+                            leftTableHashed, leftKeysHashed, currParts),
+                            leftOuterJoins, outputCont, exec);
+                } else {
+                    pending.add(m_pool.enqueue(() -> probe(rows, numRows,
+                            firstIndex, leftTableHashed, leftKeysHashed,
+                            currParts)));
+                    batch = new DataRow[PROBE_BATCH_SIZE];
+                    if (pending.size() >= 2 * m_parallelism) {
+                        addProbedRows(ThreadUtils.waitFor(pending.remove(), pending),
+                                leftOuterJoins, outputCont, exec);
+                    }
+                }
+                counter += numRows;
+                batchSize = 0;
+                progress += numRows * incProgress;
+                exec.getProgressMonitor().setProgress(progress);
+            }
+        }
+        while (!pending.isEmpty()) {
+            exec.checkCanceled();
+            addProbedRows(ThreadUtils.waitFor(pending.remove(), pending),
+                    leftOuterJoins, outputCont, exec);
+        }
+
+        if (m_retainLeft && !m_matchAny) {
+            for (int partition : leftOuterJoins.keySet()) {
+                for (Integer row : leftOuterJoins.get(partition)) {
+                    // add left outer join
+                    DataRow outRow = OutputRow.createDataRow(
+                            outputCont.getRowCount(),
+                            row, -1,
+                            m_outputDataRowSettings);
+                    outputCont.addLeftOuter(outRow, exec);
+                }
+            }
+        }
 
-            InputRow rightRow = new InputRow(dataRow, counter,
-                    InputRow.Settings.InDataPort.Right,
-                    m_inputDataRowSettings);
+    }
 
+    /**
+     * Looks up the join tuples of a batch of rows of the outer table in the
+     * given partitions. Called concurrently by the threads of
+     * {@link #m_pool}, the partitions are only read.
+     *
+     * @param rows The rows of the outer table.
+     * @param numRows The number of rows in the array.
+     * @param firstIndex The index of the first row in the outer table.
+     * @param leftTableHashed Stores the rows of the left input table in parts.
+     * @param leftKeysHashed Used instead of leftTableHashed when joining on
+     * primitive keys.
+     * @param currParts The parts of the outer table that will be joined.
+     * @return The matches and right outer joins of the rows.
+     */
+    private ProbedRows probe(final DataRow[] rows, final int numRows,
+            final int firstIndex,
+            final Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed,
+            final Map <Integer, LongKeyRowIndexMap> leftKeysHashed,
+            final Collection<Integer> currParts) {
+        ProbedRows result = new ProbedRows(rows, firstIndex);
+        for (int i = 0; i < numRows; i++) {
             boolean matchFoundForRightRow = false;
             boolean deferMatch = false;
 
-            for (JoinTuple joinTuple : rightRow.getJoinTuples()) {
-                int partition = joinTuple.hashCode() & m_bitMask;
+            if (null != m_primitiveKeyType) {
+                DataCell cell = rows[i].getCell(m_rightKeyIndex);
+                long key = cell.isMissing() ? 0 : getPrimitiveKey(cell);
+                int partition = (cell.isMissing() ? MISSING_KEY_HASH
+                    : getPartitionHash(key)) & m_bitMask;
                 if (!currParts.contains(partition)) {
+                    // defer non-match when partition is not in the current partitions
                     deferMatch = true;
-                    // skip and defer non-match when partition is not in the current partitions
-                    continue;
-                }
-
-                Map<JoinTuple, Set<Integer>> leftTuples =
-                    leftTableHashed.get(partition);
-                if (null == leftTuples) {
-                    // skip and check for outer join when the left table does not have rows that fall
-                    // in this partition
-                    deferMatch = false;
-                    continue;
+                } else if (!isFilteredOut(key, false)) {
+                    LongKeyRowIndexMap leftKeys = leftKeysHashed.get(partition);
+                    if (null != leftKeys && !cell.isMissing()) {
+                        for (int e = leftKeys.getFirstEntry(key); e >= 0;
+                                e = leftKeys.getNextEntry(e)) {
+                            matchFoundForRightRow = true;
+                            result.addMatch(i, leftKeys.getRowIndex(e),
+                                    partition);
+                        }
+                    }
                 }
+            } else {
+                InputRow rightRow = new InputRow(rows[i], firstIndex + i,
+                        InputRow.Settings.InDataPort.Right,
+                        m_inputDataRowSettings);
+                for (JoinTuple joinTuple : rightRow.getJoinTuples()) {
+                    int partition = joinTuple.hashCode() & m_bitMask;
+                    if (!currParts.contains(partition)) {
+                        deferMatch = true;
+                        // skip and defer non-match when partition is not in the current partitions
+                        continue;
+                    }
+                    if (isFilteredOut(joinTuple.hashCode(), false)) {
+                        // cannot match, no outer join since the right rows are not retained
+                        continue;
+                    }
 
-                Set<Integer> localLeftOuterJoins = null;
-                if (m_retainLeft  && !m_matchAny) {
-                    localLeftOuterJoins = leftOuterJoins.get(partition);
-                }
+                    Map<JoinTuple, Set<Integer>> leftTuples =
+                        leftTableHashed.get(partition);
+                    if (null == leftTuples) {
+                        // skip and check for outer join when the left table does not have rows that fall
+                        // in this partition
+                        deferMatch = false;
+                        continue;
+                    }
 
-                Set<Integer> leftRows = leftTuples.get(joinTuple);
-                if (null != leftRows) {
-                    matchFoundForRightRow = true;
-                    for (Integer leftRowIndex : leftRows) {
-                        // add inner join
-                        DataRow outRow = OutputRow.createDataRow(
-                                outputCont.getRowCount(),
-                                leftRowIndex, rightRow.getIndex(),
-                                dataRow,
-                                m_outputDataRowSettings);
-                        outputCont.addMatch(outRow, exec);
-                        if (m_retainLeft && !m_matchAny) {
-                            localLeftOuterJoins.remove(leftRowIndex);
-                        }
-                        if (m_retainLeft && m_matchAny) {
-                            m_globalLeftOuterJoins.remove(leftRowIndex);
+                    Set<Integer> leftRows = leftTuples.get(joinTuple);
+                    if (null != leftRows) {
+                        matchFoundForRightRow = true;
+                        for (Integer leftRowIndex : leftRows) {
+                            result.addMatch(i, leftRowIndex, partition);
                         }
                     }
                 }
             }
 
-
             if (m_retainRight && !matchFoundForRightRow && !deferMatch) {
-                long outRowIndex = outputCont.getRowCount();
-                // add right outer join
-                DataRow outRow = OutputRow.createDataRow(outRowIndex,
-                        -1, rightRow.getIndex(),
-                        dataRow,
-                        m_outputDataRowSettings);
-                outputCont.addRightOuter(outRow, exec);
+                result.addRightOuter(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the matches and right outer joins of a batch of probed rows to
+     * the output container.
+     */
+    private void addProbedRows(final ProbedRows probedRows,
+            final Map <Integer, Set<Integer>> leftOuterJoins,
+            final JoinContainer outputCont,
+            final ExecutionContext exec) {
+        for (int m = 0; m < probedRows.m_numMatches; m++) {
+            int i = probedRows.m_matchPositions[m];
+            int leftRowIndex = probedRows.m_matchLeftIndices[m];
+            // add inner join
+            DataRow outRow = OutputRow.createDataRow(
+                    outputCont.getRowCount(),
+                    leftRowIndex, probedRows.m_firstIndex + i,
+                    probedRows.m_rows[i],
+                    m_outputDataRowSettings);
+            outputCont.addMatch(outRow, exec);
+            if (m_retainLeft && !m_matchAny) {
+                leftOuterJoins.get(probedRows.m_matchPartitions[m])
+                    .remove(leftRowIndex);
+            }
+            if (m_retainLeft && m_matchAny) {
+                m_globalLeftOuterJoins.remove(leftRowIndex);
+            }
+        }
+        for (int o = 0; o < probedRows.m_numRightOuter; o++) {
+            int i = probedRows.m_rightOuterPositions[o];
+            long outRowIndex = outputCont.getRowCount();
+            // add right outer join
+            DataRow outRow = OutputRow.createDataRow(outRowIndex,
+                    -1, probedRows.m_firstIndex + i,
+                    probedRows.m_rows[i],
+                    m_outputDataRowSettings);
+            outputCont.addRightOuter(outRow, exec);
+        }
+    }
+
+    /**
+     * Determines whether the tables can be joined on primitive keys, which
+     * is the case for a single pair of join columns of type int, long or
+     * double.
+     *
+     * @return the type of the join columns or null
+     */
+    private DataType getPrimitiveKeyType(final BufferedDataTable leftTable,
+            final BufferedDataTable rightTable) {
+        List<Integer> leftTableJoinIndices =
+            getLeftJoinIndices(leftTable.getDataTableSpec());
+        List<Integer> rightTableJoinIndices =
+            getRightJoinIndices(rightTable.getDataTableSpec());
+        if (m_matchAny || leftTableJoinIndices.size() != 1
+                || leftTableJoinIndices.get(0) < 0
+                || rightTableJoinIndices.get(0) < 0) {
+            return null;
+        }
+        m_leftKeyIndex = leftTableJoinIndices.get(0);
+        m_rightKeyIndex = rightTableJoinIndices.get(0);
+        DataType leftType = leftTable.getDataTableSpec()
+            .getColumnSpec(m_leftKeyIndex).getType();
+        DataType rightType = rightTable.getDataTableSpec()
+            .getColumnSpec(m_rightKeyIndex).getType();
+        if (leftType.equals(rightType)
+                && (leftType.equals(IntCell.TYPE)
+                        || leftType.equals(LongCell.TYPE)
+                        || leftType.equals(DoubleCell.TYPE))) {
+            return leftType;
+        }
+        return null;
+    }
+
+    /**
+     * @param cell a non-missing cell of the join column
+     * @return the key of the cell, two keys are equal if and only if
+     * the cells are equal
+     */
+    private long getPrimitiveKey(final DataCell cell) {
+        if (DoubleCell.TYPE.equals(m_primitiveKeyType)) {
+            // same equality as DoubleCell, i.e. NaN matches NaN
+            return Double.doubleToLongBits(
+                ((DoubleValue)cell).getDoubleValue());
+        }
+        return ((LongValue)cell).getLongValue();
+    }
+
+    /**
+     * Builds {@link #m_bloomFilter} on the join values of the smaller table
+     * if the rows of the larger table need not be retained, i.e. for inner
+     * joins and for outer joins that retain the smaller table only.
+     *
+     * @throws CanceledExecutionException when execution is canceled
+     */
+    private void createBloomFilter(final BufferedDataTable leftTable,
+            final BufferedDataTable rightTable, final ExecutionContext exec)
+    throws CanceledExecutionException {
+        boolean onLeft = leftTable.size() > rightTable.size();
+        if (onLeft ? m_retainLeft : m_retainRight) {
+            return;
+        }
+        BufferedDataTable smallerTable = onLeft ? rightTable : leftTable;
+        InputRow.Settings.InDataPort port = onLeft
+            ? InputRow.Settings.InDataPort.Right
+            : InputRow.Settings.InDataPort.Left;
+        int keyIndex = onLeft ? m_rightKeyIndex : m_leftKeyIndex;
+        exec.setMessage("Build Bloom filter");
+        BloomFilter filter = new BloomFilter(smallerTable.size(),
+            BLOOM_FILTER_FPP);
+        int counter = 0;
+        for (DataRow row : smallerTable) {
+            exec.checkCanceled();
+            if (null != m_primitiveKeyType) {
+                DataCell cell = row.getCell(keyIndex);
+                filter.add(cell.isMissing() ? 0 : getPrimitiveKey(cell));
+            } else {
+                InputRow inputRow = new InputRow(row, counter, port,
+                        m_inputDataRowSettings);
+                // a single tuple since m_matchAny is false
+                filter.add(inputRow.getJoinTuples()[0].hashCode());
             }
             counter++;
         }
+        m_bloomFilter = filter;
+        m_bloomFilterOnLeft = onLeft;
+    }
 
-        if (m_retainLeft && !m_matchAny) {
-            for (int partition : leftOuterJoins.keySet()) {
-                for (Integer row : leftOuterJoins.get(partition)) {
-                    // add left outer join
-                    DataRow outRow = OutputRow.createDataRow(
-                            outputCont.getRowCount(),
-                            row, -1,
-                            m_outputDataRowSettings);
-                    outputCont.addLeftOuter(outRow, exec);
-                }
+    /**
+     * @param hash The hash of the join value of a row (the primitive key or
+     * the hash code of the join tuple).
+     * @param isLeftRow Whether the row is from the left table.
+     * @return true if the row is discarded since it cannot match a row of
+     * the other table
+     */
+    private boolean isFilteredOut(final long hash, final boolean isLeftRow) {
+        return null != m_bloomFilter && m_bloomFilterOnLeft == isLeftRow
+            && !m_bloomFilter.mightContain(hash);
+    }
+
+    /**
+     * Mixes the bits of a primitive key (finalizer of MurmurHash3), the
+     * partition of a key are the lower bits of the result.
+     */
+    private static int getPartitionHash(final long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int)h;
+    }
+
+    /**
+     * The matches and right outer joins of a batch of rows of the outer
+     * table, see {@link Joiner#probe}.
+     */
+    private static final class ProbedRows {
+        private final DataRow[] m_rows;
+
+        private final int m_firstIndex;
+
+        /** The position of the right row in m_rows of each match. */
+        private int[] m_matchPositions = new int[16];
+
+        /** The index of the left row of each match. */
+        private int[] m_matchLeftIndices = new int[16];
+
+        /** The partition of each match. */
+        private int[] m_matchPartitions = new int[16];
+
+        private int m_numMatches;
+
+        /** The positions in m_rows of the right outer joins. */
+        private int[] m_rightOuterPositions = new int[16];
+
+        private int m_numRightOuter;
+
+        ProbedRows(final DataRow[] rows, final int firstIndex) {
+            m_rows = rows;
+            m_firstIndex = firstIndex;
+        }
+
+        void addMatch(final int position, final int leftIndex,
+                final int partition) {
+            if (m_numMatches == m_matchPositions.length) {
+                m_matchPositions = Arrays.copyOf(m_matchPositions, 2 * m_numMatches);
+                m_matchLeftIndices = Arrays.copyOf(m_matchLeftIndices, 2 * m_numMatches);
+                m_matchPartitions = Arrays.copyOf(m_matchPartitions, 2 * m_numMatches);
             }
+            m_matchPositions[m_numMatches] = position;
+            m_matchLeftIndices[m_numMatches] = leftIndex;
+            m_matchPartitions[m_numMatches] = partition;
+            m_numMatches++;
         }
 
+        void addRightOuter(final int position) {
+            if (m_numRightOuter == m_rightOuterPositions.length) {
+                m_rightOuterPositions = Arrays.copyOf(m_rightOuterPositions, 2 * m_numRightOuter);
+            }
+            m_rightOuterPositions[m_numRightOuter++] = position;
+        }
     }
 
     private List<Integer> getLeftJoinIndices(
-            final BufferedDataTable leftTable) {
+            final DataTableSpec leftSpec) {
         // Create list of indices for the joining columns (Element of the list
         // is -1 if RowKey should be joined).
         int numJoinAttributes = m_settings.getLeftJoinColumns().length;
@@ -998,16 +1545,14 @@ private List<Integer> getLeftJoinIndices(
             new ArrayList<Integer>(numJoinAttributes);
         for (int i = 0; i < numJoinAttributes; i++) {
             String joinAttribute = m_settings.getLeftJoinColumns()[i];
-            leftTableJoinIndices.add(
-                    leftTable.getDataTableSpec().findColumnIndex(
-                            joinAttribute));
+            leftTableJoinIndices.add(leftSpec.findColumnIndex(joinAttribute));
         }
         return leftTableJoinIndices;
     }
 
 
     private List<Integer> getRightJoinIndices(
-            final BufferedDataTable rightTable) {
+            final DataTableSpec rightSpec) {
         // Create list of indices for the joining columns (Element of the list
         // is -1 if RowKey should be joined).
         int numJoinAttributes = m_settings.getLeftJoinColumns().length;
@@ -1015,18 +1560,17 @@ private List<Integer> getRightJoinIndices(
             new ArrayList<Integer>(numJoinAttributes);
         for (int i = 0; i < numJoinAttributes; i++) {
             String joinAttribute = m_settings.getRightJoinColumns()[i];
-            rightTableJoinIndices.add(rightTable.getDataTableSpec()
-                    .findColumnIndex(joinAttribute));
+            rightTableJoinIndices.add(rightSpec.findColumnIndex(joinAttribute));
         }
         return rightTableJoinIndices;
     }
 
     private JoinedRowKeyFactory createRowKeyFactory(
-            final BufferedDataTable leftTable,
-            final BufferedDataTable rightTable) {
+            final DataTableSpec leftSpec,
+            final DataTableSpec rightSpec) {
 
 
-        if (useSingleRowKeyFactory(leftTable, rightTable)) {
+        if (useSingleRowKeyFactory(leftSpec, rightSpec)) {
             // This is the special case of row key match row key
             return new UseSingleRowKeyFactory();
         } else {
@@ -1039,10 +1583,10 @@ private JoinedRowKeyFactory createRowKeyFactory(
      * Gives true when the SingleRowKeyFactory should be used.
      */
     private boolean useSingleRowKeyFactory(
-           final BufferedDataTable leftTable,
-           final BufferedDataTable rightTable) {
-        List<Integer> leftTableJoinIndices = getLeftJoinIndices(leftTable);
-        List<Integer> rightTableJoinIndices = getRightJoinIndices(rightTable);
+           final DataTableSpec leftSpec,
+           final DataTableSpec rightSpec) {
+        List<Integer> leftTableJoinIndices = getLeftJoinIndices(leftSpec);
+        List<Integer> rightTableJoinIndices = getRightJoinIndices(rightSpec);
 
         boolean joinRowIdsOnly = true;
         boolean joinRowIds = false;
@@ -1063,8 +1607,10 @@ private boolean useSingleRowKeyFactory(
     private InputRow.Settings createInputDataRowSettings(
             final BufferedDataTable leftTable,
             final BufferedDataTable rightTable) {
-        List<Integer> leftTableJoinIndices = getLeftJoinIndices(leftTable);
-        List<Integer> rightTableJoinIndices = getRightJoinIndices(rightTable);
+        List<Integer> leftTableJoinIndices =
+            getLeftJoinIndices(leftTable.getDataTableSpec());
+        List<Integer> rightTableJoinIndices =
+            getRightJoinIndices(rightTable.getDataTableSpec());
 
 
 
@@ -1140,8 +1686,9 @@ public static  void validateSettings(final Joiner2Settings s)
     private void compareDuplicates(final BufferedDataTable leftTable,
             final BufferedDataTable rightTable, final List<String> duplicates) {
 
-        int[] leftIndex = getIndicesOf(leftTable, duplicates);
-        int[] rightIndex = getIndicesOf(rightTable, duplicates);
+        int[] leftIndex = getIndicesOf(leftTable.getDataTableSpec(), duplicates);
+        int[] rightIndex =
+            getIndicesOf(rightTable.getDataTableSpec(), duplicates);
 
         String[] messages = new String[duplicates.size()];
 
@@ -1194,18 +1741,18 @@ private void compareDuplicates(final BufferedDataTable leftTable,
 
     /**
      * Used in compareDuplicates.
-     * @param table A DataTable
+     * @param spec The spec of a DataTable
      * @param cols Columns of the table
      * @return the indices of the given columns in the table.
      */
-    private int[] getIndicesOf(final BufferedDataTable table,
+    private int[] getIndicesOf(final DataTableSpec spec,
             final List<String> cols) {
         int[] indices = new int[cols.size()];
         int c = 0;
 
         for (String col : cols) {
-            for (int i = 0; i < table.getDataTableSpec().getNumColumns(); i++) {
-                if (table.getSpec().getColumnSpec(i).getName().equals(col)) {
+            for (int i = 0; i < spec.getNumColumns(); i++) {
+                if (spec.getColumnSpec(i).getName().equals(col)) {
                     indices[c] = i;
                 }
             }
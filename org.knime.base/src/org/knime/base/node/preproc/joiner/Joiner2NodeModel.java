@@ -54,21 +54,37 @@
 import java.util.HashMap;
 import java.util.Set;
 
+import org.knime.base.data.sort.SortedColumnsProperty;
+import org.knime.base.node.preproc.joiner.Joiner2Settings.JoinAlgorithm;
+import org.knime.base.node.preproc.joiner.SortMergeJoiner.UnsortedInputException;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.RowKey;
+import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettings;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortObjectSpec;
 import org.knime.core.node.property.hilite.DefaultHiLiteMapper;
 import org.knime.core.node.property.hilite.HiLiteHandler;
 import org.knime.core.node.property.hilite.HiLiteMapper;
 import org.knime.core.node.property.hilite.HiLiteTranslator;
+import org.knime.core.node.streamable.BufferedDataTableRowOutput;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
 
 /**
  * This is the model of the joiner node. It delegates the dirty work to the
@@ -77,9 +93,15 @@
  * @author Heiko Hofer
  */
 public class Joiner2NodeModel extends NodeModel {
+    private static final NodeLogger LOGGER =
+            NodeLogger.getLogger(Joiner2NodeModel.class);
 
     private final Joiner2Settings m_settings = new Joiner2Settings();
 
+    /** If the sort-merge join is used, as determined by the last call of
+     * {@link #configure(DataTableSpec[])}. */
+    private boolean m_useSortMergeJoin;
+
 
     private HashMap<RowKey, Set<RowKey>> m_leftRowKeyMap
         = new HashMap<RowKey, Set<RowKey>>();
@@ -111,6 +133,7 @@ protected DataTableSpec[] configure(final DataTableSpec[] inSpecs)
             throws InvalidSettingsException {
         Joiner joiner = new Joiner(inSpecs[0], inSpecs[1], m_settings);
         DataTableSpec[] spec = new DataTableSpec[]{joiner.getOutputSpec()};
+        m_useSortMergeJoin = useSortMergeJoin(joiner, inSpecs[0], inSpecs[1]);
 
         if (!joiner.getConfigWarnings().isEmpty()) {
             for (String warning : joiner.getConfigWarnings()) {
@@ -129,10 +152,49 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         Joiner joiner =
                 new Joiner(inData[0].getDataTableSpec(), inData[1]
                         .getDataTableSpec(), m_settings);
+        joiner.setParallelism(KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads());
+
+        BufferedDataTable[] joinedTable = null;
+        if (useSortMergeJoin(joiner, inData[0].getDataTableSpec(),
+                inData[1].getDataTableSpec())) {
+            BufferedDataContainer cont =
+                    exec.createDataContainer(joiner.getOutputSpec());
+            DataTableRowInput leftInput = new DataTableRowInput(inData[0]);
+            DataTableRowInput rightInput = new DataTableRowInput(inData[1]);
+            try {
+                joiner.computeSortMergeJoin(leftInput, rightInput,
+                        new BufferedDataTableRowOutput(cont), exec);
+                cont.close();
+                joinedTable = new BufferedDataTable[]{cont.getTable()};
+            } catch (UnsortedInputException e) {
+                if (!JoinAlgorithm.Auto.equals(m_settings.getJoinAlgorithm())) {
+                    throw e;
+                }
+                // the tables are declared to be sorted but are not, e.g.
+                // because a node in between reordered the rows
+                LOGGER.debug(e.getMessage() + " Using the hash join instead.");
+                cont.close();
+                exec.clearTable(cont.getTable());
+            } finally {
+                leftInput.close();
+                rightInput.close();
+            }
+        }
+        if (null == joinedTable) {
+            joinedTable = new BufferedDataTable[]{
+                    joiner.computeJoinTable(inData[0], inData[1], exec)};
+        }
 
-        BufferedDataTable[] joinedTable = new BufferedDataTable[]{
-                joiner.computeJoinTable(inData[0], inData[1], exec)};
+        setRuntimeResults(joiner);
 
+        return joinedTable;
+    }
+
+    /**
+     * Sets the warnings and the hilite mappers after the tables have been
+     * joined.
+     */
+    private void setRuntimeResults(final Joiner joiner) {
         if (!joiner.getRuntimeWarnings().isEmpty()) {
             for (String warning : joiner.getRuntimeWarnings()) {
                 setWarningMessage(warning);
@@ -144,8 +206,90 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         m_rightMapper = new DefaultHiLiteMapper(m_rightRowKeyMap);
         m_leftTranslator.setMapper(m_leftMapper);
         m_rightTranslator.setMapper(m_rightMapper);
+    }
 
-        return joinedTable;
+    /**
+     * Determines whether the sort-merge join is used for the given inputs.
+     * In automatic mode it is used if both inputs declare to be sorted by
+     * their joining columns, see {@link SortedColumnsProperty}.
+     *
+     * @throws InvalidSettingsException if the sort-merge join is selected but
+     *             does not support the settings
+     */
+    private boolean useSortMergeJoin(final Joiner joiner,
+            final DataTableSpec leftSpec, final DataTableSpec rightSpec)
+            throws InvalidSettingsException {
+        switch (m_settings.getJoinAlgorithm()) {
+            case SortMergeJoin:
+                if (!joiner.supportsSortMergeJoin()) {
+                    throw new InvalidSettingsException("The sort-merge join "
+                        + "does not support the option \"Match any of the "
+                        + "following\".");
+                }
+                return true;
+            case Auto:
+                return joiner.supportsSortMergeJoin()
+                    && SortedColumnsProperty.isSortedAscendingBy(leftSpec,
+                        toSortColumns(m_settings.getLeftJoinColumns()))
+                    && SortedColumnsProperty.isSortedAscendingBy(rightSpec,
+                        toSortColumns(m_settings.getRightJoinColumns()));
+            default:
+                return false;
+        }
+    }
+
+    private static String[] toSortColumns(final String[] joinColumns) {
+        String[] columns = new String[joinColumns.length];
+        for (int i = 0; i < joinColumns.length; i++) {
+            columns[i] = Joiner2Settings.ROW_KEY_IDENTIFIER.equals(
+                joinColumns[i]) ? null : joinColumns[i];
+        }
+        return columns;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputPortRole[] getInputPortRoles() {
+        if (m_useSortMergeJoin) {
+            return new InputPortRole[]{InputPortRole.NONDISTRIBUTED_STREAMABLE,
+                    InputPortRole.NONDISTRIBUTED_STREAMABLE};
+        }
+        return super.getInputPortRoles();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamableOperator createStreamableOperator(
+            final PartitionInfo partitionInfo,
+            final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+        final Joiner joiner = new Joiner((DataTableSpec)inSpecs[0],
+                (DataTableSpec)inSpecs[1], m_settings);
+        if (!useSortMergeJoin(joiner, (DataTableSpec)inSpecs[0],
+                (DataTableSpec)inSpecs[1])) {
+            return super.createStreamableOperator(partitionInfo, inSpecs);
+        }
+        return new StreamableOperator() {
+
+            @Override
+            public void runFinal(final PortInput[] inputs,
+                    final PortOutput[] outputs, final ExecutionContext exec)
+                    throws Exception {
+                RowInput leftInput = (RowInput)inputs[0];
+                RowInput rightInput = (RowInput)inputs[1];
+                RowOutput out = (RowOutput)outputs[0];
+                // rows have been pushed downstream already, hence there is no
+                // falling back to the hash join on unsorted input
+                joiner.computeSortMergeJoin(leftInput, rightInput, out, exec);
+                leftInput.close();
+                rightInput.close();
+                out.close();
+                setRuntimeResults(joiner);
+            }
+        };
     }
 
     /**
@@ -74,6 +74,8 @@ public class Joiner2Settings {
     private static final String MAX_OPEN_FILES = "maxOpenFiles";
     private static final String ROW_KEY_SEPARATOR = "rowKeySeparator";
     private static final String ENABLE_HILITE = "enableHiLite";
+    private static final String USE_BLOOM_FILTER = "useBloomFilter";
+    private static final String JOIN_ALGORITHM = "joinAlgorithm";
     private static final String VERSION = "version";
 
     /**
@@ -156,6 +158,37 @@ public enum CompositionMode {
         MatchAny;
     }
 
+    /**
+     * This enum holds all algorithms that can be used to join the tables.
+     *
+     * @since 3.5
+     */
+    public enum JoinAlgorithm {
+        /** Partition the top table in a hash table and probe the bottom table
+         * against it. Works for arbitrary input. */
+        HashJoin("Hash join"),
+        /** Merge the two tables, both of which need to be sorted ascending by
+         * their joining columns. Does not buffer the input tables. */
+        SortMergeJoin("Sort-merge join"),
+        /** Use the sort-merge join if both input tables are declared to be
+         * sorted by their joining columns, otherwise the hash join. */
+        Auto("Automatic");
+
+        private final String m_text;
+
+        private JoinAlgorithm(final String text) {
+            m_text = text;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return m_text;
+        }
+    }
+
 
     /** Internally used row key identifier. */
     static final String ROW_KEY_IDENTIFIER = "$RowID$";
@@ -184,6 +217,8 @@ public enum CompositionMode {
     private int m_maxOpenFiles = 200;
     private String m_rowKeySeparator = "_";
     private boolean m_enableHiLite = false;
+    private boolean m_useBloomFilter = false;
+    private JoinAlgorithm m_joinAlgorithm = JoinAlgorithm.Auto;
 
     private String m_version = VERSION_3;
 
@@ -495,6 +530,50 @@ public void setEnableHiLite(final boolean enableHiLite) {
         m_enableHiLite = enableHiLite;
     }
 
+    /**
+     * Returns true when the rows of the larger table should be pre-filtered
+     * with a Bloom filter on the join values of the smaller table.
+     *
+     * @return the useBloomFilter
+     * @since 3.5
+     */
+    public boolean getUseBloomFilter() {
+        return m_useBloomFilter;
+    }
+
+    /**
+     * Set if the rows of the larger table should be pre-filtered with a Bloom
+     * filter on the join values of the smaller table. This is only done for
+     * inner joins and for outer joins that do not retain the rows of the
+     * larger table.
+     *
+     * @param useBloomFilter the useBloomFilter to set
+     * @since 3.5
+     */
+    public void setUseBloomFilter(final boolean useBloomFilter) {
+        m_useBloomFilter = useBloomFilter;
+    }
+
+    /**
+     * Returns the algorithm used to join the tables.
+     *
+     * @return the joinAlgorithm
+     * @since 3.5
+     */
+    public JoinAlgorithm getJoinAlgorithm() {
+        return m_joinAlgorithm;
+    }
+
+    /**
+     * Set the algorithm used to join the tables.
+     *
+     * @param joinAlgorithm the joinAlgorithm to set
+     * @since 3.5
+     */
+    public void setJoinAlgorithm(final JoinAlgorithm joinAlgorithm) {
+        m_joinAlgorithm = joinAlgorithm;
+    }
+
     /**
      * Loads the settings from the node settings object.
      *
@@ -531,6 +610,10 @@ public void loadSettings(final NodeSettingsRO settings)
         m_maxOpenFiles = settings.getInt(MAX_OPEN_FILES);
         m_rowKeySeparator = settings.getString(ROW_KEY_SEPARATOR);
         m_enableHiLite = settings.getBoolean(ENABLE_HILITE);
+        // added in 3.5
+        m_useBloomFilter = settings.getBoolean(USE_BLOOM_FILTER, false);
+        m_joinAlgorithm = JoinAlgorithm.valueOf(settings.getString(
+                JOIN_ALGORITHM, JoinAlgorithm.HashJoin.name()));
 
 
     }
@@ -583,6 +666,9 @@ public void loadSettingsForDialog(final NodeSettingsRO settings) {
         m_maxOpenFiles = settings.getInt(MAX_OPEN_FILES, 200);
         m_rowKeySeparator = settings.getString(ROW_KEY_SEPARATOR, "_");
         m_enableHiLite = settings.getBoolean(ENABLE_HILITE, false);
+        m_useBloomFilter = settings.getBoolean(USE_BLOOM_FILTER, false);
+        m_joinAlgorithm = JoinAlgorithm.valueOf(settings.getString(
+                JOIN_ALGORITHM, JoinAlgorithm.HashJoin.name()));
 
 
     }
@@ -611,6 +697,8 @@ public void saveSettings(final NodeSettingsWO settings) {
         settings.addInt(MAX_OPEN_FILES, m_maxOpenFiles);
         settings.addString(ROW_KEY_SEPARATOR, m_rowKeySeparator);
         settings.addBoolean(ENABLE_HILITE, m_enableHiLite);
+        settings.addBoolean(USE_BLOOM_FILTER, m_useBloomFilter);
+        settings.addString(JOIN_ALGORITHM, m_joinAlgorithm.name());
         // save default values for settings that were removed in 2.5, so that
         // a workflow created with 2.5 can be opened in 2.4.
         settings.addInt("numBitsInitial", 6);
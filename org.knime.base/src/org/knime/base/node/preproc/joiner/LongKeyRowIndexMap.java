@@ -0,0 +1,237 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.joiner;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Maps the join values of the rows of one partition of the inner table to the indices of these rows. Used instead of
+ * a <code>Map&lt;JoinTuple, Set&lt;Integer&gt;&gt;</code> when the tables are joined on a single int, long or
+ * double column. The keys are primitive longs (the raw long bits for doubles), the map uses open addressing and
+ * the row indices of a key are chained in an int array, so that neither keys nor indices are boxed.
+ *
+ * <p>Rows whose join value is missing never match but are kept as well, so that they can be reported as left outer
+ * joins.
+ *
+ * <p>Instances are not thread-safe.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class LongKeyRowIndexMap {
+
+    private static final int NO_ENTRY = -1;
+
+    /** The keys, valid where m_heads is not NO_ENTRY. */
+    private long[] m_keys;
+
+    /** The most recently added entry of each key, NO_ENTRY for unused slots. */
+    private int[] m_heads;
+
+    /** The row index of each entry. */
+    private int[] m_rowIndices;
+
+    /** The previously added entry with the same key, NO_ENTRY if there is none. */
+    private int[] m_next;
+
+    /** The most recently added entry with a missing join value. */
+    private int m_missingHead = NO_ENTRY;
+
+    private int m_numKeys;
+
+    private int m_numEntries;
+
+    /** Creates an empty map. */
+    LongKeyRowIndexMap() {
+        init(16, 16);
+    }
+
+    private void init(final int numSlots, final int numEntries) {
+        m_keys = new long[numSlots];
+        m_heads = new int[numSlots];
+        Arrays.fill(m_heads, NO_ENTRY);
+        m_rowIndices = new int[numEntries];
+        m_next = new int[numEntries];
+        m_numKeys = 0;
+        m_numEntries = 0;
+        m_missingHead = NO_ENTRY;
+    }
+
+    /**
+     * Adds a row.
+     *
+     * @param key the join value of the row
+     * @param rowIndex the index of the row
+     */
+    void add(final long key, final int rowIndex) {
+        if (2 * (m_numKeys + 1) > m_keys.length) {
+            rehash(2 * m_keys.length);
+        }
+        int slot = findSlot(key);
+        if (m_heads[slot] == NO_ENTRY) {
+            m_keys[slot] = key;
+            m_numKeys++;
+        }
+        m_heads[slot] = addEntry(rowIndex, m_heads[slot]);
+    }
+
+    /**
+     * Adds a row whose join value is missing. It will not be returned by {@link #getFirstEntry(long)}.
+     *
+     * @param rowIndex the index of the row
+     */
+    void addMissing(final int rowIndex) {
+        m_missingHead = addEntry(rowIndex, m_missingHead);
+    }
+
+    /**
+     * Returns the first entry of the rows with the given key. Use {@link #getNextEntry(int)} to iterate the others
+     * and {@link #getRowIndex(int)} to get the row index of an entry.
+     *
+     * @param key the join value
+     * @return the first entry or a negative value if there is no row with that key
+     */
+    int getFirstEntry(final long key) {
+        return m_heads[findSlot(key)];
+    }
+
+    /**
+     * @param entry an entry
+     * @return the next entry with the same key or a negative value if there is none
+     */
+    int getNextEntry(final int entry) {
+        return m_next[entry];
+    }
+
+    /**
+     * @param entry an entry
+     * @return the row index of the entry
+     */
+    int getRowIndex(final int entry) {
+        return m_rowIndices[entry];
+    }
+
+    /** @return the number of distinct (non-missing) keys */
+    int getNumKeys() {
+        return m_numKeys;
+    }
+
+    /**
+     * Passes the indices of all rows to the consumer, including the ones with a missing join value.
+     *
+     * @param consumer the consumer
+     */
+    void forEachRowIndex(final IntConsumer consumer) {
+        for (int i = 0; i < m_numEntries; i++) {
+            consumer.accept(m_rowIndices[i]);
+        }
+    }
+
+    /**
+     * Removes all rows whose key is not accepted by the given predicate.
+     *
+     * @param keepKey decides which keys are retained
+     * @param keepMissing whether the rows with a missing join value are retained
+     */
+    void retainKeys(final LongPredicate keepKey, final boolean keepMissing) {
+        long[] keys = m_keys;
+        int[] heads = m_heads;
+        int[] rowIndices = m_rowIndices;
+        int[] next = m_next;
+        int missingHead = m_missingHead;
+        init(keys.length, Math.max(16, m_numEntries));
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (heads[slot] != NO_ENTRY && keepKey.test(keys[slot])) {
+                for (int e = heads[slot]; e != NO_ENTRY; e = next[e]) {
+                    add(keys[slot], rowIndices[e]);
+                }
+            }
+        }
+        if (keepMissing) {
+            for (int e = missingHead; e != NO_ENTRY; e = next[e]) {
+                addMissing(rowIndices[e]);
+            }
+        }
+    }
+
+    private int addEntry(final int rowIndex, final int next) {
+        if (m_numEntries == m_rowIndices.length) {
+            int newLength = (int)Math.min(Integer.MAX_VALUE - 8, 2L * m_numEntries);
+            m_rowIndices = Arrays.copyOf(m_rowIndices, newLength);
+            m_next = Arrays.copyOf(m_next, newLength);
+        }
+        m_rowIndices[m_numEntries] = rowIndex;
+        m_next[m_numEntries] = next;
+        return m_numEntries++;
+    }
+
+    /** @return the slot holding the key or the empty slot where it would be inserted */
+    private int findSlot(final long key) {
+        int mask = m_keys.length - 1;
+        // Fibonacci hashing, uses the high bits of the product which are independent of the low bits that
+        // determine the partition of a key, see Joiner#getPartitionHash(long)
+        int slot = (int)((key * 0x9E3779B97F4A7C15L) >>> 33) & mask;
+        while (m_heads[slot] != NO_ENTRY && m_keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(final int numSlots) {
+        long[] keys = m_keys;
+        int[] heads = m_heads;
+        m_keys = new long[numSlots];
+        m_heads = new int[numSlots];
+        Arrays.fill(m_heads, NO_ENTRY);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (heads[slot] != NO_ENTRY) {
+                int newSlot = findSlot(keys[slot]);
+                m_keys[newSlot] = keys[slot];
+                m_heads[newSlot] = heads[slot];
+            }
+        }
+    }
+}
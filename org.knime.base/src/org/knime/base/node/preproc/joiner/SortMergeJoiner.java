@@ -0,0 +1,390 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.joiner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+
+/**
+ * Joins two inputs that are sorted ascending by their joining columns by
+ * merging them. Only the rows of the bottom input that share the current
+ * joining values are kept in memory, hence both inputs can be streamed. The
+ * matches are output in the same order as by the hash join, rows that do not
+ * match are output in between, in the order of their joining values.
+ *
+ * <p>The order of the inputs is verified while reading them, an
+ * {@link UnsortedInputException} is thrown as soon as a row is found that is
+ * not in order.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class SortMergeJoiner {
+
+    private final int[] m_leftJoinIndices;
+    private final int[] m_rightJoinIndices;
+    private final DataValueComparator[] m_comparators;
+
+    private final int[] m_leftSurvivors;
+    private final int[] m_rightSurvivors;
+    private final JoinedRowKeyFactory m_rowKeyFactory;
+
+    private final boolean m_retainLeft;
+    private final boolean m_retainRight;
+
+    private final HashMap<RowKey, Set<RowKey>> m_leftRowKeyMap;
+    private final HashMap<RowKey, Set<RowKey>> m_rightRowKeyMap;
+
+    private RowOutput m_output;
+    private long m_numOutputRows;
+
+    /**
+     * @param leftJoinIndices The joining columns of the left input, -1 for the
+     *            row key.
+     * @param rightJoinIndices The joining columns of the right input, -1 for
+     *            the row key.
+     * @param joinTypes The common type of each joining column pair, which
+     *            defines the sort order.
+     * @param leftSurvivors The columns of the left input in the output.
+     * @param rightSurvivors The columns of the right input in the output.
+     * @param rowKeyFactory Used for creating the row ids of the joined rows.
+     * @param retainLeft If left rows without a match are output.
+     * @param retainRight If right rows without a match are output.
+     * @param enableHiLite If the row key maps for hiliting are collected.
+     */
+    SortMergeJoiner(final int[] leftJoinIndices, final int[] rightJoinIndices,
+            final DataType[] joinTypes, final int[] leftSurvivors,
+            final int[] rightSurvivors,
+            final JoinedRowKeyFactory rowKeyFactory,
+            final boolean retainLeft, final boolean retainRight,
+            final boolean enableHiLite) {
+        m_leftJoinIndices = leftJoinIndices;
+        m_rightJoinIndices = rightJoinIndices;
+        m_comparators = new DataValueComparator[joinTypes.length];
+        for (int i = 0; i < joinTypes.length; i++) {
+            m_comparators[i] = joinTypes[i].getComparator();
+        }
+        m_leftSurvivors = leftSurvivors;
+        m_rightSurvivors = rightSurvivors;
+        m_rowKeyFactory = rowKeyFactory;
+        m_retainLeft = retainLeft;
+        m_retainRight = retainRight;
+        if (enableHiLite) {
+            m_leftRowKeyMap = new HashMap<RowKey, Set<RowKey>>();
+            m_rightRowKeyMap = new HashMap<RowKey, Set<RowKey>>();
+        } else {
+            m_leftRowKeyMap = null;
+            m_rightRowKeyMap = null;
+        }
+    }
+
+    /**
+     * @return the rowKeyMap or null if hiliting is disabled
+     */
+    HashMap<RowKey, Set<RowKey>> getLeftRowKeyMap() {
+        return m_leftRowKeyMap;
+    }
+
+    /**
+     * @return the rowKeyMap or null if hiliting is disabled
+     */
+    HashMap<RowKey, Set<RowKey>> getRightRowKeyMap() {
+        return m_rightRowKeyMap;
+    }
+
+    /**
+     * Merges the two inputs and pushes the joined rows to the output. The
+     * inputs and the output are not closed by this method.
+     *
+     * @param leftInput The left (top) input.
+     * @param rightInput The right (bottom) input.
+     * @param output The output receiving the joined rows.
+     * @param exec The execution context used for progress and cancellation.
+     * @throws UnsortedInputException If an input is not sorted by its joining
+     *             columns.
+     * @throws InterruptedException If reading or writing a row is interrupted.
+     * @throws CanceledExecutionException If execution is canceled.
+     */
+    void join(final RowInput leftInput, final RowInput rightInput,
+            final RowOutput output, final ExecutionContext exec)
+            throws UnsortedInputException, InterruptedException,
+            CanceledExecutionException {
+        m_output = output;
+        m_numOutputRows = 0;
+        final long leftRowCount = leftInput instanceof DataTableRowInput
+                ? ((DataTableRowInput)leftInput).getRowCount() : -1;
+        final Cursor left = new Cursor(leftInput, m_leftJoinIndices, "top");
+        final Cursor right =
+                new Cursor(rightInput, m_rightJoinIndices, "bottom");
+        // the right rows sharing the current joining values
+        List<DataRow> group = new ArrayList<DataRow>();
+        List<DataCell[]> groupKeys = new ArrayList<DataCell[]>();
+        while (left.m_row != null && right.m_row != null) {
+            exec.checkCanceled();
+            final long rowIndex = left.m_index;
+            if (leftRowCount > 0) {
+                exec.setProgress(rowIndex / (double)leftRowCount,
+                    () -> "Merging row " + rowIndex);
+            } else {
+                exec.setMessage(() -> "Merging row " + rowIndex);
+            }
+            int cmp = compare(left.m_key, right.m_key);
+            if (cmp < 0) {
+                if (m_retainLeft) {
+                    addRow(left.m_row, null);
+                }
+                left.advance();
+            } else if (cmp > 0) {
+                if (m_retainRight) {
+                    addRow(null, right.m_row);
+                }
+                right.advance();
+            } else {
+                group.clear();
+                groupKeys.clear();
+                final DataCell[] groupKey = right.m_key;
+                do {
+                    group.add(right.m_row);
+                    groupKeys.add(right.m_key);
+                    right.advance();
+                } while (right.m_row != null
+                        && compare(right.m_key, groupKey) == 0);
+                boolean[] matched = new boolean[group.size()];
+                do {
+                    exec.checkCanceled();
+                    boolean leftMatched = false;
+                    for (int i = 0; i < group.size(); i++) {
+                        // the comparators may consider distinct values equal
+                        if (equals(left.m_key, groupKeys.get(i))) {
+                            addRow(left.m_row, group.get(i));
+                            matched[i] = true;
+                            leftMatched = true;
+                        }
+                    }
+                    if (!leftMatched && m_retainLeft) {
+                        addRow(left.m_row, null);
+                    }
+                    left.advance();
+                } while (left.m_row != null
+                        && compare(left.m_key, groupKey) == 0);
+                if (m_retainRight) {
+                    for (int i = 0; i < group.size(); i++) {
+                        if (!matched[i]) {
+                            addRow(null, group.get(i));
+                        }
+                    }
+                }
+            }
+        }
+        // the remaining rows of either input cannot match anymore, they are
+        // still read to verify their order
+        while (left.m_row != null) {
+            exec.checkCanceled();
+            if (m_retainLeft) {
+                addRow(left.m_row, null);
+            }
+            left.advance();
+        }
+        while (right.m_row != null) {
+            exec.checkCanceled();
+            if (m_retainRight) {
+                addRow(null, right.m_row);
+            }
+            right.advance();
+        }
+        m_output = null;
+    }
+
+    /**
+     * @return the number of rows pushed to the output by the last call of
+     *         {@link #join(RowInput, RowInput, RowOutput, ExecutionContext)}
+     */
+    long getNumOutputRows() {
+        return m_numOutputRows;
+    }
+
+    private int compare(final DataCell[] key1, final DataCell[] key2) {
+        for (int i = 0; i < m_comparators.length; i++) {
+            int cmp = m_comparators[i].compare(key1[i], key2[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Missing values never match (as in the hash join, see JoinTuple), also
+     * not each other.
+     */
+    private static boolean equals(final DataCell[] key1,
+            final DataCell[] key2) {
+        for (int i = 0; i < key1.length; i++) {
+            if (key1[i].isMissing() || key2[i].isMissing()
+                    || !key1[i].equals(key2[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Builds the joined row, either row may be null. */
+    private void addRow(final DataRow left, final DataRow right)
+            throws InterruptedException {
+        DataCell[] cells =
+                new DataCell[m_leftSurvivors.length + m_rightSurvivors.length];
+        int c = 0;
+        for (int i = 0; i < m_leftSurvivors.length; i++) {
+            cells[c++] = null != left ? left.getCell(m_leftSurvivors[i])
+                    : DataType.getMissingCell();
+        }
+        for (int i = 0; i < m_rightSurvivors.length; i++) {
+            cells[c++] = null != right ? right.getCell(m_rightSurvivors[i])
+                    : DataType.getMissingCell();
+        }
+        RowKey leftKey = null != left ? left.getKey() : null;
+        RowKey rightKey = null != right ? right.getKey() : null;
+        RowKey joinedKey = m_rowKeyFactory.createJoinedKey(leftKey, rightKey);
+        m_output.push(new DefaultRow(joinedKey, cells));
+        m_numOutputRows++;
+        if (null != m_leftRowKeyMap) {
+            // Remember RowKeys for HiLiting
+            if (null != leftKey) {
+                addToRowKeyMap(m_leftRowKeyMap, leftKey, joinedKey);
+            }
+            if (null != rightKey) {
+                addToRowKeyMap(m_rightRowKeyMap, rightKey, joinedKey);
+            }
+        }
+    }
+
+    private static void addToRowKeyMap(
+            final HashMap<RowKey, Set<RowKey>> rowKeyMap, final RowKey key,
+            final RowKey joinedKey) {
+        Set<RowKey> keySet = rowKeyMap.get(key);
+        if (null == keySet) {
+            keySet = new HashSet<RowKey>();
+            rowKeyMap.put(key, keySet);
+        }
+        keySet.add(joinedKey);
+    }
+
+    /** The current row of an input together with its joining values. */
+    private final class Cursor {
+        private final RowInput m_input;
+        private final int[] m_joinIndices;
+        private final String m_name;
+
+        private DataRow m_row;
+        private DataCell[] m_key;
+        private long m_index = -1;
+
+        Cursor(final RowInput input, final int[] joinIndices,
+                final String name) throws InterruptedException,
+                UnsortedInputException {
+            m_input = input;
+            m_joinIndices = joinIndices;
+            m_name = name;
+            advance();
+        }
+
+        /** Reads the next row and verifies that it is not smaller than the
+         * current one. */
+        void advance() throws InterruptedException, UnsortedInputException {
+            DataRow next = m_input.poll();
+            m_index++;
+            if (null == next) {
+                m_row = null;
+                m_key = null;
+                return;
+            }
+            DataCell[] nextKey = new DataCell[m_joinIndices.length];
+            for (int i = 0; i < m_joinIndices.length; i++) {
+                // create a StringCell since row IDs may match StringCell's,
+                // see InputRow
+                nextKey[i] = m_joinIndices[i] >= 0
+                        ? next.getCell(m_joinIndices[i])
+                        : new StringCell(next.getKey().getString());
+            }
+            if (null != m_key && compare(nextKey, m_key) < 0) {
+                throw new UnsortedInputException("The " + m_name
+                    + " input table is not sorted ascending by its joining "
+                    + "columns, row \"" + next.getKey() + "\" (row "
+                    + m_index + ") is out of order.");
+            }
+            m_row = next;
+            m_key = nextKey;
+        }
+    }
+
+    /**
+     * Thrown if an input of the sort-merge join is not sorted by its joining
+     * columns.
+     */
+    @SuppressWarnings("serial")
+    static final class UnsortedInputException extends Exception {
+        /**
+         * @param message the detail message
+         */
+        UnsortedInputException(final String message) {
+            super(message);
+        }
+    }
+}
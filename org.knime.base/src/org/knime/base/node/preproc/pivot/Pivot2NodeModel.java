@@ -682,6 +682,15 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings)
         m_ignoreDomain.loadSettingsFrom(settings);
     }
 
+    /**
+     * {@inheritDoc}
+     * The pivot tables are always created from the complete input table.
+     */
+    @Override
+    protected boolean isInputSorted() {
+        return false;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected HiLiteHandler getOutHiLiteHandler(final int outIndex) {
@@ -122,6 +122,12 @@ public class SorterNodeDialogPanel2 extends JPanel {
      * chosen sort order. */
     private final JCheckBox m_sortMissingToEndChecker;
 
+    /** Checkbox to only retain the first k rows, k is set in {@link #m_topKSpinner}. */
+    private final JCheckBox m_topKChecker;
+
+    /** Number of rows to retain. */
+    private final JSpinner m_topKSpinner;
+
     /**
      * Constructs a new empty JPanel used for displaying the three first
      * selected columns in the according order and the sorting order for each.
@@ -137,6 +143,20 @@ public class SorterNodeDialogPanel2 extends JPanel {
         m_sortMissingToEndChecker.setToolTipText("Missing values will be "
                 + "moved to the end independent of the sort order ("
                 + "otherwise they are considered to be the smallest elements)");
+        m_topKSpinner = new JSpinner(
+            new SpinnerNumberModel(100, 0, Integer.MAX_VALUE, 10));
+        m_topKSpinner.setMaximumSize(new Dimension(100, 25));
+        m_topKSpinner.setPreferredSize(new Dimension(100, 25));
+        m_topKChecker = new JCheckBox("Only retain the first rows: ");
+        m_topKChecker.setToolTipText("Only the first rows of the sorted "
+                + "table are retained. This is much faster than sorting the "
+                + "entire table as no temporary data is written.");
+        m_topKChecker.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                m_topKSpinner.setEnabled(m_topKChecker.isSelected());
+            }
+        });
     }
 
     /**
@@ -149,10 +169,12 @@ public class SorterNodeDialogPanel2 extends JPanel {
      * @param nrsortitems the inital number of sortitems to be shown
      * @param sortInMemory whether to perform the sorting in memory or not
      * @param missingToEnd Whether to move missings to the end
+     * @param topK number of rows to retain, -1 for all
      */
     void update(final DataTableSpec spec, final List<String> incl,
             final boolean[] sortOrder, final int nrsortitems,
-            final boolean sortInMemory, final boolean missingToEnd) {
+            final boolean sortInMemory, final boolean missingToEnd,
+            final int topK) {
         m_spec = spec;
         m_memory = sortInMemory;
         super.removeAll();
@@ -267,7 +289,7 @@ public void actionPerformed(final ActionEvent ae) {
                     boolean misToEnd =
                         m_sortMissingToEndChecker.isSelected();
                     update(m_spec, newlist, newbool, (oldsize + newsize),
-                            m_memory, misToEnd);
+                            m_memory, misToEnd, getTopK());
                 }
             });
             buttonbox.add(spinner);
@@ -293,6 +315,17 @@ public void actionPerformed(final ActionEvent ae) {
             m_sortMissingToEndChecker.setSelected(missingToEnd);
             missingToEndBox.add(m_sortMissingToEndChecker);
             super.add(missingToEndBox);
+
+            Box topKBox = Box.createHorizontalBox();
+            m_topKChecker.setSelected(topK >= 0);
+            if (topK >= 0) {
+                m_topKSpinner.setValue(topK);
+            }
+            m_topKSpinner.setEnabled(topK >= 0);
+            topKBox.add(m_topKChecker);
+            topKBox.add(m_topKSpinner);
+            topKBox.add(Box.createHorizontalGlue());
+            super.add(topKBox);
             revalidate();
         }
     }
@@ -354,6 +387,12 @@ boolean isSortMissingToEnd() {
         return m_sortMissingToEndChecker.isSelected();
     }
 
+    /** @return the number of rows to retain, -1 for all rows */
+    int getTopK() {
+        return m_topKChecker.isSelected()
+            ? ((Number)m_topKSpinner.getValue()).intValue() : -1;
+    }
+
     /**
      * @return whether to perform the sorting in memory or not.
      */
@@ -50,8 +50,11 @@
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import org.knime.base.data.sort.SortedColumnsProperty;
+
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.sort.BufferedDataTableSorter;
 import org.knime.core.node.BufferedDataTable;
@@ -110,6 +113,12 @@ public class SorterNodeModel extends NodeModel {
      */
     static final String MISSING_TO_END_KEY = "missingToEnd";
 
+    /**
+     * Settings key: Number of rows to retain, -1 for all rows.
+     * @since 3.5
+     */
+    static final String TOP_K_KEY = "topK";
+
     /*
      * List contains the data cells to include.
      */
@@ -132,6 +141,11 @@ public class SorterNodeModel extends NodeModel {
      */
     private boolean m_missingToEnd = false;
 
+    /** Only retain the first k rows of the sorted table, -1 for all rows.
+     * @since 3.5
+     */
+    private int m_topK = -1;
+
     /**
      * Inits a new <code>SorterNodeModel</code> with one in- and one output.
      *
@@ -173,9 +187,13 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         BufferedDataTableSorter sorter = new BufferedDataTableSorter(
                 inData[INPORT], m_inclList, m_sortOrder, m_missingToEnd);
         sorter.setSortInMemory(m_sortInMemory);
+        sorter.setParallelism(Runtime.getRuntime().availableProcessors());
+        sorter.setUseNormalizedKeys(true);
+        sorter.setTopK(m_topK);
         BufferedDataTable sortedTable = sorter.sort(exec);
 
-        return new BufferedDataTable[]{sortedTable};
+        return new BufferedDataTable[]{exec.createSpecReplacerTable(sortedTable,
+            createOutSpec(inData[INPORT].getDataTableSpec()))};
     }
 
     /**
@@ -216,7 +234,33 @@ protected DataTableSpec[] configure(final DataTableSpec[] inSpecs)
                + "changed. Some columns are missing: "
                + ConvenienceMethods.getShortStringFrom(notAvailableCols, 3));
         }
-        return new DataTableSpec[]{inSpecs[INPORT]};
+        return new DataTableSpec[]{createOutSpec(inSpecs[INPORT])};
+    }
+
+    /**
+     * @param inSpec the spec of the input table
+     * @return the spec of the sorted table, which declares the sort columns
+     *         (see {@link SortedColumnsProperty}) unless missing values are
+     *         moved to the end, which does not match the declared order
+     */
+    private DataTableSpec createOutSpec(final DataTableSpec inSpec) {
+        if (m_missingToEnd) {
+            return SortedColumnsProperty.removeSortedColumns(inSpec);
+        }
+        List<String> sortColumns = new ArrayList<String>();
+        for (String ic : m_inclList) {
+            if (ic.equals(SorterNodeDialogPanel2.NOSORT.getName())) {
+                break;
+            }
+            sortColumns.add(ic.equals(SorterNodeDialogPanel2.ROWKEY.getName())
+                ? null : ic);
+        }
+        if (sortColumns.isEmpty()) {
+            return inSpec;
+        }
+        return SortedColumnsProperty.setSortedColumns(inSpec,
+            sortColumns.toArray(new String[sortColumns.size()]),
+            Arrays.copyOf(m_sortOrder, sortColumns.size()));
     }
 
     /**
@@ -238,6 +282,8 @@ protected void saveSettingsTo(final NodeSettingsWO settings) {
         settings.addBoolean(SORTINMEMORY_KEY, m_sortInMemory);
         // added in 2.6
         settings.addBoolean(MISSING_TO_END_KEY, m_missingToEnd);
+        // added in 3.5
+        settings.addInt(TOP_K_KEY, m_topK);
     }
 
     /**
@@ -271,6 +317,11 @@ protected void validateSettings(final NodeSettingsRO settings)
             throw new InvalidSettingsException("No sort order specified.");
         }
         // no "missingToBottom" prior 2.6
+        // no "topK" prior 3.5
+        int topK = settings.getInt(TOP_K_KEY, -1);
+        if (topK < -1) {
+            throw new InvalidSettingsException("Invalid number of rows to retain: " + topK);
+        }
     }
 
     /**
@@ -293,6 +344,8 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings)
         }
         // added in 2.6, catch missing setting
         m_missingToEnd = settings.getBoolean(MISSING_TO_END_KEY, false);
+        // added in 3.5, catch missing setting
+        m_topK = settings.getInt(TOP_K_KEY, -1);
     }
 
     /**
@@ -0,0 +1,144 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.base.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.util.ThreadPool;
+import org.knime.core.util.ThreadUtils;
+
+/**
+ * Runs updates of partitioned data structures (e.g. the partitions of a hash table) concurrently, whereby each
+ * partition is only updated by a single thread at a time and its updates are run in the order they were added.
+ * Updates are collected per task, each task being responsible for a disjoint set of partitions, and handed to a
+ * {@link ThreadPool} in batches. Without a pool the updates are run right away.
+ *
+ * <p>
+ * Instances are not thread-safe, updates must be added by a single thread.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.5
+ */
+public final class PartitionedBatches {
+
+    private final ThreadPool m_pool;
+
+    private final int m_batchSize;
+
+    /** The collected updates, one list per task. */
+    private final List<List<Runnable>> m_staged = new ArrayList<List<Runnable>>();
+
+    private int m_numStaged;
+
+    /** The tasks currently running updates. */
+    private final List<Future<?>> m_running = new ArrayList<Future<?>>();
+
+    /**
+     * @param pool the pool to run the updates in or <code>null</code> to run them right away
+     * @param parallelism the number of concurrent tasks
+     * @param batchSize the number of updates that are collected before they are handed to the tasks
+     */
+    public PartitionedBatches(final ThreadPool pool, final int parallelism, final int batchSize) {
+        m_pool = pool;
+        m_batchSize = batchSize;
+        for (int i = 0; pool != null && i < parallelism; i++) {
+            m_staged.add(new ArrayList<Runnable>());
+        }
+    }
+
+    /**
+     * Adds an update of a partition, which is run after all previously added updates of the same partition.
+     *
+     * @param partition the partition (or any int determining it, e.g. a hash code)
+     * @param update the update
+     * @throws CanceledExecutionException if a running task was canceled
+     */
+    public void add(final int partition, final Runnable update) throws CanceledExecutionException {
+        if (m_pool == null) {
+            update.run();
+            return;
+        }
+        m_staged.get((partition & Integer.MAX_VALUE) % m_staged.size()).add(update);
+        if (++m_numStaged >= m_batchSize) {
+            submit();
+        }
+    }
+
+    /**
+     * Runs all collected updates and waits until they are done. Afterwards the partitions can be accessed by the
+     * calling thread.
+     *
+     * @throws CanceledExecutionException if a running task was canceled
+     */
+    public void flush() throws CanceledExecutionException {
+        if (m_pool != null) {
+            submit();
+            waitForRunning();
+        }
+    }
+
+    /** Waits for the running tasks and submits the collected updates. */
+    private void submit() throws CanceledExecutionException {
+        waitForRunning();
+        for (List<Runnable> staged : m_staged) {
+            if (!staged.isEmpty()) {
+                final List<Runnable> updates = new ArrayList<Runnable>(staged);
+                staged.clear();
+                m_running.add(m_pool.enqueue(() -> updates.forEach(Runnable::run)));
+            }
+        }
+        m_numStaged = 0;
+    }
+
+    private void waitForRunning() throws CanceledExecutionException {
+        for (Future<?> f : m_running) {
+            ThreadUtils.waitFor(f, m_running);
+        }
+        m_running.clear();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.filestore.internal.NotInWorkflowWriteFileStoreHandler;
+
+/**
+ * Tests {@link BufferMemoryManager}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BufferMemoryManagerTest {
+
+    private Buffer m_buffer;
+
+    /** Creates the buffer used for registration. */
+    @Before
+    public void setUp() {
+        m_buffer = new Buffer(0, -1, new HashMap<Integer, ContainerTable>(), new HashMap<Integer, ContainerTable>(),
+            NotInWorkflowWriteFileStoreHandler.create());
+    }
+
+    /** Clears the buffer. */
+    @After
+    public void tearDown() {
+        m_buffer.clear();
+    }
+
+    /** Buffers that are not managed are tracked but never asked to spill. */
+    @Test
+    public void testUnmanagedBufferExceedingBudget() {
+        BufferMemoryManager manager = new BufferMemoryManager(1000L, false);
+        synchronized (m_buffer) {
+            assertFalse(manager.sizeIncreased(m_buffer, 5000L, false));
+        }
+        assertEquals(1, manager.getTrackedBufferCount());
+        assertEquals(5000L, manager.getTotalSize());
+        manager.removed(m_buffer);
+        assertEquals(0, manager.getTrackedBufferCount());
+        assertEquals(0L, manager.getSpilledBufferCount());
+    }
+
+    /** A managed buffer exceeding the budget is asked to write its content to disc. */
+    @Test
+    public void testManagedBufferExceedingBudget() {
+        BufferMemoryManager manager = new BufferMemoryManager(1000L, false);
+        synchronized (m_buffer) {
+            assertFalse(manager.sizeIncreased(m_buffer, 600L, true));
+            assertTrue(manager.sizeIncreased(m_buffer, 600L, true));
+        }
+        manager.removed(m_buffer);
+        assertEquals(0, manager.getTrackedBufferCount());
+        assertEquals(1L, manager.getSpilledBufferCount());
+        assertEquals(1200L, manager.getSpilledByteCount());
+    }
+
+    /** Size estimates reflect the content of cells. */
+    @Test
+    public void testEstimateSize() {
+        DataCell shortString = new StringCell("a");
+        DataCell longString = new StringCell(new String(new char[1000]));
+        assertTrue(BufferMemoryManager.estimateCellSize(longString)
+            > BufferMemoryManager.estimateCellSize(shortString) + 1000);
+        assertTrue(BufferMemoryManager.estimateCellSize(DataType.getMissingCell())
+            <= BufferMemoryManager.estimateCellSize(new DoubleCell(1.0)));
+
+        BlobSupportDataRow small = new BlobSupportDataRow(RowKey.createRowKey(0L), new DataCell[]{shortString});
+        BlobSupportDataRow large = new BlobSupportDataRow(RowKey.createRowKey(0L), new DataCell[]{longString});
+        assertTrue(BufferMemoryManager.estimateRowSize(large) > BufferMemoryManager.estimateRowSize(small));
+    }
+
+}
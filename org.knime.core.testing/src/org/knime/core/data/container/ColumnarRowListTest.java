@@ -0,0 +1,132 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.MissingCell;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.xml.XMLCellFactory;
+
+/**
+ * Tests {@link ColumnarRowList}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ColumnarRowListTest {
+
+    private static List<BlobSupportDataRow> createRows(final int count, final int nrDistinctStrings) {
+        List<BlobSupportDataRow> rows = new ArrayList<BlobSupportDataRow>();
+        for (int i = 0; i < count; i++) {
+            DataCell missing = DataType.getMissingCell();
+            boolean isMissing = i % 7 == 0;
+            DataCell[] cells = new DataCell[]{
+                isMissing ? missing : new DoubleCell(i / 3.0),
+                isMissing ? missing : new IntCell(i),
+                isMissing ? missing : new LongCell(Long.MAX_VALUE - i),
+                isMissing ? missing : BooleanCell.get(i % 2 == 0),
+                isMissing ? missing : new StringCell("Value " + (i % nrDistinctStrings)),
+            };
+            rows.add(new BlobSupportDataRow(RowKey.createRowKey(i), cells));
+        }
+        return rows;
+    }
+
+    /** Round trip of all native types, including missing values. */
+    @Test
+    public void testNativeColumns() {
+        List<BlobSupportDataRow> rows = createRows(1000, 10);
+        ColumnarRowList columnar = ColumnarRowList.compact(rows, 5);
+        assertEquals(5, columnar.getNrPrimitiveColumns());
+        assertEquals(1, columnar.getNrDictionaryColumns());
+        assertEquals(rows.size(), columnar.size());
+        for (int i = 0; i < rows.size(); i++) {
+            BlobSupportDataRow expected = rows.get(i);
+            BlobSupportDataRow actual = columnar.get(i);
+            assertEquals(expected.getKey(), actual.getKey());
+            for (int c = 0; c < expected.getNumCells(); c++) {
+                assertEquals(expected.getCell(c), actual.getCell(c));
+            }
+        }
+        // string cells are shared
+        assertSame(columnar.get(1).getCell(4), columnar.get(11).getCell(4));
+    }
+
+    /** String columns with many distinct values are not dictionary encoded. */
+    @Test
+    public void testHighCardinalityStrings() {
+        List<BlobSupportDataRow> rows = createRows(5000, Integer.MAX_VALUE);
+        ColumnarRowList columnar = ColumnarRowList.compact(rows, 5);
+        assertEquals(5, columnar.getNrPrimitiveColumns());
+        assertEquals(0, columnar.getNrDictionaryColumns());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(rows.get(i).getCell(4), columnar.get(i).getCell(4));
+        }
+    }
+
+    /** Non-native cells, mixed columns and missing values with error are kept as cell objects. */
+    @Test
+    public void testNonNativeColumns() throws Exception {
+        List<BlobSupportDataRow> rows = new ArrayList<BlobSupportDataRow>();
+        rows.add(new BlobSupportDataRow(new RowKey("a"), new DataCell[]{new IntCell(1),
+            XMLCellFactory.create("<a/>"), new DoubleCell(2.0)}));
+        rows.add(new BlobSupportDataRow(new RowKey("b"), new DataCell[]{new DoubleCell(1.0),
+            XMLCellFactory.create("<b/>"), new MissingCell("foo")}));
+        assertNull(ColumnarRowList.compact(rows, 3));
+    }
+}
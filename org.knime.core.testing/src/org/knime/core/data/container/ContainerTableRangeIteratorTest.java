@@ -0,0 +1,174 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Tests {@link ContainerTable#iterator(long, long)} for tables in memory and on disc (with and without
+ * {@link BlockIndex}).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ContainerTableRangeIteratorTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"String", "Int"},
+        new DataType[]{StringCell.TYPE, IntCell.TYPE});
+
+    private static final int ROW_COUNT = 5000;
+
+    private static ContainerTable createTable(final boolean inMemory, final CompressionFormat format) {
+        DataContainer container = new DataContainer(SPEC, true, inMemory ? Integer.MAX_VALUE : 0, false);
+        container.setCompressionFormat(format);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            DataCell stringCell = i % 13 == 0 ? DataType.getMissingCell() : new StringCell("Value " + (i % 100));
+            container.addRowToTable(new DefaultRow(RowKey.createRowKey(i), stringCell, new IntCell(i)));
+        }
+        container.close();
+        return container.getBufferedTable();
+    }
+
+    private static void checkRanges(final ContainerTable table) {
+        Random rand = new Random(17);
+        for (int t = 0; t < 50; t++) {
+            long from = rand.nextInt(ROW_COUNT + 1);
+            long to = from + rand.nextInt((int)(ROW_COUNT - from) + 1);
+            checkRange(table, from, to);
+        }
+        checkRange(table, 0, ROW_COUNT);
+        checkRange(table, ROW_COUNT, ROW_COUNT);
+        checkRange(table, ROW_COUNT - 1, ROW_COUNT);
+    }
+
+    private static void checkRange(final ContainerTable table, final long from, final long to) {
+        try (CloseableRowIterator it = table.iterator(from, to)) {
+            for (long i = from; i < to; i++) {
+                assertTrue("Iterator ends early at row " + i, it.hasNext());
+                DataRow row = it.next();
+                assertEquals(RowKey.createRowKey(i), row.getKey());
+                assertEquals(i, ((IntCell)row.getCell(1)).getIntValue());
+            }
+            assertFalse("Iterator returns more rows than requested", it.hasNext());
+        }
+    }
+
+    /** Table kept in memory. */
+    @Test
+    public void testInMemory() {
+        ContainerTable table = createTable(true, CompressionFormat.Gzip);
+        assertFalse(table.getBuffer().usesOutFile());
+        checkRanges(table);
+    }
+
+    /** Uncompressed file, positions are plain file offsets. */
+    @Test
+    public void testUncompressedFile() {
+        ContainerTable table = createTable(false, CompressionFormat.None);
+        assertTrue(table.getBuffer().usesOutFile());
+        assertNotNull(table.getBuffer().getBlockIndex());
+        checkRanges(table);
+    }
+
+    /** Lz4 compressed file, positions are block offset plus offset in uncompressed block. */
+    @Test
+    public void testLz4File() {
+        ContainerTable table = createTable(false, CompressionFormat.Lz4);
+        BlockIndex index = table.getBuffer().getBlockIndex();
+        assertNotNull(index);
+        assertEquals((ROW_COUNT + index.getRowsPerEntry() - 1) / index.getRowsPerEntry(), index.size());
+        checkRanges(table);
+    }
+
+    /** The index (stored in its own zip entry) is restored when a saved table is read again. */
+    @Test
+    public void testLz4FileRestored() throws Exception {
+        ContainerTable table = createTable(false, CompressionFormat.Lz4);
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        DataContainer.writeToStream(table, bytesOut, new ExecutionMonitor());
+        ContainerTable restored =
+            DataContainer.readFromStream(new ByteArrayInputStream(bytesOut.toByteArray()));
+        BlockIndex index = restored.getBuffer().getBlockIndex();
+        assertNotNull(index);
+        assertEquals(table.getBuffer().getBlockIndex().size(), index.size());
+        for (int i = 0; i < index.size(); i++) {
+            assertEquals(table.getBuffer().getBlockIndex().getFileOffset(i), index.getFileOffset(i));
+            assertEquals(table.getBuffer().getBlockIndex().getBlockOffset(i), index.getBlockOffset(i));
+        }
+        checkRanges(restored);
+    }
+
+    /** Gzip compressed file, no index, rows are skipped. */
+    @Test
+    public void testGzipFile() {
+        ContainerTable table = createTable(false, CompressionFormat.Gzip);
+        assertNull(table.getBuffer().getBlockIndex());
+        checkRanges(table);
+    }
+
+    /** Invalid ranges are rejected. */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testInvalidRange() {
+        createTable(false, CompressionFormat.Lz4).iterator(10, ROW_COUNT + 1);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.internal.ReferencedFile;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeSettings;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests {@link ContainerTable#saveToFile(File, org.knime.core.node.NodeSettingsWO, ExecutionMonitor)} for tables
+ * that were loaded from a file.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ContainerTableSaveTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"Int", "String"},
+        new DataType[]{IntCell.TYPE, StringCell.TYPE});
+
+    private File m_tempDir;
+
+    /** Creates the temp directory. */
+    @Before
+    public void setUp() throws Exception {
+        m_tempDir = FileUtil.createTempDir(getClass().getSimpleName());
+    }
+
+    /** Deletes the temp directory. */
+    @After
+    public void tearDown() {
+        FileUtil.deleteRecursively(m_tempDir);
+    }
+
+    private File writeSourceFile(final int rowCount) throws Exception {
+        DataContainer container = new DataContainer(SPEC, true, 0, false);
+        for (int i = 0; i < rowCount; i++) {
+            container.addRowToTable(
+                new DefaultRow(RowKey.createRowKey(i), new IntCell(i), new StringCell("Row " + i)));
+        }
+        container.close();
+        File source = new File(m_tempDir, "source.zip");
+        ContainerTable table = container.getBufferedTable();
+        table.saveToFile(source, new NodeSettings("ignored"), new ExecutionMonitor());
+        table.clear();
+        return source;
+    }
+
+    private static ContainerTable readDelayed(final File file) {
+        return DataContainer.readFromZipDelayed(new ReferencedFile(file), SPEC, -1,
+            new HashMap<Integer, ContainerTable>(), null);
+    }
+
+    /** Saving a table that wasn't opened yet transfers the source file as is. */
+    @Test
+    public void testSaveUnopenedTable() throws Exception {
+        File source = writeSourceFile(1000);
+        ContainerTable table = readDelayed(source);
+        File target = new File(m_tempDir, "target.zip");
+        table.saveToFile(target, new NodeSettings("ignored"), new ExecutionMonitor());
+        assertFalse("Table must not be extracted", table.isOpen());
+        assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(target.toPath()));
+
+        ContainerTable copy = readDelayed(target);
+        int i = 0;
+        for (DataRow row : copy) {
+            assertEquals(RowKey.createRowKey(i), row.getKey());
+            assertEquals(new StringCell("Row " + i), row.getCell(1));
+            i++;
+        }
+        assertEquals(1000, i);
+        copy.clear();
+        table.clear();
+    }
+
+    /** Saving a table that was read is still done by transferring the source file. */
+    @Test
+    public void testSaveOpenedTable() throws Exception {
+        File source = writeSourceFile(100);
+        ContainerTable table = readDelayed(source);
+        assertEquals(100, table.size());
+        table.ensureOpen();
+        assertTrue(table.isOpen());
+        File target = new File(m_tempDir, "target.zip");
+        table.saveToFile(target, new NodeSettings("ignored"), new ExecutionMonitor());
+        assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(target.toPath()));
+        table.clear();
+    }
+
+    /** If the source file is gone the table is written the regular way. */
+    @Test
+    public void testSaveWithoutSourceFile() throws Exception {
+        File source = writeSourceFile(100);
+        ContainerTable table = readDelayed(source);
+        table.ensureOpen();
+        assertTrue(source.delete());
+        File target = new File(m_tempDir, "target.zip");
+        table.saveToFile(target, new NodeSettings("ignored"), new ExecutionMonitor());
+        ContainerTable copy = readDelayed(target);
+        assertEquals(100, copy.size());
+        int count = 0;
+        for (@SuppressWarnings("unused") DataRow row : copy) {
+            count++;
+        }
+        assertEquals(100, count);
+        copy.clear();
+        table.clear();
+    }
+
+    /** Saving a table into the file it was loaded from leaves the file untouched. */
+    @Test
+    public void testSaveIntoSourceFile() throws Exception {
+        File source = writeSourceFile(100);
+        byte[] content = Files.readAllBytes(source.toPath());
+        ContainerTable table = readDelayed(source);
+        table.saveToFile(source, new NodeSettings("ignored"), new ExecutionMonitor());
+        assertArrayEquals(content, Files.readAllBytes(source.toPath()));
+        table.clear();
+    }
+}
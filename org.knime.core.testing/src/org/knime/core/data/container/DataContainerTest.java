@@ -68,6 +68,7 @@
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
 import org.knime.core.data.def.StringCell;
 import org.knime.core.data.util.ObjectToDataCellConverter;
 import org.knime.core.data.util.memory.MemoryAlertSystem;
@@ -675,6 +676,96 @@ public void testTableDomain() {
         assertEquals(max, r3Cell2);
     }
 
+    /** Test that adding rows in batches gives the same table (incl. domain) as adding them one by one. */
+    public void testAddRowsBatch() {
+        DataTableSpec spec = new DataTableSpec(new String[]{"String", "Int", "Double", "Long"},
+            new DataType[]{StringCell.TYPE, IntCell.TYPE, DoubleCell.TYPE, LongCell.TYPE});
+        Random rand = new Random(3);
+        DataRow[] rows = new DataRow[1000];
+        for (int i = 0; i < rows.length; i++) {
+            DataCell doubleCell;
+            switch (i % 50) {
+                case 0:
+                    doubleCell = DataType.getMissingCell();
+                    break;
+                case 1:
+                    doubleCell = new DoubleCell(Double.NaN);
+                    break;
+                case 2:
+                    doubleCell = new IntCell(rand.nextInt(100));
+                    break;
+                default:
+                    doubleCell = new DoubleCell(rand.nextGaussian());
+            }
+            rows[i] = new DefaultRow(RowKey.createRowKey(i), new StringCell("Value " + rand.nextInt(10)),
+                i % 7 == 0 ? DataType.getMissingCell() : new IntCell(rand.nextInt()), doubleCell,
+                new LongCell(rand.nextLong()));
+        }
+        DataContainer single = new DataContainer(spec);
+        for (DataRow row : rows) {
+            single.addRowToTable(row);
+        }
+        single.close();
+
+        DataContainer batched = new DataContainer(spec);
+        DataRow[] batch = new DataRow[64];
+        for (int i = 0; i < rows.length; i += batch.length) {
+            if (rows.length - i < batch.length) {
+                batch = new DataRow[rows.length - i];
+            }
+            System.arraycopy(rows, i, batch, 0, batch.length);
+            batched.addRowsToTable(batch);
+        }
+        batched.close();
+
+        DataTable singleTable = single.getTable();
+        DataTable batchedTable = batched.getTable();
+        assertEquals(singleTable.getDataTableSpec(), batchedTable.getDataTableSpec());
+        assertEquals(rows.length, batched.size());
+        RowIterator it = batchedTable.iterator();
+        for (DataRow row : singleTable) {
+            assertTrue(it.hasNext());
+            DataRow other = it.next();
+            assertEquals(row.getKey(), other.getKey());
+            for (int c = 0; c < row.getNumCells(); c++) {
+                assertEquals(row.getCell(c), other.getCell(c));
+            }
+        }
+        assertFalse(it.hasNext());
+
+        // small batches (below the async cache size) mixed with single rows are collected before hand-off
+        DataContainer mixed = new DataContainer(spec);
+        DataRow[] smallBatch = new DataRow[3];
+        for (int i = 0; i < rows.length;) {
+            if (i % 2 == 0 && rows.length - i >= smallBatch.length) {
+                System.arraycopy(rows, i, smallBatch, 0, smallBatch.length);
+                mixed.addRowsToTable(smallBatch);
+                i += smallBatch.length;
+            } else {
+                mixed.addRowToTable(rows[i]);
+                i += 1;
+            }
+        }
+        mixed.close();
+        assertEquals(rows.length, mixed.size());
+        it = mixed.getTable().iterator();
+        for (DataRow row : rows) {
+            assertTrue(it.hasNext());
+            assertEquals(row.getKey(), it.next().getKey());
+        }
+        assertFalse(it.hasNext());
+
+        DataContainer duplicates = new DataContainer(spec);
+        duplicates.addRowsToTable(new DataRow[]{rows[0], rows[1]});
+        try {
+            duplicates.addRowsToTable(new DataRow[]{rows[2], rows[1]});
+            duplicates.close();
+            fail("Expected " + DuplicateKeyException.class.getSimpleName());
+        } catch (DuplicateKeyException e) {
+            // expected
+        }
+    }
+
     public void testAsyncWriteLimits() throws Exception {
         Assume.assumeTrue(!DataContainer.SYNCHRONOUS_IO);
         final int limit = Platform.ARCH_X86.equals(Platform.getOSArch()) ? 10 : 50;
@@ -0,0 +1,155 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link Lz4BlockOutputStream}, {@link Lz4BlockInputStream} and the underlying {@link Lz4Codec}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class Lz4BlockStreamTest {
+
+    private static byte[] roundTrip(final byte[] data, final int blockSize, final Random rand) throws IOException {
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        try (OutputStream out = new Lz4BlockOutputStream(bytesOut, blockSize)) {
+            int pos = 0;
+            while (pos < data.length) {
+                int count = Math.min(data.length - pos, 1 + rand.nextInt(1000));
+                if (count == 1) {
+                    out.write(data[pos]);
+                } else {
+                    out.write(data, pos, count);
+                }
+                pos += count;
+            }
+        }
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (InputStream in = new Lz4BlockInputStream(new ByteArrayInputStream(bytesOut.toByteArray()))) {
+            byte[] buf = new byte[1 + rand.nextInt(4096)];
+            int count;
+            while ((count = in.read(buf)) >= 0) {
+                result.write(buf, 0, count);
+            }
+        }
+        return result.toByteArray();
+    }
+
+    /** Random (incompressible) data of various lengths. */
+    @Test
+    public void testRandomData() throws IOException {
+        Random rand = new Random(42);
+        for (int length : new int[]{0, 1, 5, 12, 13, 100, 65535, 65536, 65537, 300000}) {
+            byte[] data = new byte[length];
+            rand.nextBytes(data);
+            assertArrayEquals(data, roundTrip(data, Lz4BlockOutputStream.DEFAULT_BLOCK_SIZE, rand));
+            assertArrayEquals(data, roundTrip(data, 100, rand));
+        }
+    }
+
+    /** Highly repetitive data, including overlapping matches. */
+    @Test
+    public void testCompressibleData() throws IOException {
+        Random rand = new Random(43);
+        byte[] data = new byte[500000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte)(i % 1000 < 500 ? 0 : rand.nextInt(4));
+        }
+        assertArrayEquals(data, roundTrip(data, Lz4BlockOutputStream.DEFAULT_BLOCK_SIZE, rand));
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        try (OutputStream out = new Lz4BlockOutputStream(bytesOut)) {
+            out.write(data);
+        }
+        assertTrue("Data not compressed: " + bytesOut.size(), bytesOut.size() < data.length / 2);
+    }
+
+    /** Flushing must not emit short blocks, the output is the same as without flushes. */
+    @Test
+    public void testFlushDoesNotEmitBlocks() throws IOException {
+        byte[] data = new byte[200000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte)(i % 100);
+        }
+        ByteArrayOutputStream unflushed = new ByteArrayOutputStream();
+        try (OutputStream out = new Lz4BlockOutputStream(unflushed)) {
+            out.write(data);
+        }
+        ByteArrayOutputStream flushed = new ByteArrayOutputStream();
+        try (OutputStream out = new Lz4BlockOutputStream(flushed)) {
+            for (int pos = 0; pos < data.length; pos += 50) {
+                out.write(data, pos, 50);
+                out.flush();
+            }
+        }
+        assertArrayEquals(unflushed.toByteArray(), flushed.toByteArray());
+    }
+
+    /** Corrupt input must result in an IOException. */
+    @Test(expected = IOException.class)
+    public void testCorruptData() throws IOException {
+        byte[] data = new byte[10000];
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        try (OutputStream out = new Lz4BlockOutputStream(bytesOut)) {
+            out.write(data);
+        }
+        byte[] compressed = bytesOut.toByteArray();
+        compressed[5] = (byte)0x7F; // stored length exceeds available data
+        try (InputStream in = new Lz4BlockInputStream(new ByteArrayInputStream(compressed))) {
+            while (in.read() >= 0) {
+            }
+        }
+    }
+}
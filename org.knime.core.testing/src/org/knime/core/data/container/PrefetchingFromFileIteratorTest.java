@@ -0,0 +1,146 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+
+/**
+ * Tests {@link PrefetchingFromFileIterator}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PrefetchingFromFileIteratorTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"Int"}, new DataType[]{IntCell.TYPE});
+
+    private static ContainerTable createTable(final int rowCount) {
+        DataContainer container = new DataContainer(SPEC, true, 0, false);
+        for (int i = 0; i < rowCount; i++) {
+            container.addRowToTable(new DefaultRow(RowKey.createRowKey(i), new IntCell(i)));
+        }
+        container.close();
+        ContainerTable table = container.getBufferedTable();
+        assertTrue(table.getBuffer().usesOutFile());
+        return table;
+    }
+
+    /** All rows are returned in order, also for a row count that is not a multiple of the batch size. */
+    @Test
+    public void testIterateAll() {
+        final int rowCount = 10 * PrefetchingFromFileIterator.BATCH_SIZE + 17;
+        ContainerTable table = createTable(rowCount);
+        try (CloseableRowIterator it = table.iterator()) {
+            assertEquals(PrefetchingFromFileIterator.isApplicable(rowCount),
+                it instanceof PrefetchingFromFileIterator);
+            for (int i = 0; i < rowCount; i++) {
+                assertTrue(it.hasNext());
+                DataRow row = it.next();
+                assertEquals(RowKey.createRowKey(i), row.getKey());
+                assertEquals(i, ((IntCell)row.getCell(0)).getIntValue());
+            }
+            assertFalse(it.hasNext());
+        }
+        table.clear();
+    }
+
+    /** Iterators that are closed early (or whose table is cleared) stop reading. */
+    @Test
+    public void testEarlyClose() {
+        ContainerTable table = createTable(20 * PrefetchingFromFileIterator.BATCH_SIZE);
+        CloseableRowIterator it1 = table.iterator();
+        CloseableRowIterator it2 = table.iterator();
+        assertEquals(RowKey.createRowKey(0), it1.next().getKey());
+        it1.close();
+        assertFalse(it1.hasNext());
+        assertEquals(RowKey.createRowKey(0), it2.next().getKey());
+        if (!(it2 instanceof PrefetchingFromFileIterator)) {
+            // synchronous IO, closed file iterators return placeholder rows
+            table.clear();
+            return;
+        }
+        table.clear();
+        // remaining rows of the current batch may still be returned but the iterator ends eventually
+        int count = 0;
+        while (it2.hasNext()) {
+            it2.next();
+            count++;
+        }
+        assertTrue(count < PrefetchingFromFileIterator.BATCH_SIZE);
+    }
+
+    /** The background reader of an iterator that is neither read to the end nor closed stops once the iterator is
+     * garbage collected, it doesn't block its thread on the full queue. */
+    @Test(timeout = 60000)
+    public void testAbandonedIterator() throws InterruptedException {
+        ContainerTable table = createTable(20 * PrefetchingFromFileIterator.BATCH_SIZE);
+        CloseableRowIterator it = table.iterator();
+        if (!(it instanceof PrefetchingFromFileIterator)) {
+            it.close();
+            table.clear();
+            return;
+        }
+        it.next();
+        WeakReference<CloseableRowIterator> ref = new WeakReference<CloseableRowIterator>(it);
+        it = null;
+        while (ref.get() != null || DataContainer.ASYNC_EXECUTORS.getActiveCount() > 0) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        table.clear();
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests the dictionary encoding of string columns in table files, see {@link StringDictionary}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class StringDictionaryTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(
+        new String[]{"Category", "Unique", "Long", "Int"},
+        new DataType[]{StringCell.TYPE, StringCell.TYPE, StringCell.TYPE, IntCell.TYPE});
+
+    private static final int ROW_COUNT = 3000;
+
+    private static final String LONG_STRING;
+
+    static {
+        char[] chars = new char[2000];
+        Arrays.fill(chars, 'x');
+        LONG_STRING = new String(chars);
+    }
+
+    private static DataRow createRow(final int i) {
+        DataCell category = i % 17 == 0 ? DataType.getMissingCell() : new StringCell("Category " + (i % 5));
+        return new DefaultRow(RowKey.createRowKey(i), category, new StringCell("Unique " + i),
+            new StringCell(LONG_STRING + (i % 3)), new IntCell(i));
+    }
+
+    private static ContainerTable createTable(final CompressionFormat format) {
+        DataContainer container = new DataContainer(SPEC, true, 0, false);
+        container.setCompressionFormat(format);
+        container.setDictionaryEncoding(true);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            container.addRowToTable(createRow(i));
+        }
+        container.close();
+        ContainerTable table = container.getBufferedTable();
+        assertTrue(table.getBuffer().usesOutFile());
+        return table;
+    }
+
+    /** All cells are restored, repeated strings share the same cell instance within a chunk. */
+    @Test
+    public void testRoundTrip() {
+        ContainerTable table = createTable(CompressionFormat.Gzip);
+        int chunkSize = table.getBuffer().getDictionaryChunkSize();
+        assertTrue(chunkSize > 0);
+        DataCell firstCategoryCell = null;
+        int i = 0;
+        try (CloseableRowIterator it = table.iterator()) {
+            while (it.hasNext()) {
+                DataRow row = it.next();
+                DataRow expected = createRow(i);
+                assertEquals(expected.getKey(), row.getKey());
+                for (int c = 0; c < SPEC.getNumColumns(); c++) {
+                    assertEquals(expected.getCell(c), row.getCell(c));
+                }
+                if (i == 1) {
+                    firstCategoryCell = row.getCell(0);
+                } else if (i == 6) {
+                    // same value as row 1, same chunk
+                    assertSame(firstCategoryCell, row.getCell(0));
+                } else if (i == chunkSize + 1) {
+                    // same value as row 1 but different chunk
+                    assertNotSame(firstCategoryCell, row.getCell(0));
+                    assertEquals(firstCategoryCell, row.getCell(0));
+                }
+                i++;
+            }
+        }
+        assertEquals(ROW_COUNT, i);
+    }
+
+    /** Iteration starting within a chunk needs to restore the dictionary entries of the skipped rows. */
+    @Test
+    public void testRangeWithinChunk() {
+        ContainerTable table = createTable(CompressionFormat.Lz4);
+        int chunkSize = table.getBuffer().getDictionaryChunkSize();
+        long from = chunkSize + 100;
+        try (CloseableRowIterator it = table.iterator(from, ROW_COUNT)) {
+            for (long r = from; r < ROW_COUNT; r++) {
+                DataRow row = it.next();
+                DataRow expected = createRow((int)r);
+                for (int c = 0; c < SPEC.getNumColumns(); c++) {
+                    assertEquals(expected.getCell(c), row.getCell(c));
+                }
+            }
+            assertFalse(it.hasNext());
+        }
+    }
+
+    /** Dictionary encoding is opt-in as previous versions can't read such files. */
+    @Test
+    public void testDisabledByDefault() {
+        DataContainer container = new DataContainer(SPEC, true, 0, false);
+        container.addRowToTable(createRow(0));
+        container.close();
+        assertEquals(0, container.getBufferedTable().getBuffer().getDictionaryChunkSize());
+    }
+
+}
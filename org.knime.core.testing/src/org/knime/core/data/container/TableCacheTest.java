@@ -0,0 +1,214 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.TableCache.EvictionPolicy;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.filestore.internal.NotInWorkflowWriteFileStoreHandler;
+
+/**
+ * Tests {@link TableCache}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class TableCacheTest {
+
+    private Buffer[] m_buffers;
+
+    /** Creates the buffers used as cache keys. */
+    @Before
+    public void setUp() {
+        m_buffers = new Buffer[3];
+        for (int i = 0; i < m_buffers.length; i++) {
+            m_buffers[i] = new Buffer(0, -1, new HashMap<Integer, ContainerTable>(),
+                new HashMap<Integer, ContainerTable>(), NotInWorkflowWriteFileStoreHandler.create());
+        }
+    }
+
+    /** Clears the buffers. */
+    @After
+    public void tearDown() {
+        for (Buffer b : m_buffers) {
+            b.clear();
+        }
+    }
+
+    private static boolean load(final TableCache cache, final Buffer buffer, final long size) {
+        synchronized (buffer) {
+            return cache.loaded(buffer, size);
+        }
+    }
+
+    /** Tables are admitted after being read twice, subsequent reads are hits. */
+    @Test
+    public void testAdmission() {
+        TableCache cache = new TableCache(1000L);
+        assertFalse(cache.onFileAccess(m_buffers[0], 10L));
+        assertTrue(cache.onFileAccess(m_buffers[0], 10L));
+        assertTrue(load(cache, m_buffers[0], 400L));
+        cache.onCacheAccess(m_buffers[0]);
+        assertEquals(1, cache.getTableCount());
+        assertEquals(400L, cache.getSize());
+        assertEquals(2L, cache.getMissCount());
+        assertEquals(1L, cache.getHitCount());
+
+        // file larger than budget
+        assertFalse(cache.onFileAccess(m_buffers[1], 2000L));
+        assertFalse(cache.onFileAccess(m_buffers[1], 2000L));
+        // estimated size larger than budget
+        assertFalse(cache.onFileAccess(m_buffers[2], 10L));
+        assertTrue(cache.onFileAccess(m_buffers[2], 10L));
+        assertFalse(load(cache, m_buffers[2], 2000L));
+        assertEquals(1, cache.getTableCount());
+
+        cache.removed(m_buffers[0]);
+        assertEquals(0, cache.getTableCount());
+        assertEquals(0L, cache.getSize());
+    }
+
+    /** A table whose loading was aborted can be admitted again. */
+    @Test
+    public void testLoadingAborted() {
+        TableCache cache = new TableCache(1000L);
+        cache.setAdmissionThreshold(1);
+        assertTrue(cache.onFileAccess(m_buffers[0], 10L));
+        assertFalse("Table is already loading", cache.onFileAccess(m_buffers[0], 10L));
+        cache.loadingAborted(m_buffers[0]);
+        assertTrue(cache.onFileAccess(m_buffers[0], 10L));
+        assertTrue(load(cache, m_buffers[0], 400L));
+        assertEquals(1, cache.getTableCount());
+    }
+
+    /** Closing the iterator that loads a table into the cache early drops the partially read rows, a later
+     * iteration loads the table again. */
+    @Test
+    public void testLoadingIteratorClosedEarly() {
+        TableCache cache = TableCache.getInstance();
+        int oldThreshold = cache.getAdmissionThreshold();
+        cache.setAdmissionThreshold(1);
+        try {
+            DataContainer container =
+                new DataContainer(new DataTableSpec(new String[]{"Int"}, new DataType[]{IntCell.TYPE}), true, 0, false);
+            for (int i = 0; i < 100; i++) {
+                container.addRowToTable(new DefaultRow(RowKey.createRowKey(i), new IntCell(i)));
+            }
+            container.close();
+            ContainerTable table = container.getBufferedTable();
+            Buffer buffer = table.getBuffer();
+            assertTrue(buffer.usesOutFile());
+            try (CloseableRowIterator it = table.iterator()) {
+                it.next();
+            }
+            assertTrue("Partially loaded rows not dropped", buffer.usesOutFile());
+            int count = 0;
+            try (CloseableRowIterator it = table.iterator()) {
+                for (; it.hasNext(); it.next()) {
+                    count++;
+                }
+            }
+            assertEquals(100, count);
+            assertFalse("Table not loaded on later iteration", buffer.usesOutFile());
+            buffer.clear();
+        } finally {
+            cache.setAdmissionThreshold(oldThreshold);
+        }
+    }
+
+    /** Least recently used table is evicted first. */
+    @Test
+    public void testLRUEviction() {
+        TableCache cache = new TableCache(1000L);
+        cache.setAdmissionThreshold(1);
+        for (Buffer b : m_buffers) {
+            assertTrue(cache.onFileAccess(b, 10L));
+        }
+        assertTrue(load(cache, m_buffers[0], 400L));
+        assertTrue(load(cache, m_buffers[1], 400L));
+        cache.onCacheAccess(m_buffers[0]);
+        assertTrue(load(cache, m_buffers[2], 400L));
+        assertEquals(1L, cache.getEvictionCount());
+        assertEquals(2, cache.getTableCount());
+        assertEquals(800L, cache.getSize());
+        cache.onCacheAccess(m_buffers[1]);
+        assertEquals(1L, cache.getHitCount()); // evicted, no hit
+    }
+
+    /** Least frequently used table is evicted first. */
+    @Test
+    public void testLFUEviction() {
+        TableCache cache = new TableCache(1000L);
+        cache.setAdmissionThreshold(1);
+        cache.setEvictionPolicy(EvictionPolicy.LFU);
+        for (Buffer b : m_buffers) {
+            assertTrue(cache.onFileAccess(b, 10L));
+        }
+        assertTrue(load(cache, m_buffers[0], 400L));
+        cache.onCacheAccess(m_buffers[0]);
+        cache.onCacheAccess(m_buffers[0]);
+        assertTrue(load(cache, m_buffers[1], 400L));
+        assertTrue(load(cache, m_buffers[2], 400L));
+        assertEquals(1L, cache.getEvictionCount());
+        cache.onCacheAccess(m_buffers[0]);
+        assertEquals(3L, cache.getHitCount());
+
+        cache.setBudget(0L);
+        assertEquals(0, cache.getTableCount());
+        assertEquals(0L, cache.getSize());
+    }
+
+}
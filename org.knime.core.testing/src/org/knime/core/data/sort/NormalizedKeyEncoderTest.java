@@ -0,0 +1,187 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.sort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTable;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.DataContainer;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Tests {@link NormalizedKeyEncoder} and sorting on normalized keys.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class NormalizedKeyEncoderTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"Int", "Long", "Double", "String"},
+        new DataType[]{IntCell.TYPE, LongCell.TYPE, DoubleCell.TYPE, StringCell.TYPE});
+
+    private static final String[] STRINGS = new String[]{"", "a", "a\u0000", "a\u0000b", "ab", "b", "\u0100", "\uffff"};
+
+    private static final double[] DOUBLES = new double[]{Double.NEGATIVE_INFINITY, -Double.MAX_VALUE, -1.0, -0.0, 0.0,
+        Double.MIN_VALUE, 1.0, Double.POSITIVE_INFINITY, Double.NaN};
+
+    private static DataRow createRandomRow(final int index, final Random rand) {
+        DataCell[] cells = new DataCell[4];
+        int bound = rand.nextBoolean() ? 5 : Integer.MAX_VALUE;
+        cells[0] = new IntCell(rand.nextBoolean() ? rand.nextInt(bound) - 2 : rand.nextInt());
+        cells[1] = new LongCell(rand.nextBoolean() ? rand.nextInt(5) - 2 : rand.nextLong());
+        cells[2] = new DoubleCell(DOUBLES[rand.nextInt(DOUBLES.length)]);
+        cells[3] = new StringCell(STRINGS[rand.nextInt(STRINGS.length)]);
+        for (int i = 0; i < cells.length; i++) {
+            if (rand.nextInt(10) == 0) {
+                cells[i] = DataType.getMissingCell();
+            }
+        }
+        return new DefaultRow(RowKey.createRowKey(index), cells);
+    }
+
+    /** The order of the keys is the order of the row comparator. */
+    @Test
+    public void testKeyOrder() {
+        Random rand = new Random(11);
+        List<DataRow> rows = new ArrayList<DataRow>();
+        DataContainer container = new DataContainer(SPEC);
+        for (int i = 0; i < 200; i++) {
+            rows.add(createRandomRow(i, rand));
+            container.addRowToTable(rows.get(i));
+        }
+        container.close();
+        int[][] indicesList = new int[][]{{0}, {1}, {2}, {3}, {-1}, {3, 2, 1, 0}, {2, 0, -1}};
+        for (int[] indices : indicesList) {
+            for (boolean missingsToEnd : new boolean[]{false, true}) {
+                boolean[] sortAscending = new boolean[indices.length];
+                for (int i = 0; i < sortAscending.length; i++) {
+                    sortAscending[i] = rand.nextBoolean();
+                }
+                DataTableSorter sorter = new DataTableSorter(container.getTable(), rows.size(),
+                    toNames(indices), sortAscending, missingsToEnd);
+                NormalizedKeyEncoder encoder =
+                    NormalizedKeyEncoder.create(indices, sortAscending, missingsToEnd, SPEC);
+                assertNotNull(encoder);
+                for (DataRow r1 : rows) {
+                    byte[] k1 = encoder.encode(r1);
+                    for (DataRow r2 : rows) {
+                        int expected = Integer.signum(sorter.getRowComparator().compare(r1, r2));
+                        int actual = Integer.signum(NormalizedKeyEncoder.compare(k1, encoder.encode(r2)));
+                        assertEquals("Comparing " + r1 + " and " + r2 + " (columns " + Arrays.toString(indices)
+                            + ", ascending " + Arrays.toString(sortAscending) + ")", expected, actual);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Unsupported column types don't get an encoder. */
+    @Test
+    public void testUnsupportedType() {
+        DataTableSpec spec = new DataTableSpec(new String[]{"Boolean"}, new DataType[]{BooleanCell.TYPE});
+        assertNull(NormalizedKeyEncoder.create(new int[]{0}, new boolean[]{true}, false, spec));
+    }
+
+    /** Sorting with normalized keys gives the same result as sorting with the row comparator. */
+    @Test
+    public void testSort() throws CanceledExecutionException {
+        Random rand = new Random(17);
+        DataContainer container = new DataContainer(SPEC);
+        for (int i = 0; i < 1000; i++) {
+            container.addRowToTable(createRandomRow(i, rand));
+        }
+        container.close();
+        DataTable table = container.getTable();
+        for (boolean inMemory : new boolean[]{false, true}) {
+            DataTable[] results = new DataTable[2];
+            for (int i = 0; i < results.length; i++) {
+                DataTableSorter sorter = new DataTableSorter(table, 1000, Arrays.asList("Double", "String", "Int"),
+                    new boolean[]{false, true, true}, true);
+                sorter.setSortInMemory(inMemory);
+                sorter.setMaxRows(64);
+                sorter.setUseNormalizedKeys(i == 1);
+                results[i] = sorter.sort(new ExecutionMonitor());
+            }
+            List<RowKey> expected = new ArrayList<RowKey>();
+            for (DataRow row : results[0]) {
+                expected.add(row.getKey());
+            }
+            List<RowKey> actual = new ArrayList<RowKey>();
+            for (DataRow row : results[1]) {
+                actual.add(row.getKey());
+            }
+            assertTrue(expected.size() == 1000);
+            assertEquals(expected, actual);
+        }
+    }
+
+    private static List<String> toNames(final int[] indices) {
+        List<String> names = new ArrayList<String>();
+        for (int index : indices) {
+            names.add(index == -1 ? AbstractTableSorter.ROWKEY_SORT_SPEC.getName() : SPEC.getColumnNames()[index]);
+        }
+        return names;
+    }
+}
@@ -47,9 +47,13 @@
  */
 package org.knime.core.data.sort;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
 
 import org.junit.After;
@@ -65,11 +69,13 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.IntValue;
 import org.knime.core.data.RowIterator;
+import org.knime.core.data.RowKey;
 import org.knime.core.data.container.ContainerTable;
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.StringCell;
 import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.DefaultNodeProgressMonitor;
@@ -141,6 +147,87 @@ public final void testMultiStageMerge() throws CanceledExecutionException {
         runMemoryTest(100, 5, 8);
     }
 
+    /**
+     * Test that sorting with multiple threads (incl. concurrent multi-stage merge) gives a sorted and stable result.
+     * @throws CanceledExecutionException
+     */
+    @Test
+    public final void testParallelSort() throws CanceledExecutionException {
+        DataTableSpec spec = new DataTableSpec(new String[]{"Index"}, new DataType[]{IntCell.TYPE});
+        BufferedDataContainer container = m_exec.createDataContainer(spec);
+        List<DataRow> expected = new ArrayList<DataRow>();
+        Random rand = new Random(5);
+        for (int i = 0; i < 1000; i++) {
+            // many duplicates to test stability
+            DataRow row = new DefaultRow(RowKey.createRowKey(i), new IntCell(rand.nextInt(20)));
+            container.addRowToTable(row);
+            expected.add(row);
+        }
+        container.close();
+        BufferedDataTable bdt = container.getTable();
+        // stable sort
+        Collections.sort(expected, new Comparator<DataRow>() {
+            @Override
+            public int compare(final DataRow o1, final DataRow o2) {
+                return Integer.compare(((IntValue)o1.getCell(0)).getIntValue(),
+                    ((IntValue)o2.getCell(0)).getIntValue());
+            }
+        });
+
+        for (boolean inMemory : new boolean[] {false, true}) {
+            BufferedDataTableSorter sorter =
+                new BufferedDataTableSorter(bdt, Arrays.asList("Index"), new boolean[] {true});
+            sorter.setMaxOpenContainers(4);
+            sorter.setMaxRows(7);
+            sorter.setParallelism(4);
+            sorter.setSortInMemory(inMemory);
+            BufferedDataTable result = sorter.sort(m_exec);
+            Assert.assertEquals(expected.size(), result.size());
+            Iterator<DataRow> expectedIter = expected.iterator();
+            for (DataRow row : result) {
+                Assert.assertEquals(expectedIter.next().getKey(), row.getKey());
+            }
+        }
+    }
+
+    /**
+     * Test the top-k mode, which must return the first k rows of a stable sort.
+     * @throws CanceledExecutionException not expected
+     */
+    @Test
+    public final void testTopK() throws CanceledExecutionException {
+        DataTableSpec spec = new DataTableSpec(new String[]{"Index"}, new DataType[]{IntCell.TYPE});
+        BufferedDataContainer container = m_exec.createDataContainer(spec);
+        List<DataRow> expected = new ArrayList<DataRow>();
+        Random rand = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            DataRow row = new DefaultRow(RowKey.createRowKey(i), new IntCell(rand.nextInt(20)));
+            container.addRowToTable(row);
+            expected.add(row);
+        }
+        container.close();
+        BufferedDataTable bdt = container.getTable();
+        Collections.sort(expected, new Comparator<DataRow>() {
+            @Override
+            public int compare(final DataRow o1, final DataRow o2) {
+                return Integer.compare(((IntValue)o1.getCell(0)).getIntValue(),
+                    ((IntValue)o2.getCell(0)).getIntValue());
+            }
+        });
+
+        for (int k : new int[] {0, 1, 17, 500, 1000}) {
+            BufferedDataTableSorter sorter =
+                new BufferedDataTableSorter(bdt, Arrays.asList("Index"), new boolean[] {true});
+            sorter.setTopK(k);
+            BufferedDataTable result = sorter.sort(m_exec);
+            Assert.assertEquals(Math.min(k, expected.size()), result.size());
+            Iterator<DataRow> expectedIter = expected.iterator();
+            for (DataRow row : result) {
+                Assert.assertEquals(expectedIter.next().getKey(), row.getKey());
+            }
+        }
+    }
+
     private void runMemoryTest(final int numRows,
             final int maxNumRowsPerContainer,
             final int maxOpenContainers) throws CanceledExecutionException {
@@ -0,0 +1,191 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.ColumnRearranger;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.container.SingleCellFactory;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests {@link BufferedDataTable#splitIterators(int)} and {@link BufferedDataTable#iterator(long, long)} on plain and
+ * wrapped (concatenated, joined, column rearranged) tables.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BufferedDataTableSplitIteratorsTest {
+
+    private ExecutionContext m_exec;
+
+    /** Creates execution context. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Before
+    public void setUp() {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+    }
+
+    private BufferedDataTable createTable(final String colName, final int firstRow, final int rowCount) {
+        DataTableSpec spec = new DataTableSpec(new DataColumnSpecCreator(colName, IntCell.TYPE).createSpec());
+        BufferedDataContainer container = m_exec.createDataContainer(spec);
+        for (int i = firstRow; i < firstRow + rowCount; i++) {
+            container.addRowToTable(new DefaultRow(RowKey.createRowKey(i), new IntCell(i)));
+        }
+        container.close();
+        return container.getTable();
+    }
+
+    private static List<DataRow> readAll(final CloseableRowIterator it) {
+        List<DataRow> result = new ArrayList<DataRow>();
+        while (it.hasNext()) {
+            result.add(it.next());
+        }
+        it.close();
+        return result;
+    }
+
+    private static void checkSplit(final BufferedDataTable table) {
+        List<DataRow> expected = readAll(table.iterator());
+        assertEquals(table.size(), expected.size());
+        for (int n : new int[]{1, 2, 3, 7, expected.size(), expected.size() + 5}) {
+            if (n <= 0) {
+                continue;
+            }
+            CloseableRowIterator[] its = table.splitIterators(n);
+            assertEquals(Math.max(1, Math.min(n, expected.size())), its.length);
+            List<DataRow> actual = new ArrayList<DataRow>();
+            for (CloseableRowIterator it : its) {
+                actual.addAll(readAll(it));
+            }
+            assertEquals("Wrong number of rows for " + n + " partitions", expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                DataRow e = expected.get(i);
+                DataRow a = actual.get(i);
+                assertEquals(e.getKey(), a.getKey());
+                assertEquals(e.getNumCells(), a.getNumCells());
+                for (int c = 0; c < e.getNumCells(); c++) {
+                    assertEquals(e.getCell(c), a.getCell(c));
+                }
+            }
+        }
+    }
+
+    /** Plain table. */
+    @Test
+    public void testContainerTable() {
+        checkSplit(createTable("A", 0, 2500));
+        checkSplit(createTable("A", 0, 1));
+        checkSplit(createTable("A", 0, 0));
+    }
+
+    /** Concatenated tables, including an empty one.
+     * @throws Exception ... */
+    @Test
+    public void testConcatenateTable() throws Exception {
+        BufferedDataTable t = m_exec.createConcatenateTable(m_exec, createTable("A", 0, 1500),
+            createTable("A", 1500, 0), createTable("A", 1500, 700), createTable("A", 2200, 3));
+        checkSplit(t);
+        try (CloseableRowIterator it = t.iterator(1499, 1501)) {
+            assertEquals(RowKey.createRowKey(1499), it.next().getKey());
+            assertEquals(RowKey.createRowKey(1500), it.next().getKey());
+            assertFalse(it.hasNext());
+        }
+    }
+
+    /** Joined table.
+     * @throws Exception ... */
+    @Test
+    public void testJoinedTable() throws Exception {
+        checkSplit(m_exec.createJoinedTable(createTable("A", 0, 3000), createTable("B", 0, 3000), m_exec));
+    }
+
+    /** Table with appended column.
+     * @throws Exception ... */
+    @Test
+    public void testRearrangeColumnsTable() throws Exception {
+        BufferedDataTable in = createTable("A", 0, 3000);
+        ColumnRearranger rearranger = new ColumnRearranger(in.getDataTableSpec());
+        rearranger.append(new SingleCellFactory(new DataColumnSpecCreator("B", StringCell.TYPE).createSpec()) {
+            @Override
+            public DataCell getCell(final DataRow row) {
+                return new StringCell("Row " + row.getKey());
+            }
+        });
+        checkSplit(m_exec.createColumnRearrangeTable(in, rearranger, m_exec));
+        // filter only (no appended table)
+        BufferedDataTable joined = m_exec.createJoinedTable(in, createTable("C", 0, 3000), m_exec);
+        ColumnRearranger filter = new ColumnRearranger(joined.getDataTableSpec());
+        filter.remove(0);
+        checkSplit(m_exec.createColumnRearrangeTable(joined, filter, m_exec));
+    }
+
+    /** Invalid argument. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidN() {
+        createTable("A", 0, 10).splitIterators(0);
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.MergeOperator;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.streamable.StreamableOperatorInternals;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests the partitioned execution of a streamable node by the {@link PartitionedNodeExecutionJob}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PartitionedNodeExecutionJobTest {
+
+    private static final DataTableSpec IN_SPEC =
+        new DataTableSpec(new DataColumnSpecCreator("A", IntCell.TYPE).createSpec());
+
+    private static final DataTableSpec COUNT_SPEC =
+        new DataTableSpec(new DataColumnSpecCreator("Count", LongCell.TYPE).createSpec());
+
+    private static final PortType[] OUT_TYPES = {BufferedDataTable.TYPE, BufferedDataTable.TYPE};
+
+    private static final PortObjectSpec[] OUT_SPECS = {IN_SPEC, COUNT_SPEC};
+
+    private ExecutionContext m_exec;
+
+    /** Creates execution context. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Before
+    public void setUp() {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+    }
+
+    /**
+     * The distributed output of several partitions is concatenated in order, the non-distributed output is only
+     * filled when merging.
+     */
+    @Test(timeout = 30000)
+    public void testPartitionedMergedOutput() throws Exception {
+        DoubleAndCountNodeModel model = new DoubleAndCountNodeModel();
+        PortObject[] outObjects = PartitionedNodeExecutionJob.execute(model, new PortObject[]{createTable(1000)},
+            OUT_TYPES, OUT_SPECS, 4, m_exec);
+
+        assertEquals(4, model.m_partitionCounts.size());
+        for (Integer partitionCount : model.m_partitionCounts) {
+            assertEquals(4, partitionCount.intValue());
+        }
+        assertFalse("Non-distributed output passed to a partition", model.m_nonDistributedOutputs.contains(true));
+        checkOutput(outObjects, 1000);
+    }
+
+    /** A node run as single partition gets all its outputs. */
+    @Test(timeout = 30000)
+    public void testSinglePartition() throws Exception {
+        DoubleAndCountNodeModel model = new DoubleAndCountNodeModel();
+        PortObject[] outObjects = PartitionedNodeExecutionJob.execute(model, new PortObject[]{createTable(1000)},
+            OUT_TYPES, OUT_SPECS, 1, m_exec);
+
+        assertEquals(1, model.m_partitionCounts.size());
+        assertTrue(model.m_nonDistributedOutputs.get(0));
+        checkOutput(outObjects, 1000);
+    }
+
+    private BufferedDataTable createTable(final int rowCount) {
+        BufferedDataContainer container = m_exec.createDataContainer(IN_SPEC);
+        for (int i = 0; i < rowCount; i++) {
+            container.addRowToTable(new DefaultRow(RowKey.createRowKey(i), new IntCell(i)));
+        }
+        container.close();
+        return container.getTable();
+    }
+
+    private static void checkOutput(final PortObject[] outObjects, final int rowCount) {
+        assertEquals(3, outObjects.length);
+        BufferedDataTable doubled = (BufferedDataTable)outObjects[1];
+        assertEquals(rowCount, doubled.size());
+        int i = 0;
+        try (CloseableRowIterator it = doubled.iterator()) {
+            while (it.hasNext()) {
+                DataRow row = it.next();
+                assertEquals(RowKey.createRowKey(i), row.getKey());
+                assertEquals(2 * i, ((IntCell)row.getCell(0)).getIntValue());
+                i++;
+            }
+        }
+        BufferedDataTable count = (BufferedDataTable)outObjects[2];
+        assertEquals(1, count.size());
+        try (CloseableRowIterator it = count.iterator()) {
+            assertEquals(rowCount, ((LongCell)it.next().getCell(0)).getLongValue());
+        }
+    }
+
+    /** Doubles the values of the (distributed) input, counts the rows in a non-distributed output. */
+    private static final class DoubleAndCountNodeModel extends NodeModel {
+
+        private final List<Integer> m_partitionCounts = new CopyOnWriteArrayList<>();
+
+        private final List<Boolean> m_nonDistributedOutputs = new CopyOnWriteArrayList<>();
+
+        DoubleAndCountNodeModel() {
+            super(1, 2);
+        }
+
+        @Override
+        public InputPortRole[] getInputPortRoles() {
+            return new InputPortRole[]{InputPortRole.DISTRIBUTED_STREAMABLE};
+        }
+
+        @Override
+        public OutputPortRole[] getOutputPortRoles() {
+            return new OutputPortRole[]{OutputPortRole.DISTRIBUTED, OutputPortRole.NONDISTRIBUTED};
+        }
+
+        @Override
+        public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+            final PortObjectSpec[] inSpecs) {
+            m_partitionCounts.add(partitionInfo.getPartitionCount());
+            return new StreamableOperator() {
+
+                private long m_count;
+
+                @Override
+                public void runFinal(final PortInput[] inputs, final PortOutput[] outputs,
+                    final ExecutionContext exec) throws Exception {
+                    m_nonDistributedOutputs.add(outputs[1] != null);
+                    RowInput input = (RowInput)inputs[0];
+                    RowOutput output = (RowOutput)outputs[0];
+                    DataRow row;
+                    while ((row = input.poll()) != null) {
+                        int value = ((IntCell)row.getCell(0)).getIntValue();
+                        output.push(new DefaultRow(row.getKey(), new IntCell(2 * value)));
+                        m_count++;
+                    }
+                    input.close();
+                    output.close();
+                }
+
+                @Override
+                public StreamableOperatorInternals saveInternals() {
+                    return new CountInternals(m_count);
+                }
+            };
+        }
+
+        @Override
+        public MergeOperator createMergeOperator() {
+            return new MergeOperator() {
+                @Override
+                public StreamableOperatorInternals mergeFinal(final StreamableOperatorInternals[] operators) {
+                    long count = 0;
+                    for (StreamableOperatorInternals internals : operators) {
+                        count += ((CountInternals)internals).m_count;
+                    }
+                    return new CountInternals(count);
+                }
+            };
+        }
+
+        @Override
+        public void finishStreamableExecution(final StreamableOperatorInternals internals,
+            final ExecutionContext exec, final PortOutput[] output) throws Exception {
+            RowOutput countOutput = (RowOutput)output[1];
+            countOutput.push(
+                new DefaultRow(RowKey.createRowKey(0L), new LongCell(((CountInternals)internals).m_count)));
+            countOutput.close();
+        }
+
+        @Override
+        protected void loadInternals(final File nodeInternDir, final ExecutionMonitor exec) {
+        }
+
+        @Override
+        protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec) {
+        }
+
+        @Override
+        protected void saveSettingsTo(final NodeSettingsWO settings) {
+        }
+
+        @Override
+        protected void validateSettings(final NodeSettingsRO settings) {
+        }
+
+        @Override
+        protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) {
+        }
+
+        @Override
+        protected void reset() {
+        }
+    }
+
+    /** The row count of a partition or, once merged, of all partitions. */
+    public static final class CountInternals extends StreamableOperatorInternals {
+
+        private long m_count;
+
+        /** Framework constructor. */
+        public CountInternals() {
+        }
+
+        CountInternals(final long count) {
+            m_count = count;
+        }
+
+        @Override
+        public void load(final DataInputStream input) throws IOException {
+            m_count = input.readLong();
+        }
+
+        @Override
+        public void save(final DataOutputStream output) throws IOException {
+            output.writeLong(m_count);
+        }
+    }
+}
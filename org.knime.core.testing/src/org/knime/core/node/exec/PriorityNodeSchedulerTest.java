@@ -0,0 +1,190 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Tests ordering and limits of the {@link PriorityNodeScheduler}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PriorityNodeSchedulerTest {
+
+    private ThreadPool m_pool;
+
+    /** Creates the pool. */
+    @Before
+    public void setUp() {
+        m_pool = new ThreadPool(4);
+    }
+
+    /** Shuts down the pool. */
+    @After
+    public void tearDown() {
+        m_pool.shutdown();
+    }
+
+    /** Pending jobs are started in the order of their priority, FIFO for equal priorities. */
+    @Test(timeout = 10000)
+    public void testPriorityOrder() throws Exception {
+        PriorityNodeScheduler scheduler = new PriorityNodeScheduler(m_pool, 1, Collections.emptyMap());
+        CountDownLatch blocker = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        scheduler.submit(() -> await(blocker), 0, "A");
+        scheduler.submit(() -> order.add("low"), 1, "A");
+        scheduler.submit(() -> order.add("high1"), 10, "A");
+        scheduler.submit(() -> order.add("mid"), 5, "A");
+        Future<?> last = scheduler.submit(() -> order.add("high2"), 10, "A");
+        assertEquals(4, scheduler.getPendingCount());
+        blocker.countDown();
+        waitUntilDone(scheduler);
+        assertTrue(last.isDone());
+        assertEquals(Arrays.asList("high1", "high2", "mid", "low"), order);
+    }
+
+    /** A node type limit restricts the concurrency of that type but doesn't block other types. */
+    @Test(timeout = 10000)
+    public void testNodeTypeLimit() throws Exception {
+        PriorityNodeScheduler scheduler =
+            new PriorityNodeScheduler(m_pool, 4, Collections.singletonMap("heavy", 1));
+        AtomicInteger runningHeavy = new AtomicInteger();
+        AtomicInteger maxRunningHeavy = new AtomicInteger();
+        CountDownLatch lightDone = new CountDownLatch(1);
+        for (int i = 0; i < 5; i++) {
+            scheduler.submit(() -> {
+                maxRunningHeavy.accumulateAndGet(runningHeavy.incrementAndGet(), Math::max);
+                sleep(20);
+                runningHeavy.decrementAndGet();
+            }, 10, "heavy");
+        }
+        // lower priority but not blocked by the heavy nodes
+        scheduler.submit(lightDone::countDown, 1, "light");
+        assertTrue("Light job not started while heavy jobs wait", lightDone.await(5, TimeUnit.SECONDS));
+        waitUntilDone(scheduler);
+        assertEquals(1, maxRunningHeavy.get());
+    }
+
+    /** Canceling a pending job removes it from the queue. */
+    @Test(timeout = 10000)
+    public void testCancelPending() throws Exception {
+        PriorityNodeScheduler scheduler = new PriorityNodeScheduler(m_pool, 1, Collections.emptyMap());
+        CountDownLatch blocker = new CountDownLatch(1);
+        AtomicInteger runCount = new AtomicInteger();
+        scheduler.submit(() -> await(blocker), 0, "A");
+        Future<?> pending = scheduler.submit(runCount::incrementAndGet, 0, "A");
+        assertTrue(pending.cancel(true));
+        assertEquals(0, scheduler.getPendingCount());
+        blocker.countDown();
+        waitUntilDone(scheduler);
+        assertEquals(0, runCount.get());
+    }
+
+    /** Changed limits apply to the jobs already queued and running in the scheduler. */
+    @Test(timeout = 10000)
+    public void testSetLimits() throws Exception {
+        PriorityNodeScheduler scheduler = new PriorityNodeScheduler(m_pool, 1, Collections.emptyMap());
+        CountDownLatch blocker = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            scheduler.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                await(blocker);
+                running.decrementAndGet();
+            }, 0, "A");
+        }
+        assertEquals(1, scheduler.getRunningCount());
+
+        // a higher overall limit starts pending jobs right away, the type limit still caps them
+        scheduler.setLimits(4, Collections.singletonMap("A", 2));
+        assertEquals(2, scheduler.getRunningCount());
+        assertEquals(2, scheduler.getPendingCount());
+
+        // a lower limit doesn't stop running jobs but holds back the pending ones
+        scheduler.setLimits(1, Collections.emptyMap());
+        assertEquals(2, scheduler.getRunningCount());
+        blocker.countDown();
+        waitUntilDone(scheduler);
+        assertEquals(2, maxRunning.get());
+    }
+
+    private static void waitUntilDone(final PriorityNodeScheduler scheduler) throws InterruptedException {
+        while (scheduler.getPendingCount() > 0 || scheduler.getRunningCount() > 0) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Tests pipelining, cancellation and failure handling of {@link StreamedTask}s as run by the
+ * {@link StreamingNodeExecutionJob}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class StreamedTaskTest {
+
+    private static final DataTableSpec SPEC =
+        new DataTableSpec(new DataColumnSpecCreator("int", IntCell.TYPE).createSpec());
+
+    private ThreadPool m_pool;
+
+    private final List<StreamedTask> m_tasks = new CopyOnWriteArrayList<>();
+
+    /** Creates a pool with a single thread, so that tasks that counted against the pool could not run together. */
+    @Before
+    public void setUp() {
+        m_pool = new ThreadPool(1);
+    }
+
+    /** Shuts down the pool. */
+    @After
+    public void tearDown() {
+        m_pool.shutdown();
+    }
+
+    /** A chain of three tasks streams rows through bounded channels while all of them run on pool workers. */
+    @Test(timeout = 10000)
+    public void testPipelinedChain() throws Exception {
+        RowChannel source = new RowChannel(SPEC, 4);
+        RowChannel filtered = new RowChannel(SPEC, 4);
+        List<ThreadPool> currentPools = new CopyOnWriteArrayList<>();
+        AtomicInteger consumedCount = new AtomicInteger();
+        StreamedTask producer = createTask(() -> {
+            currentPools.add(ThreadPool.currentPool());
+            for (int i = 0; i < 1000; i++) {
+                source.put(createRow(i));
+            }
+            source.close();
+            return null;
+        });
+        StreamedTask filter = createTask(() -> {
+            currentPools.add(ThreadPool.currentPool());
+            RowInput input = source.createRowInput();
+            DataRow row;
+            while ((row = input.poll()) != null) {
+                if (((IntCell)row.getCell(0)).getIntValue() % 2 == 0) {
+                    filtered.put(row);
+                }
+            }
+            filtered.close();
+            return null;
+        });
+        StreamedTask consumer = createTask(() -> {
+            currentPools.add(ThreadPool.currentPool());
+            RowInput input = filtered.createRowInput();
+            while (input.poll() != null) {
+                consumedCount.incrementAndGet();
+            }
+            return null;
+        });
+
+        // downstream first, they block until the upstream tasks have started
+        ThreadPool nodePool = startAll(consumer, filter, producer);
+        joinAll();
+
+        for (StreamedTask task : m_tasks) {
+            assertNull(task.getFailure());
+            assertFalse(task.isCanceled());
+        }
+        assertEquals(500, consumedCount.get());
+        assertEquals(3, currentPools.size());
+        for (ThreadPool pool : currentPools) {
+            assertSame("Task not run on a worker of the sub pool", nodePool, pool);
+        }
+    }
+
+    /** Canceling a task that is blocked reading rows interrupts it and leaves no interrupt on the worker. */
+    @Test(timeout = 10000)
+    public void testCancel() throws Exception {
+        RowChannel channel = new RowChannel(SPEC, 4);
+        CountDownLatch started = new CountDownLatch(1);
+        StreamedTask consumer = createTask(() -> {
+            started.countDown();
+            channel.createRowInput().poll();
+            return null;
+        });
+        startAll(consumer);
+        started.await();
+        consumer.cancel();
+        consumer.join();
+
+        assertTrue(consumer.isCanceled());
+        assertTrue("Unexpected failure: " + consumer.getFailure(),
+            consumer.getFailure() instanceof InterruptedException);
+        assertFalse("Worker still interrupted",
+            m_pool.enqueue(() -> Thread.currentThread().isInterrupted()).get().booleanValue());
+    }
+
+    /** A task that is canceled while still queued doesn't execute at all. */
+    @Test(timeout = 10000)
+    public void testCancelBeforeStart() throws Exception {
+        CountDownLatch blocker = new CountDownLatch(1);
+        m_pool.enqueue(() -> {
+            blocker.await();
+            return null;
+        });
+        AtomicBoolean isExecuted = new AtomicBoolean();
+        StreamedTask task = createTask(() -> {
+            isExecuted.set(true);
+            return null;
+        });
+        startAll(task);
+        task.cancel();
+        blocker.countDown();
+        task.join();
+
+        assertFalse(isExecuted.get());
+        assertTrue(task.getFailure() instanceof InterruptedException);
+    }
+
+    /** The error of a failing task is kept and the other tasks are canceled, also if blocked writing rows. */
+    @Test(timeout = 10000)
+    public void testFailurePropagation() throws Exception {
+        RowChannel channel = new RowChannel(SPEC, 1);
+        CountDownLatch isProducing = new CountDownLatch(1);
+        StreamedTask producer = createTask(() -> {
+            // nobody reads the channel, hence blocks on the second row
+            for (int i = 0;; i++) {
+                channel.put(createRow(i));
+                isProducing.countDown();
+            }
+        });
+        IllegalStateException error = new IllegalStateException("Test failure");
+        StreamedTask failing = createTask(() -> {
+            isProducing.await();
+            throw error;
+        });
+        startAll(producer, failing);
+        joinAll();
+
+        assertSame(error, failing.getFailure());
+        assertTrue(producer.isCanceled());
+        assertTrue("Unexpected failure: " + producer.getFailure(),
+            producer.getFailure() instanceof InterruptedException);
+    }
+
+    /** Creates a task that cancels all tasks of the test when it fails, as the streaming job does. */
+    private StreamedTask createTask(final Callable<Void> body) {
+        StreamedTask task = new StreamedTask(() -> m_tasks.forEach(StreamedTask::cancel)) {
+            @Override
+            void execute() throws Exception {
+                body.call();
+            }
+        };
+        m_tasks.add(task);
+        return task;
+    }
+
+    private ThreadPool startAll(final StreamedTask... tasks) {
+        ThreadPool nodePool = m_pool.createSubPool(tasks.length);
+        Arrays.stream(tasks).forEach(t -> t.start(nodePool, m_pool));
+        return nodePool;
+    }
+
+    private void joinAll() throws InterruptedException {
+        for (StreamedTask task : m_tasks) {
+            task.join();
+        }
+    }
+
+    private static DataRow createRow(final int i) {
+        return new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i));
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.streamable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests the batch methods {@link RowInput#poll(DataRow[])} and {@link RowOutput#push(DataRow[])}, their default and
+ * native implementations and the batched processing in {@link StreamableFunction}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BatchRowStreamingTest {
+
+    private static final DataTableSpec SPEC =
+        new DataTableSpec(new DataColumnSpecCreator("A", IntCell.TYPE).createSpec());
+
+    private ExecutionContext m_exec;
+
+    /** Creates execution context. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Before
+    public void setUp() {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+    }
+
+    private static DataRow createRow(final int i) {
+        return new DefaultRow(RowKey.createRowKey(i), new IntCell(i));
+    }
+
+    private BufferedDataTable createTable(final int rowCount) {
+        BufferedDataContainer container = m_exec.createDataContainer(SPEC);
+        for (int i = 0; i < rowCount; i++) {
+            container.addRowToTable(createRow(i));
+        }
+        container.close();
+        return container.getTable();
+    }
+
+    private static void checkRows(final List<DataRow> rows, final int rowCount, final int offset) {
+        assertEquals(rowCount, rows.size());
+        for (int i = 0; i < rowCount; i++) {
+            assertEquals(RowKey.createRowKey(i), rows.get(i).getKey());
+            assertEquals(i + offset, ((IntCell)rows.get(i).getCell(0)).getIntValue());
+        }
+    }
+
+    private static List<DataRow> pollAll(final RowInput input, final int batchSize) throws InterruptedException {
+        List<DataRow> result = new ArrayList<DataRow>();
+        DataRow[] batch = new DataRow[batchSize];
+        int count;
+        while ((count = input.poll(batch)) > 0) {
+            for (int i = 0; i < count; i++) {
+                result.add(batch[i]);
+            }
+        }
+        input.close();
+        return result;
+    }
+
+    /** Batch polling from a table, with the batch size not dividing the row count. */
+    @Test
+    public void testDataTableRowInput() throws Exception {
+        checkRows(pollAll(new DataTableRowInput(createTable(100)), 7), 100, 0);
+        checkRows(pollAll(new DataTableRowInput(createTable(0)), 7), 0, 0);
+    }
+
+    /** The default implementations delegate to the single row methods. */
+    @Test
+    public void testDefaultImplementations() throws Exception {
+        final List<DataRow> rows = new ArrayList<DataRow>();
+        for (int i = 0; i < 50; i++) {
+            rows.add(createRow(i));
+        }
+        final Iterator<DataRow> it = rows.iterator();
+        RowInput input = new RowInput() {
+            @Override
+            public DataTableSpec getDataTableSpec() {
+                return SPEC;
+            }
+
+            @Override
+            public DataRow poll() {
+                return it.hasNext() ? it.next() : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        checkRows(pollAll(input, 8), 50, 0);
+
+        final List<DataRow> pushed = new ArrayList<DataRow>();
+        RowOutput output = new RowOutput() {
+            @Override
+            public void push(final DataRow row) {
+                pushed.add(row);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        output.push(rows.subList(0, 20).toArray(new DataRow[0]));
+        output.push(rows.subList(20, 50).toArray(new DataRow[0]));
+        checkRows(pushed, 50, 0);
+    }
+
+    /** Batched pushes into a table, reusing the array between calls. */
+    @Test
+    public void testBufferedDataTableRowOutput() throws Exception {
+        BufferedDataTableRowOutput output = new BufferedDataTableRowOutput(m_exec.createDataContainer(SPEC));
+        DataRow[] batch = new DataRow[10];
+        for (int i = 0; i < 100; i += batch.length) {
+            for (int j = 0; j < batch.length; j++) {
+                batch[j] = createRow(i + j);
+            }
+            output.push(batch);
+        }
+        output.close();
+        BufferedDataTable table = output.getDataTable();
+        List<DataRow> rows = new ArrayList<DataRow>();
+        for (DataRow r : table) {
+            rows.add(r);
+        }
+        checkRows(rows, 100, 0);
+    }
+
+    /** A function processed in batches computes all rows in order and is finished afterwards. */
+    @Test
+    public void testStreamableFunction() throws Exception {
+        final boolean[] isFinished = new boolean[1];
+        StreamableFunction function = new StreamableFunction() {
+            @Override
+            public DataRow compute(final DataRow input) {
+                int value = ((IntCell)input.getCell(0)).getIntValue();
+                return new DefaultRow(input.getKey(), new IntCell(value + 1));
+            }
+
+            @Override
+            public void finish() {
+                isFinished[0] = true;
+            }
+        };
+        final int rowCount = 1000;
+        BufferedDataTableRowOutput output = new BufferedDataTableRowOutput(m_exec.createDataContainer(SPEC));
+        function.runFinal(new PortInput[]{new DataTableRowInput(createTable(rowCount))}, new PortOutput[]{output},
+            m_exec);
+        assertTrue("Function not finished", isFinished[0]);
+        List<DataRow> rows = new ArrayList<DataRow>();
+        for (DataRow r : output.getDataTable()) {
+            rows.add(r);
+        }
+        checkRows(rows, rowCount, 1);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.knime.core.node.workflow.InternalNodeContainerState.CONFIGURED;
+import static org.knime.core.node.workflow.InternalNodeContainerState.EXECUTED;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.exec.StreamingNodeExecutionJobManagerFactory;
+
+/**
+ * Runs the subnode of {@link TestSubnode_StreamingPortObject} with the streaming job manager and compares it to the
+ * non-streamed version, also when only the tail of the subnode is re-executed. The inner nodes must hold their
+ * complete output tables as they serve as inputs in that case.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class TestSubnode_StreamingJobManager extends WorkflowTestCase {
+
+    private NodeID m_dataGenerator_1;
+    private NodeID m_streamedSubnode_8;
+    private NodeID m_normalizerInSubnode_8_3;
+    private NodeID m_colorManagerInSubnode_8_4;
+    private NodeID m_columnFilterInSubnode_8_7;
+
+    @Before
+    public void setUp() throws Exception {
+        NodeID baseID = loadAndSetWorkflow(getWorkflowDirectory("testSubnode_StreamingPortObject"));
+        m_dataGenerator_1 = baseID.createChild(1);
+        m_streamedSubnode_8 = baseID.createChild(8);
+        NodeID innerID = m_streamedSubnode_8.createChild(0);
+        m_normalizerInSubnode_8_3 = innerID.createChild(3);
+        m_colorManagerInSubnode_8_4 = innerID.createChild(4);
+        m_columnFilterInSubnode_8_7 = innerID.createChild(7);
+        SubNodeContainer subnode = (SubNodeContainer)findNodeContainer(m_streamedSubnode_8);
+        subnode.setJobManager(StreamingNodeExecutionJobManagerFactory.INSTANCE.getInstance());
+    }
+
+    /** Run all, the difference checkers compare to the non-streamed version. */
+    @Test
+    public void testExecuteAndCompare() throws Exception {
+        WorkflowManager manager = getManager();
+        executeAllAndWait();
+        checkState(manager, EXECUTED);
+        checkInnerTablesComplete();
+    }
+
+    /** Run all, reset the tail nodes in the subnode and re-execute, reading the outputs of the executed nodes. */
+    @Test
+    public void testReexecuteTail() throws Exception {
+        WorkflowManager manager = getManager();
+        executeAllAndWait();
+        checkState(manager, EXECUTED);
+
+        reset(m_normalizerInSubnode_8_3, m_colorManagerInSubnode_8_4);
+        checkState(m_columnFilterInSubnode_8_7, EXECUTED);
+        checkState(m_normalizerInSubnode_8_3, CONFIGURED);
+        checkState(m_streamedSubnode_8, CONFIGURED);
+
+        executeAllAndWait();
+        checkState(manager, EXECUTED);
+        checkInnerTablesComplete();
+    }
+
+    private void checkInnerTablesComplete() throws Exception {
+        long rowCount = getTable(m_dataGenerator_1).size();
+        for (NodeID id : new NodeID[]{m_columnFilterInSubnode_8_7, m_colorManagerInSubnode_8_4,
+            m_normalizerInSubnode_8_3}) {
+            assertEquals("Number of rows at output of " + id, rowCount, getTable(id).size());
+        }
+    }
+
+    private BufferedDataTable getTable(final NodeID id) throws Exception {
+        return (BufferedDataTable)findNodeContainer(id).getOutPort(1).getPortObject();
+    }
+
+}
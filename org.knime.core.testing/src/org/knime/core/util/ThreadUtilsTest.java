@@ -0,0 +1,99 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.knime.core.node.CanceledExecutionException;
+
+/**
+ * Tests {@link ThreadUtils#waitFor(Future, java.util.Collection)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ThreadUtilsTest {
+
+    /** The result of a successful task is returned. */
+    @Test
+    public void testWaitForResult() throws Exception {
+        Future<String> f = CompletableFuture.completedFuture("result");
+        assertEquals("result", ThreadUtils.waitFor(f, Arrays.asList(f)));
+    }
+
+    /** A failing task cancels the others, its exception is rethrown unwrapped. */
+    @Test
+    public void testWaitForFailure() throws Exception {
+        IllegalStateException failure = new IllegalStateException("failed");
+        CompletableFuture<String> failed = new CompletableFuture<>();
+        failed.completeExceptionally(failure);
+        CompletableFuture<String> other = new CompletableFuture<>();
+        List<Future<String>> all = Arrays.asList(failed, other);
+        try {
+            ThreadUtils.waitFor(failed, all);
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+        assertTrue(other.isCancelled());
+
+        CompletableFuture<String> canceled = new CompletableFuture<>();
+        canceled.completeExceptionally(new CanceledExecutionException("canceled"));
+        try {
+            ThreadUtils.waitFor(canceled, Arrays.asList(canceled));
+            fail("Expected exception");
+        } catch (CanceledExecutionException e) {
+            assertEquals("canceled", e.getMessage());
+        }
+    }
+}
@@ -289,6 +289,115 @@ public void updateDomain(final DataRow row) {
         }
     }
 
+    /**
+     * Updates the domain values with a batch of rows. The result is the same as calling {@link #updateDomain(DataRow)}
+     * for each row but the rows are processed column by column, skipping columns without domain information and using
+     * primitive comparisons for the bounds of int, long and double columns.
+     *
+     * @param rows the rows, must not contain <code>null</code>
+     * @since 3.5
+     */
+    public void updateDomain(final DataRow[] rows) {
+        final int colCount = m_inputSpec.getNumColumns();
+        for (int col = 0; col < colCount; col++) {
+            if (m_possVals[col] != null) {
+                updatePossibleValues(col, rows);
+            }
+            if (m_mins[col] != null) {
+                DataValueComparator comparator = m_comparators[col];
+                if (comparator.getClass() == DoubleValueComparator.class) {
+                    updateMinMaxDouble(col, rows);
+                } else if (comparator.getClass() == IntValueComparator.class
+                    || comparator.getClass() == LongValueComparator.class) {
+                    updateMinMaxLong(col, rows, comparator.getClass() == IntValueComparator.class);
+                } else {
+                    for (DataRow row : rows) {
+                        updateMinMax(col, row.getCell(col), m_mins, m_maxs, m_comparators);
+                    }
+                }
+            }
+        }
+    }
+
+    private void updatePossibleValues(final int col, final DataRow[] rows) {
+        LinkedHashSet<DataCell> possVals = m_possVals[col];
+        for (DataRow row : rows) {
+            DataCell c = row.getCell(col);
+            if (!c.isMissing() && possVals.add(c) && (possVals.size() > m_maxPossibleValues)) {
+                m_possVals[col] = null;
+                return;
+            }
+        }
+    }
+
+    /** Determines min and max of the double column in the batch and then merges them into the current bounds. */
+    private void updateMinMaxDouble(final int col, final DataRow[] rows) {
+        DataCell minCell = null;
+        DataCell maxCell = null;
+        double min = 0.0;
+        double max = 0.0;
+        for (DataRow row : rows) {
+            DataCell c = row.getCell(col);
+            if (c.isMissing()) {
+                continue;
+            }
+            if (!(c instanceof DoubleValue)) {
+                updateMinMax(col, c, m_mins, m_maxs, m_comparators);
+                continue;
+            }
+            double d = ((DoubleValue)c).getDoubleValue();
+            if (Double.isNaN(d)) {
+                continue;
+            }
+            if (minCell == null || Double.compare(d, min) < 0) {
+                min = d;
+                minCell = c;
+            }
+            if (maxCell == null || Double.compare(d, max) > 0) {
+                max = d;
+                maxCell = c;
+            }
+        }
+        if (minCell != null) {
+            updateMinMax(col, minCell, m_mins, m_maxs, m_comparators);
+            updateMinMax(col, maxCell, m_mins, m_maxs, m_comparators);
+        }
+    }
+
+    /** Same as {@link #updateMinMaxDouble(int, DataRow[])} for int and long columns. */
+    private void updateMinMaxLong(final int col, final DataRow[] rows, final boolean isInt) {
+        DataCell minCell = null;
+        DataCell maxCell = null;
+        long min = 0L;
+        long max = 0L;
+        for (DataRow row : rows) {
+            DataCell c = row.getCell(col);
+            if (c.isMissing()) {
+                continue;
+            }
+            long l;
+            if (isInt && c instanceof IntValue) {
+                l = ((IntValue)c).getIntValue();
+            } else if (!isInt && c instanceof LongValue) {
+                l = ((LongValue)c).getLongValue();
+            } else {
+                updateMinMax(col, c, m_mins, m_maxs, m_comparators);
+                continue;
+            }
+            if (minCell == null || l < min) {
+                min = l;
+                minCell = c;
+            }
+            if (maxCell == null || l > max) {
+                max = l;
+                maxCell = c;
+            }
+        }
+        if (minCell != null) {
+            updateMinMax(col, minCell, m_mins, m_maxs, m_comparators);
+            updateMinMax(col, maxCell, m_mins, m_maxs, m_comparators);
+        }
+    }
 
     /**
      * Updates the domain values by scanning a whole table. Note that the table's structure must match the table spec
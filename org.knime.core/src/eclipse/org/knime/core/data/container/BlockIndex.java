@@ -0,0 +1,239 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+
+/**
+ * Sparse index on the binary file of a {@link Buffer}. It records the stream position of every
+ * {@link #getRowsPerEntry() k-th} row, which allows an iterator to start reading at an arbitrary row without
+ * decoding all preceding rows (see {@link Buffer#iterator(long, long)}).
+ *
+ * <p>
+ * A position consists of two parts: the offset in the (compressed) file at which decoding starts and the number of
+ * uncompressed bytes that need to be skipped thereafter. For uncompressed files the latter is always 0, for block
+ * compressed files ({@link CompressionFormat#Lz4}) the file offset is the start of the block containing the row. The
+ * index is only created for formats that {@link CompressionFormat#supportsRandomAccess() support random access}. It
+ * is persisted in two parts: the table's meta information holds the number of entries and rows per entry
+ * ({@link #save(NodeSettingsWO)}), the offsets are written as a separate binary zip entry
+ * ({@link #writeEntries(OutputStream)}) so that they don't inflate the meta information of large tables.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BlockIndex {
+
+    /** Default number of rows between two index entries. */
+    static final int DEFAULT_ROWS_PER_ENTRY = 1024;
+
+    private static final String CFG_ROWS_PER_ENTRY = "rows.per.entry";
+
+    private static final String CFG_ENTRY_COUNT = "entry.count";
+
+    private final int m_rowsPerEntry;
+
+    private long[] m_fileOffsets;
+
+    private int[] m_blockOffsets;
+
+    private int m_size;
+
+    /** Number of rows seen by {@link #rowWritten(long, int)}. */
+    private long m_rowCount;
+
+    /**
+     * Creates a new empty index.
+     *
+     * @param rowsPerEntry Number of rows between two entries, must be &gt; 0.
+     */
+    BlockIndex(final int rowsPerEntry) {
+        if (rowsPerEntry <= 0) {
+            throw new IllegalArgumentException("Rows per entry must be > 0: " + rowsPerEntry);
+        }
+        m_rowsPerEntry = rowsPerEntry;
+        m_fileOffsets = new long[16];
+        m_blockOffsets = new int[16];
+    }
+
+    /**
+     * Called by the buffer before a row is written. Adds a new entry if the row is a multiple of
+     * {@link #getRowsPerEntry()}.
+     *
+     * @param fileOffset Offset in the file of the (compressed) block the row starts in.
+     * @param blockOffset Offset of the row's first byte in the uncompressed block.
+     */
+    void rowWritten(final long fileOffset, final int blockOffset) {
+        if (m_rowCount % m_rowsPerEntry == 0) {
+            if (m_size == m_fileOffsets.length) {
+                int newLength = 2 * m_size;
+                m_fileOffsets = Arrays.copyOf(m_fileOffsets, newLength);
+                m_blockOffsets = Arrays.copyOf(m_blockOffsets, newLength);
+            }
+            m_fileOffsets[m_size] = fileOffset;
+            m_blockOffsets[m_size] = blockOffset;
+            m_size++;
+        }
+        m_rowCount++;
+    }
+
+    /** @return number of rows reported via {@link #rowWritten(long, int)} (only meaningful while writing). */
+    long getRowCount() {
+        return m_rowCount;
+    }
+
+    /** @return the number of rows between two entries. */
+    int getRowsPerEntry() {
+        return m_rowsPerEntry;
+    }
+
+    /** @return number of entries. */
+    int size() {
+        return m_size;
+    }
+
+    /**
+     * Get the index of the entry that is closest to (but not after) the argument row.
+     *
+     * @param row A row index, &gt;= 0
+     * @return The entry index or -1 if the index is empty
+     */
+    int getEntryForRow(final long row) {
+        return (int)Math.min(row / m_rowsPerEntry, m_size - 1);
+    }
+
+    /**
+     * @param entry Entry index
+     * @return the index of the row the entry points to.
+     */
+    long getRow(final int entry) {
+        return (long)entry * m_rowsPerEntry;
+    }
+
+    /**
+     * @param entry Entry index
+     * @return the offset in the file at which decoding starts.
+     */
+    long getFileOffset(final int entry) {
+        return m_fileOffsets[entry];
+    }
+
+    /**
+     * @param entry Entry index
+     * @return number of (uncompressed) bytes to skip after decoding started at {@link #getFileOffset(int)}.
+     */
+    int getBlockOffset(final int entry) {
+        return m_blockOffsets[entry];
+    }
+
+    /**
+     * Saves the header of the index (without the offsets) to the table's meta information.
+     *
+     * @param settings To save to.
+     */
+    void save(final NodeSettingsWO settings) {
+        settings.addInt(CFG_ROWS_PER_ENTRY, m_rowsPerEntry);
+        settings.addInt(CFG_ENTRY_COUNT, m_size);
+    }
+
+    /**
+     * Writes the offsets of all entries in binary form.
+     *
+     * @param out To write to, not closed.
+     * @throws IOException If that fails.
+     */
+    void writeEntries(final OutputStream out) throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(out);
+        for (int i = 0; i < m_size; i++) {
+            dataOut.writeLong(m_fileOffsets[i]);
+            dataOut.writeInt(m_blockOffsets[i]);
+        }
+        dataOut.flush();
+    }
+
+    /**
+     * Restores the header of an index as written by {@link #save(NodeSettingsWO)}. The returned index is empty
+     * until its offsets are read via {@link #readEntries(InputStream)}.
+     *
+     * @param settings To load from.
+     * @return A new index.
+     * @throws InvalidSettingsException If the settings are incomplete or inconsistent.
+     */
+    static BlockIndex load(final NodeSettingsRO settings) throws InvalidSettingsException {
+        int rowsPerEntry = settings.getInt(CFG_ROWS_PER_ENTRY);
+        int entryCount = settings.getInt(CFG_ENTRY_COUNT);
+        if (rowsPerEntry <= 0 || entryCount < 0) {
+            throw new InvalidSettingsException("Invalid block index");
+        }
+        BlockIndex result = new BlockIndex(rowsPerEntry);
+        result.m_fileOffsets = new long[entryCount];
+        result.m_blockOffsets = new int[entryCount];
+        return result;
+    }
+
+    /**
+     * Reads the offsets as written by {@link #writeEntries(OutputStream)} into an index restored by
+     * {@link #load(NodeSettingsRO)}.
+     *
+     * @param in To read from, not closed.
+     * @throws IOException If that fails or the input contains fewer entries than declared in the meta information.
+     */
+    void readEntries(final InputStream in) throws IOException {
+        DataInputStream dataIn = new DataInputStream(in);
+        int entryCount = m_fileOffsets.length;
+        for (int i = 0; i < entryCount; i++) {
+            m_fileOffsets[i] = dataIn.readLong();
+            m_blockOffsets[i] = dataIn.readInt();
+        }
+        m_size = entryCount;
+    }
+}
@@ -86,6 +86,7 @@
 import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.eclipse.core.runtime.Platform;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellSerializer;
@@ -112,9 +113,6 @@
 import org.knime.core.data.filestore.internal.NotInWorkflowWriteFileStoreHandler;
 import org.knime.core.data.filestore.internal.ROWriteFileStoreHandler;
 import org.knime.core.data.util.NonClosableOutputStream;
-import org.knime.core.data.util.memory.MemoryAlert;
-import org.knime.core.data.util.memory.MemoryAlertListener;
-import org.knime.core.data.util.memory.MemoryAlertSystem;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
@@ -126,7 +124,6 @@
 import org.knime.core.node.util.ConvenienceMethods;
 import org.knime.core.util.FileUtil;
 import org.knime.core.util.PathUtils;
-import org.knime.core.util.ThreadUtils;
 
 /**
  * A buffer writes the rows from a {@link DataContainer} to a file. This class serves as connector between the
@@ -138,13 +135,26 @@
 class Buffer implements KNIMEStreamConstants {
 
     /**
-     * Static field to enable/disable the usage of a GZipInput/OutpuStream when writing the binary data. This option
-     * defaults to {@value DataContainer#DEF_GZIP_COMPRESSION}.
-     *
-     * Note: Changing this parameter makes it impossible to read workflows written previously. It's only used for
-     * internal testing purposes.
+     * The compression format used when writing the binary data unless specified otherwise by the container. It's
+     * determined by the property {@link KNIMEConstants#PROPERTY_TABLE_GZIP_COMPRESSION} and defaults to
+     * {@link CompressionFormat#Gzip} (see {@value DataContainer#DEF_GZIP_COMPRESSION}).
+     */
+    private static final CompressionFormat DEFAULT_COMPRESSION_FORMAT;
+
+    /**
+     * Whether rows that are kept in memory are stored column-wise in primitive arrays (see {@link ColumnarRowList}).
+     * Defaults to false, can be enabled via {@link KNIMEConstants#PROPERTY_TABLE_COLUMNAR_IN_MEMORY}.
      */
-    private static final boolean IS_USE_GZIP;
+    private static final boolean IS_USE_COLUMNAR_IN_MEMORY =
+        Boolean.getBoolean(KNIMEConstants.PROPERTY_TABLE_COLUMNAR_IN_MEMORY);
+
+    /**
+     * Whether string columns are dictionary encoded in the table file (see {@link StringDictionary}). Defaults to
+     * false as previous versions can't read such files, can be enabled via
+     * {@link KNIMEConstants#PROPERTY_TABLE_DICTIONARY_ENCODING}.
+     */
+    private static final boolean IS_USE_DICTIONARY_ENCODING =
+        Boolean.getBoolean(KNIMEConstants.PROPERTY_TABLE_DICTIONARY_ENCODING);
 
     /** The node logger for this class. */
     private static final NodeLogger LOGGER = NodeLogger.getLogger(Buffer.class);
@@ -179,6 +189,12 @@ class Buffer implements KNIMEStreamConstants {
     /** Name of the zip entry containing the meta information (e.g. #rows). */
     static final String ZIP_ENTRY_META = "meta.xml";
 
+    /** Name of the zip entry containing the offsets of the {@link BlockIndex}, only present if the meta information
+     * contains a block index.
+     * @since 3.5
+     */
+    static final String ZIP_ENTRY_BLOCK_INDEX = "blockindex.bin";
+
     /**
      * Config entries when writing the meta information to the file, this is a subconfig in meta.xml.
      */
@@ -223,6 +239,18 @@ class Buffer implements KNIMEStreamConstants {
      */
     private static final String CFG_COMPRESSION = "container.compression";
 
+    /** Config entry for the header of the {@link BlockIndex} (sub config), only present if the format supports random
+     * access. The offsets are in the {@link #ZIP_ENTRY_BLOCK_INDEX} zip entry.
+     * @since 3.5
+     */
+    private static final String CFG_BLOCK_INDEX = "container.block.index";
+
+    /** Config entry for the chunk size of the {@link StringDictionary}, only present if strings are dictionary
+     * encoded.
+     * @since 3.5
+     */
+    private static final String CFG_DICTIONARY_CHUNK_SIZE = "container.dictionary.chunk.size";
+
     /**
      * Config entry: Sub element in config that keeps the list of cell class information (used to be a plain array).
      */
@@ -235,10 +263,10 @@ class Buffer implements KNIMEStreamConstants {
     private static final String CFG_CELL_SINGLE_ELEMENT_TYPE = "collection.element.type";
 
     /** Current version string. */
-    private static final String VERSION = "container_8";
+    private static final String VERSION = "container_9";
 
     /** The version number corresponding to VERSION. */
-    private static final int IVERSION = 8;
+    private static final int IVERSION = 9;
 
     private static final HashMap<String, Integer> COMPATIBILITY_MAP;
 
@@ -252,6 +280,7 @@ class Buffer implements KNIMEStreamConstants {
         COMPATIBILITY_MAP.put("container_6", 6); // 2.0 Alpha
         COMPATIBILITY_MAP.put("container_7", 7); // 2.0.0 (final)
         COMPATIBILITY_MAP.put("container_8", 8); // version 2.0.1++
+        COMPATIBILITY_MAP.put("container_9", 9); // version 3.5++ (dictionary encoded strings)
         COMPATIBILITY_MAP.put(VERSION, IVERSION);
         // NOTE consider to also
         // - increment the workflow.knime version number when updating this list
@@ -270,6 +299,9 @@ class Buffer implements KNIMEStreamConstants {
     /** Number of dirs/files per directory when blobs are saved. */
     private static final int BLOB_ENTRIES_PER_DIRECTORY = 1000;
 
+    /** Rows added to the in-memory list are reported to the {@link BufferMemoryManager} in chunks of this size. */
+    private static final long SIZE_REPORT_CHUNK = 256L << 10;
+
     /**
      * Is executing the shutdown hook? If so, no logging is done, bug fix #862.
      */
@@ -304,28 +336,28 @@ public void run() {
         }
         // prefer this block over Boolean.getBoolean(...) to cover typos
         // on command line (warn on console)
-        String isUseGzipString = System.getProperty(KNIMEConstants.PROPERTY_TABLE_GZIP_COMPRESSION);
+        String compressionString = System.getProperty(KNIMEConstants.PROPERTY_TABLE_GZIP_COMPRESSION);
         boolean debugLog = true;
-        if (isUseGzipString == null) {
-            isUseGzipString = Boolean.toString(DataContainer.DEF_GZIP_COMPRESSION);
+        if (compressionString == null) {
+            compressionString = Boolean.toString(DataContainer.DEF_GZIP_COMPRESSION);
             debugLog = false;
         }
-        if ("true".equals(isUseGzipString)) {
-            IS_USE_GZIP = true;
-        } else if ("false".equals(isUseGzipString)) {
-            IS_USE_GZIP = false;
-        } else {
+        CompressionFormat defaultFormat;
+        try {
+            defaultFormat = CompressionFormat.parseProperty(compressionString);
+        } catch (IllegalArgumentException iae) {
             debugLog = false;
+            defaultFormat = DataContainer.DEF_GZIP_COMPRESSION ? CompressionFormat.Gzip : CompressionFormat.None;
             LOGGER.warn("Unable to read property " + KNIMEConstants.PROPERTY_TABLE_GZIP_COMPRESSION + " (\""
-                    + isUseGzipString + "\"); defaulting to " + DataContainer.DEF_GZIP_COMPRESSION);
-            IS_USE_GZIP = DataContainer.DEF_GZIP_COMPRESSION;
+                    + compressionString + "\"); defaulting to " + defaultFormat);
         }
+        DEFAULT_COMPRESSION_FORMAT = defaultFormat;
         ZLIB_SUPPORTS_LEVEL_SWITCH_AP8083 = isZLIBSupportsLevelSwitchAP8083();
         if (!ZLIB_SUPPORTS_LEVEL_SWITCH_AP8083) {
             LOGGER.debug("Zlib library doesn't support compression level switch");
         }
         if (debugLog) {
-            LOGGER.debug("Setting table stream compression to " + IS_USE_GZIP);
+            LOGGER.debug("Setting table stream compression to " + DEFAULT_COMPRESSION_FORMAT);
         }
     }
 
@@ -375,12 +407,6 @@ private static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInf
         return result;
     }
 
-    /** Compression on the binary (main) file. */
-    enum CompressionFormat {
-        Gzip,
-        None;
-    }
-
     private CompressionFormat m_compressionFormat;
 
     /** the file to write to. */
@@ -428,6 +454,27 @@ enum CompressionFormat {
      */
     private DCObjectOutputVersion2 m_outStream;
 
+    /** Counts the (compressed) bytes written to the file, used to build the block index. Null if no index is built. */
+    private CountingOutputStream m_outCountingStream;
+
+    /** The compressing stream underneath m_outStream, used to build the block index. */
+    private OutputStream m_outCompressedStream;
+
+    /**
+     * Index on the rows in m_binFile, allowing to read from an arbitrary row. Null if the compression format doesn't
+     * support random access or if the file was written with a previous version.
+     */
+    private BlockIndex m_blockIndex;
+
+    /** Writes string cells dictionary encoded, only non-null while writing to m_binFile. */
+    private StringDictionary.Encoder m_dictionaryEncoder;
+
+    /** Chunk size of the dictionary encoding in m_binFile or 0 if the file doesn't use dictionary encoding. */
+    private int m_dictionaryChunkSize;
+
+    /** Whether to dictionary encode strings when writing m_binFile, see {@link #setDictionaryEncoding(boolean)}. */
+    private boolean m_useDictionaryEncoding = IS_USE_DICTIONARY_ENCODING;
+
     /** maximum number of rows that are in memory. */
     private int m_maxRowsInMem;
 
@@ -437,6 +484,21 @@ enum CompressionFormat {
     /** the list that keeps up to m_maxRowsInMem in memory. */
     private List<BlobSupportDataRow> m_list;
 
+    /**
+     * Whether the in-memory size is governed by the {@link BufferMemoryManager} rather than by m_maxRowsInMem. See
+     * {@link #setMemoryManaged(boolean)}.
+     */
+    private boolean m_isMemoryManaged;
+
+    /** Estimated bytes of rows added to m_list that were not yet reported to the {@link BufferMemoryManager}. */
+    private long m_unreportedSizeEstimate;
+
+    /** Whether m_list contains the rows restored from the (complete) file, see {@link #restoreIntoMemory()}. */
+    private boolean m_isListRestoredFromFile;
+
+    /** Whether the rows are currently restored into memory on behalf of the {@link TableCache}. */
+    private boolean m_isRestoringForTableCache;
+
     private int[] m_indicesOfBlobInColumns;
 
     /** the spec the rows comply with, no checking is done, however. */
@@ -466,6 +528,14 @@ enum CompressionFormat {
      */
     private CloseableRowIterator m_backIntoMemoryIterator;
 
+    /**
+     * The list iterators that read (and thereby restore) rows via m_backIntoMemoryIterator. If all of them are closed
+     * or garbage collected before the last row was read, the restoring is aborted. Weak keys so that abandoned
+     * iterators are noticed.
+     */
+    private final Set<FromListIterator> m_restoreReaders =
+        Collections.newSetFromMap(new WeakHashMap<FromListIterator, Boolean>());
+
     /**
      * A flag indicating whether the next call to iterator() hast to initialize m_backIntoMemoryIterator. This flag is
      * mostly false but may be true right after object initialization when the settings contain the
@@ -511,7 +581,7 @@ enum CompressionFormat {
         m_localRepository = localRep;
         m_fileStoreHandler = fileStoreHandler;
         m_fileStoreHandlerRepository = fileStoreHandler.getFileStoreHandlerRepository();
-        m_compressionFormat = IS_USE_GZIP ? CompressionFormat.Gzip : CompressionFormat.None;
+        m_compressionFormat = DEFAULT_COMPRESSION_FORMAT;
         BufferTracker.getInstance().bufferCreated(this);
     }
 
@@ -593,6 +663,36 @@ final CompressionFormat getBinFileCompressionFormat() {
         return m_compressionFormat;
     }
 
+    /**
+     * Sets the compression format used when writing the binary file. Must be called before any data is written.
+     *
+     * @param format The format, not null.
+     * @throws IllegalStateException If the buffer already writes to a file.
+     */
+    final synchronized void setCompressionFormat(final CompressionFormat format) {
+        if (format == null) {
+            throw new NullPointerException("Compression format must not be null");
+        }
+        if (m_outStream != null || m_spec != null) {
+            throw new IllegalStateException("Compression format can't be changed, buffer is already written");
+        }
+        m_compressionFormat = format;
+    }
+
+    /**
+     * Sets whether strings are dictionary encoded when writing the binary file (see {@link StringDictionary}). Must be
+     * called before any data is written.
+     *
+     * @param useDictionaryEncoding Whether to use dictionary encoding.
+     * @throws IllegalStateException If the buffer already writes to a file.
+     */
+    final synchronized void setDictionaryEncoding(final boolean useDictionaryEncoding) {
+        if (m_outStream != null || m_spec != null) {
+            throw new IllegalStateException("Dictionary encoding can't be changed, buffer is already written");
+        }
+        m_useDictionaryEncoding = useDictionaryEncoding;
+    }
+
     /**
      * Validate the version as read from the file if it can be parsed by this implementation. If unknown, uses
      * latest known version (good luck).
@@ -633,6 +733,11 @@ synchronized void addRow(final DataRow r, final boolean isCopyOfExisting, final
                 m_list.add(row);
                 if (m_list.size() > m_maxRowsInMem) {
                     flushBuffer();
+                } else {
+                    m_unreportedSizeEstimate += BufferMemoryManager.estimateRowSize(row);
+                    if (m_unreportedSizeEstimate >= SIZE_REPORT_CHUNK) {
+                        reportSizeEstimate();
+                    }
                 }
             } else {
                 flushBuffer();
@@ -930,6 +1035,31 @@ private void ensureTempFileExists() throws IOException {
         }
     }
 
+    /** Hands the size of recently added rows to the memory manager, writes the rows to disc if requested. */
+    private void reportSizeEstimate() {
+        assert Thread.holdsLock(this);
+        long delta = m_unreportedSizeEstimate;
+        m_unreportedSizeEstimate = 0L;
+        if (BufferMemoryManager.getInstance().sizeIncreased(this, delta, m_isMemoryManaged)) {
+            LOGGER.debug("Writing " + m_list.size() + " rows to disc as the memory budget for tables is exceeded");
+            flushBuffer();
+        }
+    }
+
+    /**
+     * Sets whether the number of rows kept in memory is determined by the global memory budget (see
+     * {@link org.knime.core.node.KNIMEConstants#PROPERTY_TABLE_MEMORY_BUDGET}) rather than the row count passed in
+     * the constructor. Managed buffers are written to disc if the (estimated) memory occupied by all managed buffers
+     * exceeds the budget, whereby large and least recently used buffers are written first. Must be called before
+     * the first row is added.
+     *
+     * @param isMemoryManaged That property.
+     */
+    synchronized void setMemoryManaged(final boolean isMemoryManaged) {
+        assert m_size == 0 : "Buffer has already rows";
+        m_isMemoryManaged = isMemoryManaged;
+    }
+
     /** Increments the row counter by one, used in addRow.
      * @return previous size (before incrementing it). */
     private long getAndIncrementSize() {
@@ -951,14 +1081,20 @@ synchronized void close(final DataTableSpec spec) {
     /** Closes by creating shortcut array for file access. */
     void closeInternal() {
         assert Thread.holdsLock(this);
+        if (m_outStream == null && !m_list.isEmpty()) {
+            // make sure the table is known to the memory manager so that it can be freed on low memory (this may
+            // also write it to disc right away if the memory budget is exceeded)
+            reportSizeEstimate();
+        }
         // everything is in the list, i.e. in memory
         if (m_outStream == null) {
             // disallow modification
-            List<BlobSupportDataRow> newList = Collections.unmodifiableList(m_list);
-            m_list = newList;
-            if (!m_list.isEmpty()) {
-                registerMemoryAlertListener();
+            List<BlobSupportDataRow> newList = null;
+            if (IS_USE_COLUMNAR_IN_MEMORY && !m_list.isEmpty() && !(m_list instanceof ColumnarRowList)) {
+                // primitive (column) representation, cells are materialized on access
+                newList = ColumnarRowList.compact(m_list, m_list.get(0).getNumCells());
             }
+            m_list = newList != null ? newList : Collections.unmodifiableList(m_list);
         } else {
             try {
                 flushBuffer();
@@ -975,43 +1111,31 @@ void closeInternal() {
         m_localRepository = null;
     } // close()
 
-    private MemoryAlertListener m_memoryAlertListener;
-
-    private void registerMemoryAlertListener() {
-        m_memoryAlertListener = new MemoryAlertListener() {
-            @Override
-            protected boolean memoryAlert(final MemoryAlert alert) {
-                if (m_list != null && !m_list.isEmpty()) {
-                    ThreadUtils.threadWithContext(new Runnable() {
-                        @Override
-                        public void run() {
-                            onMemoryAlert();
-                        }
-                    }, "KNIME Buffer flusher").start();
-                }
-                return true;
-            }
-        };
-        MemoryAlertSystem.getInstance().addListener(m_memoryAlertListener);
-    }
-
-    private synchronized void onMemoryAlert() {
-        assert m_spec != null : "Memory alert only for closed (read-only) buffers";
-        if (m_list == null) {
-            // concurrent close or addRow() caused this to be flushed (this method may stall long on Buffer.this)
+    /**
+     * Writes the rows kept in memory to disc (or discards them if they were restored from a file), called by the
+     * {@link BufferMemoryManager} in order to free memory. Open buffers continue writing subsequent rows to the
+     * file.
+     */
+    synchronized void spillToDisc() {
+        if (m_list == null || m_list.isEmpty()) {
+            // concurrent close, addRow() or clear() caused this to be flushed (this method may stall long on
+            // Buffer.this)
+            BufferMemoryManager.getInstance().removed(this);
+            return;
+        }
+        final int nrRowsWritten = m_list.size();
+        if (m_isListRestoredFromFile) {
+            m_list = null;
+            m_isListRestoredFromFile = false;
+            BufferMemoryManager.getInstance().removed(this);
+            TableCache.getInstance().discarded(this);
         } else {
-            final int nrRowsWritten = m_list.size();
             flushBuffer();
-            closeInternal();
-            LOGGER.debug("Wrote " + nrRowsWritten + " rows in order to free memory");
-        }
-    }
-
-    private void unregisterMemoryAlertListener() {
-        if (m_memoryAlertListener != null) {
-            MemoryAlertSystem.getInstance().removeListener(m_memoryAlertListener);
-            m_memoryAlertListener = null;
+            if (m_spec != null) {
+                closeInternal();
+            }
         }
+        LOGGER.debug("Wrote " + nrRowsWritten + " rows in order to free memory");
     }
 
 
@@ -1025,6 +1149,14 @@ private void unregisterMemoryAlertListener() {
     private CellClassInfo[] closeFile(final DCObjectOutputVersion2 outStream) throws IOException {
         CellClassInfo[] shortCutsLookup = createShortCutArray();
         outStream.close();
+        m_outCountingStream = null;
+        m_outCompressedStream = null;
+        m_dictionaryEncoder = null;
+        if (m_blockIndex != null && m_blockIndex.getRowCount() != size()) {
+            LOGGER.debug("Discarding block index as it doesn't cover all rows (" + m_blockIndex.getRowCount()
+                + " vs. " + size() + ")");
+            m_blockIndex = null;
+        }
         return shortCutsLookup;
     }
 
@@ -1046,6 +1178,12 @@ private void writeMetaToFile(final OutputStream out, final CellClassInfo[] short
             subSettings.addLong(CFG_SIZE_L, size());
         }
         subSettings.addString(CFG_COMPRESSION, m_compressionFormat.name());
+        if (m_blockIndex != null) {
+            m_blockIndex.save(subSettings.addNodeSettings(CFG_BLOCK_INDEX));
+        }
+        if (m_dictionaryChunkSize > 0) {
+            subSettings.addInt(CFG_DICTIONARY_CHUNK_SIZE, m_dictionaryChunkSize);
+        }
         subSettings.addBoolean(CFG_CONTAINS_BLOBS, m_containsBlobs);
         // added between version 8 and 9 - no increment of version number
         String fileStoresUUID = null;
@@ -1112,6 +1250,13 @@ private void readMetaFromFile(final InputStream metaIn, final File fileStoreDir)
                 cF = CompressionFormat.Gzip;
             }
             m_compressionFormat = cF;
+            // added in 3.5 - no increment of version number as older versions ignore it; the offsets are read
+            // separately from their own zip entry (see readBlockIndex)
+            if (subSettings.containsKey(CFG_BLOCK_INDEX)) {
+                m_blockIndex = BlockIndex.load(subSettings.getNodeSettings(CFG_BLOCK_INDEX));
+            }
+            // added in 3.5 (version 9) - older versions can't read files containing dictionary encoded strings
+            m_dictionaryChunkSize = m_version >= 9 ? subSettings.getInt(CFG_DICTIONARY_CHUNK_SIZE, 0) : 0;
             // added sometime between format 8 and 9
             m_containsBlobs = false;
             if (m_version >= 4) { // no blobs in version 1.1.x
@@ -1281,15 +1426,26 @@ final synchronized void restoreIntoMemory() {
 
     /** Called from back into memory iterator when the last row was read. */
     final synchronized void onAllRowsReadBackIntoMemory() {
-        if (m_memoryAlertListener == null) {
-            m_memoryAlertListener = new MemoryAlertListener() {
-                @Override
-                protected boolean memoryAlert(final MemoryAlert alert) {
-                    m_list = null;
-                    return true;
-                }
-            };
+        m_restoreReaders.clear();
+        if (m_list == null) {
+            return;
         }
+        m_isListRestoredFromFile = true;
+        long size = 0L;
+        for (BlobSupportDataRow row : m_list) {
+            size += BufferMemoryManager.estimateRowSize(row);
+        }
+        if (m_isRestoringForTableCache) {
+            m_isRestoringForTableCache = false;
+            if (!TableCache.getInstance().loaded(this, size)) {
+                // doesn't fit, continue reading from file
+                m_list = null;
+                m_isListRestoredFromFile = false;
+                return;
+            }
+        }
+        // not managed: restoring was explicitly requested but the rows can be dropped on low memory
+        BufferMemoryManager.getInstance().sizeIncreased(this, size, false);
     }
 
 
@@ -1329,14 +1485,24 @@ final Map<Integer, ContainerTable> getLocalRepository() {
      * @throws IOException If an IO error occurs while writing to the file.
      */
     private void writeRow(final BlobSupportDataRow row, final DCObjectOutputVersion2 outStream) throws IOException {
+        if (m_blockIndex != null) {
+            m_blockIndex.rowWritten(m_outCountingStream.getByteCount(),
+                m_compressionFormat.getPendingByteCount(m_outCompressedStream));
+        }
         RowKey id = row.getKey();
         writeRowKey(id, outStream);
+        final StringDictionary.Encoder dictionaryEncoder = m_dictionaryEncoder;
+        if (dictionaryEncoder != null) {
+            dictionaryEncoder.startRow(row.getNumCells());
+        }
         for (int i = 0; i < row.getNumCells(); i++) {
             DataCell cell = row.getRawCell(i);
             if (m_indicesOfBlobInColumns == null && cell instanceof BlobDataCell) {
                 m_indicesOfBlobInColumns = new int[row.getNumCells()];
             }
-            writeDataCell(cell, outStream);
+            if (dictionaryEncoder == null || !dictionaryEncoder.writeDataCell(i, cell, outStream)) {
+                writeDataCell(cell, outStream);
+            }
             outStream.endBlock();
         }
         outStream.endRow();
@@ -1428,7 +1594,7 @@ private DataCellSerializer<DataCell> getSerializerForDataCell(final CellClassInf
         DataCellSerializer<DataCell> serializer = (DataCellSerializer<DataCell>)cellClass.getSerializer();
         if (!m_typeShortCuts.containsKey(cellClass)) {
             int size = m_typeShortCuts.size();
-            if (size + BYTE_TYPE_START > Byte.MAX_VALUE) {
+            if (size + BYTE_TYPE_START > BYTE_TYPE_END) {
                 throw new IOException("Too many different cell implementations");
             }
             Byte identifier = (byte)(size + BYTE_TYPE_START);
@@ -1544,26 +1710,28 @@ CellClassInfo getTypeForChar(final byte identifier) throws IOException {
     }
 
     /**
-     * Creates short cut array and wraps the argument stream in a {@link DCObjectOutputVersion2}.
+     * Creates short cut array and wraps the argument stream in a {@link DCObjectOutputVersion2}. Also sets up the
+     * {@link BlockIndex} if the compression format supports random access.
      */
     private DCObjectOutputVersion2 initOutFile(final OutputStream outStream) throws IOException {
-        OutputStream wrap;
-        switch (m_compressionFormat) {
-            case Gzip:
-                wrap = new GZIPOutputStream(outStream);
-                // buffering the input stream is important as the blockable
-                // stream, which will be put on top of it, reads bytes individually
-                // (had a table, on which a single read-scan took ~6min without
-                // and ~30s with buffering)
-                wrap = new BufferedOutputStream(wrap);
-                break;
-            case None:
-                wrap = outStream;
-                break;
-            default:
-                throw new IOException("Unsupported compression format: " + m_compressionFormat);
-        }
-        return new DCObjectOutputVersion2(wrap, this);
+        OutputStream out = outStream;
+        if (m_compressionFormat.supportsRandomAccess()) {
+            m_outCountingStream = new CountingOutputStream(outStream);
+            m_blockIndex = new BlockIndex(BlockIndex.DEFAULT_ROWS_PER_ENTRY);
+            out = m_outCountingStream;
+        } else {
+            m_outCountingStream = null;
+            m_blockIndex = null;
+        }
+        if (m_useDictionaryEncoding) {
+            m_dictionaryEncoder = new StringDictionary.Encoder(StringDictionary.DEFAULT_CHUNK_SIZE);
+            m_dictionaryChunkSize = m_dictionaryEncoder.getChunkSize();
+        } else {
+            m_dictionaryEncoder = null;
+            m_dictionaryChunkSize = 0;
+        }
+        m_outCompressedStream = m_compressionFormat.wrapOutput(out);
+        return new DCObjectOutputVersion2(m_outCompressedStream, this);
     }
 
     private void ensureBlobDirExists() throws IOException {
@@ -1679,40 +1847,174 @@ private static String getFileName(final int fileIndex) {
      * @return a new Iterator over all rows.
      */
     synchronized CloseableRowIterator iterator() {
+        BufferMemoryManager.getInstance().touch(this);
+        if (m_backIntoMemoryIterator != null && m_restoreReaders.isEmpty()) {
+            // all iterators restoring the rows were garbage collected before reaching the end
+            abortRestore();
+        }
         if (usesOutFile()) {
+            if (!m_useBackIntoMemoryIterator && isCacheable()
+                && TableCache.getInstance().onFileAccess(this, m_binFile.length())) {
+                m_useBackIntoMemoryIterator = true;
+                m_isRestoringForTableCache = true;
+            }
             if (m_useBackIntoMemoryIterator) {
                 // the order of the following lines is very important!
                 m_useBackIntoMemoryIterator = false;
                 m_backIntoMemoryIterator = iterator();
                 // we never store more than 2^31 rows in memory, therefore it's safe to cast to int
                 m_list = new ArrayList<BlobSupportDataRow>((int) size());
-                return new FromListIterator();
+                return createRestoreReader();
             }
-            FromFileIterator f;
-            try {
-                LOGGER.debug("Opening input stream on file \"" + m_binFile.getAbsolutePath() + "\", "
-                        + m_nrOpenInputStreams + " open streams");
+            return openFileIterator(0L, size());
+        } else {
+            if (m_isListRestoredFromFile) {
+                TableCache.getInstance().onCacheAccess(this);
+            }
+            return m_backIntoMemoryIterator != null ? createRestoreReader() : new FromListIterator();
+        }
+    }
 
-                if (getReadVersion() <= 5) { // 2.0 tech preview and before
-                    f = new BufferFromFileIteratorVersion1x(this);
-                } else {
-                    f = new BufferFromFileIteratorVersion20(this);
-                }
-                m_nrOpenInputStreams.incrementAndGet();
-                synchronized (m_openIteratorSet) {
-                    m_openIteratorSet.put(f, DUMMY);
+    /** @return a new list iterator that continues restoring the rows while m_backIntoMemoryIterator is not null. */
+    private FromListIterator createRestoreReader() {
+        assert Thread.holdsLock(this);
+        FromListIterator reader = new FromListIterator();
+        m_restoreReaders.add(reader);
+        return reader;
+    }
+
+    /**
+     * Called when a list iterator is closed. If it was the last one restoring the rows into memory and not all rows
+     * have been read yet, the restoring is aborted.
+     *
+     * @param reader The closed iterator.
+     */
+    private void onListIteratorClosed(final FromListIterator reader) {
+        CloseableRowIterator backIntoMemoryIterator = m_backIntoMemoryIterator;
+        if (backIntoMemoryIterator == null) {
+            return;
+        }
+        // same lock order as in FromListIterator#next
+        synchronized (backIntoMemoryIterator) {
+            synchronized (this) {
+                if (m_restoreReaders.remove(reader) && m_restoreReaders.isEmpty()
+                    && m_backIntoMemoryIterator == backIntoMemoryIterator) {
+                    abortRestore();
                 }
-            } catch (IOException ioe) {
-                StringBuilder b = new StringBuilder("Cannot read file \"");
-                b.append(m_binFile != null ? m_binFile.getName() : "<unknown>");
-                b.append("\"");
-                checkAndReportOpenFiles(ioe);
-                throw new RuntimeException(b.toString(), ioe);
             }
-            return f;
+        }
+    }
+
+    /**
+     * Stops restoring the rows into memory: closes m_backIntoMemoryIterator and drops the partially filled list. If
+     * the rows were restored for the {@link TableCache}, the table may be admitted again on a later access, otherwise
+     * the next iterator starts restoring from scratch.
+     */
+    private void abortRestore() {
+        assert Thread.holdsLock(this);
+        LOGGER.debug("Aborting restoring table into memory as all iterators were closed before reaching the end");
+        CloseableRowIterator backIntoMemoryIterator = m_backIntoMemoryIterator;
+        m_backIntoMemoryIterator = null;
+        m_restoreReaders.clear();
+        backIntoMemoryIterator.close();
+        m_list = null;
+        if (m_isRestoringForTableCache) {
+            m_isRestoringForTableCache = false;
+            TableCache.getInstance().loadingAborted(this);
         } else {
-            return new FromListIterator();
+            m_useBackIntoMemoryIterator = true;
+        }
+    }
+
+    /**
+     * @return whether the rows of this (closed) buffer can be read from the file into memory on behalf of the
+     *         {@link TableCache}.
+     */
+    private boolean isCacheable() {
+        return m_shortCutsLookup != null && m_binFile != null && m_backIntoMemoryIterator == null
+            && getReadVersion() >= 8 && size() > 0 && size() < Integer.MAX_VALUE;
+    }
+
+    /**
+     * Get a new iterator over the rows in the range <code>[fromIndex, toIndex)</code>. If the rows are kept in memory,
+     * the iterator accesses the list directly. Otherwise it reads from the file, starting at the position recorded in
+     * the {@link BlockIndex} (if any) and skipping the few rows up to <code>fromIndex</code> without deserializing
+     * them. Only supported if {@link #supportsRangeIterator()}.
+     *
+     * @param fromIndex Index of the first row (inclusive).
+     * @param toIndex Index of the last row (exclusive).
+     * @return a new iterator over the row range.
+     * @throws IndexOutOfBoundsException If the range is invalid.
+     */
+    synchronized CloseableRowIterator iterator(final long fromIndex, final long toIndex) {
+        if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Invalid row range [" + fromIndex + ", " + toIndex
+                + "), table has " + size() + " rows");
+        }
+        assert supportsRangeIterator() : "Range iterator not supported for buffer version " + getReadVersion();
+        BufferMemoryManager.getInstance().touch(this);
+        if (!usesOutFile() && m_backIntoMemoryIterator == null) {
+            // all rows are in memory
+            if (m_isListRestoredFromFile) {
+                TableCache.getInstance().onCacheAccess(this);
+            }
+            return new FromListIterator((int)fromIndex, (int)toIndex);
+        }
+        // rows are (possibly still being restored) in file
+        return openFileIterator(fromIndex, toIndex);
+    }
+
+    /**
+     * @return whether {@link #iterator(long, long)} can be used, which is not the case for files written with KNIME
+     *         2.0 tech preview and before.
+     */
+    boolean supportsRangeIterator() {
+        return getReadVersion() > 5;
+    }
+
+    /** Opens a new file iterator on the given row range (entire table for old file versions) and registers it. */
+    private FromFileIterator openFileIterator(final long fromIndex, final long toIndex) {
+        FromFileIterator f;
+        try {
+            LOGGER.debug("Opening input stream on file \"" + m_binFile.getAbsolutePath() + "\", "
+                    + m_nrOpenInputStreams + " open streams");
+
+            if (getReadVersion() <= 5) { // 2.0 tech preview and before
+                f = new BufferFromFileIteratorVersion1x(this);
+            } else {
+                f = new BufferFromFileIteratorVersion20(this, fromIndex, toIndex);
+                if (PrefetchingFromFileIterator.isApplicable(toIndex - fromIndex)) {
+                    f = new PrefetchingFromFileIterator(this, f, toIndex - fromIndex);
+                }
+            }
+            m_nrOpenInputStreams.incrementAndGet();
+            synchronized (m_openIteratorSet) {
+                m_openIteratorSet.put(f, DUMMY);
+            }
+        } catch (IOException ioe) {
+            StringBuilder b = new StringBuilder("Cannot read file \"");
+            b.append(m_binFile != null ? m_binFile.getName() : "<unknown>");
+            b.append("\"");
+            checkAndReportOpenFiles(ioe);
+            throw new RuntimeException(b.toString(), ioe);
         }
+        return f;
+    }
+
+    /**
+     * @return the index on the rows in the bin file or null if not available (the file was written with a previous
+     *         version or using a compression format that doesn't support random access).
+     */
+    BlockIndex getBlockIndex() {
+        return m_blockIndex;
+    }
+
+    /**
+     * @return the number of rows per chunk of the {@link StringDictionary} used in the bin file or 0 if strings are
+     *         not dictionary encoded.
+     */
+    int getDictionaryChunkSize() {
+        return m_dictionaryChunkSize;
     }
 
 
@@ -1788,7 +2090,11 @@ File getOwnFileStoreCellsDirectory() {
      */
     @SuppressWarnings("unchecked")
     Buffer createLocalCloneForWriting() {
-        return new Buffer(0, getBufferID(), getGlobalRepository(), Collections.EMPTY_MAP, castAndGetFileStoreHandler());
+        Buffer copy =
+            new Buffer(0, getBufferID(), getGlobalRepository(), Collections.EMPTY_MAP, castAndGetFileStoreHandler());
+        copy.m_compressionFormat = m_compressionFormat;
+        copy.m_useDictionaryEncoding = m_useDictionaryEncoding;
+        return copy;
     }
 
     /**
@@ -1870,6 +2176,7 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
             }
             zipOut.putNextEntry(new ZipEntry(ZIP_ENTRY_META));
             copy.writeMetaToFile(new NonClosableOutputStream.Zip(zipOut), shortCutsLookup);
+            addBlockIndexToZip(copy.m_blockIndex, zipOut);
         } else {
             // no need for BufferedInputStream here as the copy method
             // does the buffering itself
@@ -1889,6 +2196,32 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
             }
             zipOut.putNextEntry(new ZipEntry(ZIP_ENTRY_META));
             writeMetaToFile(new NonClosableOutputStream.Zip(zipOut), shortCutsLookup);
+            addBlockIndexToZip(m_blockIndex, zipOut);
+        }
+    }
+
+    /** Writes the offsets of the argument index (if not null) as separate zip entry, its header is part of the meta
+     * information. */
+    private static void addBlockIndexToZip(final BlockIndex blockIndex, final ZipOutputStream zipOut)
+            throws IOException {
+        if (blockIndex != null) {
+            zipOut.putNextEntry(new ZipEntry(ZIP_ENTRY_BLOCK_INDEX));
+            try (OutputStream out = new NonClosableOutputStream.Zip(zipOut)) {
+                blockIndex.writeEntries(out);
+            }
+        }
+    }
+
+    /**
+     * Reads the offsets of the block index from the {@link #ZIP_ENTRY_BLOCK_INDEX} zip entry. Called after
+     * construction if the entry is present. Without it the block index is empty and the table is read sequentially.
+     *
+     * @param in To read from, not closed.
+     * @throws IOException If that fails.
+     */
+    void readBlockIndex(final InputStream in) throws IOException {
+        if (m_blockIndex != null) {
+            m_blockIndex.readEntries(in);
         }
     }
 
@@ -1963,7 +2296,11 @@ synchronized void clearIteratorInstance(final FromFileIterator it, final boolean
     synchronized void clear() {
         BufferTracker.getInstance().bufferCleared(this);
         m_list = null;
-        unregisterMemoryAlertListener();
+        m_isListRestoredFromFile = false;
+        m_isRestoringForTableCache = false;
+        m_restoreReaders.clear();
+        BufferMemoryManager.getInstance().removed(this);
+        TableCache.getInstance().removed(this);
         if (m_binFile != null) {
             synchronized (m_openIteratorSet) {
                 for (FromFileIterator f : m_openIteratorSet.keySet()) {
@@ -2035,6 +2372,8 @@ synchronized void flushBuffer() {
         try {
             writeAllRowsFromListToFile();
             m_list = null; // don't write to internal cache any more
+            m_unreportedSizeEstimate = 0L;
+            BufferMemoryManager.getInstance().removed(this);
         } catch (IOException ioe) {
             LOGGER.error("Failed to swap to disc while freeing memory", ioe);
         }
@@ -2093,15 +2432,30 @@ abstract static class FromFileIterator extends CloseableRowIterator implements K
     private class FromListIterator extends CloseableRowIterator {
 
         // do not use iterator here, see inner class comment
-        private int m_nextIndex = 0;
+        private int m_nextIndex;
+        private final long m_endIndex;
         private final List<BlobSupportDataRow> m_listReference = m_list;
 
+        /** Iterator over all rows. */
+        FromListIterator() {
+            m_nextIndex = 0;
+            m_endIndex = size();
+        }
+
+        /** Iterator over a range of rows, only to be used if all rows are in the list.
+         * @param fromIndex first row (inclusive)
+         * @param toIndex last row (exclusive) */
+        FromListIterator(final int fromIndex, final int toIndex) {
+            m_nextIndex = fromIndex;
+            m_endIndex = toIndex;
+        }
+
         /**
          * {@inheritDoc}
          */
         @Override
         public boolean hasNext() {
-            return m_nextIndex < size();
+            return m_nextIndex < m_endIndex;
         }
 
         /**
@@ -2132,7 +2486,7 @@ public DataRow next() {
                     throw new InternalError("Unable to restore data row from disk");
                 }
                 m_listReference.add(next);
-                if (++m_nextIndex >= size()) {
+                if (++m_nextIndex >= m_endIndex) {
                     assert !m_backIntoMemoryIterator.hasNext() : "File iterator returns more rows than buffer contains";
                     m_backIntoMemoryIterator = null;
                     onAllRowsReadBackIntoMemory();
@@ -2144,7 +2498,8 @@ public DataRow next() {
         /** {@inheritDoc} */
         @Override
         public void close() {
-            m_nextIndex = (int) size();
+            m_nextIndex = (int) m_endIndex;
+            onListIteratorClosed(this);
         }
     }
 
@@ -104,20 +104,7 @@ final class BufferFromFileIteratorVersion1x extends Buffer.FromFileIterator {
         m_buffer = buffer;
         BufferedInputStream bufferedStream =
             new BufferedInputStream(new FileInputStream(buffer.getBinFile()));
-        InputStream in;
-        switch (buffer.getBinFileCompressionFormat()) {
-            case Gzip:
-                in = new GZIPInputStream(bufferedStream);
-                // buffering is important when reading gzip streams
-                in = new BufferedInputStream(in);
-                break;
-            case None:
-                in = bufferedStream;
-                break;
-            default:
-                bufferedStream.close();
-                throw new IOException("Unsupported compression format: " + buffer.getBinFileCompressionFormat());
-        }
+        InputStream in = buffer.getBinFileCompressionFormat().wrapInput(bufferedStream);
         m_inStream = new DCObjectInputStream(in);
     }
 
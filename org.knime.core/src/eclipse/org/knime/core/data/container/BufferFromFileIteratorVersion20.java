@@ -48,6 +48,7 @@
 package org.knime.core.data.container;
 
 import java.io.BufferedInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -80,7 +81,10 @@ final class BufferFromFileIteratorVersion20 extends Buffer.FromFileIterator {
     private final Buffer m_buffer;
 
     /** Row pointer. */
-    private int m_pointer;
+    private long m_pointer;
+
+    /** Index of the row after the last row to return. */
+    private final long m_endIndex;
 
     /** Content of the rows that get returned in {@link #next()} when the
      * table is {@link #close()}'d. Will be instantiated lazy. */
@@ -98,43 +102,123 @@ final class BufferFromFileIteratorVersion20 extends Buffer.FromFileIterator {
     /** Utility object with designated functionality to deserialize datacell. */
     private DataCellStreamReader m_dataCellStreamReader;
 
+    /** Decodes dictionary encoded strings, null if the file doesn't contain
+     * any (see {@link StringDictionary}). */
+    private StringDictionary.Decoder m_dictionaryDecoder;
+
     /** Inits iterator, opens input stream.
      * @param buffer The associated buffer.
      * @throws IOException If stream reading fails.
      */
     BufferFromFileIteratorVersion20(final Buffer buffer) throws IOException {
-        m_pointer = 0;
+        this(buffer, 0L, buffer.size());
+    }
+
+    /** Inits iterator on a range of rows, opens input stream. If the buffer
+     * has a {@link BlockIndex}, the stream is positioned (using the file
+     * channel) at the closest indexed row, otherwise it starts at the
+     * beginning of the file. Rows before <code>fromIndex</code> are skipped
+     * without being deserialized.
+     * @param buffer The associated buffer.
+     * @param fromIndex Index of the first row to return.
+     * @param toIndex Index of the row after the last row to return.
+     * @throws IOException If stream reading fails.
+     */
+    BufferFromFileIteratorVersion20(final Buffer buffer, final long fromIndex,
+            final long toIndex) throws IOException {
         if (buffer.getBinFile() == null) {
             throw new IOException("Unable to read table from file, "
                     + "table has been cleared.");
         }
         m_buffer = buffer;
+        m_endIndex = toIndex;
         assert m_buffer.getReadVersion() >= 6 : "Iterator is not backward "
             + "compatible, use instead "
             + BufferFromFileIteratorVersion1x.class.getSimpleName();
-        BufferedInputStream bufferedStream =
-            new BufferedInputStream(new FileInputStream(buffer.getBinFile()));
-        InputStream in;
-        switch (buffer.getBinFileCompressionFormat()) {
-            case Gzip:
-                in = new GZIPInputStream(bufferedStream);
-                // buffering is important when reading gzip streams
-                in = new BufferedInputStream(in);
-                break;
-            case None:
-                in = bufferedStream;
-                break;
-            default:
-                throw new IOException("Unsupported compression format: " + buffer.getBinFileCompressionFormat());
+        FileInputStream fileStream = new FileInputStream(buffer.getBinFile());
+        try {
+            long firstRow = 0L;
+            int blockOffset = 0;
+            BlockIndex index = buffer.getBlockIndex();
+            int dictionaryChunkSize = buffer.getDictionaryChunkSize();
+            if (dictionaryChunkSize > 0) {
+                m_dictionaryDecoder = new StringDictionary.Decoder(
+                    buffer.getTableSpec().getNumColumns(), dictionaryChunkSize);
+                if (index != null
+                        && index.getRowsPerEntry() % dictionaryChunkSize != 0) {
+                    // can only start reading at the start of a chunk
+                    index = null;
+                }
+            }
+            if (fromIndex > 0 && index != null && index.size() > 0) {
+                int entry = index.getEntryForRow(fromIndex);
+                fileStream.getChannel().position(index.getFileOffset(entry));
+                firstRow = index.getRow(entry);
+                blockOffset = index.getBlockOffset(entry);
+            }
+            BufferedInputStream bufferedStream =
+                new BufferedInputStream(fileStream);
+            InputStream in = buffer.getBinFileCompressionFormat().wrapInput(bufferedStream);
+            skipFully(in, blockOffset);
+            m_dataCellStreamReader = new DataCellStreamReader(buffer);
+            m_inStream = new DCObjectInputVersion2(in, m_dataCellStreamReader);
+            m_pointer = firstRow;
+            while (m_pointer < fromIndex) {
+                skipRow(m_inStream);
+            }
+        } catch (IOException ioe) {
+            fileStream.close();
+            throw ioe;
+        }
+    }
+
+    /** Skips <code>count</code> bytes in the argument stream. */
+    private static void skipFully(final InputStream in, final long count)
+        throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException("Unexpected end of file while "
+                        + "positioning stream (" + remaining + " bytes left)");
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
         }
-        m_dataCellStreamReader = new DataCellStreamReader(buffer);
-        m_inStream = new DCObjectInputVersion2(in, m_dataCellStreamReader);
+    }
+
+    /** Skips the next row by only consuming its blocks, the cells are not
+     * deserialized. */
+    private void skipRow(final DCObjectInputVersion2 inStream)
+        throws IOException {
+        if (!m_buffer.shouldSkipRowKey()) {
+            inStream.endBlock();
+        }
+        int colCount = m_buffer.getTableSpec().getNumColumns();
+        if (m_dictionaryDecoder != null) {
+            m_dictionaryDecoder.startRow(m_pointer);
+        }
+        for (int i = 0; i < colCount; i++) {
+            if (m_dictionaryDecoder != null) {
+                // new dictionary entries need to be read
+                m_dictionaryDecoder.skipDataCell(i, inStream);
+            }
+            inStream.endBlock();
+        }
+        byte eoRow = inStream.readControlByte();
+        if (eoRow != BYTE_ROW_SEPARATOR) {
+            throw new IOException("Expected end of row byte, "
+                + "got '" + eoRow + "', (byte " + (int)eoRow + ")");
+        }
+        m_pointer++;
     }
 
     /** {@inheritDoc} */
     @Override
     public synchronized boolean hasNext() {
-        boolean hasNext = m_pointer < m_buffer.size();
+        boolean hasNext = m_pointer < m_endIndex;
         if (!hasNext && (m_inStream != null)) {
             close();
         }
@@ -173,11 +257,20 @@ public synchronized BlobSupportDataRow next() {
             key = new RowKey(keyS);
         }
         DataCell[] cells = new DataCell[colCount];
+        if (m_dictionaryDecoder != null) {
+            m_dictionaryDecoder.startRow(m_pointer);
+        }
         for (int i = 0; i < colCount; i++) {
             DataCell nextCell;
             try {
                 try {
-                    nextCell = m_dataCellStreamReader.readDataCell(m_inStream);
+                    if (m_dictionaryDecoder != null) {
+                        nextCell = m_dictionaryDecoder.readDataCell(
+                            i, m_inStream, m_dataCellStreamReader);
+                    } else {
+                        nextCell = m_dataCellStreamReader.readDataCell(
+                            m_inStream);
+                    }
                 } finally {
                     m_inStream.endBlock();
                 }
@@ -295,8 +388,20 @@ static class DataCellStreamReader {
          */
         DataCell readDataCell(final DCObjectInputVersion2 inStream)
                 throws IOException {
+            return readDataCell(inStream, inStream.readControlByte());
+        }
+
+        /** Reads a data cell from the argument stream whose type identifier
+         * has already been read.
+         * @param inStream To read from.
+         * @param typeIdentifier The first byte of the cell.
+         * @return the data cell being read
+         * @throws IOException If exceptions occur.
+         */
+        DataCell readDataCell(final DCObjectInputVersion2 inStream,
+                final byte typeIdentifier) throws IOException {
             inStream.setCurrentClassLoader(null);
-            byte identifier = inStream.readControlByte();
+            byte identifier = typeIdentifier;
             if (identifier == BYTE_TYPE_MISSING) {
                 return DataType.getMissingCell();
             }
@@ -0,0 +1,377 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.collection.CollectionDataValue;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.image.png.PNGImageValue;
+import org.knime.core.data.util.memory.MemoryAlert;
+import org.knime.core.data.util.memory.MemoryAlertListener;
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Keeps track of the (estimated) heap size of all {@link Buffer} instances that hold their rows in memory and decides
+ * which of them need to be written to disc. It replaces the static cell count threshold
+ * ({@link DataContainer#MAX_CELLS_IN_MEMORY}) by a byte budget that is a fraction of the available heap (see
+ * {@link org.knime.core.node.KNIMEConstants#PROPERTY_TABLE_MEMORY_BUDGET}).
+ *
+ * <p>Buffers report their growth via {@link #sizeIncreased(Buffer, long, boolean)}. Only buffers that are
+ * <i>managed</i> (those created with the default memory policy) are spilled when the budget is exceeded, whereby
+ * large and least recently used buffers are spilled first. Upon a memory alert (see {@link MemoryAlertSystem}) all
+ * tracked buffers are candidates for spilling, including those whose node asked to keep all data in memory.
+ *
+ * <p>Lock order: the buffer's monitor is always acquired before the monitor of this class. This class never calls
+ * (synchronized) methods of a buffer while holding its own lock; buffers other than the calling one are spilled
+ * asynchronously.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BufferMemoryManager {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(BufferMemoryManager.class);
+
+    /** Rough memory overhead of a row (row object, key, cell array). */
+    private static final int ROW_OVERHEAD = 96;
+
+    /** Estimate for cells whose size is not known. */
+    private static final int DEFAULT_CELL_SIZE = 64;
+
+    private static final BufferMemoryManager INSTANCE = new BufferMemoryManager(
+        (long)(MemoryAlertSystem.getMaximumMemory() * DataContainer.MEMORY_BUDGET_FRACTION), true);
+
+    /** Single thread used to write buffers to disc, which were chosen for spilling by another thread. */
+    private static final ExecutorService SPILL_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        /** {@inheritDoc} */
+        @Override
+        public Thread newThread(final Runnable r) {
+            Thread t = new Thread(r, "KNIME Buffer flusher");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private final long m_budget;
+
+    /** The tracked buffers, weak keys as buffers might get garbage collected without being cleared. */
+    private final Map<Buffer, Entry> m_entries = new WeakHashMap<Buffer, Entry>();
+
+    private long m_spilledBufferCount;
+
+    private long m_spilledByteCount;
+
+    /**
+     * @param budget Maximum (estimated) bytes that managed buffers may occupy.
+     * @param isListenToMemoryAlerts Whether to register a listener on the {@link MemoryAlertSystem}.
+     */
+    BufferMemoryManager(final long budget, final boolean isListenToMemoryAlerts) {
+        m_budget = budget;
+        if (isListenToMemoryAlerts) {
+            MemoryAlertSystem.getInstance().addListener(new MemoryAlertListener() {
+                @Override
+                protected boolean memoryAlert(final MemoryAlert alert) {
+                    onMemoryAlert();
+                    return false;
+                }
+            });
+        }
+    }
+
+    /** @return the singleton instance. */
+    static BufferMemoryManager getInstance() {
+        return INSTANCE;
+    }
+
+    /** @return the budget in bytes for managed buffers. */
+    long getBudget() {
+        return m_budget;
+    }
+
+    /** @return the estimated number of bytes of all tracked buffers (managed or not). */
+    synchronized long getTotalSize() {
+        long result = 0L;
+        for (Entry e : m_entries.values()) {
+            result += e.m_size;
+        }
+        return result;
+    }
+
+    /** @return number of buffers currently tracked, i.e. keeping rows in memory. */
+    synchronized int getTrackedBufferCount() {
+        return m_entries.size();
+    }
+
+    /** @return number of buffers that were written to disc (in order to free memory) since startup. */
+    synchronized long getSpilledBufferCount() {
+        return m_spilledBufferCount;
+    }
+
+    /** @return estimated bytes that were freed by writing buffers to disc since startup. */
+    synchronized long getSpilledByteCount() {
+        return m_spilledByteCount;
+    }
+
+    /**
+     * Called by a buffer after rows were added to its in-memory list.
+     *
+     * @param buffer The buffer, must hold its own lock.
+     * @param delta Estimated number of bytes added.
+     * @param isManaged Whether the buffer may be spilled in order to stay within the budget.
+     * @return <code>true</code> if the calling buffer should write its content to disc right away.
+     */
+    synchronized boolean sizeIncreased(final Buffer buffer, final long delta, final boolean isManaged) {
+        assert Thread.holdsLock(buffer);
+        Entry entry = m_entries.get(buffer);
+        if (entry == null) {
+            entry = new Entry(isManaged);
+            m_entries.put(buffer, entry);
+        }
+        entry.m_size += delta;
+        entry.m_lastAccess = System.nanoTime();
+        if (!isManaged) {
+            return false;
+        }
+        long managedSize = 0L;
+        List<Map.Entry<Buffer, Entry>> candidates = new ArrayList<Map.Entry<Buffer, Entry>>();
+        for (Map.Entry<Buffer, Entry> e : m_entries.entrySet()) {
+            Entry value = e.getValue();
+            if (value.m_isManaged && !value.m_isSpillPending) {
+                managedSize += value.m_size;
+                candidates.add(e);
+            }
+        }
+        if (managedSize <= m_budget) {
+            return false;
+        }
+        sortBySpillPriority(candidates);
+        boolean spillCaller = false;
+        List<Buffer> victims = new ArrayList<Buffer>();
+        for (Map.Entry<Buffer, Entry> e : candidates) {
+            if (managedSize <= m_budget) {
+                break;
+            }
+            Buffer victim = e.getKey();
+            Entry value = e.getValue();
+            value.m_isSpillPending = true;
+            managedSize -= value.m_size;
+            if (victim == buffer) {
+                spillCaller = true;
+            } else {
+                victims.add(victim);
+            }
+        }
+        if (!victims.isEmpty()) {
+            LOGGER.debug("Memory budget for tables (" + m_budget + " bytes) exceeded, writing " + victims.size()
+                + " table(s) to disc");
+            scheduleSpill(victims);
+        }
+        return spillCaller;
+    }
+
+    /**
+     * Called when the buffer was accessed (e.g. an iterator was opened) - updates the LRU information.
+     *
+     * @param buffer The buffer.
+     */
+    synchronized void touch(final Buffer buffer) {
+        Entry entry = m_entries.get(buffer);
+        if (entry != null) {
+            entry.m_lastAccess = System.nanoTime();
+        }
+    }
+
+    /**
+     * Called when the buffer no longer keeps rows in memory, either because it was written to disc or cleared.
+     *
+     * @param buffer The buffer.
+     */
+    synchronized void removed(final Buffer buffer) {
+        Entry entry = m_entries.remove(buffer);
+        if (entry != null && entry.m_isSpillPending) {
+            m_spilledBufferCount += 1;
+            m_spilledByteCount += entry.m_size;
+        }
+    }
+
+    /** Called upon a memory alert, spills all tracked buffers in order of their priority until half of the tracked
+     * memory is freed. */
+    private void onMemoryAlert() {
+        List<Buffer> victims = new ArrayList<Buffer>();
+        synchronized (this) {
+            List<Map.Entry<Buffer, Entry>> candidates = new ArrayList<Map.Entry<Buffer, Entry>>();
+            long total = 0L;
+            for (Map.Entry<Buffer, Entry> e : m_entries.entrySet()) {
+                if (!e.getValue().m_isSpillPending) {
+                    total += e.getValue().m_size;
+                    candidates.add(e);
+                }
+            }
+            sortBySpillPriority(candidates);
+            long freed = 0L;
+            for (Map.Entry<Buffer, Entry> e : candidates) {
+                if (freed > total / 2) {
+                    break;
+                }
+                e.getValue().m_isSpillPending = true;
+                freed += e.getValue().m_size;
+                victims.add(e.getKey());
+            }
+        }
+        if (!victims.isEmpty()) {
+            LOGGER.debug("Low memory condition, writing " + victims.size() + " table(s) to disc");
+            scheduleSpill(victims);
+        }
+    }
+
+    /** Sorts the argument list so that buffers that are to be spilled first are at the front - these are large and
+     * least recently used ones (the score is size times idle time). */
+    private static void sortBySpillPriority(final List<Map.Entry<Buffer, Entry>> candidates) {
+        final long now = System.nanoTime();
+        Collections.sort(candidates, new Comparator<Map.Entry<Buffer, Entry>>() {
+            @Override
+            public int compare(final Map.Entry<Buffer, Entry> o1, final Map.Entry<Buffer, Entry> o2) {
+                return Double.compare(o2.getValue().getSpillScore(now), o1.getValue().getSpillScore(now));
+            }
+        });
+    }
+
+    /** Writes the argument buffers to disc in a background thread. */
+    static void scheduleSpill(final List<Buffer> victims) {
+        SPILL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (Buffer b : victims) {
+                    b.spillToDisc();
+                }
+            }
+        });
+    }
+
+    /**
+     * Estimates the heap size of a row kept in memory. It's a heuristic, which is considerably more precise than a
+     * plain cell count, e.g. for tables with long strings or images.
+     *
+     * @param row The row as kept in the buffer.
+     * @return The estimated size in bytes.
+     */
+    static long estimateRowSize(final BlobSupportDataRow row) {
+        final int cellCount = row.getNumCells();
+        long size = ROW_OVERHEAD + 8L * cellCount + 2L * row.getKey().getString().length();
+        for (int i = 0; i < cellCount; i++) {
+            size += estimateCellSize(row.getRawCell(i));
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the heap size of a single cell.
+     *
+     * @param cell The (raw) cell, possibly a blob wrapper.
+     * @return The estimated size in bytes.
+     */
+    static long estimateCellSize(final DataCell cell) {
+        if (cell.isMissing() || cell instanceof BooleanCell) {
+            // singletons (for most missing cells) or tiny
+            return 16;
+        }
+        if (cell instanceof BlobWrapperDataCell) {
+            // blobs are saved in separate files, the wrapper only keeps a soft reference to the blob
+            return 48;
+        }
+        if (cell instanceof DoubleCell || cell instanceof IntCell) {
+            return 16;
+        }
+        if (cell instanceof LongCell) {
+            return 24;
+        }
+        if (cell instanceof StringCell) {
+            return 56 + 2L * ((StringCell)cell).getStringValue().length();
+        }
+        if (cell instanceof PNGImageValue) {
+            return 32 + ((PNGImageValue)cell).getImageContent().getByteArrayReference().length;
+        }
+        if (cell instanceof CollectionDataValue) {
+            return 32 + 24L * ((CollectionDataValue)cell).size();
+        }
+        return DEFAULT_CELL_SIZE;
+    }
+
+    /** Information kept per buffer. */
+    private static final class Entry {
+
+        private final boolean m_isManaged;
+
+        private long m_size;
+
+        private long m_lastAccess;
+
+        private boolean m_isSpillPending;
+
+        Entry(final boolean isManaged) {
+            m_isManaged = isManaged;
+            m_lastAccess = System.nanoTime();
+        }
+
+        double getSpillScore(final long now) {
+            return (double)m_size * (now - m_lastAccess + 1);
+        }
+    }
+
+}
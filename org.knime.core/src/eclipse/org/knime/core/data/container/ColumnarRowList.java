@@ -0,0 +1,441 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Read-only, column oriented representation of the rows that a {@link Buffer} keeps in memory. Columns that only
+ * contain cells of the native types ({@link DoubleCell}, {@link IntCell}, {@link LongCell}, {@link BooleanCell} and
+ * {@link StringCell}) are stored in primitive arrays (strings are dictionary encoded unless the column has too many
+ * distinct values); all other columns keep their {@link DataCell} objects. Rows and cells are materialized lazily,
+ * i.e. on each call of {@link #get(int)}.
+ *
+ * <p>
+ * Instances are created by {@link #compact(List, int)} when an in-memory buffer is closed. As the class implements
+ * {@link List} (and {@link RandomAccess}) it's a drop-in replacement for the row list used in {@link Buffer}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ColumnarRowList extends AbstractList<BlobSupportDataRow> implements RandomAccess {
+
+    /** If a string column has more distinct values than this fraction of rows, it won't be dictionary encoded. */
+    private static final double MAX_DICTIONARY_RATIO = 0.5;
+
+    /** String columns with fewer distinct values are always dictionary encoded (regardless of row count). */
+    private static final int MIN_DICTIONARY_SIZE = 1024;
+
+    private final RowKey[] m_keys;
+
+    private final Column[] m_columns;
+
+    private ColumnarRowList(final RowKey[] keys, final Column[] columns) {
+        m_keys = keys;
+        m_columns = columns;
+    }
+
+    /**
+     * Converts the argument row list into a columnar representation if any of its columns can be stored in primitive
+     * form.
+     *
+     * @param rows The rows to convert, not modified.
+     * @param colCount The number of columns in each row.
+     * @return A new columnar list or <code>null</code> if no column is representable in primitive form (no gain).
+     */
+    static ColumnarRowList compact(final List<BlobSupportDataRow> rows, final int colCount) {
+        final int rowCount = rows.size();
+        if (rowCount == 0 || colCount == 0) {
+            return null;
+        }
+        ColumnKind[] kinds = new ColumnKind[colCount];
+        boolean hasPrimitiveColumn = false;
+        for (int c = 0; c < colCount; c++) {
+            kinds[c] = determineKind(rows, c);
+            hasPrimitiveColumn |= kinds[c] != ColumnKind.CELL;
+        }
+        if (!hasPrimitiveColumn) {
+            return null;
+        }
+        RowKey[] keys = new RowKey[rowCount];
+        for (int r = 0; r < rowCount; r++) {
+            keys[r] = rows.get(r).getKey();
+        }
+        Column[] columns = new Column[colCount];
+        for (int c = 0; c < colCount; c++) {
+            columns[c] = createColumn(kinds[c], rows, c);
+        }
+        return new ColumnarRowList(keys, columns);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BlobSupportDataRow get(final int index) {
+        DataCell[] cells = new DataCell[m_columns.length];
+        for (int c = 0; c < cells.length; c++) {
+            cells[c] = m_columns[c].getCell(index);
+        }
+        return new BlobSupportDataRow(m_keys[index], cells);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        return m_keys.length;
+    }
+
+    /** @return the number of columns that are stored in primitive form (for testing). */
+    int getNrPrimitiveColumns() {
+        int result = 0;
+        for (Column c : m_columns) {
+            if (!(c instanceof CellColumn)) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /** @return the number of dictionary encoded string columns (for testing). */
+    int getNrDictionaryColumns() {
+        int result = 0;
+        for (Column c : m_columns) {
+            if (c instanceof DictionaryStringColumn) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /** Type of column storage. */
+    private enum ColumnKind {
+        DOUBLE(DoubleCell.class),
+        INT(IntCell.class),
+        LONG(LongCell.class),
+        BOOLEAN(BooleanCell.class),
+        STRING(StringCell.class),
+        CELL(null);
+
+        private final Class<? extends DataCell> m_cellClass;
+
+        private ColumnKind(final Class<? extends DataCell> cellClass) {
+            m_cellClass = cellClass;
+        }
+
+        static ColumnKind get(final Class<? extends DataCell> cellClass) {
+            for (ColumnKind k : values()) {
+                if (k.m_cellClass == cellClass) {
+                    return k;
+                }
+            }
+            return CELL;
+        }
+    }
+
+    /** Determines the storage kind for a column. A column qualifies for primitive storage if all cells are of the same
+     * native class (exact class match, no sub classes) or are the singleton missing cell (missing cells that carry an
+     * error message are not representable). */
+    private static ColumnKind determineKind(final List<BlobSupportDataRow> rows, final int col) {
+        final DataCell missing = DataType.getMissingCell();
+        Class<? extends DataCell> cellClass = null;
+        for (BlobSupportDataRow row : rows) {
+            DataCell cell = row.getRawCell(col);
+            if (cell == missing) {
+                continue;
+            }
+            if (cell.isMissing()) {
+                return ColumnKind.CELL;
+            }
+            if (cellClass == null) {
+                cellClass = cell.getClass();
+                if (ColumnKind.get(cellClass) == ColumnKind.CELL) {
+                    return ColumnKind.CELL;
+                }
+            } else if (cellClass != cell.getClass()) {
+                return ColumnKind.CELL;
+            }
+        }
+        // all missing: stored as (empty) double column
+        return cellClass == null ? ColumnKind.DOUBLE : ColumnKind.get(cellClass);
+    }
+
+    private static Column createColumn(final ColumnKind kind, final List<BlobSupportDataRow> rows, final int col) {
+        final int rowCount = rows.size();
+        final DataCell missingCell = DataType.getMissingCell();
+        BitSet missing = null;
+        switch (kind) {
+            case DOUBLE:
+                double[] doubles = new double[rowCount];
+                for (int r = 0; r < rowCount; r++) {
+                    DataCell cell = rows.get(r).getRawCell(col);
+                    if (cell == missingCell) {
+                        missing = setMissing(missing, r);
+                    } else {
+                        doubles[r] = ((DoubleCell)cell).getDoubleValue();
+                    }
+                }
+                return new DoubleColumn(doubles, missing);
+            case INT:
+                int[] ints = new int[rowCount];
+                for (int r = 0; r < rowCount; r++) {
+                    DataCell cell = rows.get(r).getRawCell(col);
+                    if (cell == missingCell) {
+                        missing = setMissing(missing, r);
+                    } else {
+                        ints[r] = ((IntCell)cell).getIntValue();
+                    }
+                }
+                return new IntColumn(ints, missing);
+            case LONG:
+                long[] longs = new long[rowCount];
+                for (int r = 0; r < rowCount; r++) {
+                    DataCell cell = rows.get(r).getRawCell(col);
+                    if (cell == missingCell) {
+                        missing = setMissing(missing, r);
+                    } else {
+                        longs[r] = ((LongCell)cell).getLongValue();
+                    }
+                }
+                return new LongColumn(longs, missing);
+            case BOOLEAN:
+                BitSet values = new BitSet(rowCount);
+                for (int r = 0; r < rowCount; r++) {
+                    DataCell cell = rows.get(r).getRawCell(col);
+                    if (cell == missingCell) {
+                        missing = setMissing(missing, r);
+                    } else {
+                        values.set(r, ((BooleanCell)cell).getBooleanValue());
+                    }
+                }
+                return new BooleanColumn(values, missing);
+            case STRING:
+                return createStringColumn(rows, col);
+            default:
+                DataCell[] cells = new DataCell[rowCount];
+                for (int r = 0; r < rowCount; r++) {
+                    cells[r] = rows.get(r).getRawCell(col);
+                }
+                return new CellColumn(cells);
+        }
+    }
+
+    private static Column createStringColumn(final List<BlobSupportDataRow> rows, final int col) {
+        final int rowCount = rows.size();
+        final int maxDictSize = Math.max(MIN_DICTIONARY_SIZE, (int)(MAX_DICTIONARY_RATIO * rowCount));
+        final DataCell missingCell = DataType.getMissingCell();
+        Map<String, Integer> dictionary = new HashMap<String, Integer>();
+        int[] codes = new int[rowCount];
+        for (int r = 0; r < rowCount; r++) {
+            DataCell cell = rows.get(r).getRawCell(col);
+            if (cell == missingCell) {
+                codes[r] = -1;
+                continue;
+            }
+            String s = ((StringCell)cell).getStringValue();
+            Integer code = dictionary.get(s);
+            if (code == null) {
+                if (dictionary.size() >= maxDictSize) {
+                    // high cardinality, store plain strings (still saves the cell objects)
+                    String[] strings = new String[rowCount];
+                    for (int i = 0; i < rowCount; i++) {
+                        DataCell c = rows.get(i).getRawCell(col);
+                        strings[i] = c == missingCell ? null : ((StringCell)c).getStringValue();
+                    }
+                    return new PlainStringColumn(strings);
+                }
+                code = dictionary.size();
+                dictionary.put(s, code);
+            }
+            codes[r] = code;
+        }
+        StringCell[] dictCells = new StringCell[dictionary.size()];
+        for (Map.Entry<String, Integer> e : dictionary.entrySet()) {
+            dictCells[e.getValue()] = new StringCell(e.getKey());
+        }
+        return new DictionaryStringColumn(codes, dictCells);
+    }
+
+    private static BitSet setMissing(final BitSet missing, final int row) {
+        BitSet result = missing == null ? new BitSet() : missing;
+        result.set(row);
+        return result;
+    }
+
+    /** A single column, returns cells for a given row index. */
+    private abstract static class Column {
+
+        private final BitSet m_missing;
+
+        Column(final BitSet missing) {
+            m_missing = missing;
+        }
+
+        final DataCell getCell(final int row) {
+            if (m_missing != null && m_missing.get(row)) {
+                return DataType.getMissingCell();
+            }
+            return getNonMissingCell(row);
+        }
+
+        abstract DataCell getNonMissingCell(final int row);
+    }
+
+    private static final class DoubleColumn extends Column {
+        private final double[] m_values;
+
+        DoubleColumn(final double[] values, final BitSet missing) {
+            super(missing);
+            m_values = values;
+        }
+
+        @Override
+        DataCell getNonMissingCell(final int row) {
+            return new DoubleCell(m_values[row]);
+        }
+    }
+
+    private static final class IntColumn extends Column {
+        private final int[] m_values;
+
+        IntColumn(final int[] values, final BitSet missing) {
+            super(missing);
+            m_values = values;
+        }
+
+        @Override
+        DataCell getNonMissingCell(final int row) {
+            return new IntCell(m_values[row]);
+        }
+    }
+
+    private static final class LongColumn extends Column {
+        private final long[] m_values;
+
+        LongColumn(final long[] values, final BitSet missing) {
+            super(missing);
+            m_values = values;
+        }
+
+        @Override
+        DataCell getNonMissingCell(final int row) {
+            return new LongCell(m_values[row]);
+        }
+    }
+
+    private static final class BooleanColumn extends Column {
+        private final BitSet m_values;
+
+        BooleanColumn(final BitSet values, final BitSet missing) {
+            super(missing);
+            m_values = values;
+        }
+
+        @Override
+        DataCell getNonMissingCell(final int row) {
+            return BooleanCell.get(m_values.get(row));
+        }
+    }
+
+    /** String column with dictionary; the (immutable) cells are shared among all rows with the same value. */
+    private static final class DictionaryStringColumn extends Column {
+        private final int[] m_codes;
+
+        private final StringCell[] m_dictionary;
+
+        DictionaryStringColumn(final int[] codes, final StringCell[] dictionary) {
+            super(null);
+            m_codes = codes;
+            m_dictionary = dictionary;
+        }
+
+        @Override
+        DataCell getNonMissingCell(final int row) {
+            int code = m_codes[row];
+            return code < 0 ? DataType.getMissingCell() : m_dictionary[code];
+        }
+    }
+
+    private static final class PlainStringColumn extends Column {
+        private final String[] m_values;
+
+        PlainStringColumn(final String[] values) {
+            super(null);
+            m_values = values;
+        }
+
+        @Override
+        DataCell getNonMissingCell(final int row) {
+            String s = m_values[row];
+            return s == null ? DataType.getMissingCell() : new StringCell(s);
+        }
+    }
+
+    /** Fallback for all non-native columns, keeps the cell objects. */
+    private static final class CellColumn extends Column {
+        private final DataCell[] m_cells;
+
+        CellColumn(final DataCell[] cells) {
+            super(null);
+            m_cells = cells;
+        }
+
+        @Override
+        DataCell getNonMissingCell(final int row) {
+            return m_cells[row];
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.knime.core.node.KNIMEConstants;
+
+/**
+ * Compression codecs that can be used for the binary data file of a table. The codec is chosen when the table is
+ * written (default is determined by the java property {@link KNIMEConstants#PROPERTY_TABLE_GZIP_COMPRESSION} and can be
+ * changed for individual containers using {@link DataContainer#setCompressionFormat(CompressionFormat)}) and is
+ * persisted along with the table, i.e. tables written with different codecs can be read in the same session.
+ *
+ * <p>
+ * <b>Note:</b> The names of the constants are persisted in the table's meta information and must not be changed.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.5
+ */
+public enum CompressionFormat {
+
+    /** GZIP compression (the default). Good compression ratio but CPU intensive. */
+    Gzip {
+        @Override
+        OutputStream wrapOutput(final OutputStream out) throws IOException {
+            // buffering the output stream is important as the blockable stream, which will be put on top of it,
+            // writes bytes individually (had a table, on which a single read-scan took ~6min without
+            // and ~30s with buffering)
+            return new BufferedOutputStream(new GZIPOutputStream(out));
+        }
+
+        @Override
+        InputStream wrapInput(final InputStream in) throws IOException {
+            // buffering is important when reading gzip streams
+            return new BufferedInputStream(new GZIPInputStream(in));
+        }
+
+        @Override
+        boolean supportsRandomAccess() {
+            return false;
+        }
+
+        @Override
+        int getPendingByteCount(final OutputStream wrappedOut) {
+            throw new UnsupportedOperationException("Random access not supported for " + name());
+        }
+    },
+
+    /**
+     * Fast block compression using the LZ4 block format (pure java implementation). Compresses and decompresses
+     * several times faster than {@link #Gzip} at a somewhat lower compression ratio.
+     */
+    Lz4 {
+        @Override
+        OutputStream wrapOutput(final OutputStream out) throws IOException {
+            return new Lz4BlockOutputStream(out);
+        }
+
+        @Override
+        InputStream wrapInput(final InputStream in) throws IOException {
+            return new Lz4BlockInputStream(in);
+        }
+
+        @Override
+        int getPendingByteCount(final OutputStream wrappedOut) {
+            return ((Lz4BlockOutputStream)wrappedOut).getPendingCount();
+        }
+    },
+
+    /** No compression. */
+    None {
+        @Override
+        OutputStream wrapOutput(final OutputStream out) throws IOException {
+            return out;
+        }
+
+        @Override
+        InputStream wrapInput(final InputStream in) throws IOException {
+            return in;
+        }
+    };
+
+    /**
+     * Wraps the argument stream (usually a buffered file stream) into a compressing stream.
+     *
+     * @param out The stream to wrap.
+     * @return The compressing stream (possibly the argument itself).
+     * @throws IOException If the stream can't be created.
+     */
+    abstract OutputStream wrapOutput(final OutputStream out) throws IOException;
+
+    /**
+     * Wraps the argument stream (usually a buffered file stream) into a decompressing stream.
+     *
+     * @param in The stream to wrap.
+     * @return The decompressing stream (possibly the argument itself).
+     * @throws IOException If the stream can't be created (e.g. invalid header).
+     */
+    abstract InputStream wrapInput(final InputStream in) throws IOException;
+
+    /**
+     * Whether a stream written in this format can be decoded starting at a position recorded while writing, i.e. at
+     * the file offset of the underlying stream (after {@link #getPendingByteCount(OutputStream) pending bytes} are
+     * skipped). Used to decide whether a {@link BlockIndex} is created for a table.
+     *
+     * @return true for all formats but {@link #Gzip}.
+     */
+    boolean supportsRandomAccess() {
+        return true;
+    }
+
+    /**
+     * Get the number of (uncompressed) bytes that were written to a stream returned by
+     * {@link #wrapOutput(OutputStream)} but which have not yet been passed on to the underlying stream.
+     *
+     * @param wrappedOut The stream as returned by {@link #wrapOutput(OutputStream)}.
+     * @return That number.
+     * @throws UnsupportedOperationException If this format doesn't {@link #supportsRandomAccess() support random
+     *             access}.
+     */
+    int getPendingByteCount(final OutputStream wrappedOut) {
+        return 0;
+    }
+
+    /**
+     * Parses the value of the {@link KNIMEConstants#PROPERTY_TABLE_GZIP_COMPRESSION} property. Allowed values are
+     * "true" (= {@link #Gzip}), "false" (= {@link #None}) or the (case insensitive) name of a constant.
+     *
+     * @param value The property value, not null.
+     * @return The corresponding format.
+     * @throws IllegalArgumentException If the value is invalid.
+     */
+    static CompressionFormat parseProperty(final String value) {
+        String s = value.trim();
+        if ("true".equalsIgnoreCase(s)) {
+            return Gzip;
+        } else if ("false".equalsIgnoreCase(s)) {
+            return None;
+        }
+        for (CompressionFormat f : values()) {
+            if (f.name().equalsIgnoreCase(s)) {
+                return f;
+            }
+        }
+        throw new IllegalArgumentException("Invalid compression format \"" + value + "\"");
+    }
+}
@@ -180,6 +180,20 @@ public CloseableRowIterator iterator() {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 3.5
+     */
+    @Override
+    public CloseableRowIterator iterator(final long fromIndex, final long toIndex) {
+        if (m_tablesWrapper == null) {
+            return new MyIterator(fromIndex, toIndex);
+        } else {
+            // the wrapper table handles differing specs and duplicate row keys, it needs to see all rows
+            return KnowsRowCountTable.super.iterator(fromIndex, toIndex);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public void putIntoTableRepository(
@@ -319,16 +333,46 @@ public static DataTableSpec createSpec(final DataTableSpec... specs) {
 
     private class MyIterator extends CloseableRowIterator {
         private int m_tableIndex;
+        /** Index of the first row of the current table in the concatenated table. */
+        private long m_tableOffset;
+        private final long m_fromIndex;
+        private final long m_toIndex;
         private CloseableRowIterator m_curIterator;
         private DataRow m_next;
 
         /** Creates new iterator. */
         public MyIterator() {
+            this(0L, m_rowCount);
+        }
+
+        /** Creates new iterator on a row range, tables before the range are skipped.
+         * @param fromIndex first row (inclusive)
+         * @param toIndex last row (exclusive) */
+        MyIterator(final long fromIndex, final long toIndex) {
+            m_fromIndex = fromIndex;
+            m_toIndex = toIndex;
             m_tableIndex = 0;
-            m_curIterator = m_tables[m_tableIndex].iterator();
+            while (m_tableIndex < m_tables.length - 1
+                && m_tableOffset + m_tables[m_tableIndex].size() <= fromIndex) {
+                m_tableOffset += m_tables[m_tableIndex].size();
+                m_tableIndex++;
+            }
+            m_curIterator = openIterator();
             m_next = internalNext();
         }
 
+        /** Opens the iterator on the part of the current table that lies in the range. */
+        private CloseableRowIterator openIterator() {
+            BufferedDataTable table = m_tables[m_tableIndex];
+            long size = table.size();
+            long start = Math.max(0L, Math.min(size, m_fromIndex - m_tableOffset));
+            long end = Math.max(start, Math.min(size, m_toIndex - m_tableOffset));
+            if (start == 0L && end == size) {
+                return table.iterator();
+            }
+            return table.iterator(start, end);
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -351,9 +395,11 @@ private DataRow internalNext() {
             if (m_curIterator.hasNext()) {
                 return m_curIterator.next();
             }
-            if (m_tableIndex < m_tables.length - 1) {
+            if (m_tableIndex < m_tables.length - 1
+                && m_tableOffset + m_tables[m_tableIndex].size() < m_toIndex) {
+                m_tableOffset += m_tables[m_tableIndex].size();
                 m_tableIndex++;
-                m_curIterator = m_tables[m_tableIndex].iterator();
+                m_curIterator = openIterator();
                 return internalNext();
             }
             return null;
@@ -48,12 +48,15 @@
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.zip.ZipOutputStream;
 
 import org.knime.core.data.DataTable;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.internal.ReferencedFile;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.BufferedDataTable.KnowsRowCountTable;
 import org.knime.core.node.CanceledExecutionException;
@@ -83,6 +86,10 @@ public final class ContainerTable implements DataTable, KnowsRowCountTable {
      * demand (e.g. iterator is opened). */
     private CopyOnAccessTask m_readTask;
     private DataTableSpec m_spec;
+    /** The zip file this table was loaded from (if any). As the content of a loaded table doesn't change, the file
+     * is transferred as is when the table is saved again (e.g. in a 'save as' or when a node passes on its input
+     * table). Null for tables created in this session or after {@link #clear()}. */
+    private ReferencedFile m_sourceFileRef;
 
     /**
      * Create new Table based on a Buffer. This constructor is called from
@@ -104,6 +111,7 @@ public final class ContainerTable implements DataTable, KnowsRowCountTable {
     ContainerTable(final CopyOnAccessTask readTask, final DataTableSpec spec) {
         m_readTask = readTask;
         m_spec = spec;
+        m_sourceFileRef = readTask.getFileRef();
     }
 
     /**
@@ -126,6 +134,23 @@ public CloseableRowIterator iterator() {
         return m_buffer.iterator();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Tables that are held in memory return an iterator on the row list; tables that are read from disc start
+     * reading at the closest position recorded in the file's block index (if available).
+     * @since 3.5
+     */
+    @Override
+    public CloseableRowIterator iterator(final long fromIndex, final long toIndex) {
+        ensureBufferOpen();
+        if (!m_buffer.supportsRangeIterator()) {
+            return KnowsRowCountTable.super.iterator(fromIndex, toIndex);
+        }
+        return m_buffer.iterator(fromIndex, toIndex);
+    }
+
     /**
      * {@inheritDoc}
      * @deprecated use {@link #size()} instead which supports more than {@link Integer#MAX_VALUE} rows
@@ -187,6 +212,9 @@ protected void restoreIntoMemory() {
     public void saveToFile(final File f, final NodeSettingsWO settings,
             final ExecutionMonitor exec) throws IOException,
             CanceledExecutionException {
+        if (m_sourceFileRef != null && transferSourceFile(f, exec)) {
+            return;
+        }
         ensureBufferOpen();
         ZipOutputStream zipOut = new ZipOutputStream(
                 new BufferedOutputStream(new FileOutputStream(f)));
@@ -194,6 +222,60 @@ public void saveToFile(final File f, final NodeSettingsWO settings,
         zipOut.close();
     }
 
+    /** Copies the zip file this table was loaded from to the argument file without extracting and re-compressing
+     * its content. The bytes are transferred using {@link FileChannel#transferTo(long, long,
+     * java.nio.channels.WritableByteChannel)}, which on most platforms is done by the operating system.
+     * (Hard links are not used as the source file may later be overwritten in place when its node is saved again.)
+     * @param f The destination file.
+     * @param exec For progress/cancelation.
+     * @return true if the file was transferred, false if the source file no longer exists (caller must then
+     *         save the content the regular way)
+     * @throws IOException If that fails for any reason.
+     * @throws CanceledExecutionException If canceled.
+     */
+    private boolean transferSourceFile(final File f, final ExecutionMonitor exec)
+            throws IOException, CanceledExecutionException {
+        ReferencedFile sourceRef = m_sourceFileRef;
+        sourceRef.lock();
+        try {
+            File source = sourceRef.getFile();
+            if (!source.isFile()) {
+                return false;
+            }
+            if (f.exists() && source.getCanonicalFile().equals(f.getCanonicalFile())) {
+                // saved into the location it was loaded from - file is up to date
+                return true;
+            }
+            final long size = source.length();
+            final long chunkSize = 8L << 20;
+            boolean success = false;
+            try (FileChannel in = new FileInputStream(source).getChannel();
+                    FileChannel out = new FileOutputStream(f).getChannel()) {
+                long position = 0;
+                while (position < size) {
+                    exec.checkCanceled();
+                    long transferred = in.transferTo(position, Math.min(chunkSize, size - position), out);
+                    if (transferred <= 0) {
+                        throw new IOException("Unable to read from \"" + source.getAbsolutePath()
+                            + "\" at position " + position + " (file size " + size + ")");
+                    }
+                    position += transferred;
+                    exec.setProgress(position / (double)size);
+                }
+                success = true;
+            } finally {
+                if (!success && !f.delete()) {
+                    LOGGER.debug("Unable to delete incomplete file \"" + f.getAbsolutePath() + "\"");
+                }
+            }
+            LOGGER.debug("Transferred table file \"" + source.getAbsolutePath() + "\" to \""
+                + f.getAbsolutePath() + "\" (" + size + " bytes)");
+            return true;
+        } finally {
+            sourceRef.unlock();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -235,6 +317,7 @@ public boolean removeFromTableRepository(
      */
     @Override
     public void clear() {
+        m_sourceFileRef = null;
         if (m_buffer != null) {
             m_buffer.clear();
             // it may not even be in there
@@ -49,6 +49,8 @@
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -184,6 +186,7 @@ Buffer createBuffer(final InputStream in) throws IOException {
         boolean isSpecFound = m_spec != null;
         boolean isDataFound = false;
         boolean isMetaFound = false;
+        byte[] blockIndexBytes = null;
         while ((entry = inStream.getNextEntry()) != null) {
             String name = entry.getName();
             if (name.equals(Buffer.ZIP_ENTRY_DATA)) {
@@ -198,6 +201,11 @@ Buffer createBuffer(final InputStream in) throws IOException {
                 }
                 inStream.closeEntry();
                 isMetaFound = true;
+            } else if (name.equals(Buffer.ZIP_ENTRY_BLOCK_INDEX)) {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                FileUtil.copy(inStream, output);
+                inStream.closeEntry();
+                blockIndexBytes = output.toByteArray();
             } else if (name.startsWith(Buffer.ZIP_ENTRY_BLOBS)) {
                 if (blobDir == null) {
                     blobDir = Buffer.createBlobDirNameForTemp(binFile);
@@ -244,6 +252,9 @@ Buffer createBuffer(final InputStream in) throws IOException {
                 new FileInputStream(metaTempFile));
         Buffer buffer = m_bufferCreator.createBuffer(binFile, blobDir, fileStoreDir,
                 spec, metaIn, m_bufferID, m_tableRep, m_fileStoreHandlerRepository);
+        if (blockIndexBytes != null) {
+            buffer.readBlockIndex(new ByteArrayInputStream(blockIndexBytes));
+        }
         if (m_needsRestoreIntoMemory) {
             buffer.restoreIntoMemory();
         }
@@ -259,6 +270,14 @@ String getFileName() {
         return m_fileRef.toString();
     }
 
+    /** Get the zip file this task reads from. The file is the persisted table as written by
+     * {@link Buffer#addToZipFile(java.util.zip.ZipOutputStream, org.knime.core.node.ExecutionMonitor)}.
+     * @return the source file reference
+     */
+    ReferencedFile getFileRef() {
+        return m_fileRef;
+    }
+
     /** Get this buffer's ID.
      * @return the buffer ID or -1
      */
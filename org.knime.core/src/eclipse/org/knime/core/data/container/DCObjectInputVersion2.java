@@ -158,6 +158,32 @@ RowKey readRowKey() throws IOException {
         return new RowKey(m_dataIn.readUTF());
     }
 
+    /** Reads a string that is added to a dictionary.
+     * @return The string.
+     * @throws IOException If IO problems occur.
+     * @see DCObjectOutputVersion2#writeDictionaryString(String)
+     */
+    String readDictionaryString() throws IOException {
+        return m_dataIn.readUTF();
+    }
+
+    /** Reads an index into a dictionary.
+     * @return The index.
+     * @throws IOException If IO problems occur.
+     * @see DCObjectOutputVersion2#writeDictionaryIndex(int)
+     */
+    int readDictionaryIndex() throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = m_dataIn.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Invalid dictionary index encoding");
+    }
+
     /** Reads a single byte from the stream.
      * @return That byte.
      * @throws IOException If IO problems occur. */
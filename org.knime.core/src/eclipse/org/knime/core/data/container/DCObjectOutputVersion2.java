@@ -147,6 +147,29 @@ void writeRowKey(final RowKey key) throws IOException {
         m_dataOut.writeUTF(key.getString());
     }
 
+    /** Writes a string that is added to a dictionary, see
+     * {@link StringDictionary}.
+     * @param value The string to write, at most 64k bytes in modified UTF-8.
+     * @throws IOException In case of stream corruption.
+     */
+    void writeDictionaryString(final String value) throws IOException {
+        m_dataOut.writeUTF(value);
+    }
+
+    /** Writes an index into a dictionary using a variable length encoding
+     * (7 bits per byte), see {@link StringDictionary}.
+     * @param index The non-negative index to write.
+     * @throws IOException In case of stream corruption.
+     */
+    void writeDictionaryIndex(final int index) throws IOException {
+        int value = index;
+        while ((value & ~0x7F) != 0) {
+            m_dataOut.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        m_dataOut.write(value);
+    }
+
     /** Writes the argument byte.
      * @param controlByte The byte to write.
      * @throws IOException In case of stream corruption.
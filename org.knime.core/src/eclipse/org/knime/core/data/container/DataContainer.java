@@ -135,6 +135,14 @@ public class DataContainer implements RowAppender {
     /** The default number of cells to be held in memory. */
     public static final int DEF_MAX_CELLS_IN_MEMORY = 100000;
 
+    /**
+     * The default fraction of the heap that tables may occupy in memory.
+     *
+     * @see KNIMEConstants#PROPERTY_TABLE_MEMORY_BUDGET
+     * @since 3.5
+     */
+    public static final double DEF_MEMORY_BUDGET_FRACTION = 0.3;
+
     /**
      * Default minimum disc space requirement, see {@link KNIMEConstants#PROPERTY_MIN_FREE_DISC_SPACE_IN_TEMP_IN_MB}.
      *
@@ -179,6 +187,28 @@ public class DataContainer implements RowAppender {
         }
         MAX_CELLS_IN_MEMORY = size;
 
+        double budgetFraction = DEF_MEMORY_BUDGET_FRACTION;
+        String envBudget = KNIMEConstants.PROPERTY_TABLE_MEMORY_BUDGET;
+        String valBudget = System.getProperty(envBudget);
+        if (valBudget != null) {
+            String s = valBudget.trim();
+            try {
+                double newFraction = Double.parseDouble(s);
+                if (newFraction < 0.0 || newFraction > 1.0 || Double.isNaN(newFraction)) {
+                    throw new NumberFormatException("memory budget fraction not in [0, 1]: " + newFraction);
+                }
+                budgetFraction = newFraction;
+                LOGGER.debug("Setting fraction of heap for tables in memory to " + budgetFraction);
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Unable to parse property " + envBudget + ", using default ("
+                    + DEF_MEMORY_BUDGET_FRACTION + ")", e);
+            }
+        } else if (valCellsInMem != null) {
+            // explicitly configured cell count, keep using it
+            budgetFraction = 0.0;
+        }
+        MEMORY_BUDGET_FRACTION = budgetFraction;
+
         int maxPossValues = DEF_MAX_POSSIBLE_VALUES;
         String envPossValues = KNIMEConstants.PROPERTY_DOMAIN_MAX_POSSIBLE_VALUES;
         String valPossValues = System.getProperty(envPossValues);
@@ -248,10 +278,20 @@ public class DataContainer implements RowAppender {
     /**
      * Number of cells that are cached without being written to the temp file (see Buffer implementation); It defaults
      * to the value defined by {@link #DEF_MAX_CELLS_IN_MEMORY} but can be changed using the java property
-     * {@link #PROPERTY_CELLS_IN_MEMORY}.
+     * {@link #PROPERTY_CELLS_IN_MEMORY}. Unless that property is set or the memory budget is disabled (see
+     * {@link KNIMEConstants#PROPERTY_TABLE_MEMORY_BUDGET}), containers that use this default are not limited by the
+     * cell count but by the estimated memory size of all tables kept in memory.
      */
     public static final int MAX_CELLS_IN_MEMORY;
 
+    /**
+     * Fraction of the heap that tables created with {@link #MAX_CELLS_IN_MEMORY} may occupy in memory, see
+     * {@link KNIMEConstants#PROPERTY_TABLE_MEMORY_BUDGET}. If 0 the cell count threshold is used instead.
+     *
+     * @since 3.5
+     */
+    public static final double MEMORY_BUDGET_FRACTION;
+
     /**
      * Minimum disc space requirement, see {@link KNIMEConstants#PROPERTY_MIN_FREE_DISC_SPACE_IN_TEMP_IN_MB}.
      *
@@ -336,10 +376,16 @@ public Thread newThread(final Runnable r) {
 
     private List<Object> m_fillingRowBuffer;
 
+    /** Number of rows in {@link #m_fillingRowBuffer}, counting each row of a batch. */
+    private int m_fillingRowCount;
+
     private List<Object> m_emptyingRowBuffer;
 
     private int m_maxRowsInMemory;
 
+    /** Whether the buffer's memory footprint is governed by the global memory budget (instead of m_maxRowsInMemory). */
+    private final boolean m_isMemoryManaged;
+
     /** Holds the keys of the added rows to check for duplicates. */
     private DuplicateChecker m_duplicateChecker;
 
@@ -368,6 +414,16 @@ public Thread newThread(final Runnable r) {
      */
     private boolean m_forceCopyOfBlobs;
 
+    /**
+     * Compression format of the table file, null for the default. See
+     * {@link #setCompressionFormat(CompressionFormat)}.
+     */
+    private CompressionFormat m_compressionFormat;
+
+    /** Whether to dictionary encode strings in the table file, null for the default. See
+     * {@link #setDictionaryEncoding(boolean)}. */
+    private Boolean m_useDictionaryEncoding;
+
     /**
      * Opens the container so that rows can be added by <code>addRowToTable(DataRow)</code>. The table spec of the
      * resulting table (the one being returned by <code>getTable()</code>) will have a valid column domain. That means,
@@ -454,10 +510,34 @@ protected DataContainer(final DataTableSpec spec, final boolean initDomain, fina
         // how many rows will occupy MAX_CELLS_IN_MEMORY
         final int colCount = spec.getNumColumns();
         m_maxRowsInMemory = maxCellsInMemory / ((colCount > 0) ? colCount : 1);
+        m_isMemoryManaged = MEMORY_BUDGET_FRACTION > 0.0 && maxCellsInMemory == MAX_CELLS_IN_MEMORY
+            && m_maxRowsInMemory > 0;
+        if (m_isMemoryManaged) {
+            m_maxRowsInMemory = Integer.MAX_VALUE;
+        }
         m_bufferCreator = new BufferCreator();
     }
 
     private void addRowToTableWrite(final DataRow row) {
+        checkRow(row);
+        m_domainCreator.updateDomain(row);
+        addRowKeyForDuplicateCheck(row.getKey());
+        m_buffer.addRow(row, false, m_forceCopyOfBlobs);
+    }
+
+    /** Batch version of {@link #addRowToTableWrite(DataRow)}, domain is updated once for all rows. */
+    private void addRowsToTableWrite(final DataRow[] rows) {
+        for (DataRow row : rows) {
+            checkRow(row);
+        }
+        m_domainCreator.updateDomain(rows);
+        for (DataRow row : rows) {
+            addRowKeyForDuplicateCheck(row.getKey());
+            m_buffer.addRow(row, false, m_forceCopyOfBlobs);
+        }
+    }
+
+    private void checkRow(final DataRow row) {
         // let's do every possible sanity check
         int numCells = row.getNumCells();
         RowKey key = row.getKey();
@@ -494,9 +574,6 @@ private void addRowToTableWrite(final DataRow row) {
                     + "not comply with its supposed superclass " + columnClass.toString());
             }
         } // for all cells
-        m_domainCreator.updateDomain(row);
-        addRowKeyForDuplicateCheck(key);
-        m_buffer.addRow(row, false, m_forceCopyOfBlobs);
     }
 
     private void checkAsyncWriteThrowable() {
@@ -560,6 +637,44 @@ protected final boolean isForceCopyOfBlobs() {
         return m_forceCopyOfBlobs;
     }
 
+    /**
+     * Sets the compression codec that is used when the table content is written to disc. The default is determined
+     * by the java property {@link KNIMEConstants#PROPERTY_TABLE_GZIP_COMPRESSION}. Nodes that create large intermediate
+     * tables, which are read soon after, may prefer a fast codec such as {@link CompressionFormat#Lz4}. The format is
+     * persisted along with the table.
+     *
+     * @param format The compression format, not null.
+     * @throws IllegalStateException If this container has already added rows, i.e. this method must be called right
+     *             after construction.
+     * @since 3.5
+     */
+    public final void setCompressionFormat(final CompressionFormat format) {
+        if (format == null) {
+            throw new NullPointerException("Compression format must not be null.");
+        }
+        if (size() > 0) {
+            throw new IllegalStateException("Container already has rows; "
+                + "invocation of this method is only permitted immediately " + "after constructor call.");
+        }
+        m_compressionFormat = format;
+    }
+
+    /**
+     * Sets whether string columns are dictionary encoded in the table file. The default is determined by the java
+     * property {@link KNIMEConstants#PROPERTY_TABLE_DICTIONARY_ENCODING}. Tables using the encoding can't be read by
+     * versions prior 3.5.
+     *
+     * @param useDictionaryEncoding Whether to use dictionary encoding.
+     * @throws IllegalStateException If this container has already added rows.
+     */
+    final void setDictionaryEncoding(final boolean useDictionaryEncoding) {
+        if (size() > 0) {
+            throw new IllegalStateException("Container already has rows; "
+                + "invocation of this method is only permitted immediately " + "after constructor call.");
+        }
+        m_useDictionaryEncoding = useDictionaryEncoding;
+    }
+
     /**
      * Define a new threshold for number of possible values to memorize. It makes sense to call this method before any
      * rows are added.
@@ -606,11 +721,7 @@ public void close() {
         if (isClosed()) {
             return;
         }
-        if (m_buffer == null) {
-            m_buffer =
-                m_bufferCreator.createBuffer(m_maxRowsInMemory, createInternalBufferID(), getGlobalTableRepository(),
-                    getLocalTableRepository(), getFileStoreHandler());
-        }
+        ensureBufferCreated();
         if (!m_isSynchronousWrite) {
             try {
                 offerToAsynchronousQueue(CONTAINER_CLOSE);
@@ -645,17 +756,24 @@ public void close() {
     }
 
     /**
-     * Adds the argument object (which will be a DataRow unless when called from close()) to the filling data row queue.
-     * It will exchange the filling queue with the emptying queue from the write thread in case the queue is full.
+     * Adds the argument object (which will be a DataRow or a DataRow[] unless when called from close()) to the filling
+     * data row queue. It will exchange the filling queue with the emptying queue from the write thread in case the
+     * queue holds {@link #ASYNC_CACHE_SIZE} rows (whereby the rows of a batch are counted individually).
      *
      * @param object the object to add.
      */
     private void offerToAsynchronousQueue(final Object object) {
         m_fillingRowBuffer.add(object);
-        if (m_fillingRowBuffer.size() >= ASYNC_CACHE_SIZE || object == CONTAINER_CLOSE || object == FLUSH_CACHE) {
+        if (object instanceof DataRow[]) {
+            m_fillingRowCount += ((DataRow[])object).length;
+        } else if (object instanceof DataRow) {
+            m_fillingRowCount += 1;
+        }
+        if (m_fillingRowCount >= ASYNC_CACHE_SIZE || object == CONTAINER_CLOSE || object == FLUSH_CACHE) {
             while (true) {
                 try {
                     m_fillingRowBuffer = m_rowBufferExchanger.exchange(m_fillingRowBuffer, 30, TimeUnit.SECONDS);
+                    m_fillingRowCount = 0;
                     if (!m_fillingRowBuffer.isEmpty()) {
                         Object ob = m_fillingRowBuffer.get(0);
                         assert ob == CONTAINER_WRITE_FAILED : "Not expected element in write queue: " + ob;
@@ -760,17 +878,7 @@ public void addRowToTable(final DataRow row) {
         if (row == null) {
             throw new NullPointerException("Can't add null rows to container");
         }
-        if (m_buffer == null) {
-            int bufID = createInternalBufferID();
-            Map<Integer, ContainerTable> globalTableRep = getGlobalTableRepository();
-            Map<Integer, ContainerTable> localTableRep = getLocalTableRepository();
-            IWriteFileStoreHandler fileStoreHandler = getFileStoreHandler();
-            m_buffer =
-                m_bufferCreator.createBuffer(m_maxRowsInMemory, bufID, globalTableRep, localTableRep, fileStoreHandler);
-            if (m_buffer == null) {
-                throw new NullPointerException("Implementation error, must not return a null buffer.");
-            }
-        }
+        ensureBufferCreated();
         if (m_isSynchronousWrite) {
             if (MemoryAlertSystem.getInstance().isMemoryLow()) {
                 m_buffer.flushBuffer();
@@ -786,6 +894,74 @@ public void addRowToTable(final DataRow row) {
         m_size += 1;
     } // addRowToTable(DataRow)
 
+    /**
+     * Adds a batch of rows to the table. This has the same effect as calling {@link #addRowToTable(DataRow)} for each
+     * of the rows but is cheaper for producers that generate rows in chunks: the column domains are updated once per
+     * batch and, if the table is written asynchronously, the batch is handed to the write thread as a whole. The array
+     * may be reused by the caller after this method returns.
+     *
+     * <p>If an exception is thrown (for instance because of a duplicate row key) any number of the rows in the batch
+     * may have been added.
+     *
+     * @param rows The rows to add, must not contain <code>null</code> elements.
+     * @throws IllegalStateException If the container is not open.
+     * @throws NullPointerException If the argument or any of the rows is <code>null</code>.
+     * @throws IllegalArgumentException If any of the rows does not fit the spec.
+     * @throws DuplicateKeyException If a row's key has already been added.
+     * @see #addRowToTable(DataRow)
+     * @since 3.5
+     */
+    public void addRowsToTable(final DataRow[] rows) {
+        if (!isOpen()) {
+            throw new IllegalStateException("Cannot add rows: container has not been initialized (opened).");
+        }
+        for (DataRow row : rows) {
+            if (row == null) {
+                throw new NullPointerException("Can't add null rows to container");
+            }
+        }
+        if (rows.length == 0) {
+            return;
+        }
+        ensureBufferCreated();
+        if (m_isSynchronousWrite) {
+            if (MemoryAlertSystem.getInstance().isMemoryLow()) {
+                m_buffer.flushBuffer();
+            }
+            addRowsToTableWrite(rows);
+        } else {
+            checkAsyncWriteThrowable();
+            if (MemoryAlertSystem.getInstance().isMemoryLow()) {
+                offerToAsynchronousQueue(FLUSH_CACHE);
+            }
+            offerToAsynchronousQueue(rows.clone());
+        }
+        m_size += rows.length;
+    } // addRowsToTable(DataRow[])
+
+    private void ensureBufferCreated() {
+        if (m_buffer == null) {
+            int bufID = createInternalBufferID();
+            Map<Integer, ContainerTable> globalTableRep = getGlobalTableRepository();
+            Map<Integer, ContainerTable> localTableRep = getLocalTableRepository();
+            IWriteFileStoreHandler fileStoreHandler = getFileStoreHandler();
+            m_buffer =
+                m_bufferCreator.createBuffer(m_maxRowsInMemory, bufID, globalTableRep, localTableRep, fileStoreHandler);
+            if (m_buffer == null) {
+                throw new NullPointerException("Implementation error, must not return a null buffer.");
+            }
+            if (m_compressionFormat != null) {
+                m_buffer.setCompressionFormat(m_compressionFormat);
+            }
+            if (m_useDictionaryEncoding != null) {
+                m_buffer.setDictionaryEncoding(m_useDictionaryEncoding);
+            }
+            if (m_isMemoryManaged) {
+                m_buffer.setMemoryManaged(true);
+            }
+        }
+    }
+
     /** @return size of buffer temp file in bytes, -1 if not set. Only for debugging/test purposes. */
     long getBufferFileSize() {
         Buffer b = m_table != null ? m_table.getBuffer() : m_buffer;
@@ -1231,6 +1407,8 @@ private Void callWithContext() throws Exception {
                         } else if (obj == FLUSH_CACHE) {
                             assert i == size - 1;
                             d.m_buffer.flushBuffer();
+                        } else if (obj instanceof DataRow[]) {
+                            d.addRowsToTableWrite((DataRow[])obj);
                         } else {
                             DataRow row = (DataRow)obj;
                             d.addRowToTableWrite(row);
@@ -126,6 +126,17 @@ public CloseableRowIterator iterator() {
                 m_rightTable.iterator(), m_map, m_flags);
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 3.5
+     */
+    @Override
+    public CloseableRowIterator iterator(final long fromIndex,
+            final long toIndex) {
+        return new JoinTableIterator(m_leftTable.iterator(fromIndex, toIndex),
+                m_rightTable.iterator(fromIndex, toIndex), m_map, m_flags);
+    }
+
     /**
      * Does nothing.
      * {@inheritDoc}
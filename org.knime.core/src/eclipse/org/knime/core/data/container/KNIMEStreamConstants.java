@@ -79,5 +79,17 @@ interface KNIMEStreamConstants {
     /** Separator for different rows. */
     static final byte BYTE_ROW_SEPARATOR = BYTE_TYPE_MISSING + 3;
 
+    /** The char for a string cell that is added to the column's dictionary,
+     * see {@link StringDictionary}. */
+    static final byte BYTE_TYPE_DICTIONARY_NEW = Byte.MAX_VALUE;
+
+    /** The char for a string cell that refers to an entry in the column's
+     * dictionary, see {@link StringDictionary}. */
+    static final byte BYTE_TYPE_DICTIONARY_REF = Byte.MAX_VALUE - 1;
+
+    /** The last char that is used for the map char --&gt; type (the
+     * following are reserved for the dictionary encoding). */
+    static final byte BYTE_TYPE_END = BYTE_TYPE_DICTIONARY_REF - 1;
+
 
 }
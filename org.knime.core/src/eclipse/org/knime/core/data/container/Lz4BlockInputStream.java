@@ -0,0 +1,191 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads data written by a {@link Lz4BlockOutputStream}. Buffers data internally (one block at a time).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class Lz4BlockInputStream extends InputStream {
+
+    private final InputStream m_in;
+
+    private final byte[] m_header = new byte[Lz4BlockOutputStream.HEADER_LENGTH];
+
+    private byte[] m_buffer = new byte[0];
+
+    private byte[] m_compressedBuffer = new byte[0];
+
+    /** Number of valid bytes in m_buffer. */
+    private int m_count;
+
+    /** Read position in m_buffer. */
+    private int m_pos;
+
+    private boolean m_isEOF;
+
+    /**
+     * @param in The stream to read from.
+     */
+    Lz4BlockInputStream(final InputStream in) {
+        m_in = in;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read() throws IOException {
+        if (m_pos == m_count && !readBlock()) {
+            return -1;
+        }
+        return m_buffer[m_pos++] & 0xFF;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (m_pos == m_count && !readBlock()) {
+            return -1;
+        }
+        int toCopy = Math.min(len, m_count - m_pos);
+        System.arraycopy(m_buffer, m_pos, b, off, toCopy);
+        m_pos += toCopy;
+        return toCopy;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long skip(final long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n) {
+            if (m_pos == m_count && !readBlock()) {
+                break;
+            }
+            int toSkip = (int)Math.min(n - skipped, m_count - m_pos);
+            m_pos += toSkip;
+            skipped += toSkip;
+        }
+        return skipped;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int available() throws IOException {
+        return m_count - m_pos;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        m_isEOF = true;
+        m_in.close();
+    }
+
+    /** Reads the next block into the buffer, returns false if the end of stream has been reached. */
+    private boolean readBlock() throws IOException {
+        if (m_isEOF) {
+            return false;
+        }
+        int first = m_in.read();
+        if (first < 0) {
+            m_isEOF = true;
+            return false;
+        }
+        m_header[0] = (byte)first;
+        readFully(m_header, 1, m_header.length - 1);
+        final int length = readInt(m_header, 1);
+        final int storedLength = readInt(m_header, 5);
+        if (length < 0 || length > Lz4BlockOutputStream.MAX_BLOCK_SIZE || storedLength < 0
+            || storedLength > Lz4Codec.maxCompressedLength(length)) {
+            throw new IOException("Corrupt block header (length " + length + ", stored length " + storedLength + ")");
+        }
+        if (m_buffer.length < length) {
+            m_buffer = new byte[length];
+        }
+        switch (m_header[0]) {
+            case Lz4BlockOutputStream.METHOD_STORED:
+                if (storedLength != length) {
+                    throw new IOException("Corrupt block header (stored block with different lengths)");
+                }
+                readFully(m_buffer, 0, length);
+                break;
+            case Lz4BlockOutputStream.METHOD_LZ4:
+                if (m_compressedBuffer.length < storedLength) {
+                    m_compressedBuffer = new byte[storedLength];
+                }
+                readFully(m_compressedBuffer, 0, storedLength);
+                Lz4Codec.decompress(m_compressedBuffer, 0, storedLength, m_buffer, 0, length);
+                break;
+            default:
+                throw new IOException("Unknown block method: " + m_header[0]);
+        }
+        m_count = length;
+        m_pos = 0;
+        return true;
+    }
+
+    private void readFully(final byte[] b, final int off, final int len) throws IOException {
+        int n = 0;
+        while (n < len) {
+            int count = m_in.read(b, off + n, len - n);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of stream in compressed block");
+            }
+            n += count;
+        }
+    }
+
+    private static int readInt(final byte[] buf, final int pos) {
+        return ((buf[pos] & 0xFF) << 24) | ((buf[pos + 1] & 0xFF) << 16) | ((buf[pos + 2] & 0xFF) << 8)
+            | (buf[pos + 3] & 0xFF);
+    }
+}
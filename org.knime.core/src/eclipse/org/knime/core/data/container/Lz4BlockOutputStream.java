@@ -0,0 +1,201 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that compresses its data in independent blocks using the {@link Lz4Codec}. Each block is preceded
+ * by a header consisting of a method byte (compressed or stored, the latter is used when compression does not pay
+ * off), the uncompressed length and the stored length (both 4 byte integers, big endian). Read by
+ * {@link Lz4BlockInputStream}.
+ *
+ * <p>This stream buffers data internally, there is no need to wrap it in a {@link java.io.BufferedOutputStream}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class Lz4BlockOutputStream extends OutputStream {
+
+    /** Block method: data is LZ4 compressed. */
+    static final byte METHOD_LZ4 = 'L';
+
+    /** Block method: data is stored uncompressed. */
+    static final byte METHOD_STORED = 'S';
+
+    /** Length of a block header in bytes. */
+    static final int HEADER_LENGTH = 9;
+
+    /** Default size of uncompressed blocks. */
+    static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+    /** Upper bound for the block size, used to detect corrupt headers when reading. */
+    static final int MAX_BLOCK_SIZE = 1 << 26;
+
+    private final OutputStream m_out;
+
+    private final byte[] m_buffer;
+
+    private final byte[] m_compressedBuffer;
+
+    private final int[] m_hashTable;
+
+    private int m_count;
+
+    private boolean m_isClosed;
+
+    /**
+     * Creates stream with default block size.
+     *
+     * @param out The stream to write to.
+     */
+    Lz4BlockOutputStream(final OutputStream out) {
+        this(out, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates stream.
+     *
+     * @param out The stream to write to.
+     * @param blockSize The size of the uncompressed blocks.
+     */
+    Lz4BlockOutputStream(final OutputStream out, final int blockSize) {
+        if (blockSize <= 0 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Invalid block size: " + blockSize);
+        }
+        m_out = out;
+        m_buffer = new byte[blockSize];
+        m_compressedBuffer = new byte[HEADER_LENGTH + Lz4Codec.maxCompressedLength(blockSize)];
+        m_hashTable = Lz4Codec.createHashTable();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final int b) throws IOException {
+        if (m_count == m_buffer.length) {
+            writeBlock();
+        }
+        m_buffer[m_count++] = (byte)b;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            if (m_count == m_buffer.length) {
+                writeBlock();
+            }
+            int toCopy = Math.min(remaining, m_buffer.length - m_count);
+            System.arraycopy(b, offset, m_buffer, m_count, toCopy);
+            m_count += toCopy;
+            offset += toCopy;
+            remaining -= toCopy;
+        }
+    }
+
+    /**
+     * Get the number of bytes that were written to this stream but not yet compressed and passed to the underlying
+     * stream. Together with the number of bytes written to the underlying stream this determines the position
+     * of the next byte, see {@link BlockIndex}.
+     *
+     * @return that number
+     */
+    int getPendingCount() {
+        return m_count;
+    }
+
+    /** Flushes the underlying stream only. Pending data stays in the buffer until the block is full or the stream
+     * is closed, as callers (e.g. Java serialization of cells) flush frequently and short blocks compress badly. */
+    @Override
+    public void flush() throws IOException {
+        m_out.flush();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        if (m_isClosed) {
+            return;
+        }
+        m_isClosed = true;
+        try {
+            writeBlock();
+        } finally {
+            m_out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (m_count == 0) {
+            return;
+        }
+        final byte[] out = m_compressedBuffer;
+        int storedLength = Lz4Codec.compress(m_buffer, 0, m_count, out, HEADER_LENGTH, m_hashTable);
+        if (storedLength < m_count) {
+            writeHeader(out, METHOD_LZ4, m_count, storedLength);
+            m_out.write(out, 0, HEADER_LENGTH + storedLength);
+        } else {
+            writeHeader(out, METHOD_STORED, m_count, m_count);
+            m_out.write(out, 0, HEADER_LENGTH);
+            m_out.write(m_buffer, 0, m_count);
+        }
+        m_count = 0;
+    }
+
+    private static void writeHeader(final byte[] buf, final byte method, final int length, final int storedLength) {
+        buf[0] = method;
+        writeInt(buf, 1, length);
+        writeInt(buf, 5, storedLength);
+    }
+
+    private static void writeInt(final byte[] buf, final int pos, final int value) {
+        buf[pos] = (byte)(value >>> 24);
+        buf[pos + 1] = (byte)(value >>> 16);
+        buf[pos + 2] = (byte)(value >>> 8);
+        buf[pos + 3] = (byte)value;
+    }
+}
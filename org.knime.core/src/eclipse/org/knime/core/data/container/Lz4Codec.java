@@ -0,0 +1,264 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Pure java implementation of the LZ4 block format (see https://github.com/lz4/lz4/blob/dev/doc/lz4_Block_format.md).
+ * It's a fast LZ77-type compression, which trades compression ratio for speed. Used by the {@link Lz4BlockOutputStream}
+ * and {@link Lz4BlockInputStream} to compress table files.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class Lz4Codec {
+
+    /** Minimal length of a match. */
+    private static final int MIN_MATCH = 4;
+
+    /** The last 5 bytes of a block are always literals. */
+    private static final int LAST_LITERALS = 5;
+
+    /** The last match must start at least 12 bytes before the end of the block. */
+    private static final int MF_LIMIT = 12;
+
+    /** Max offset of a match (2 bytes). */
+    private static final int MAX_DISTANCE = (1 << 16) - 1;
+
+    private static final int HASH_LOG = 14;
+
+    /** Controls how fast the compressor skips incompressible data. */
+    private static final int SKIP_STRENGTH = 6;
+
+    private static final int RUN_MASK = 0x0F;
+
+    private Lz4Codec() {
+    }
+
+    /**
+     * Worst case length of a compressed block of the given length (incompressible data).
+     *
+     * @param length The length of the uncompressed data.
+     * @return the upper bound of the compressed length.
+     */
+    static int maxCompressedLength(final int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses a block.
+     *
+     * @param src The data to compress.
+     * @param srcOff Offset in src.
+     * @param srcLen Number of bytes to compress.
+     * @param dest The array to write to, must have at least {@link #maxCompressedLength(int)} bytes available.
+     * @param destOff Offset in dest.
+     * @param hashTable A scratch hash table of length {@link #createHashTable()}, reused between calls.
+     * @return The number of bytes written to dest.
+     */
+    static int compress(final byte[] src, final int srcOff, final int srcLen, final byte[] dest, final int destOff,
+        final int[] hashTable) {
+        final int srcEnd = srcOff + srcLen;
+        int anchor = srcOff;
+        int dp = destOff;
+        if (srcLen > MF_LIMIT) {
+            Arrays.fill(hashTable, -1);
+            final int mfLimit = srcEnd - MF_LIMIT;
+            final int matchLimit = srcEnd - LAST_LITERALS;
+            int sp = srcOff;
+            int searchCount = 1 << SKIP_STRENGTH;
+            while (sp < mfLimit) {
+                final int sequence = readIntLE(src, sp);
+                final int h = hash(sequence);
+                int ref = hashTable[h];
+                hashTable[h] = sp;
+                if (ref < 0 || sp - ref > MAX_DISTANCE || readIntLE(src, ref) != sequence) {
+                    sp += searchCount++ >>> SKIP_STRENGTH;
+                    continue;
+                }
+                searchCount = 1 << SKIP_STRENGTH;
+                // extend backwards
+                while (sp > anchor && ref > srcOff && src[sp - 1] == src[ref - 1]) {
+                    sp--;
+                    ref--;
+                }
+                // extend forward
+                int matchEnd = sp + MIN_MATCH;
+                int refEnd = ref + MIN_MATCH;
+                while (matchEnd < matchLimit && src[matchEnd] == src[refEnd]) {
+                    matchEnd++;
+                    refEnd++;
+                }
+                dp = writeSequence(src, anchor, sp - anchor, sp - ref, matchEnd - sp - MIN_MATCH, dest, dp);
+                sp = matchEnd;
+                anchor = sp;
+            }
+        }
+        // last literals
+        final int literalLength = srcEnd - anchor;
+        final int tokenPos = dp++;
+        dp = writeLength(literalLength, dest, dp, tokenPos, 4);
+        System.arraycopy(src, anchor, dest, dp, literalLength);
+        return dp + literalLength - destOff;
+    }
+
+    /**
+     * Decompresses a block.
+     *
+     * @param src The compressed data.
+     * @param srcOff Offset in src.
+     * @param srcLen Length of the compressed data.
+     * @param dest To write the uncompressed data to.
+     * @param destOff Offset in dest.
+     * @param destLen The (known) length of the uncompressed data.
+     * @throws IOException If the data is corrupt.
+     */
+    static void decompress(final byte[] src, final int srcOff, final int srcLen, final byte[] dest, final int destOff,
+        final int destLen) throws IOException {
+        final int srcEnd = srcOff + srcLen;
+        final int destEnd = destOff + destLen;
+        int sp = srcOff;
+        int dp = destOff;
+        try {
+            while (true) {
+                final int token = src[sp++] & 0xFF;
+                int literalLength = token >>> 4;
+                if (literalLength == RUN_MASK) {
+                    int b;
+                    do {
+                        b = src[sp++] & 0xFF;
+                        literalLength += b;
+                    } while (b == 0xFF);
+                }
+                if (literalLength > srcEnd - sp || literalLength > destEnd - dp) {
+                    throw new IOException("Malformed LZ4 block, literal length out of bounds");
+                }
+                System.arraycopy(src, sp, dest, dp, literalLength);
+                sp += literalLength;
+                dp += literalLength;
+                if (sp == srcEnd) {
+                    break; // last literals
+                }
+                final int offset = (src[sp] & 0xFF) | ((src[sp + 1] & 0xFF) << 8);
+                sp += 2;
+                int matchLength = token & RUN_MASK;
+                if (matchLength == RUN_MASK) {
+                    int b;
+                    do {
+                        b = src[sp++] & 0xFF;
+                        matchLength += b;
+                    } while (b == 0xFF);
+                }
+                matchLength += MIN_MATCH;
+                final int ref = dp - offset;
+                if (offset == 0 || ref < destOff || matchLength > destEnd - dp) {
+                    throw new IOException("Malformed LZ4 block, invalid match (offset " + offset + ")");
+                }
+                if (offset >= matchLength) {
+                    System.arraycopy(dest, ref, dest, dp, matchLength);
+                } else {
+                    // overlapping copy (run length encoding)
+                    for (int i = 0; i < matchLength; i++) {
+                        dest[dp + i] = dest[ref + i];
+                    }
+                }
+                dp += matchLength;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Malformed LZ4 block, unexpected end of data", e);
+        }
+        if (dp != destEnd) {
+            throw new IOException("Malformed LZ4 block, decompressed " + (dp - destOff) + " bytes but expected "
+                + destLen);
+        }
+    }
+
+    /** @return a new hash table, to be passed to {@link #compress(byte[], int, int, byte[], int, int[])}. */
+    static int[] createHashTable() {
+        return new int[1 << HASH_LOG];
+    }
+
+    private static int writeSequence(final byte[] src, final int literalStart, final int literalLength,
+        final int offset, final int matchLength, final byte[] dest, final int destPos) {
+        final int tokenPos = destPos;
+        int dp = writeLength(literalLength, dest, destPos + 1, tokenPos, 4);
+        System.arraycopy(src, literalStart, dest, dp, literalLength);
+        dp += literalLength;
+        dest[dp++] = (byte)offset;
+        dest[dp++] = (byte)(offset >>> 8);
+        return writeLength(matchLength, dest, dp, tokenPos, 0);
+    }
+
+    /** Writes the 4 bit length into the token (at the given shift) and the additional length bytes (if any). */
+    private static int writeLength(final int length, final byte[] dest, final int destPos, final int tokenPos,
+        final int shift) {
+        int dp = destPos;
+        if (shift != 0) {
+            dest[tokenPos] = 0; // literal length is always written first
+        }
+        if (length >= RUN_MASK) {
+            dest[tokenPos] |= (byte)(RUN_MASK << shift);
+            int remaining = length - RUN_MASK;
+            while (remaining >= 0xFF) {
+                dest[dp++] = (byte)0xFF;
+                remaining -= 0xFF;
+            }
+            dest[dp++] = (byte)remaining;
+        } else {
+            dest[tokenPos] |= (byte)(length << shift);
+        }
+        return dp;
+    }
+
+    private static int hash(final int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static int readIntLE(final byte[] buf, final int pos) {
+        return (buf[pos] & 0xFF) | ((buf[pos + 1] & 0xFF) << 8) | ((buf[pos + 2] & 0xFF) << 16)
+            | ((buf[pos + 3] & 0xFF) << 24);
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.ThreadUtils;
+
+/**
+ * File iterator that reads (decompresses and deserializes) the rows of another file iterator in a background thread.
+ * Rows are handed over in batches using a bounded queue so that the consumer's processing overlaps with the IO and
+ * decoding, whereby memory consumption stays limited to a few batches. The reading task runs in
+ * {@link DataContainer#ASYNC_EXECUTORS}.
+ *
+ * <p>
+ * The task only holds a weak reference to this object. It waits on a full queue with a timeout and stops if the
+ * iterator was closed or, when not closed by the client, garbage collected; in the latter case it also closes the
+ * underlying file. It closes the file as well once all rows are read. Neither depends on finalization.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class PrefetchingFromFileIterator extends Buffer.FromFileIterator {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(PrefetchingFromFileIterator.class);
+
+    /** Number of rows handed over at once. */
+    static final int BATCH_SIZE = 256;
+
+    /** Number of batches read ahead. */
+    private static final int QUEUE_CAPACITY = 4;
+
+    /** Minimum number of rows for a table to be read asynchronously, smaller tables are read synchronously. */
+    static final long MIN_ROW_COUNT = 2L * BATCH_SIZE;
+
+    /** Queue element marking the end of the rows. */
+    private static final Object END = new Object();
+
+    private final Buffer m_buffer;
+
+    private final Buffer.FromFileIterator m_delegate;
+
+    private final BlockingQueue<Object> m_queue;
+
+    private final AtomicBoolean m_isClosed;
+
+    private BlobSupportDataRow[] m_currentBatch;
+
+    private int m_indexInBatch;
+
+    private boolean m_isAtEnd;
+
+    /**
+     * Creates the iterator and starts reading.
+     *
+     * @param buffer The associated buffer.
+     * @param delegate The iterator that reads the rows from the file, must not be used by the caller.
+     * @param rowCount The number of rows the delegate iterator returns.
+     */
+    PrefetchingFromFileIterator(final Buffer buffer, final Buffer.FromFileIterator delegate, final long rowCount) {
+        m_buffer = buffer;
+        m_delegate = delegate;
+        m_queue = new ArrayBlockingQueue<Object>(QUEUE_CAPACITY);
+        m_isClosed = new AtomicBoolean();
+        m_currentBatch = new BlobSupportDataRow[0];
+        DataContainer.ASYNC_EXECUTORS.execute(ThreadUtils.runnableWithContext(
+            new ReadTask(this, buffer, delegate, rowCount, m_queue, m_isClosed), false));
+    }
+
+    /**
+     * Whether a table of the given size should be read with this iterator.
+     *
+     * @param rowCount The number of rows to read.
+     * @return that property.
+     */
+    static boolean isApplicable(final long rowCount) {
+        return !DataContainer.SYNCHRONOUS_IO && rowCount >= MIN_ROW_COUNT
+            && DataContainer.ASYNC_EXECUTORS.getActiveCount() <= DataContainer.MAX_ASYNC_WRITE_THREADS;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasNext() {
+        if (m_indexInBatch < m_currentBatch.length) {
+            return true;
+        }
+        if (m_isAtEnd) {
+            return false;
+        }
+        fetchNextBatch();
+        if (m_isAtEnd) {
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public BlobSupportDataRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("Iterator at end");
+        }
+        BlobSupportDataRow row = m_currentBatch[m_indexInBatch];
+        m_currentBatch[m_indexInBatch++] = null; // allow garbage collection
+        return row;
+    }
+
+    /** Takes the next element from the queue, sets the end flag if there are no more rows. */
+    private void fetchNextBatch() {
+        if (m_isClosed.get()) {
+            m_isAtEnd = true;
+            return;
+        }
+        Object next;
+        try {
+            next = m_queue.take();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for rows to be read from file", ie);
+        }
+        if (next == END) {
+            m_isAtEnd = true;
+        } else if (next instanceof Throwable) {
+            m_isAtEnd = true;
+            Throwable t = (Throwable)next;
+            throw new RuntimeException("Unable to read rows from file: " + t.getMessage(), t);
+        } else {
+            m_currentBatch = (BlobSupportDataRow[])next;
+            m_indexInBatch = 0;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    boolean performClose() throws IOException {
+        if (m_isClosed.getAndSet(true)) {
+            return false;
+        }
+        // the read task checks the flag while holding the delegate's lock, i.e. it won't read any further
+        synchronized (m_delegate) {
+            m_delegate.performClose();
+        }
+        m_queue.clear();
+        // wake up a consumer waiting in another thread
+        m_queue.offer(END);
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        m_buffer.clearIteratorInstance(this, true);
+    }
+
+    /** Reads the rows from the delegate iterator and puts them in batches into the queue. */
+    private static final class ReadTask implements Runnable {
+
+        /** The consuming iterator, cleared if it is garbage collected without being closed. */
+        private final WeakReference<PrefetchingFromFileIterator> m_owner;
+
+        private final Buffer m_buffer;
+
+        private final Buffer.FromFileIterator m_delegate;
+
+        private final long m_rowCount;
+
+        private final BlockingQueue<Object> m_queue;
+
+        private final AtomicBoolean m_isClosed;
+
+        ReadTask(final PrefetchingFromFileIterator owner, final Buffer buffer, final Buffer.FromFileIterator delegate,
+            final long rowCount, final BlockingQueue<Object> queue, final AtomicBoolean isClosed) {
+            m_owner = new WeakReference<PrefetchingFromFileIterator>(owner);
+            m_buffer = buffer;
+            m_delegate = delegate;
+            m_rowCount = rowCount;
+            m_queue = queue;
+            m_isClosed = isClosed;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+            long remaining = m_rowCount;
+            try {
+                while (remaining > 0) {
+                    BlobSupportDataRow[] batch = new BlobSupportDataRow[(int)Math.min(BATCH_SIZE, remaining)];
+                    synchronized (m_delegate) {
+                        if (m_isClosed.get()) {
+                            return;
+                        }
+                        for (int i = 0; i < batch.length; i++) {
+                            batch[i] = m_delegate.next();
+                        }
+                    }
+                    remaining -= batch.length;
+                    if (!put(batch)) {
+                        return;
+                    }
+                }
+                // all rows read, no need to keep the file open until the client closes the iterator
+                synchronized (m_delegate) {
+                    if (!m_isClosed.get()) {
+                        try {
+                            m_delegate.performClose();
+                        } catch (IOException ioe) {
+                            LOGGER.debug("Closing file after reading all rows failed: " + ioe.getMessage(), ioe);
+                        }
+                    }
+                }
+                put(END);
+            } catch (Throwable t) {
+                if (!m_isClosed.get()) {
+                    LOGGER.debug("Reading rows in background failed: " + t.getMessage(), t);
+                    put(t);
+                }
+            }
+        }
+
+        /** Puts the argument into the queue, waits while the queue is full.
+         * @return false if the iterator was closed or abandoned in the meantime. */
+        private boolean put(final Object o) {
+            try {
+                while (!m_queue.offer(o, 1, TimeUnit.SECONDS)) {
+                    if (m_isClosed.get()) {
+                        return false;
+                    }
+                    if (m_owner.get() == null) {
+                        abandon();
+                        return false;
+                    }
+                }
+                return true;
+            } catch (InterruptedException ie) {
+                return false;
+            }
+        }
+
+        /** Closes the file of an iterator that was garbage collected without being closed by the client. */
+        private void abandon() {
+            if (!m_isClosed.getAndSet(true)) {
+                LOGGER.debug("Iterator was not closed by client, closing file in background reader");
+                m_queue.clear();
+                m_buffer.clearIteratorInstance(m_delegate, false);
+            }
+        }
+    }
+
+}
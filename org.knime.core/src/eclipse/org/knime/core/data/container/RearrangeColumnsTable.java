@@ -283,6 +283,21 @@ public CloseableRowIterator iterator() {
         return new JoinTableIterator(m_reference.iterator(), appendIt, m_map, m_isFromRefTable);
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 3.5
+     */
+    @Override
+    public CloseableRowIterator iterator(final long fromIndex, final long toIndex) {
+        CloseableRowIterator appendIt;
+        if (m_appendTable != null) {
+            appendIt = m_appendTable.iterator(fromIndex, toIndex);
+        } else {
+            appendIt = EMPTY_ITERATOR;
+        }
+        return new JoinTableIterator(m_reference.iterator(fromIndex, toIndex), appendIt, m_map, m_isFromRefTable);
+    }
+
     /**
      * This factory method is intended to be used immediately before the {@link BufferedDataTable} is created.
      *
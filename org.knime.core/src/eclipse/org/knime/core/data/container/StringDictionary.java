@@ -0,0 +1,259 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.container.BufferFromFileIteratorVersion20.DataCellStreamReader;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Dictionary encoding of {@link StringCell} columns in the binary file of a {@link Buffer}. The rows of a file are
+ * split into chunks of a fixed number of rows; within each chunk the first occurrence of a string in a column is
+ * written (prefixed by {@link KNIMEStreamConstants#BYTE_TYPE_DICTIONARY_NEW}) and added to the column's dictionary;
+ * all further occurrences only write the index in that dictionary (prefixed by
+ * {@link KNIMEStreamConstants#BYTE_TYPE_DICTIONARY_REF}). The dictionaries are reset at the start of each chunk. The
+ * chunk size equals the distance of the entries in the {@link BlockIndex} so that iteration can start at any indexed
+ * row.
+ *
+ * <p>
+ * Columns whose strings are (mostly) distinct are detected while writing and written as ordinary cells from then
+ * on. Cells that are not dictionary encoded are written as usual and need no special treatment when reading.
+ *
+ * <p>
+ * When reading, all occurrences of a string within a chunk are represented by the same {@link StringCell} instance,
+ * which reduces the memory footprint for low-cardinality columns.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class StringDictionary implements KNIMEStreamConstants {
+
+    /** Default number of rows per chunk, also the number of rows between two {@link BlockIndex} entries. */
+    static final int DEFAULT_CHUNK_SIZE = BlockIndex.DEFAULT_ROWS_PER_ENTRY;
+
+    /** Longer strings are not dictionary encoded. */
+    private static final int MAX_STRING_LENGTH = 1024;
+
+    /** Minimum rows in a chunk before a column's cardinality is checked. */
+    private static final int MIN_ROWS_FOR_CARDINALITY_CHECK = 64;
+
+    private StringDictionary() {
+    }
+
+    /** Writes string cells, one instance per file. */
+    static final class Encoder {
+
+        private final int m_chunkSize;
+
+        /** Dictionary per column, elements are null if the column is not (or no longer) encoded. */
+        private Map<String, Integer>[] m_dictionaries;
+
+        private boolean[] m_isDisabled;
+
+        private long m_rowCount;
+
+        private int m_rowsInChunk;
+
+        /**
+         * @param chunkSize The number of rows after which the dictionaries are reset.
+         */
+        Encoder(final int chunkSize) {
+            m_chunkSize = chunkSize;
+        }
+
+        /** @return the chunk size as passed in the constructor. */
+        int getChunkSize() {
+            return m_chunkSize;
+        }
+
+        /**
+         * Called before the cells of a new row are written. Resets the dictionaries at the start of a chunk.
+         *
+         * @param colCount The number of cells in the row.
+         */
+        @SuppressWarnings("unchecked")
+        void startRow(final int colCount) {
+            if (m_dictionaries == null) {
+                m_dictionaries = new Map[colCount];
+                m_isDisabled = new boolean[colCount];
+            }
+            if (m_rowCount % m_chunkSize == 0) {
+                Arrays.fill(m_dictionaries, null);
+                m_rowsInChunk = 0;
+            }
+            m_rowCount++;
+            m_rowsInChunk++;
+        }
+
+        /**
+         * Writes the cell as dictionary entry or reference if possible.
+         *
+         * @param col The column index.
+         * @param cell The cell to write.
+         * @param outStream To write to.
+         * @return <code>true</code> if the cell was written, <code>false</code> if it needs to be written as ordinary
+         *         cell.
+         * @throws IOException If writing fails.
+         */
+        boolean writeDataCell(final int col, final DataCell cell, final DCObjectOutputVersion2 outStream)
+            throws IOException {
+            if (m_isDisabled[col] || cell.getClass() != StringCell.class) {
+                return false;
+            }
+            String value = ((StringCell)cell).getStringValue();
+            if (value.length() > MAX_STRING_LENGTH) {
+                return false;
+            }
+            Map<String, Integer> dictionary = m_dictionaries[col];
+            if (dictionary == null) {
+                dictionary = new HashMap<String, Integer>();
+                m_dictionaries[col] = dictionary;
+            }
+            Integer index = dictionary.get(value);
+            if (index != null) {
+                outStream.writeControlByte(BYTE_TYPE_DICTIONARY_REF);
+                outStream.writeDictionaryIndex(index);
+                return true;
+            }
+            if (m_rowsInChunk >= MIN_ROWS_FOR_CARDINALITY_CHECK && dictionary.size() > m_rowsInChunk / 2) {
+                // mostly distinct values, encoding doesn't pay off
+                m_isDisabled[col] = true;
+                m_dictionaries[col] = null;
+                return false;
+            }
+            dictionary.put(value, dictionary.size());
+            outStream.writeControlByte(BYTE_TYPE_DICTIONARY_NEW);
+            outStream.writeDictionaryString(value);
+            return true;
+        }
+    }
+
+    /** Reads cells written by an {@link Encoder}, one instance per iterator. */
+    static final class Decoder {
+
+        private final int m_chunkSize;
+
+        private final List<StringCell>[] m_dictionaries;
+
+        /**
+         * @param colCount The number of columns.
+         * @param chunkSize The chunk size used by the encoder.
+         */
+        @SuppressWarnings("unchecked")
+        Decoder(final int colCount, final int chunkSize) {
+            m_chunkSize = chunkSize;
+            m_dictionaries = new List[colCount];
+        }
+
+        /**
+         * Called before a row is read. Resets the dictionaries at the start of a chunk.
+         *
+         * @param rowIndex The index of the row in the file.
+         */
+        void startRow(final long rowIndex) {
+            if (rowIndex % m_chunkSize == 0) {
+                Arrays.fill(m_dictionaries, null);
+            }
+        }
+
+        /**
+         * Reads the next cell in the given column.
+         *
+         * @param col The column index.
+         * @param inStream To read from.
+         * @param cellReader Used to read cells that are not dictionary encoded.
+         * @return The cell.
+         * @throws IOException If reading fails.
+         */
+        DataCell readDataCell(final int col, final DCObjectInputVersion2 inStream,
+            final DataCellStreamReader cellReader) throws IOException {
+            byte identifier = inStream.readControlByte();
+            if (identifier == BYTE_TYPE_DICTIONARY_NEW) {
+                StringCell cell = new StringCell(inStream.readDictionaryString());
+                getDictionary(col).add(cell);
+                return cell;
+            } else if (identifier == BYTE_TYPE_DICTIONARY_REF) {
+                int index = inStream.readDictionaryIndex();
+                List<StringCell> dictionary = getDictionary(col);
+                if (index >= dictionary.size()) {
+                    throw new IOException("Invalid dictionary index " + index + " in column " + col
+                        + ", dictionary has " + dictionary.size() + " entries");
+                }
+                return dictionary.get(index);
+            }
+            return cellReader.readDataCell(inStream, identifier);
+        }
+
+        /**
+         * Skips the next cell in the given column but updates the dictionary. The caller needs to end the block.
+         *
+         * @param col The column index.
+         * @param inStream To read from.
+         * @throws IOException If reading fails.
+         */
+        void skipDataCell(final int col, final DCObjectInputVersion2 inStream) throws IOException {
+            byte identifier = inStream.readControlByte();
+            if (identifier == BYTE_TYPE_DICTIONARY_NEW) {
+                getDictionary(col).add(new StringCell(inStream.readDictionaryString()));
+            }
+        }
+
+        private List<StringCell> getDictionary(final int col) {
+            List<StringCell> dictionary = m_dictionaries[col];
+            if (dictionary == null) {
+                dictionary = new ArrayList<StringCell>();
+                m_dictionaries[col] = dictionary;
+            }
+            return dictionary;
+        }
+    }
+
+}
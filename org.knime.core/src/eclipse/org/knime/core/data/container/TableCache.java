@@ -0,0 +1,440 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Global (JVM-wide, i.e. shared by all workflows) cache for tables whose rows are stored in a file. Tables that are
+ * read repeatedly (e.g. the input of a loop body or tables that are accessed by consecutive server jobs) are loaded
+ * into main memory while they are iterated and are subsequently read from memory. The memory occupied by cached
+ * tables is limited by a byte budget (see {@link KNIMEConstants#PROPERTY_TABLE_CACHE_BUDGET}); if a newly loaded
+ * table doesn't fit, other tables are evicted according to the {@link #getEvictionPolicy() eviction policy}. Cached
+ * tables are also evicted in low memory conditions.
+ *
+ * <p>This class provides the administration interface to the cache, i.e. it allows to query hit and miss counts,
+ * to change the budget and policy and to clear the cache. The size of a table is an estimate of its heap usage.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.5
+ */
+public final class TableCache {
+
+    /** Strategy used to choose the tables that are evicted in order to make room for a new one. */
+    public enum EvictionPolicy {
+        /** Evict least recently used tables first. */
+        LRU,
+        /** Evict least frequently used tables first, ties are broken by recency. */
+        LFU
+    }
+
+    /**
+     * Default fraction of the heap that cached tables may occupy.
+     *
+     * @see KNIMEConstants#PROPERTY_TABLE_CACHE_BUDGET
+     */
+    public static final double DEF_BUDGET_FRACTION = 0.1;
+
+    /** Default number of times a table is read from file before it gets cached. */
+    public static final int DEF_ADMISSION_THRESHOLD = 2;
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(TableCache.class);
+
+    private static final TableCache INSTANCE;
+
+    static {
+        double fraction = DEF_BUDGET_FRACTION;
+        String envBudget = KNIMEConstants.PROPERTY_TABLE_CACHE_BUDGET;
+        String valBudget = System.getProperty(envBudget);
+        if (valBudget != null) {
+            String s = valBudget.trim();
+            try {
+                double newFraction = Double.parseDouble(s);
+                if (newFraction < 0.0 || newFraction > 1.0 || Double.isNaN(newFraction)) {
+                    throw new NumberFormatException("table cache budget fraction not in [0, 1]: " + newFraction);
+                }
+                fraction = newFraction;
+                LOGGER.debug("Setting fraction of heap for the table cache to " + fraction);
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Unable to parse property " + envBudget + ", using default (" + DEF_BUDGET_FRACTION
+                    + ")", e);
+            }
+        }
+        INSTANCE = new TableCache((long)(MemoryAlertSystem.getMaximumMemory() * fraction));
+    }
+
+    private long m_budget;
+
+    private EvictionPolicy m_evictionPolicy = EvictionPolicy.LRU;
+
+    private int m_admissionThreshold = DEF_ADMISSION_THRESHOLD;
+
+    /** Buffers that were read from file (possibly cached), weak keys as tables are not cleared when discarded. */
+    private final Map<Buffer, Entry> m_entries = new WeakHashMap<Buffer, Entry>();
+
+    private long m_size;
+
+    private int m_tableCount;
+
+    private long m_hitCount;
+
+    private long m_missCount;
+
+    private long m_evictionCount;
+
+    /**
+     * @param budget The budget in bytes.
+     */
+    TableCache(final long budget) {
+        m_budget = budget;
+    }
+
+    /** @return the singleton instance. */
+    public static TableCache getInstance() {
+        return INSTANCE;
+    }
+
+    /** @return the maximum (estimated) number of bytes cached tables may occupy, 0 if caching is disabled. */
+    public synchronized long getBudget() {
+        return m_budget;
+    }
+
+    /**
+     * Sets a new budget. If the cache currently holds more data, tables are evicted.
+     *
+     * @param budget The new budget in bytes, 0 to disable caching.
+     * @throws IllegalArgumentException If the argument is negative.
+     */
+    public void setBudget(final long budget) {
+        if (budget < 0L) {
+            throw new IllegalArgumentException("Budget must not be negative: " + budget);
+        }
+        List<Buffer> victims;
+        synchronized (this) {
+            m_budget = budget;
+            victims = chooseVictims(null, 0L);
+        }
+        evict(victims);
+    }
+
+    /** @return the eviction policy, {@link EvictionPolicy#LRU} by default. */
+    public synchronized EvictionPolicy getEvictionPolicy() {
+        return m_evictionPolicy;
+    }
+
+    /**
+     * @param evictionPolicy the new policy, not null.
+     */
+    public synchronized void setEvictionPolicy(final EvictionPolicy evictionPolicy) {
+        if (evictionPolicy == null) {
+            throw new NullPointerException("Eviction policy must not be null");
+        }
+        m_evictionPolicy = evictionPolicy;
+    }
+
+    /** @return how often a table needs to be read from file before it's cached. */
+    public synchronized int getAdmissionThreshold() {
+        return m_admissionThreshold;
+    }
+
+    /**
+     * @param admissionThreshold how often a table needs to be read from file before it's cached, at least 1.
+     * @throws IllegalArgumentException If the argument is smaller than 1.
+     */
+    public synchronized void setAdmissionThreshold(final int admissionThreshold) {
+        if (admissionThreshold < 1) {
+            throw new IllegalArgumentException("Admission threshold must be at least 1: " + admissionThreshold);
+        }
+        m_admissionThreshold = admissionThreshold;
+    }
+
+    /** @return number of tables currently cached. */
+    public synchronized int getTableCount() {
+        return m_tableCount;
+    }
+
+    /** @return estimated number of bytes occupied by the cached tables. */
+    public synchronized long getSize() {
+        return m_size;
+    }
+
+    /** @return number of iterations on a file table that were served from the cache. */
+    public synchronized long getHitCount() {
+        return m_hitCount;
+    }
+
+    /** @return number of iterations on a file table that needed to read the file. */
+    public synchronized long getMissCount() {
+        return m_missCount;
+    }
+
+    /** @return number of tables that were evicted from the cache. */
+    public synchronized long getEvictionCount() {
+        return m_evictionCount;
+    }
+
+    /** Resets hit, miss and eviction counts to 0. */
+    public synchronized void resetStatistics() {
+        m_hitCount = 0L;
+        m_missCount = 0L;
+        m_evictionCount = 0L;
+    }
+
+    /** Evicts all tables from the cache. The memory is freed asynchronously. */
+    public void clear() {
+        List<Buffer> victims = new ArrayList<Buffer>();
+        synchronized (this) {
+            for (Map.Entry<Buffer, Entry> e : m_entries.entrySet()) {
+                if (e.getValue().m_isCached) {
+                    markEvicted(e.getValue());
+                    victims.add(e.getKey());
+                }
+            }
+        }
+        evict(victims);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized String toString() {
+        return "Table cache (" + m_tableCount + " tables, " + m_size + "/" + m_budget + " bytes, " + m_hitCount
+            + " hits, " + m_missCount + " misses, " + m_evictionCount + " evictions, " + m_evictionPolicy + ")";
+    }
+
+    /**
+     * Called by a buffer when an iterator on its file is opened.
+     *
+     * @param buffer The buffer.
+     * @param fileSize Size of the file, used to reject tables that can't possibly fit.
+     * @return <code>true</code> if the buffer should load its rows into memory during this iteration and then call
+     *         {@link #loaded(Buffer, long)}.
+     */
+    synchronized boolean onFileAccess(final Buffer buffer, final long fileSize) {
+        m_missCount += 1;
+        Entry entry = m_entries.get(buffer);
+        if (entry == null) {
+            entry = new Entry();
+            m_entries.put(buffer, entry);
+        }
+        entry.m_accessCount += 1;
+        entry.m_lastAccess = System.nanoTime();
+        if (entry.m_isLoading || entry.m_accessCount < m_admissionThreshold || fileSize > m_budget) {
+            return false;
+        }
+        entry.m_isLoading = true;
+        return true;
+    }
+
+    /**
+     * Called by a buffer when an iterator on its cached rows is opened.
+     *
+     * @param buffer The buffer.
+     */
+    synchronized void onCacheAccess(final Buffer buffer) {
+        Entry entry = m_entries.get(buffer);
+        if (entry != null && entry.m_isCached) {
+            m_hitCount += 1;
+            entry.m_accessCount += 1;
+            entry.m_lastAccess = System.nanoTime();
+        }
+    }
+
+    /**
+     * Called by a buffer when all rows were loaded into memory after {@link #onFileAccess(Buffer, long)} returned
+     * <code>true</code>. Other tables may get evicted in order to make room.
+     *
+     * @param buffer The buffer, must hold its own lock.
+     * @param size Estimated size of the rows in memory.
+     * @return <code>true</code> if the rows are to be kept in memory, <code>false</code> if they don't fit and need
+     *         to be discarded by the caller.
+     */
+    boolean loaded(final Buffer buffer, final long size) {
+        assert Thread.holdsLock(buffer);
+        List<Buffer> victims;
+        synchronized (this) {
+            Entry entry = m_entries.get(buffer);
+            if (entry == null || !entry.m_isLoading) {
+                // concurrently cleared
+                return false;
+            }
+            entry.m_isLoading = false;
+            if (size > m_budget) {
+                LOGGER.debug("Table with estimated size of " + size + " bytes exceeds table cache budget");
+                return false;
+            }
+            victims = chooseVictims(buffer, size);
+            entry.m_isCached = true;
+            entry.m_size = size;
+            m_size += size;
+            m_tableCount += 1;
+        }
+        evict(victims);
+        return true;
+    }
+
+    /**
+     * Called by a buffer if loading its rows was aborted after {@link #onFileAccess(Buffer, long)} returned
+     * <code>true</code>, e.g. because the iterator was closed early. The table may be admitted again on a later
+     * access.
+     *
+     * @param buffer The buffer.
+     */
+    synchronized void loadingAborted(final Buffer buffer) {
+        Entry entry = m_entries.get(buffer);
+        if (entry != null) {
+            entry.m_isLoading = false;
+        }
+    }
+
+    /**
+     * Called when the buffer was cleared.
+     *
+     * @param buffer The buffer.
+     */
+    synchronized void removed(final Buffer buffer) {
+        Entry entry = m_entries.remove(buffer);
+        if (entry != null && entry.m_isCached) {
+            m_size -= entry.m_size;
+            m_tableCount -= 1;
+        }
+    }
+
+    /**
+     * Called when the cached rows of the buffer were discarded, e.g. due to low memory.
+     *
+     * @param buffer The buffer.
+     */
+    synchronized void discarded(final Buffer buffer) {
+        Entry entry = m_entries.get(buffer);
+        if (entry != null && entry.m_isCached) {
+            markEvicted(entry);
+        }
+    }
+
+    /**
+     * Chooses tables to evict so that an additional table of the given size fits into the budget and removes them
+     * from the cache accounting.
+     *
+     * @param newBuffer The buffer to be added (never a victim), may be null.
+     * @param newSize Its size.
+     * @return The buffers whose rows need to be discarded.
+     */
+    private List<Buffer> chooseVictims(final Buffer newBuffer, final long newSize) {
+        assert Thread.holdsLock(this);
+        List<Buffer> victims = new ArrayList<Buffer>();
+        if (m_size + newSize <= m_budget) {
+            return victims;
+        }
+        List<Map.Entry<Buffer, Entry>> candidates = new ArrayList<Map.Entry<Buffer, Entry>>();
+        for (Map.Entry<Buffer, Entry> e : m_entries.entrySet()) {
+            if (e.getValue().m_isCached && e.getKey() != newBuffer) {
+                candidates.add(e);
+            }
+        }
+        final boolean isLFU = m_evictionPolicy == EvictionPolicy.LFU;
+        Collections.sort(candidates, new Comparator<Map.Entry<Buffer, Entry>>() {
+            @Override
+            public int compare(final Map.Entry<Buffer, Entry> o1, final Map.Entry<Buffer, Entry> o2) {
+                Entry e1 = o1.getValue();
+                Entry e2 = o2.getValue();
+                if (isLFU && e1.m_accessCount != e2.m_accessCount) {
+                    return e1.m_accessCount < e2.m_accessCount ? -1 : 1;
+                }
+                return Long.compare(e1.m_lastAccess - e2.m_lastAccess, 0L);
+            }
+        });
+        for (Map.Entry<Buffer, Entry> e : candidates) {
+            if (m_size + newSize <= m_budget) {
+                break;
+            }
+            markEvicted(e.getValue());
+            victims.add(e.getKey());
+        }
+        return victims;
+    }
+
+    /** Removes the entry from the cache accounting. The buffer remains known so that access counts are retained. */
+    private void markEvicted(final Entry entry) {
+        assert Thread.holdsLock(this);
+        entry.m_isCached = false;
+        m_size -= entry.m_size;
+        m_tableCount -= 1;
+        m_evictionCount += 1;
+    }
+
+    /** Discards the in-memory rows of the argument buffers, done asynchronously as the caller may hold a lock on
+     * another buffer. */
+    private static void evict(final List<Buffer> victims) {
+        if (!victims.isEmpty()) {
+            LOGGER.debug("Evicting " + victims.size() + " table(s) from table cache");
+            BufferMemoryManager.scheduleSpill(victims);
+        }
+    }
+
+    /** Information kept per buffer. */
+    private static final class Entry {
+
+        private int m_accessCount;
+
+        private long m_lastAccess;
+
+        private long m_size;
+
+        private boolean m_isLoading;
+
+        private boolean m_isCached;
+
+    }
+
+}
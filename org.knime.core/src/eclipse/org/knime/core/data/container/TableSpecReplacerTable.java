@@ -207,6 +207,16 @@ public CloseableRowIterator iterator() {
         return m_reference.iterator();
     }
 
+    /**
+     * {@inheritDoc}
+     * @since 3.5
+     */
+    @Override
+    public CloseableRowIterator iterator(final long fromIndex,
+            final long toIndex) {
+        return m_reference.iterator(fromIndex, toIndex);
+    }
+
     /**
      * {@inheritDoc}
      * @deprecated use {@link #size()} instead which supports more than {@link Integer#MAX_VALUE} rows
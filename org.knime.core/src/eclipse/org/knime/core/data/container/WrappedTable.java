@@ -124,6 +124,13 @@ public CloseableRowIterator iterator() {
         return m_table.iterator();
     }
 
+    /** {@inheritDoc}
+     * @since 3.5 */
+    @Override
+    public CloseableRowIterator iterator(final long fromIndex, final long toIndex) {
+        return m_table.iterator(fromIndex, toIndex);
+    }
+
     /** {@inheritDoc} */
     @Override
     public DataTableSpec getDataTableSpec() {
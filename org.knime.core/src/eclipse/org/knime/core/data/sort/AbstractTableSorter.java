@@ -51,6 +51,7 @@
 import java.text.NumberFormat;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -58,10 +59,13 @@
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.NoSuchElementException;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
@@ -71,14 +75,20 @@
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.container.DataContainer;
 import org.knime.core.data.def.StringCell;
+import org.knime.core.data.sort.NormalizedKeyEncoder.KeyedRow;
 import org.knime.core.data.util.memory.MemoryAlertSystem;
 import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.util.ThreadPool;
+import org.knime.core.util.ThreadUtils;
 
 /**
  * Class to sort a table. See <a href="package.html">package description</a> for details.
@@ -118,6 +128,26 @@ abstract class AbstractTableSorter {
 
     private boolean m_sortInMemory = false;
 
+    /** Number of threads used to sort and merge chunks, see {@link #setParallelism(int)}. */
+    private int m_parallelism = 1;
+
+    /** The pool to sort and merge chunks concurrently; only non-null during {@link #sortOnDisk(ExecutionMonitor)} when
+     * {@link #m_parallelism} is larger than 1. */
+    private ThreadPool m_pool;
+
+    /** Whether to sort on normalized keys, see {@link #setUseNormalizedKeys(boolean)}. */
+    private boolean m_useNormalizedKeys = false;
+
+    /** Number of rows to retain, -1 for all. See {@link #setTopK(int)}. */
+    private int m_topK = -1;
+
+    /** Encodes the sort columns, only non-null during {@link #sortInternal(ExecutionMonitor)} if normalized keys are
+     * used and supported by the comparator. */
+    private NormalizedKeyEncoder m_keyEncoder;
+
+    /** Creating and closing containers modifies the (non thread-safe) table repositories of the node. */
+    private final Object m_containerLock = new Object();
+
     /** The RowComparator to compare two DataRows (inner class). */
     private Comparator<DataRow> m_rowComparator;
 
@@ -280,6 +310,11 @@ public void setRowComparator(final Comparator<DataRow> rowComparator) {
         m_rowComparator = rowComparator;
     }
 
+    /** @return the row comparator as set via constructor or one of the setters. Used in unit test. */
+    Comparator<DataRow> getRowComparator() {
+        return m_rowComparator;
+    }
+
     /**
      * Sets sorting columns and order.
      *
@@ -405,6 +440,95 @@ public void setSortInMemory(final boolean sortInMemory) {
         m_sortInMemory = sortInMemory;
     }
 
+    /**
+     * @return the number of threads used for sorting, see {@link #setParallelism(int)} for details.
+     * @since 3.5
+     */
+    public int getParallelism() {
+        return m_parallelism;
+    }
+
+    /**
+     * Sets the number of threads used for sorting. If larger than 1, the chunks of the input table are sorted and
+     * written to temporary containers by background threads while the input is still being read, rows that are sorted
+     * in memory are sorted using {@link Arrays#parallelSort(Object[], Comparator)} and chunks are merged in concurrent
+     * groups of {@link #getMaxOpenContainers()} containers until at most that many are left for the final merge. At
+     * most <code>parallelism</code> chunks are held in memory at any time, fewer if the {@link MemoryAlertSystem}
+     * reports low memory. Note that up to <code>parallelism * getMaxOpenContainers()</code> files may be open during
+     * the concurrent merge.
+     *
+     * <p>
+     * The default is 1, i.e. all work is done in the calling thread. The result is the same in either case.
+     *
+     * @param parallelism the number of threads, at least 1
+     * @throws IllegalArgumentException If argument is smaller than 1.
+     * @since 3.5
+     */
+    public void setParallelism(final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        m_parallelism = parallelism;
+    }
+
+    /**
+     * @return whether rows are sorted on normalized keys, see {@link #setUseNormalizedKeys(boolean)}.
+     * @since 3.5
+     */
+    public boolean getUseNormalizedKeys() {
+        return m_useNormalizedKeys;
+    }
+
+    /**
+     * If true, the sort columns of each row are encoded once into a byte array whose (unsigned, lexicographic) order
+     * equals the order defined by the sort columns, their sort order and the placement of missing values. Rows are
+     * then sorted and merged by comparing these keys instead of invoking the columns' comparators on each comparison.
+     * The result is the same.
+     *
+     * <p>
+     * This option only has an effect if the sorting was defined via
+     * {@link #setSortColumns(Collection, boolean[], boolean)} (not a custom row comparator) and all sort columns are
+     * int, long, double, string, date&amp;time columns or the row key; otherwise it is ignored.
+     *
+     * <p>
+     * The default value for this option is <b>false</b>.
+     *
+     * @param useNormalizedKeys whether to sort on normalized keys
+     * @since 3.5
+     */
+    public void setUseNormalizedKeys(final boolean useNormalizedKeys) {
+        m_useNormalizedKeys = useNormalizedKeys;
+    }
+
+    /**
+     * @return the number of rows retained in the output or -1 if all rows are retained, see {@link #setTopK(int)}.
+     * @since 3.5
+     */
+    public int getTopK() {
+        return m_topK;
+    }
+
+    /**
+     * Sets the number of rows to retain in the output. If non-negative, the output only contains the first
+     * <code>k</code> rows of the sorted table. These are determined in a single pass over the input using a bounded
+     * heap of <code>k</code> rows in memory (O(n log k)); no temporary tables are written and the options
+     * {@link #setSortInMemory(boolean)} and {@link #setParallelism(int)} have no effect. Rows comparing equal retain
+     * their input order as in a full sort.
+     *
+     * <p>
+     * The default value for this option is <b>-1</b>, i.e. the entire table is sorted.
+     *
+     * @param k the number of rows to retain or -1 for all rows
+     * @throws IllegalArgumentException If argument is smaller than -1.
+     * @since 3.5
+     */
+    public void setTopK(final int k) {
+        if (k < -1) {
+            throw new IllegalArgumentException("Invalid number of rows to retain: " + k);
+        }
+        m_topK = k;
+    }
+
     /**
      * Sorts the table passed in the constructor according to the settings and returns the sorted output table.
      *
@@ -413,19 +537,101 @@ public void setSortInMemory(final boolean sortInMemory) {
      * @throws CanceledExecutionException If canceled.
      */
     DataTable sortInternal(final ExecutionMonitor exec) throws CanceledExecutionException {
+        if (m_useNormalizedKeys && m_rowComparator instanceof RowComparator) {
+            m_keyEncoder = ((RowComparator)m_rowComparator).createNormalizedKeyEncoder();
+            if (m_keyEncoder == null) {
+                LOGGER.debug("Sort columns not supported by normalized keys, using row comparator");
+            }
+        }
         DataTable result;
-        if (m_sortInMemory && (m_rowsInInputTable <= Integer.MAX_VALUE)) {
-            result = sortInMemory(exec);
-        } else {
-            if (m_rowsInInputTable > Integer.MAX_VALUE) {
-                LOGGER.info("Not sorting table in memory, because it has more than " + Integer.MAX_VALUE + " rows.");
+        try {
+            if (m_topK >= 0) {
+                result = sortTopK(exec);
+            } else if (m_sortInMemory && (m_rowsInInputTable <= Integer.MAX_VALUE)) {
+                result = sortInMemory(exec);
+            } else {
+                if (m_rowsInInputTable > Integer.MAX_VALUE) {
+                    LOGGER.info("Not sorting table in memory, because it has more than " + Integer.MAX_VALUE
+                        + " rows.");
+                }
+                result = sortOnDisk(exec);
             }
-            result = sortOnDisk(exec);
+        } finally {
+            m_keyEncoder = null;
         }
         exec.setProgress(1.0);
         return result;
     }
 
+    private DataTable sortTopK(final ExecutionMonitor exec) throws CanceledExecutionException {
+        final int k = m_topK;
+        final long rowCount = m_rowsInInputTable;
+        // head of the queue is the largest (or, on ties, the most recently read) retained row
+        PriorityQueue<TopKEntry> heap = new PriorityQueue<TopKEntry>(Math.min(k, 1 << 16) + 1,
+            Collections.reverseOrder());
+        long index = 0;
+        exec.setMessage("Reading data");
+        ExecutionMonitor readExec = exec.createSubProgress(0.9);
+        final RowIterator it = m_inputTable.iterator();
+        try {
+            for (; it.hasNext() && k > 0; index++) {
+                readExec.checkCanceled();
+                DataRow row = it.next();
+                if (rowCount > 0) {
+                    readExec.setProgress(index / (double)rowCount, () -> "Reading row " + row.getKey());
+                }
+                TopKEntry entry = new TopKEntry(row, m_keyEncoder != null ? m_keyEncoder.encode(row) : null, index);
+                if (heap.size() < k) {
+                    heap.add(entry);
+                } else if (entry.compareTo(heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(entry);
+                }
+            }
+        } finally {
+            if (it instanceof CloseableRowIterator) {
+                ((CloseableRowIterator)it).close();
+            }
+        }
+        TopKEntry[] entries = heap.toArray(new TopKEntry[heap.size()]);
+        heap.clear();
+        Arrays.sort(entries);
+
+        exec.setMessage("Creating sorted table");
+        DataContainer dc = createDataContainer(m_dataTableSpec, false);
+        for (int i = 0; i < entries.length; i++) {
+            exec.checkCanceled();
+            dc.addRowToTable(entries[i].m_row);
+            entries[i] = null;
+        }
+        dc.close();
+        return dc.getTable();
+    }
+
+    /** A row retained by {@link #sortTopK(ExecutionMonitor)}, sorted by row (or key) and then input position. */
+    private final class TopKEntry implements Comparable<TopKEntry> {
+
+        private final DataRow m_row;
+
+        private final byte[] m_key;
+
+        private final long m_index;
+
+        TopKEntry(final DataRow row, final byte[] key, final long index) {
+            m_row = row;
+            m_key = key;
+            m_index = index;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int compareTo(final TopKEntry o) {
+            int value = m_key != null ? NormalizedKeyEncoder.compare(m_key, o.m_key)
+                : m_rowComparator.compare(m_row, o.m_row);
+            return value != 0 ? value : Long.compare(m_index, o.m_index);
+        }
+    }
+
     private DataTable sortInMemory(final ExecutionMonitor exec) throws CanceledExecutionException {
         final DataTable dataTable = m_inputTable;
         List<DataRow> rowList = new ArrayList<DataRow>();
@@ -451,7 +657,7 @@ private DataTable sortInMemory(final ExecutionMonitor exec) throws CanceledExecu
         }
 
         exec.setMessage("Sorting");
-        Collections.sort(rowList, m_rowComparator);
+        sortRows(rowList, m_parallelism > 1);
 
         exec.setMessage("Creating sorted table");
 
@@ -501,17 +707,25 @@ private DataTable sortOnDisk(final ExecutionMonitor exec) throws CanceledExecuti
 
         m_progress = 0.0;
         m_incProgress = m_rowsInInputTable <= 0 ? -1.0 : 1.0 / (2.0 * m_rowsInInputTable);
-        long counter = createInitialChunks(exec, dataTable);
-        // no or one row only in input table, can exit immediately
-        // (can't rely on global rowCount - might not be set)
-        if (counter <= 1) {
-            return m_inputTable;
+        Iterator<DataRow> result;
+        if (m_parallelism > 1) {
+            m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(m_parallelism);
         }
+        try {
+            long counter = createInitialChunks(exec, dataTable);
+            // no or one row only in input table, can exit immediately
+            // (can't rely on global rowCount - might not be set)
+            if (counter <= 1) {
+                return m_inputTable;
+            }
 
-        exec.setMessage("Merging temporary tables");
-        // The final output container
-        // merge chunks until there are only so much left, as m_maxopencontainers
-        Iterator<DataRow> result = mergeChunks(exec, false);
+            exec.setMessage("Merging temporary tables");
+            // The final output container
+            // merge chunks until there are only so much left, as m_maxopencontainers
+            result = mergeChunks(exec, false);
+        } finally {
+            m_pool = null;
+        }
 
         // add results to the final container
         // The final output container, leave it to the
@@ -533,6 +747,9 @@ private DataTable sortOnDisk(final ExecutionMonitor exec) throws CanceledExecuti
      */
     Iterator<DataRow> mergeChunks(final ExecutionMonitor exec, final boolean mergeCompletely)
         throws CanceledExecutionException {
+        if (m_pool != null) {
+            mergeChunksInParallel(exec);
+        }
         while (!m_chunksContainer.isEmpty()) {
             exec.setMessage("Merging temporary tables, " + m_chunksContainer.size() + " remaining");
             if (m_chunksContainer.size() < m_maxOpenContainers) {
@@ -578,6 +795,36 @@ Iterator<DataRow> mergeChunks(final ExecutionMonitor exec, final boolean mergeCo
         return Collections.<DataRow>emptyList().iterator();
     }
 
+    /**
+     * Merges groups of {@link #m_maxOpenContainers} chunks concurrently until at most that many chunks are left. The
+     * order of the chunks is retained (merged groups are followed by the chunks that didn't fill a group), which keeps
+     * the sort stable.
+     */
+    private void mergeChunksInParallel(final ExecutionMonitor exec) throws CanceledExecutionException {
+        while (m_chunksContainer.size() > m_maxOpenContainers) {
+            exec.setMessage("Merging temporary tables, " + m_chunksContainer.size() + " remaining");
+            List<Future<DataTable>> merges = new ArrayList<Future<DataTable>>();
+            while (m_chunksContainer.size() >= m_maxOpenContainers) {
+                final Queue<MergeEntry> containersToMerge = new ArrayDeque<>();
+                for (int i = 0; i < m_maxOpenContainers; i++) {
+                    containersToMerge.add(new MergeEntry(m_chunksContainer.poll(), i, m_rowComparator));
+                }
+                merges.add(m_pool.enqueue(new Callable<DataTable>() {
+                    @Override
+                    public DataTable call() throws Exception {
+                        return writeChunk(new MergingIterator(containersToMerge), exec, 0.0);
+                    }
+                }));
+            }
+            List<Iterable<DataRow>> remainingChunks = new ArrayList<Iterable<DataRow>>(m_chunksContainer);
+            m_chunksContainer.clear();
+            for (Future<DataTable> merge : merges) {
+                m_chunksContainer.add(ThreadUtils.waitFor(merge, merges));
+            }
+            m_chunksContainer.addAll(remainingChunks);
+        }
+    }
+
     private long createInitialChunks(final ExecutionMonitor exec, final DataTable dataTable)
         throws CanceledExecutionException {
         long outerCounter;
@@ -587,6 +834,8 @@ private long createInitialChunks(final ExecutionMonitor exec, final DataTable da
         int rowsInCurrentChunk = 0;
 
         MemoryActionIndicator memObservable = m_memService.newIndicator();
+        // chunks currently sorted and written by m_pool, in input order
+        Queue<Future<DataTable>> pendingChunks = new ArrayDeque<>();
 
         exec.setMessage("Reading table");
         for (Iterator<DataRow> iter = dataTable.iterator(); iter.hasNext();) {
@@ -595,8 +844,7 @@ private long createInitialChunks(final ExecutionMonitor exec, final DataTable da
             exec.checkCanceled();
             String message = "Reading table, " + counter + " rows read";
             if (m_rowsInInputTable > 0) {
-                m_progress += m_incProgress;
-                exec.setProgress(m_progress, message);
+                addProgress(exec, m_incProgress, message);
             } else {
                 exec.setMessage(message);
             }
@@ -605,13 +853,34 @@ private long createInitialChunks(final ExecutionMonitor exec, final DataTable da
             if ((memObservable.lowMemoryActionRequired() && (rowsInCurrentChunk >= m_maxOpenContainers))
                 || (counter % m_maxRowsPerChunk == 0)) {
                 LOGGER.debug("Writing chunk [" + chunkStartRow + ":" + counter + "] - mem usage: " + getMemUsage());
+                if (m_pool != null) {
+                    // rows are read further while the chunk is sorted and written
+                    // writing a row counts as much progress as reading it (as in the sequential case)
+                    final List<DataRow> chunk = buffer;
+                    final double progressPerRow = m_rowsInInputTable > 0 ? m_incProgress : 0.0;
+                    buffer = new ArrayList<DataRow>();
+                    pendingChunks.add(m_pool.enqueue(new Callable<DataTable>() {
+                        @Override
+                        public DataTable call() throws Exception {
+                            sortRows(chunk, false);
+                            return writeChunk(chunk.listIterator(), exec, progressPerRow);
+                        }
+                    }));
+                    while (pendingChunks.size() >= m_parallelism
+                        || (!pendingChunks.isEmpty() && m_memService.isMemoryLow())) {
+                        m_chunksContainer.add(ThreadUtils.waitFor(pendingChunks.poll(), pendingChunks));
+                    }
+                    chunkStartRow = counter + 1;
+                    rowsInCurrentChunk = 0;
+                    continue;
+                }
                 if (m_rowsInInputTable > 0) {
                     long estimatedIncrements = m_rowsInInputTable - counter + buffer.size();
                     m_incProgress = (0.5 - m_progress) / estimatedIncrements;
                 }
                 exec.setMessage("Sorting temporary buffer");
                 // sort buffer
-                Collections.sort(buffer, m_rowComparator);
+                sortRows(buffer, false);
                 // write buffer to disk
                 openChunk();
                 final int totalBufferSize = buffer.size();
@@ -635,10 +904,13 @@ private long createInitialChunks(final ExecutionMonitor exec, final DataTable da
                 rowsInCurrentChunk = 0;
             }
         }
+        while (!pendingChunks.isEmpty()) {
+            m_chunksContainer.add(ThreadUtils.waitFor(pendingChunks.poll(), pendingChunks));
+        }
         // Add buffer to the chunks
         if (!buffer.isEmpty()) {
             // sort buffer
-            Collections.sort(buffer, m_rowComparator);
+            sortRows(buffer, m_parallelism > 1);
             m_chunksContainer.add(buffer);
         }
         outerCounter = counter;
@@ -650,8 +922,7 @@ private long createInitialChunks(final ExecutionMonitor exec, final DataTable da
      * the current container and adds it to the chunk list.
      */
     void openChunk() {
-        m_currentContainer = createDataContainer(m_dataTableSpec, true);
-        m_currentContainer.setMaxPossibleValues(0);
+        m_currentContainer = createChunkContainer();
     }
 
     /**
@@ -669,16 +940,123 @@ void addRowToChunk(final DataRow dataRow) {
      */
     void closeChunk() {
         if (m_currentContainer != null) {
-            m_currentContainer.close();
+            DataTable table = closeChunkContainer(m_currentContainer);
             if (m_itemCount > 0) {
-                m_chunksContainer.offer(m_currentContainer.getTable());
+                m_chunksContainer.offer(table);
             } else {
-                clearTable(m_currentContainer.getTable());
+                clearChunkTable(table);
             }
             m_itemCount = 0;
         }
     }
 
+    private DataContainer createChunkContainer() {
+        DataContainer container;
+        synchronized (m_containerLock) {
+            container = createDataContainer(m_dataTableSpec, true);
+        }
+        container.setMaxPossibleValues(0);
+        return container;
+    }
+
+    private DataTable closeChunkContainer(final DataContainer container) {
+        synchronized (m_containerLock) {
+            container.close();
+            return container.getTable();
+        }
+    }
+
+    private void clearChunkTable(final DataTable table) {
+        synchronized (m_containerLock) {
+            clearTable(table);
+        }
+    }
+
+    /**
+     * Writes the argument rows into a new temporary container, used by the threads of {@link #m_pool}. Rows are
+     * released from a list iterator as soon as they are written.
+     *
+     * @param rows the sorted rows
+     * @param exec for cancelation and progress
+     * @param progressPerRow the progress added per written row, 0 to not report progress
+     * @return the temporary table
+     * @throws CanceledExecutionException if canceled
+     */
+    private DataTable writeChunk(final Iterator<DataRow> rows, final ExecutionMonitor exec,
+        final double progressPerRow) throws CanceledExecutionException {
+        DataContainer container = createChunkContainer();
+        boolean isComplete = false;
+        try {
+            int unreportedRows = 0;
+            while (rows.hasNext()) {
+                container.addRowToTable(rows.next());
+                if (rows instanceof ListIterator) {
+                    ((ListIterator<DataRow>)rows).set(null);
+                }
+                exec.checkCanceled();
+                if (progressPerRow > 0.0 && ++unreportedRows == 1024) {
+                    addProgress(exec, unreportedRows * progressPerRow, null);
+                    unreportedRows = 0;
+                }
+            }
+            if (progressPerRow > 0.0 && unreportedRows > 0) {
+                addProgress(exec, unreportedRows * progressPerRow, null);
+            }
+            isComplete = true;
+        } finally {
+            if (!isComplete) {
+                clearChunkTable(closeChunkContainer(container));
+            }
+        }
+        return closeChunkContainer(container);
+    }
+
+    /** Sorts the rows in place, on their normalized keys if {@link #m_keyEncoder} is set. */
+    private void sortRows(final List<DataRow> rows, final boolean inParallel) {
+        if (m_keyEncoder != null) {
+            KeyedRow[] keyedRows = new KeyedRow[rows.size()];
+            ListIterator<DataRow> it = rows.listIterator();
+            for (int i = 0; i < keyedRows.length; i++) {
+                DataRow row = it.next();
+                keyedRows[i] = new KeyedRow(m_keyEncoder.encode(row), row);
+            }
+            if (inParallel) {
+                Arrays.parallelSort(keyedRows);
+            } else {
+                Arrays.sort(keyedRows);
+            }
+            it = rows.listIterator();
+            for (int i = 0; i < keyedRows.length; i++) {
+                it.next();
+                it.set(keyedRows[i].getRow());
+                keyedRows[i] = null;
+            }
+        } else if (inParallel) {
+            DataRow[] array = rows.toArray(new DataRow[rows.size()]);
+            Arrays.parallelSort(array, m_rowComparator);
+            ListIterator<DataRow> it = rows.listIterator();
+            for (DataRow row : array) {
+                it.next();
+                it.set(row);
+            }
+        } else {
+            Collections.sort(rows, m_rowComparator);
+        }
+    }
+
+    /**
+     * Adds to {@link #m_progress} and reports it. Called by the reading thread and, while the initial chunks are
+     * written concurrently, by the threads of {@link #m_pool}.
+     */
+    private synchronized void addProgress(final ExecutionMonitor exec, final double increment, final String message) {
+        m_progress += increment;
+        if (message != null) {
+            exec.setProgress(m_progress, message);
+        } else {
+            exec.setProgress(m_progress);
+        }
+    }
+
     private String getMemUsage() {
         Runtime runtime = Runtime.getRuntime();
         long free = runtime.freeMemory();
@@ -696,6 +1074,11 @@ private String getMemUsage() {
     private final class MergeEntry implements Comparable<MergeEntry>, Iterator<DataRow> {
         private DataRow m_row;
 
+        /** Normalized key of m_row, null if not sorting on normalized keys. */
+        private byte[] m_key;
+
+        private final NormalizedKeyEncoder m_encoder = m_keyEncoder;
+
         private Iterable<DataRow> m_iterable;
 
         private Iterator<DataRow> m_iterator;
@@ -719,7 +1102,7 @@ private void open() {
             if (m_iterator == null) {
                 m_iterator = m_iterable.iterator();
                 if (m_iterator.hasNext()) {
-                    m_row = m_iterator.next();
+                    setRow(m_iterator.next());
                 }
             }
         }
@@ -732,7 +1115,7 @@ public boolean hasNext() {
             // open the file lazily
             if (m_row == null) {
                 if (m_iterable instanceof DataTable) {
-                    clearTable((DataTable)m_iterable);
+                    clearChunkTable((DataTable)m_iterable);
                 }
                 return false;
             }
@@ -749,10 +1132,15 @@ public DataRow next() {
                 throw new NoSuchElementException();
             }
             DataRow toReturn = m_row;
-            m_row = m_iterator.hasNext() ? m_iterator.next() : null;
+            setRow(m_iterator.hasNext() ? m_iterator.next() : null);
             return toReturn;
         }
 
+        private void setRow(final DataRow row) {
+            m_row = row;
+            m_key = m_encoder != null && row != null ? m_encoder.encode(row) : null;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -766,7 +1154,8 @@ public void remove() {
          */
         @Override
         public int compareTo(final MergeEntry that) {
-            int value = m_comparator.compare(this.m_row, that.m_row);
+            int value = m_key != null && that.m_key != null ? NormalizedKeyEncoder.compare(m_key, that.m_key)
+                : m_comparator.compare(this.m_row, that.m_row);
             if (value == 0) {
                 return this.m_index - that.m_index;
             } else {
@@ -893,6 +1282,9 @@ private static final class RowComparator implements Comparator<DataRow> {
          */
         private final boolean m_sortMissingsToEnd;
 
+        /** The spec to the table, needed for {@link #createNormalizedKeyEncoder()}. */
+        private final DataTableSpec m_spec;
+
         /**
          * @param indices Array of sort column indices.
          * @param sortAscending Sort order.
@@ -914,6 +1306,12 @@ private static final class RowComparator implements Comparator<DataRow> {
             }
             m_sortAscending = sortAscending;
             m_sortMissingsToEnd = sortMissingsToEnd;
+            m_spec = spec;
+        }
+
+        /** @return an encoder for normalized keys or null if the sort columns are not supported. */
+        NormalizedKeyEncoder createNormalizedKeyEncoder() {
+            return NormalizedKeyEncoder.create(m_indices, m_sortAscending, m_sortMissingsToEnd, m_spec);
         }
 
         /** {@inheritDoc} */
@@ -0,0 +1,318 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.sort;
+
+import java.util.Arrays;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.DoubleValueComparator;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.IntValueComparator;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.LongValueComparator;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.StringValueComparator;
+import org.knime.core.data.date.DateAndTimeCell;
+import org.knime.core.data.date.DateAndTimeValue;
+
+/**
+ * Encodes the sort columns of a row into a byte array (a "normalized key") whose unsigned lexicographic order is the
+ * order defined by the sorter's row comparator, including sort direction and the placement of missing values. Rows
+ * are encoded once and then compared using {@link #compare(byte[], byte[])}, which avoids the per comparison dispatch
+ * to the columns' {@link DataValueComparator}.
+ *
+ * <p>Supported are columns whose comparator is the one of {@link IntValue}, {@link LongValue}, {@link DoubleValue},
+ * {@link StringValue} or {@link DateAndTimeValue} and the row key.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class NormalizedKeyEncoder {
+
+    private enum KeyType {
+        INT, LONG, DOUBLE, STRING, DATE_AND_TIME, ROW_KEY;
+    }
+
+    /** Prefix of a column's encoding if the cell is missing and missing cells are sorted first. */
+    private static final byte MISSING_FIRST = 0;
+
+    /** Prefix of a non-missing value. */
+    private static final byte PRESENT = 1;
+
+    /** Prefix of a column's encoding if the cell is missing and missing cells are sorted last. */
+    private static final byte MISSING_LAST = 2;
+
+    private final int[] m_indices;
+
+    private final KeyType[] m_types;
+
+    private final boolean[] m_sortAscending;
+
+    private final boolean[] m_missingLast;
+
+    private NormalizedKeyEncoder(final int[] indices, final KeyType[] types, final boolean[] sortAscending,
+        final boolean[] missingLast) {
+        m_indices = indices;
+        m_types = types;
+        m_sortAscending = sortAscending;
+        m_missingLast = missingLast;
+    }
+
+    /**
+     * Creates a new encoder for the argument sort settings (as passed to the row comparator).
+     *
+     * @param indices the sort column indices, -1 for the row key
+     * @param sortAscending the sort order for each column
+     * @param sortMissingsToEnd whether missing values are always sorted last
+     * @param spec the table spec
+     * @return a new encoder or <code>null</code> if any of the columns is not supported
+     */
+    static NormalizedKeyEncoder create(final int[] indices, final boolean[] sortAscending,
+        final boolean sortMissingsToEnd, final DataTableSpec spec) {
+        KeyType[] types = new KeyType[indices.length];
+        boolean[] missingLast = new boolean[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] == -1) {
+                types[i] = KeyType.ROW_KEY;
+            } else {
+                types[i] = getKeyType(spec.getColumnSpec(indices[i]).getType().getComparator());
+                if (types[i] == null) {
+                    return null;
+                }
+            }
+            // missing cells are smaller than any other value (DataValueComparator) unless forced to the end
+            missingLast[i] = sortMissingsToEnd || !sortAscending[i];
+        }
+        return new NormalizedKeyEncoder(indices.clone(), types, sortAscending.clone(), missingLast);
+    }
+
+    private static KeyType getKeyType(final DataValueComparator comparator) {
+        Class<?> cl = comparator.getClass();
+        if (cl == IntValueComparator.class) {
+            return KeyType.INT;
+        } else if (cl == LongValueComparator.class) {
+            return KeyType.LONG;
+        } else if (cl == DoubleValueComparator.class) {
+            return KeyType.DOUBLE;
+        } else if (cl == StringValueComparator.class) {
+            return KeyType.STRING;
+        } else if (cl == DateAndTimeCell.TYPE.getComparator().getClass()) {
+            return KeyType.DATE_AND_TIME;
+        }
+        return null;
+    }
+
+    /**
+     * Encodes the sort columns of the argument row. This method is thread-safe.
+     *
+     * @param row the row
+     * @return the normalized key
+     */
+    byte[] encode(final DataRow row) {
+        KeyBuilder key = new KeyBuilder();
+        for (int i = 0; i < m_indices.length; i++) {
+            if (m_types[i] == KeyType.ROW_KEY) {
+                int start = key.m_length;
+                key.writeString(row.getKey().getString());
+                key.invertIfDescending(start, m_sortAscending[i]);
+                continue;
+            }
+            DataCell cell = row.getCell(m_indices[i]);
+            if (cell.isMissing()) {
+                key.write(m_missingLast[i] ? MISSING_LAST : MISSING_FIRST);
+                continue;
+            }
+            key.write(PRESENT);
+            int start = key.m_length;
+            switch (m_types[i]) {
+                case INT:
+                    key.writeInt(((IntValue)cell).getIntValue() ^ Integer.MIN_VALUE);
+                    break;
+                case LONG:
+                    key.writeLong(((LongValue)cell).getLongValue() ^ Long.MIN_VALUE);
+                    break;
+                case DOUBLE:
+                    // same order as Double#compare (-0.0 < 0.0, NaN largest)
+                    long bits = Double.doubleToLongBits(((DoubleValue)cell).getDoubleValue());
+                    key.writeLong(bits < 0 ? ~bits : bits ^ Long.MIN_VALUE);
+                    break;
+                case STRING:
+                    key.writeString(((StringValue)cell).getStringValue());
+                    break;
+                case DATE_AND_TIME:
+                    key.writeLong(((DateAndTimeValue)cell).getUTCTimeInMillis() ^ Long.MIN_VALUE);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown type: " + m_types[i]);
+            }
+            key.invertIfDescending(start, m_sortAscending[i]);
+        }
+        return key.toByteArray();
+    }
+
+    /**
+     * Compares two normalized keys byte by byte (unsigned).
+     *
+     * @param key1 first key
+     * @param key2 second key
+     * @return negative, zero or positive as in {@link java.util.Comparator#compare(Object, Object)}
+     */
+    static int compare(final byte[] key1, final byte[] key2) {
+        final int length = Math.min(key1.length, key2.length);
+        for (int i = 0; i < length; i++) {
+            int b1 = key1[i] & 0xFF;
+            int b2 = key2[i] & 0xFF;
+            if (b1 != b2) {
+                return b1 - b2;
+            }
+        }
+        return key1.length - key2.length;
+    }
+
+    /** A row along with its normalized key, sorted by key. */
+    static final class KeyedRow implements Comparable<KeyedRow> {
+
+        private final byte[] m_key;
+
+        private final DataRow m_row;
+
+        /**
+         * @param key the key of the row
+         * @param row the row
+         */
+        KeyedRow(final byte[] key, final DataRow row) {
+            m_key = key;
+            m_row = row;
+        }
+
+        /** @return the row */
+        DataRow getRow() {
+            return m_row;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int compareTo(final KeyedRow o) {
+            return compare(m_key, o.m_key);
+        }
+    }
+
+    /** Growing byte array. Strings are encoded in a prefix free way so that the fields can be concatenated. */
+    private static final class KeyBuilder {
+
+        private byte[] m_bytes = new byte[32];
+
+        private int m_length;
+
+        private void ensureCapacity(final int additional) {
+            if (m_length + additional > m_bytes.length) {
+                m_bytes = Arrays.copyOf(m_bytes, Math.max(2 * m_bytes.length, m_length + additional));
+            }
+        }
+
+        void write(final byte b) {
+            ensureCapacity(1);
+            m_bytes[m_length++] = b;
+        }
+
+        void writeInt(final int value) {
+            ensureCapacity(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                m_bytes[m_length++] = (byte)(value >>> shift);
+            }
+        }
+
+        void writeLong(final long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                m_bytes[m_length++] = (byte)(value >>> shift);
+            }
+        }
+
+        /**
+         * Writes the chars big-endian (same order as {@link String#compareTo(String)}). Zero bytes are escaped as
+         * 0x00 0xFF and the string is terminated by 0x00 0x00, which is smaller than any continuation.
+         */
+        void writeString(final String s) {
+            final int length = s.length();
+            ensureCapacity(2 * length + 2);
+            for (int i = 0; i < length; i++) {
+                char c = s.charAt(i);
+                writeEscaped((byte)(c >>> 8));
+                writeEscaped((byte)c);
+            }
+            ensureCapacity(2);
+            m_bytes[m_length++] = 0;
+            m_bytes[m_length++] = 0;
+        }
+
+        private void writeEscaped(final byte b) {
+            if (b == 0) {
+                ensureCapacity(2);
+                m_bytes[m_length++] = 0;
+                m_bytes[m_length++] = (byte)0xFF;
+            } else {
+                ensureCapacity(1);
+                m_bytes[m_length++] = b;
+            }
+        }
+
+        /** Inverts the bytes written since <code>start</code> if the sort order is descending. */
+        void invertIfDescending(final int start, final boolean ascending) {
+            if (!ascending) {
+                for (int i = start; i < m_length; i++) {
+                    m_bytes[i] = (byte)~m_bytes[i];
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(m_bytes, m_length);
+        }
+    }
+}
@@ -58,6 +58,7 @@
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -325,6 +326,73 @@ public CloseableRowIterator iterator() {
         return m_delegate.iterator();
     }
 
+    /**
+     * Get a new iterator over the rows in the range
+     * <code>[fromIndex, toIndex)</code>. Tables stored in memory or on disc
+     * (in a format that supports random access) don't need to read the rows
+     * preceding <code>fromIndex</code>, which makes this method suitable for
+     * paging, sampling and for processing disjoint row ranges in parallel
+     * (each range with its own iterator).
+     *
+     * @param fromIndex Index of the first row to return (inclusive).
+     * @param toIndex Index of the row after the last row to return
+     *            (exclusive).
+     * @return A new iterator over the row range.
+     * @throws IndexOutOfBoundsException If
+     *             <code>fromIndex &lt; 0 || toIndex &gt; size()
+     *             || fromIndex &gt; toIndex</code>
+     * @since 3.5
+     */
+    public CloseableRowIterator iterator(final long fromIndex,
+            final long toIndex) {
+        if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Invalid row range ["
+                + fromIndex + ", " + toIndex + "), table has " + size()
+                + " rows");
+        }
+        return m_delegate.iterator(fromIndex, toIndex);
+    }
+
+    /**
+     * Splits the table into (at most) <code>n</code> disjoint, consecutive row
+     * ranges of about equal size and returns an iterator for each of them.
+     * The iterators are independent of each other and can be consumed
+     * concurrently, e.g. by submitting one task per iterator to
+     * {@link org.knime.core.util.ThreadPool} or an executor. The i-th
+     * iterator returns the rows directly preceding the rows of the
+     * (i+1)-th iterator, i.e. concatenating the rows of all iterators gives
+     * the table in its original order.
+     *
+     * <p>The ranges are opened with {@link #iterator(long, long)}, hence
+     * tables kept in memory and tables on disc (with block index) as well as
+     * concatenated, joined and column-rearranged tables based on them don't
+     * need to read the rows preceding the range. Each iterator should be
+     * {@link CloseableRowIterator#close() closed} if not consumed entirely.
+     *
+     * @param n The desired number of iterators, must be &gt; 0.
+     * @return An array of <code>min(n, max(size(), 1))</code> iterators.
+     * @throws IllegalArgumentException If <code>n &lt;= 0</code>
+     * @since 3.5
+     */
+    public CloseableRowIterator[] splitIterators(final int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException(
+                "Number of iterators must be > 0: " + n);
+        }
+        final long size = size();
+        final int count = (int)Math.max(1L, Math.min(n, size));
+        CloseableRowIterator[] result = new CloseableRowIterator[count];
+        long from = 0L;
+        for (int i = 0; i < count; i++) {
+            // distribute remainder evenly over first partitions
+            long to = from + size / count + (i < size % count ? 1 : 0);
+            result[i] = iterator(from, to);
+            from = to;
+        }
+        assert from == size;
+        return result;
+    }
+
     /**
      * Get an iterator instance that will return missing values when the table
      * is cleared as part of a node reset.
@@ -393,6 +461,44 @@ public Integer getBufferedTableId() {
         return m_tableID;
     }
 
+    /** Iterator on a row range that skips the leading rows of an iterator
+     * over the entire table. Used as default implementation of
+     * {@link KnowsRowCountTable#iterator(long, long)}. */
+    private static final class RangeRowIterator extends CloseableRowIterator {
+
+        private final CloseableRowIterator m_it;
+        private long m_remaining;
+
+        private RangeRowIterator(final CloseableRowIterator it,
+            final long fromIndex, final long toIndex) {
+            m_it = it;
+            for (long i = 0; i < fromIndex && it.hasNext(); i++) {
+                it.next();
+            }
+            m_remaining = toIndex - fromIndex;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return m_remaining > 0 && m_it.hasNext();
+        }
+
+        @Override
+        public DataRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Iterator at end");
+            }
+            m_remaining -= 1;
+            return m_it.next();
+        }
+
+        @Override
+        public void close() {
+            m_remaining = 0;
+            m_it.close();
+        }
+    }
+
     private final class CloseableFailProveRowIterator
         extends CloseableRowIterator {
 
@@ -859,6 +965,20 @@ void saveToFile(final File f, final NodeSettingsWO settings,
         @Override
         public CloseableRowIterator iterator();
 
+        /** Implementation of {@link BufferedDataTable#iterator(long, long)}.
+         * The arguments are already validated. The default implementation
+         * skips the leading rows of a full {@link #iterator()}, subclasses
+         * override it if they can access a row range more efficiently.
+         * @param fromIndex Index of the first row (inclusive).
+         * @param toIndex Index of the last row (exclusive).
+         * @return A new iterator over the row range.
+         * @since 3.5
+         */
+        default CloseableRowIterator iterator(final long fromIndex,
+                final long toIndex) {
+            return new RangeRowIterator(iterator(), fromIndex, toIndex);
+        }
+
         /** Reference to the underlying tables, if any. A reference
          * table exists if this object is just a wrapper, such as a
          * RearrangeColumnsTable or if this table concatenates a set of
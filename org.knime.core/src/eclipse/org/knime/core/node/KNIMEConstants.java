@@ -103,6 +103,13 @@ public final class KNIMEConstants {
     public static final String PROPERTY_MAX_THREAD_COUNT =
         "org.knime.core.maxThreads";
 
+    /** Java property to execute nodes flagged as {@link IOBoundNode} in a separate thread pool with the given maximum
+     * number of threads instead of the {@link #GLOBAL_THREAD_POOL}. Threads of that pool are only created on demand.
+     * The default is 0, which executes all nodes in the global thread pool.
+     * @since 3.5
+     */
+    public static final String PROPERTY_IO_THREAD_COUNT = "knime.io.maxThreads";
+
     /** Java property name to specify the default temp directory for
      * KNIME temp files (such as data files). This can be changed in the
      * preference pages and is by default the same as the java.io.tmpdir */
@@ -145,6 +152,23 @@ public final class KNIMEConstants {
      */
     public static final String PROPERTY_CELLS_IN_MEMORY = "org.knime.container.cellsinmemory";
 
+    /** Java property name to set the fraction of the maximum heap size that tables may occupy in main memory (if
+     * memory setting is "Keep only small tables in memory"). The size of each table is estimated while rows are
+     * added; if the total exceeds the budget, the largest and least recently used tables are written to disc. The
+     * default is {@value org.knime.core.data.container.DataContainer#DEF_MEMORY_BUDGET_FRACTION}. A value of 0
+     * reverts to the cell count threshold ({@link #PROPERTY_CELLS_IN_MEMORY}), which is also used if that property
+     * is set explicitly.
+     * @since 3.5
+     */
+    public static final String PROPERTY_TABLE_MEMORY_BUDGET = "knime.container.memory.budget";
+
+    /** Java property name to set the fraction of the maximum heap size that is used to cache tables that are
+     * repeatedly read from disc (see {@link org.knime.core.data.container.TableCache}). The default is {@value
+     * org.knime.core.data.container.TableCache#DEF_BUDGET_FRACTION}, 0 disables the cache.
+     * @since 3.5
+     */
+    public static final String PROPERTY_TABLE_CACHE_BUDGET = "knime.container.cache.budget";
+
     /** Java property name to specify the minimum free disc space in MB that needs to be available. If less is
      * available, no further table files &amp; blobs will be created (resulting in an exception). Default is
      * {@value org.knime.core.data.container.DataContainer#DEF_MIN_FREE_DISC_SPACE_IN_TEMP_IN_MB} MB.
@@ -156,12 +180,29 @@ public final class KNIMEConstants {
      * results in smaller temp-file sizes but also (sometimes significant)
      * longer runtime. The default is {@value
      * org.knime.core.data.container.DataContainer#DEF_GZIP_COMPRESSION}.
-     * <p><strong>Warning:</strong> Changing this property will result in KNIME
-     * not being able to read workflows written previously (with a
-     * different compression property). */
+     * Besides "true" (gzip) and "false" (no compression) the property also
+     * accepts the name of a
+     * {@link org.knime.core.data.container.CompressionFormat}, e.g. "lz4" for
+     * a fast block compression. The format is saved with each table, tables
+     * written with a different setting can still be read. */
     public static final String PROPERTY_TABLE_GZIP_COMPRESSION =
         "knime.compress.io";
 
+    /** Java property to enable a column oriented representation of tables that are kept in main memory. Columns of
+     * native types (double, int, long, boolean and string cells) are then stored in primitive arrays (strings are
+     * dictionary encoded) and the cell objects are only created when the table is read, which reduces the heap
+     * footprint of in-memory tables considerably. The default is <code>false</code>.
+     * @since 3.5
+     */
+    public static final String PROPERTY_TABLE_COLUMNAR_IN_MEMORY = "knime.container.columnar";
+
+    /** Java property to enable/disable dictionary encoding of string columns in table files. Repeated strings
+     * are then only written once per chunk of rows and share the same cell instance when read. Tables written with
+     * dictionary encoding can't be read by previous versions. The default is <code>false</code>.
+     * @since 3.5
+     */
+    public static final String PROPERTY_TABLE_DICTIONARY_ENCODING = "knime.container.dictionary";
+
     /** Java property to enable/disable row ID duplicate checks on tables.
      * Tables in KNIME are supposed to have unique IDs, whereby the uniqueness
      * is asserted using a duplicate checker. This property will disable this
@@ -87,9 +87,17 @@ public MiscSettingsTab() {
                 "Keep only small tables in memory.", true);
         cacheSmall.setActionCommand(MemoryPolicy.CacheSmallInMemory.toString());
         m_group.add(cacheSmall);
-        cacheSmall.setToolTipText("Tables with less than "
-                + DataContainer.MAX_CELLS_IN_MEMORY + " cells are kept in "
-                + "main memory, otherwise swapped to disc.");
+        if (DataContainer.MEMORY_BUDGET_FRACTION > 0.0) {
+            cacheSmall.setToolTipText("Tables are kept in main memory as "
+                    + "long as all such tables use less than "
+                    + Math.round(100 * DataContainer.MEMORY_BUDGET_FRACTION)
+                    + "% of the available memory, otherwise the largest and "
+                    + "least recently used tables are swapped to disc.");
+        } else {
+            cacheSmall.setToolTipText("Tables with less than "
+                    + DataContainer.MAX_CELLS_IN_MEMORY + " cells are kept in "
+                    + "main memory, otherwise swapped to disc.");
+        }
         JRadioButton cacheOnDisc = new JRadioButton(
                 "Write tables to disc.");
         cacheOnDisc.setActionCommand(MemoryPolicy.CacheOnDisc.toString());
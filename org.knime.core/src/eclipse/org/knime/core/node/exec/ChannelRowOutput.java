@@ -0,0 +1,197 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import java.util.List;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.streamable.RowOutput;
+
+/**
+ * Output of a streamed node that hands the rows to the {@link RowChannel channels} of all streaming consumers and also
+ * writes them into a table. The table is always complete, so that the node's output is valid once the node is
+ * executed, even if its rows were streamed. Without any channels it simply collects the rows of a node (or
+ * partition) that is run via its streamable operator.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ChannelRowOutput extends RowOutput {
+
+    private final List<RowChannel> m_channels;
+
+    private final ExecutionContext m_exec;
+
+    private DataTableSpec m_spec;
+
+    private BufferedDataContainer m_container;
+
+    private BufferedDataTable m_table;
+
+    private boolean m_hasRows;
+
+    private boolean m_isClosed;
+
+    /**
+     * @param spec the configured spec of the output, may be null if there are no channels
+     * @param channels the channels of the streaming consumers
+     * @param exec used to create the table
+     */
+    ChannelRowOutput(final DataTableSpec spec, final List<RowChannel> channels, final ExecutionContext exec) {
+        m_spec = spec;
+        m_channels = channels;
+        m_exec = exec;
+    }
+
+    /**
+     * Sets the final spec as computed by the node, ignored if null or if rows were added already.
+     *
+     * @param spec the spec
+     */
+    void setFinalSpec(final DataTableSpec spec) {
+        if (spec != null && !m_hasRows && m_channels.isEmpty()) {
+            m_spec = spec;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void push(final DataRow row) throws InterruptedException {
+        checkOpen();
+        m_hasRows = true;
+        getContainer().addRowToTable(row);
+        for (RowChannel channel : m_channels) {
+            channel.put(row);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void push(final DataRow[] rows) throws InterruptedException {
+        checkOpen();
+        if (rows.length == 0) {
+            return;
+        }
+        m_hasRows = true;
+        getContainer().addRowsToTable(rows);
+        for (RowChannel channel : m_channels) {
+            for (DataRow row : rows) {
+                if (!channel.put(row)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void checkOpen() {
+        if (m_isClosed) {
+            throw new IllegalStateException("Output is already closed");
+        }
+    }
+
+    private BufferedDataContainer getContainer() {
+        if (m_container == null) {
+            if (m_spec == null) {
+                throw new IllegalStateException("No spec available to collect the output rows");
+            }
+            m_container = m_exec.createDataContainer(m_spec);
+        }
+        return m_container;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setFully(final BufferedDataTable table) throws InterruptedException {
+        if (m_hasRows || m_isClosed) {
+            throw new IllegalStateException("Rows have already been added to the output");
+        }
+        m_table = table;
+        for (RowChannel channel : m_channels) {
+            for (DataRow row : table) {
+                if (!channel.put(row)) {
+                    break;
+                }
+            }
+        }
+        close();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws InterruptedException {
+        if (m_isClosed) {
+            return;
+        }
+        m_isClosed = true;
+        for (RowChannel channel : m_channels) {
+            channel.close();
+        }
+        if (m_container != null) {
+            m_container.close();
+            m_table = m_container.getTable();
+        }
+    }
+
+    /**
+     * Returns the table to publish at the node's output port, i.e. the table set via
+     * {@link #setFully(BufferedDataTable)} or the table of all pushed rows.
+     *
+     * @return the output table, only to be called after {@link #close()}
+     */
+    BufferedDataTable getTable() {
+        if (m_table == null) {
+            if (m_spec == null) {
+                throw new IllegalStateException("No spec available to create the output table");
+            }
+            BufferedDataContainer container = m_exec.createDataContainer(m_spec);
+            container.close();
+            m_table = container.getTable();
+        }
+        return m_table;
+    }
+}
@@ -0,0 +1,438 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.port.flowvariable.FlowVariablePortObject;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.MergeOperator;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortObjectInput;
+import org.knime.core.node.streamable.PortObjectOutput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput.OutputClosedException;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.streamable.StreamableOperatorInternals;
+import org.knime.core.node.workflow.NativeNodeContainer;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeExecutionJob;
+import org.knime.core.node.workflow.WorkflowPersistor.LoadResult;
+import org.knime.core.node.workflow.WorkflowPersistor.LoadResultEntry.LoadResultEntryType;
+import org.knime.core.node.workflow.execresult.NativeNodeContainerExecutionResult;
+import org.knime.core.node.workflow.execresult.NodeContainerExecutionStatus;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Job that executes a node via its {@link StreamableOperator}s on several partitions of the input in parallel. The
+ * distributable input tables are split into consecutive row ranges, one {@link StreamableOperator} per partition
+ * processes its range, the internals of all operators are merged via the node's {@link MergeOperator} and the
+ * partitions' output tables are concatenated in order.
+ *
+ * <p>
+ * If the node can't be partitioned (non-distributable input tables, distributable non-table outputs, missing merge
+ * operator or output spec) it is run as a single partition.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @see PartitionedNodeExecutionJobManager
+ */
+final class PartitionedNodeExecutionJob extends NodeExecutionJob {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(PartitionedNodeExecutionJob.class);
+
+    private final int m_maxPartitions;
+
+    private final ExecutionContext m_exec;
+
+    private Future<?> m_future;
+
+    private NativeNodeContainerExecutionResult m_result;
+
+    /**
+     * @param nnc the node to execute
+     * @param data its input data
+     * @param maxPartitions the maximum number of partitions
+     */
+    PartitionedNodeExecutionJob(final NativeNodeContainer nnc, final PortObject[] data, final int maxPartitions) {
+        super(nnc, data);
+        m_maxPartitions = maxPartitions;
+        m_exec = nnc.createExecutionContext();
+    }
+
+    /**
+     * Set the future that represents the pending execution.
+     * @param future the future to set
+     */
+    void setFuture(final Future<?> future) {
+        m_future = future;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean cancel() {
+        if (m_future == null) {
+            throw new IllegalStateException("Future that represents the execution has not been set.");
+        }
+        m_exec.getProgressMonitor().setExecuteCanceled();
+        return m_future.cancel(true);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isReConnecting() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected NodeContainerExecutionStatus mainExecute() {
+        NativeNodeContainer nnc = (NativeNodeContainer)getNodeContainer();
+        try {
+            nnc.getNode().openFileStoreHandler(m_exec);
+            PortObject[] inObjects = Arrays.copyOfRange(getPortObjects(), 1, getPortObjects().length);
+            PortType[] outTypes = new PortType[nnc.getNrOutPorts() - 1];
+            PortObjectSpec[] outSpecs = new PortObjectSpec[outTypes.length];
+            for (int i = 0; i < outTypes.length; i++) {
+                outTypes[i] = nnc.getOutPort(i + 1).getPortType();
+                outSpecs[i] = nnc.getOutPort(i + 1).getPortObjectSpec();
+            }
+            PortObject[] outObjects =
+                execute(nnc.getNodeModel(), inObjects, outTypes, outSpecs, m_maxPartitions, m_exec);
+            m_exec.setProgress(1.0);
+            m_result = StreamedNode.createSuccessResult(nnc, m_exec, outObjects);
+        } catch (Throwable t) {
+            m_result = StreamedNode.createFailureResult(nnc, t, false);
+        }
+        return m_result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void afterExecute() {
+        if (m_result == null) {
+            return;
+        }
+        NodeContainer nc = getNodeContainer();
+        LoadResult lR = new LoadResult("load partitioned result into " + nc.getNameWithID());
+        nc.loadExecutionResult(m_result, new ExecutionMonitor(), lR);
+        if (lR.hasErrors()) {
+            LOGGER.error("Errors loading result of partitioned execution into workflow:\n"
+                + lR.getFilteredError("", LoadResultEntryType.Warning));
+        }
+    }
+
+    /**
+     * Runs the node's streamable operators on the partitions of the input and merges their results.
+     *
+     * @param model the node's model
+     * @param inObjects the input objects, excluding the flow variable port
+     * @param outTypes the types of the output ports, excluding the flow variable port
+     * @param outSpecs the configured output specs, excluding the flow variable port
+     * @param maxPartitions the maximum number of partitions
+     * @param exec the node's execution context
+     * @return the output objects, including the flow variable port
+     * @throws Exception if the node fails
+     */
+    static PortObject[] execute(final NodeModel model, final PortObject[] inObjects, final PortType[] outTypes,
+        final PortObjectSpec[] outSpecs, final int maxPartitions, final ExecutionContext exec) throws Exception {
+        final PortObjectSpec[] inSpecs = new PortObjectSpec[inObjects.length];
+        for (int i = 0; i < inObjects.length; i++) {
+            inSpecs[i] = inObjects[i] == null ? null : inObjects[i].getSpec();
+        }
+        final InputPortRole[] inRoles = model.getInputPortRoles();
+        final OutputPortRole[] outRoles = model.getOutputPortRoles();
+        final MergeOperator mergeOperator = model.createMergeOperator();
+        StreamableOperatorInternals internals = model.createInitialStreamableOperatorInternals();
+        final int nrPartitions = getNrPartitions(maxPartitions, inObjects, inRoles, outTypes, outSpecs, outRoles,
+            mergeOperator != null, internals != null);
+        if (nrPartitions > 1) {
+            LOGGER.debugWithFormat("Executing in %d partitions", nrPartitions);
+        }
+
+        PortObjectSpec[] finalSpecs = null;
+        if (internals != null) {
+            while (model.iterate(internals)) {
+                final StreamableOperatorInternals current = internals;
+                final PortInput[][] inputs = createInputs(inObjects, inRoles, nrPartitions);
+                final StreamableOperator[] operators = createOperators(model, nrPartitions, inSpecs);
+                List<StreamableOperatorInternals> results = runPartitions(nrPartitions, p -> {
+                    try {
+                        operators[p].loadInternals(current);
+                        operators[p].runIntermediate(inputs[p], exec.createSilentSubExecutionContext(0.0));
+                        return operators[p].saveInternals();
+                    } finally {
+                        closeInputs(inputs[p]);
+                    }
+                });
+                internals = mergeOperator == null ? results.get(0)
+                    : mergeOperator.mergeIntermediate(results.toArray(new StreamableOperatorInternals[0]));
+            }
+            finalSpecs = model.computeFinalOutputSpecs(internals, inSpecs);
+        }
+
+        final int nrOutputs = outTypes.length;
+        final PortOutput[] mergedOutputs = new PortOutput[nrOutputs];
+        final PortOutput[][] outputs = new PortOutput[nrPartitions][nrOutputs];
+        final ExecutionContext[] partitionExecs = new ExecutionContext[nrPartitions];
+        for (int p = 0; p < nrPartitions; p++) {
+            partitionExecs[p] = nrPartitions == 1 ? exec : exec.createSubExecutionContext(1.0 / nrPartitions);
+        }
+        for (int i = 0; i < nrOutputs; i++) {
+            boolean isTable = BufferedDataTable.TYPE.equals(outTypes[i]);
+            PortObjectSpec spec = finalSpecs != null && finalSpecs[i] != null ? finalSpecs[i] : outSpecs[i];
+            DataTableSpec tableSpec = spec instanceof DataTableSpec ? (DataTableSpec)spec : null;
+            if (nrPartitions > 1 && outRoles[i].isDistributable()) {
+                for (int p = 0; p < nrPartitions; p++) {
+                    outputs[p][i] = createTableOutput(tableSpec, partitionExecs[p]);
+                }
+            } else {
+                // filled by the only operator or, if partitioned, when merging - the outputs aren't thread-safe
+                mergedOutputs[i] = isTable ? createTableOutput(tableSpec, exec) : new PortObjectOutput();
+                if (nrPartitions == 1) {
+                    outputs[0][i] = mergedOutputs[i];
+                }
+            }
+        }
+
+        final StreamableOperatorInternals finalInternals = internals;
+        final PortInput[][] inputs = createInputs(inObjects, inRoles, nrPartitions);
+        final StreamableOperator[] operators = createOperators(model, nrPartitions, inSpecs);
+        List<StreamableOperatorInternals> results = runPartitions(nrPartitions, p -> {
+            try {
+                if (finalInternals != null) {
+                    operators[p].loadInternals(finalInternals);
+                }
+                operators[p].runFinal(inputs[p], outputs[p], partitionExecs[p]);
+            } catch (OutputClosedException oce) {
+                // output not needed any more - that's a regular end
+            } finally {
+                closeInputs(inputs[p]);
+            }
+            return mergeOperator == null ? null : operators[p].saveInternals();
+        });
+        if (mergeOperator != null) {
+            StreamableOperatorInternals merged =
+                mergeOperator.mergeFinal(results.toArray(new StreamableOperatorInternals[0]));
+            model.finishStreamableExecution(merged, exec, mergedOutputs);
+        }
+
+        PortObject[] outObjects = new PortObject[nrOutputs + 1];
+        outObjects[0] = FlowVariablePortObject.INSTANCE;
+        for (int i = 0; i < nrOutputs; i++) {
+            if (mergedOutputs[i] instanceof ChannelRowOutput) {
+                ChannelRowOutput output = (ChannelRowOutput)mergedOutputs[i];
+                output.close();
+                outObjects[i + 1] = output.getTable();
+            } else if (mergedOutputs[i] != null) {
+                outObjects[i + 1] = ((PortObjectOutput)mergedOutputs[i]).getPortObject();
+            } else {
+                BufferedDataTable[] tables = new BufferedDataTable[nrPartitions];
+                for (int p = 0; p < nrPartitions; p++) {
+                    ChannelRowOutput output = (ChannelRowOutput)outputs[p][i];
+                    output.close();
+                    tables[p] = output.getTable();
+                }
+                outObjects[i + 1] = exec.createConcatenateTable(exec.createSilentSubProgress(0.0), tables);
+            }
+        }
+        return outObjects;
+    }
+
+    /**
+     * @return the number of partitions the node can be run with, 1 if it can't be partitioned
+     */
+    private static int getNrPartitions(final int maxPartitions, final PortObject[] inObjects,
+        final InputPortRole[] inRoles, final PortType[] outTypes, final PortObjectSpec[] outSpecs,
+        final OutputPortRole[] outRoles, final boolean hasMergeOperator, final boolean isIterative) {
+        if (maxPartitions < 2 || (isIterative && !hasMergeOperator)) {
+            return 1;
+        }
+        long maxRowCount = 0;
+        for (int i = 0; i < inObjects.length; i++) {
+            if (inObjects[i] instanceof BufferedDataTable) {
+                if (!inRoles[i].isDistributable() || !inRoles[i].isStreamable()) {
+                    return 1;
+                }
+                maxRowCount = Math.max(maxRowCount, ((BufferedDataTable)inObjects[i]).size());
+            }
+        }
+        for (int i = 0; i < outRoles.length; i++) {
+            if (!outRoles[i].isDistributable()) {
+                if (!hasMergeOperator) {
+                    // non-distributed outputs are created when merging
+                    return 1;
+                }
+            } else if (!BufferedDataTable.TYPE.equals(outTypes[i]) || !(outSpecs[i] instanceof DataTableSpec)) {
+                // only tables with known spec can be concatenated
+                return 1;
+            }
+        }
+        return (int)Math.max(1, Math.min(maxPartitions, maxRowCount));
+    }
+
+    private static PortInput[][] createInputs(final PortObject[] inObjects, final InputPortRole[] inRoles,
+        final int nrPartitions) {
+        PortInput[][] inputs = new PortInput[nrPartitions][inObjects.length];
+        for (int i = 0; i < inObjects.length; i++) {
+            PortObject inObject = inObjects[i];
+            if (inObject == null) {
+                continue;
+            }
+            if (inObject instanceof BufferedDataTable && inRoles[i].isStreamable()) {
+                BufferedDataTable table = (BufferedDataTable)inObject;
+                if (nrPartitions == 1) {
+                    inputs[0][i] = new DataTableRowInput(table);
+                } else {
+                    CloseableRowIterator[] iterators = table.splitIterators(nrPartitions);
+                    for (int p = 0; p < nrPartitions; p++) {
+                        inputs[p][i] = new RowIteratorInput(table.getDataTableSpec(),
+                            p < iterators.length ? iterators[p] : null);
+                    }
+                }
+            } else {
+                for (int p = 0; p < nrPartitions; p++) {
+                    inputs[p][i] = new PortObjectInput(inObject);
+                }
+            }
+        }
+        return inputs;
+    }
+
+    private static StreamableOperator[] createOperators(final NodeModel model, final int nrPartitions,
+        final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+        StreamableOperator[] operators = new StreamableOperator[nrPartitions];
+        for (int p = 0; p < nrPartitions; p++) {
+            operators[p] = model.createStreamableOperator(new PartitionInfo(p, nrPartitions), inSpecs);
+        }
+        return operators;
+    }
+
+    private static ChannelRowOutput createTableOutput(final DataTableSpec spec, final ExecutionContext exec) {
+        return new ChannelRowOutput(spec, Collections.emptyList(), exec);
+    }
+
+    private static void closeInputs(final PortInput[] inputs) {
+        for (PortInput input : inputs) {
+            if (input instanceof RowInput) {
+                ((RowInput)input).close();
+            }
+        }
+    }
+
+    /**
+     * Runs the task for all partitions, concurrently if there is more than one.
+     *
+     * @return the results of the partitions, in order
+     */
+    private static <T> List<T> runPartitions(final int nrPartitions, final PartitionTask<T> task)
+        throws Exception {
+        if (nrPartitions == 1) {
+            return Collections.singletonList(task.run(0));
+        }
+        ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(nrPartitions);
+        final List<Future<T>> futures = new ArrayList<>(nrPartitions);
+        for (int p = 0; p < nrPartitions; p++) {
+            final int partition = p;
+            // the pool passes on the node context of the job's thread
+            futures.add(pool.enqueue(() -> task.run(partition)));
+        }
+        Callable<List<T>> waitForPartitions = () -> {
+            List<T> results = new ArrayList<>(nrPartitions);
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        };
+        try {
+            ThreadPool currentPool = ThreadPool.currentPool();
+            return currentPool != null ? currentPool.runInvisible(waitForPartitions) : waitForPartitions.call();
+        } catch (ExecutionException ee) {
+            Throwable cause = ee;
+            while (cause instanceof ExecutionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Exception) {
+                throw (Exception)cause;
+            }
+            throw ee;
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+    }
+
+    /** The work of a single partition. */
+    @FunctionalInterface
+    private interface PartitionTask<T> {
+
+        /**
+         * @param partition the index of the partition
+         * @return the partition's result
+         * @throws Exception any exception, fails the execution
+         */
+        T run(int partition) throws Exception;
+    }
+}
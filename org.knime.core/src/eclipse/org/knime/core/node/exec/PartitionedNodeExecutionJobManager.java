@@ -0,0 +1,142 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import java.net.URL;
+import java.util.concurrent.Future;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.workflow.AbstractNodeExecutionJobManager;
+import org.knime.core.node.workflow.NativeNodeContainer;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeContainer.NodeContainerSettings.SplitType;
+import org.knime.core.node.workflow.NodeExecutionJob;
+import org.knime.core.node.workflow.NodeExecutionJobManagerPanel;
+
+/**
+ * Job manager for native nodes that runs the node's {@link org.knime.core.node.streamable.StreamableOperator} on
+ * several partitions of the input data in parallel. Nodes whose input tables are distributable (see
+ * {@link org.knime.core.node.NodeModel#getInputPortRoles()}) are split into consecutive row ranges, one per partition;
+ * their output tables are concatenated in the original order and non-distributed results are merged via the node's
+ * {@link org.knime.core.node.streamable.MergeOperator}. All other nodes are executed as a single partition.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.5
+ */
+public class PartitionedNodeExecutionJobManager extends AbstractNodeExecutionJobManager {
+
+    /** Config key for the maximum number of partitions. */
+    static final String CFG_MAX_PARTITIONS = "maxPartitions";
+
+    /** Default for {@link #CFG_MAX_PARTITIONS}, the number of available processors. */
+    static final int DEFAULT_MAX_PARTITIONS = Runtime.getRuntime().availableProcessors();
+
+    private int m_maxPartitions = DEFAULT_MAX_PARTITIONS;
+
+    /** {@inheritDoc} */
+    @Override
+    public NodeExecutionJob submitJob(final NodeContainer nc, final PortObject[] data) {
+        if (!(nc instanceof NativeNodeContainer)) {
+            throw new IllegalStateException(getClass().getSimpleName()
+                    + " can only execute native nodes: " + nc.getNameWithID());
+        }
+        PartitionedNodeExecutionJob job = new PartitionedNodeExecutionJob((NativeNodeContainer)nc, data,
+            m_maxPartitions);
+        Future<?> future = KNIMEConstants.GLOBAL_THREAD_POOL.enqueue(job);
+        job.setFuture(future);
+        return job;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean canExecute(final NodeContainer nc) {
+        return nc instanceof NativeNodeContainer;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public NodeExecutionJobManagerPanel getSettingsPanelComponent(final SplitType nodeSplitType) {
+        return new PartitionedNodeExecutionJobManagerPanel();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void save(final NodeSettingsWO settings) {
+        settings.addInt(CFG_MAX_PARTITIONS, m_maxPartitions);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void load(final NodeSettingsRO settings) throws InvalidSettingsException {
+        int maxPartitions = settings.getInt(CFG_MAX_PARTITIONS, DEFAULT_MAX_PARTITIONS);
+        if (maxPartitions <= 0) {
+            throw new InvalidSettingsException("Number of partitions must be positive: " + maxPartitions);
+        }
+        m_maxPartitions = maxPartitions;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getID() {
+        return PartitionedNodeExecutionJobManagerFactory.INSTANCE.getID();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "Partitioned Job Manager";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public URL getIcon() {
+        return null;
+    }
+
+}
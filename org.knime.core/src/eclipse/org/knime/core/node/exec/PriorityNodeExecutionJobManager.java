@@ -0,0 +1,184 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.workflow.NativeNodeContainer;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeContainer.NodeContainerSettings.SplitType;
+import org.knime.core.node.workflow.NodeExecutionJob;
+import org.knime.core.node.workflow.NodeExecutionJobManagerPanel;
+
+/**
+ * Threaded job manager that schedules the nodes of a workflow by priority rather than in the order they become
+ * executable. Set on a workflow or metanode, it applies to all contained nodes. Nodes on the critical path of the
+ * workflow, estimated from the execution times recorded by the {@link org.knime.core.node.workflow.NodeTimer}, are
+ * started first, so a wide workflow does not delay a long-running branch. The number of concurrently executing nodes
+ * can be limited per workflow and per node type (e.g. for memory-heavy learners).
+ *
+ * <p>
+ * Only native nodes are scheduled that way; components are submitted right away as they only wait for their
+ * content, which is scheduled by this job manager again. The same applies to {@link org.knime.core.node.IOBoundNode}s
+ * if they are executed in a separate pool (see {@link KNIMEConstants#PROPERTY_IO_THREAD_COUNT}).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.5
+ */
+public class PriorityNodeExecutionJobManager extends ThreadNodeExecutionJobManager {
+
+    /** Config key for the maximum number of concurrently executing nodes. */
+    static final String CFG_MAX_CONCURRENT_NODES = "maxConcurrentNodes";
+
+    /** Config key for the node types (factory class names) with an individual limit. */
+    static final String CFG_NODE_TYPES = "nodeTypes";
+
+    /** Config key for the limits of the node types in {@link #CFG_NODE_TYPES}, same order. */
+    static final String CFG_NODE_TYPE_LIMITS = "nodeTypeLimits";
+
+    /** Default for {@link #CFG_MAX_CONCURRENT_NODES}, the size of the global thread pool. */
+    static final int DEFAULT_MAX_CONCURRENT_NODES = KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads();
+
+    private int m_maxConcurrentNodes = DEFAULT_MAX_CONCURRENT_NODES;
+
+    private Map<String, Integer> m_nodeTypeLimits = Collections.emptyMap();
+
+    private final PriorityNodeScheduler m_scheduler;
+
+    /** Creates a new job manager with default settings. */
+    public PriorityNodeExecutionJobManager() {
+        m_scheduler =
+            new PriorityNodeScheduler(KNIMEConstants.GLOBAL_THREAD_POOL, m_maxConcurrentNodes, m_nodeTypeLimits);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public NodeExecutionJob submitJob(final NodeContainer nc, final PortObject[] data) {
+        if (!(nc instanceof NativeNodeContainer) || isExecutedInIOPool(nc)) {
+            // not limited, otherwise a component could block the slot its content needs; I/O-bound nodes don't
+            // take a slot of the global pool
+            return super.submitJob(nc, data);
+        }
+        NativeNodeContainer nnc = (NativeNodeContainer)nc;
+        LocalNodeExecutionJob job = new LocalNodeExecutionJob(nnc, data);
+        // called while holding the workflow lock, so the graph is consistent
+        long priority = PriorityNodeScheduler.getCriticalPathLength(nnc);
+        Future<?> future = m_scheduler.submit(job, priority, getNodeType(nnc));
+        job.setFuture(future);
+        return job;
+    }
+
+    /**
+     * @param nnc a node
+     * @return the node type used for the per type limits, i.e. the class name of the node factory
+     */
+    static String getNodeType(final NativeNodeContainer nnc) {
+        return nnc.getNode().getFactory().getClass().getName();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public NodeExecutionJobManagerPanel getSettingsPanelComponent(final SplitType nodeSplitType) {
+        return new PriorityNodeExecutionJobManagerPanel();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void save(final NodeSettingsWO settings) {
+        settings.addInt(CFG_MAX_CONCURRENT_NODES, m_maxConcurrentNodes);
+        settings.addStringArray(CFG_NODE_TYPES, m_nodeTypeLimits.keySet().toArray(new String[0]));
+        settings.addIntArray(CFG_NODE_TYPE_LIMITS,
+            m_nodeTypeLimits.values().stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void load(final NodeSettingsRO settings) throws InvalidSettingsException {
+        int maxConcurrentNodes = settings.getInt(CFG_MAX_CONCURRENT_NODES, DEFAULT_MAX_CONCURRENT_NODES);
+        if (maxConcurrentNodes <= 0) {
+            throw new InvalidSettingsException(
+                "Maximum number of concurrent nodes must be positive: " + maxConcurrentNodes);
+        }
+        String[] nodeTypes = settings.getStringArray(CFG_NODE_TYPES, new String[0]);
+        int[] limits = settings.getIntArray(CFG_NODE_TYPE_LIMITS, new int[0]);
+        if (nodeTypes.length != limits.length) {
+            throw new InvalidSettingsException("Number of node types (" + nodeTypes.length
+                + ") and node type limits (" + limits.length + ") differ");
+        }
+        Map<String, Integer> nodeTypeLimits = new LinkedHashMap<>();
+        for (int i = 0; i < nodeTypes.length; i++) {
+            if (limits[i] <= 0) {
+                throw new InvalidSettingsException("Limit for node type \"" + nodeTypes[i]
+                    + "\" must be positive: " + limits[i]);
+            }
+            nodeTypeLimits.put(nodeTypes[i], limits[i]);
+        }
+        m_maxConcurrentNodes = maxConcurrentNodes;
+        m_nodeTypeLimits = Collections.unmodifiableMap(nodeTypeLimits);
+        // queued and running jobs stay in the same scheduler, so the new limits apply to them as well
+        m_scheduler.setLimits(m_maxConcurrentNodes, m_nodeTypeLimits);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getID() {
+        return PriorityNodeExecutionJobManagerFactory.INSTANCE.getID();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "Priority Job Manager";
+    }
+
+}
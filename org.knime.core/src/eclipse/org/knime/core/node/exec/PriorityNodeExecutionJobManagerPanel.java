@@ -0,0 +1,146 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
+import javax.swing.JTextArea;
+import javax.swing.SpinnerNumberModel;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.workflow.NodeExecutionJobManagerPanel;
+
+/**
+ * Settings panel of the {@link PriorityNodeExecutionJobManager}. Node type limits are entered one per line as
+ * <code>&lt;node factory class name&gt;=&lt;limit&gt;</code>.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@SuppressWarnings("serial")
+final class PriorityNodeExecutionJobManagerPanel extends NodeExecutionJobManagerPanel {
+
+    private final JSpinner m_maxConcurrentNodesSpinner;
+
+    private final JTextArea m_nodeTypeLimitsArea;
+
+    PriorityNodeExecutionJobManagerPanel() {
+        m_maxConcurrentNodesSpinner = new JSpinner(new SpinnerNumberModel(
+            PriorityNodeExecutionJobManager.DEFAULT_MAX_CONCURRENT_NODES, 1, Integer.MAX_VALUE, 1));
+        m_nodeTypeLimitsArea = new JTextArea(5, 40);
+        JPanel maxPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        maxPanel.add(new JLabel("Maximum number of concurrently executing nodes "));
+        maxPanel.add(m_maxConcurrentNodesSpinner);
+        JPanel limitsPanel = new JPanel(new BorderLayout());
+        limitsPanel.add(new JLabel("Limits per node type (one \"<node factory class>=<limit>\" per line)"),
+            BorderLayout.NORTH);
+        limitsPanel.add(new JScrollPane(m_nodeTypeLimitsArea), BorderLayout.CENTER);
+        setLayout(new BorderLayout());
+        add(maxPanel, BorderLayout.NORTH);
+        add(limitsPanel, BorderLayout.CENTER);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void saveSettings(final NodeSettingsWO settings) throws InvalidSettingsException {
+        List<String> nodeTypes = new ArrayList<>();
+        List<Integer> limits = new ArrayList<>();
+        for (String line : m_nodeTypeLimitsArea.getText().split("\n")) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            int sep = line.lastIndexOf('=');
+            if (sep <= 0) {
+                throw new InvalidSettingsException("Invalid node type limit, expected \"<class>=<limit>\": " + line);
+            }
+            int limit;
+            try {
+                limit = Integer.parseInt(line.substring(sep + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new InvalidSettingsException("Invalid limit in line \"" + line + "\": " + e.getMessage(), e);
+            }
+            if (limit <= 0) {
+                throw new InvalidSettingsException("Limit must be positive: " + line);
+            }
+            nodeTypes.add(line.substring(0, sep).trim());
+            limits.add(limit);
+        }
+        settings.addInt(PriorityNodeExecutionJobManager.CFG_MAX_CONCURRENT_NODES,
+            (Integer)m_maxConcurrentNodesSpinner.getValue());
+        settings.addStringArray(PriorityNodeExecutionJobManager.CFG_NODE_TYPES, nodeTypes.toArray(new String[0]));
+        settings.addIntArray(PriorityNodeExecutionJobManager.CFG_NODE_TYPE_LIMITS,
+            limits.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void loadSettings(final NodeSettingsRO settings) {
+        m_maxConcurrentNodesSpinner.setValue(settings.getInt(PriorityNodeExecutionJobManager.CFG_MAX_CONCURRENT_NODES,
+            PriorityNodeExecutionJobManager.DEFAULT_MAX_CONCURRENT_NODES));
+        String[] nodeTypes = settings.getStringArray(PriorityNodeExecutionJobManager.CFG_NODE_TYPES, new String[0]);
+        int[] limits = settings.getIntArray(PriorityNodeExecutionJobManager.CFG_NODE_TYPE_LIMITS, new int[0]);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < Math.min(nodeTypes.length, limits.length); i++) {
+            text.append(nodeTypes[i]).append('=').append(limits[i]).append('\n');
+        }
+        m_nodeTypeLimitsArea.setText(text.toString());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void updateInputSpecs(final PortObjectSpec[] inSpecs) {
+        // no spec dependent settings
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.knime.core.node.workflow.ConnectionContainer;
+import org.knime.core.node.workflow.ConnectionContainer.ConnectionType;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.NodeTimer;
+import org.knime.core.node.workflow.WorkflowManager;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Holds back node executions of one workflow and hands them to a {@link ThreadPool} in the order of their priority,
+ * respecting a maximum number of concurrently running nodes overall and per node type. Jobs are only passed to the
+ * pool once they are allowed to run, so the pool's FIFO queue never builds up a backlog; whenever a running job
+ * finishes, the freed slot is taken by the highest-priority job that is not blocked by its node type limit.
+ *
+ * <p>
+ * The priority of a node is the length of the critical path starting at the node, i.e. the maximum sum of estimated
+ * execution durations along any path to the end of the workflow (see {@link #getCriticalPathLength(NodeContainer)}).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class PriorityNodeScheduler {
+
+    /** Estimated duration for nodes that have never been executed, in ms. */
+    static final long DEFAULT_DURATION_MS = 100;
+
+    private final ThreadPool m_pool;
+
+    private int m_maxConcurrentNodes;
+
+    private Map<String, Integer> m_nodeTypeLimits;
+
+    /** Jobs not yet passed to the pool, highest priority first and FIFO for equal priorities. */
+    private final TreeSet<ScheduledJob> m_pending = new TreeSet<>(
+        Comparator.comparingLong((ScheduledJob j) -> -j.m_priority).thenComparingLong(j -> j.m_sequence));
+
+    private final Map<String, Integer> m_runningPerType = new HashMap<>();
+
+    private int m_running;
+
+    private long m_nextSequence;
+
+    /**
+     * @param pool the pool executing the jobs
+     * @param maxConcurrentNodes maximum number of jobs running at the same time
+     * @param nodeTypeLimits maximum number of jobs running at the same time per node type (factory class name), node
+     *            types not contained in the map are only limited by <code>maxConcurrentNodes</code>
+     */
+    PriorityNodeScheduler(final ThreadPool pool, final int maxConcurrentNodes,
+        final Map<String, Integer> nodeTypeLimits) {
+        m_pool = pool;
+        m_maxConcurrentNodes = maxConcurrentNodes;
+        m_nodeTypeLimits = Collections.unmodifiableMap(new HashMap<>(nodeTypeLimits));
+    }
+
+    /**
+     * Changes the limits. Running jobs are not affected, but no further job is started while a limit is exceeded; if
+     * the limits are raised, pending jobs are started right away.
+     *
+     * @param maxConcurrentNodes maximum number of jobs running at the same time
+     * @param nodeTypeLimits maximum number of jobs running at the same time per node type (factory class name), node
+     *            types not contained in the map are only limited by <code>maxConcurrentNodes</code>
+     */
+    void setLimits(final int maxConcurrentNodes, final Map<String, Integer> nodeTypeLimits) {
+        synchronized (this) {
+            m_maxConcurrentNodes = maxConcurrentNodes;
+            m_nodeTypeLimits = Collections.unmodifiableMap(new HashMap<>(nodeTypeLimits));
+        }
+        dispatch();
+    }
+
+    /**
+     * Schedules a job.
+     *
+     * @param job the job to run
+     * @param priority its priority, higher values run first
+     * @param nodeType the type of the node executed by the job, used for the per type limits
+     * @return the future representing the job, canceling it before it's passed to the pool removes it from the queue
+     */
+    Future<?> submit(final Runnable job, final long priority, final String nodeType) {
+        final ScheduledJob scheduledJob;
+        synchronized (this) {
+            scheduledJob = new ScheduledJob(job, priority, nodeType, m_nextSequence++);
+            m_pending.add(scheduledJob);
+        }
+        dispatch();
+        return scheduledJob;
+    }
+
+    /** @return number of jobs waiting to be passed to the pool */
+    synchronized int getPendingCount() {
+        return m_pending.size();
+    }
+
+    /** @return number of jobs passed to the pool that have not finished yet */
+    synchronized int getRunningCount() {
+        return m_running;
+    }
+
+    /** Passes as many pending jobs to the pool as the limits allow. The pool is called outside the lock. */
+    private void dispatch() {
+        List<ScheduledJob> toRun = new ArrayList<>();
+        synchronized (this) {
+            for (Iterator<ScheduledJob> it = m_pending.iterator(); it.hasNext() && m_running < m_maxConcurrentNodes;) {
+                ScheduledJob job = it.next();
+                Integer typeLimit = m_nodeTypeLimits.get(job.m_nodeType);
+                int typeRunning = m_runningPerType.getOrDefault(job.m_nodeType, 0);
+                if (typeLimit != null && typeRunning >= typeLimit) {
+                    continue;
+                }
+                it.remove();
+                m_running++;
+                m_runningPerType.put(job.m_nodeType, typeRunning + 1);
+                toRun.add(job);
+            }
+        }
+        for (ScheduledJob job : toRun) {
+            m_pool.enqueue(job);
+        }
+    }
+
+    private void finished(final ScheduledJob job) {
+        synchronized (this) {
+            m_running--;
+            int typeRunning = m_runningPerType.get(job.m_nodeType) - 1;
+            if (typeRunning == 0) {
+                m_runningPerType.remove(job.m_nodeType);
+            } else {
+                m_runningPerType.put(job.m_nodeType, typeRunning);
+            }
+        }
+        dispatch();
+    }
+
+    private synchronized void canceled(final ScheduledJob job) {
+        // only has an effect if the job has not been passed to the pool yet
+        m_pending.remove(job);
+    }
+
+    /**
+     * Estimated remaining execution time of the workflow if the argument node is started now: the node's own
+     * estimated duration plus the maximum critical path length of its successors in the same workflow. Must be called
+     * while holding the lock of the node's parent workflow.
+     *
+     * @param nc the node of interest
+     * @return the critical path length in ms
+     */
+    static long getCriticalPathLength(final NodeContainer nc) {
+        return getCriticalPathLength(nc.getParent(), nc.getID(), new HashMap<>());
+    }
+
+    private static long getCriticalPathLength(final WorkflowManager wfm, final NodeID id,
+        final Map<NodeID, Long> lengths) {
+        Long length = lengths.get(id);
+        if (length != null) {
+            return length;
+        }
+        // guards against cycles, which are not expected in a workflow graph
+        lengths.put(id, 0L);
+        long successorLength = 0;
+        for (ConnectionContainer cc : wfm.getOutgoingConnectionsFor(id)) {
+            if (cc.getType() == ConnectionType.STD) {
+                successorLength = Math.max(successorLength, getCriticalPathLength(wfm, cc.getDest(), lengths));
+            }
+        }
+        length = getEstimatedDuration(wfm.getNodeContainer(id)) + successorLength;
+        lengths.put(id, length);
+        return length;
+    }
+
+    /**
+     * Estimated execution duration of a node, based on its previous executions in this session, on the recorded
+     * executions of the same node type or on {@link #DEFAULT_DURATION_MS}, in this order.
+     *
+     * @param nc the node of interest
+     * @return the estimated duration in ms, at least 1
+     */
+    static long getEstimatedDuration(final NodeContainer nc) {
+        NodeTimer timer = nc.getNodeTimer();
+        long duration;
+        if (timer.getNrExecsSinceStart() > 0) {
+            duration = timer.getExecutionDurationSinceStart() / timer.getNrExecsSinceStart();
+        } else {
+            duration = NodeTimer.GLOBAL_TIMER.getAverageExecutionTime(nc);
+            if (duration < 0) {
+                duration = DEFAULT_DURATION_MS;
+            }
+        }
+        return Math.max(1, duration);
+    }
+
+    /** A job waiting for or running in the pool. */
+    private final class ScheduledJob extends FutureTask<Object> {
+
+        private final long m_priority;
+
+        private final String m_nodeType;
+
+        private final long m_sequence;
+
+        ScheduledJob(final Runnable job, final long priority, final String nodeType, final long sequence) {
+            super(job, null);
+            m_priority = priority;
+            m_nodeType = nodeType;
+            m_sequence = sequence;
+        }
+
+        /** Called by the pool only, also if the job was canceled in the meantime. */
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                finished(this);
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                canceled(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.node.streamable.RowInput;
+
+/**
+ * Bounded hand-over of rows from one output port of a streamed node to one input port of a downstream node. The
+ * producer blocks as long as the queue is full, the consumer blocks as long as it is empty. If the consumer closes its
+ * input before the end of the stream, any further row offered by the producer is dropped.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class RowChannel {
+
+    /** Marks the end of the stream, compared by identity. */
+    private static final DataRow END_OF_STREAM = new DefaultRow(new RowKey("<end of stream>"), new DataCell[0]);
+
+    /** Time to wait for space in the queue before checking again whether the consumer has closed its input. */
+    private static final long OFFER_TIMEOUT_MS = 100;
+
+    private final BlockingQueue<DataRow> m_queue;
+
+    private final DataTableSpec m_spec;
+
+    private volatile boolean m_isConsumerClosed;
+
+    private boolean m_isEndReached;
+
+    /**
+     * @param spec the spec of the streamed table
+     * @param capacity the maximum number of rows held in the queue
+     */
+    RowChannel(final DataTableSpec spec, final int capacity) {
+        m_spec = spec;
+        m_queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Adds a row, blocks while the queue is full.
+     *
+     * @param row the row to add
+     * @return <code>false</code> if the consumer has closed its input and the row was dropped
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean put(final DataRow row) throws InterruptedException {
+        while (!m_isConsumerClosed) {
+            if (m_queue.offer(row, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Signals the end of the stream to the consumer.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void close() throws InterruptedException {
+        put(END_OF_STREAM);
+    }
+
+    /** @return the consuming side of this channel */
+    RowInput createRowInput() {
+        return new RowInput() {
+
+            @Override
+            public DataTableSpec getDataTableSpec() {
+                return m_spec;
+            }
+
+            @Override
+            public DataRow poll() throws InterruptedException {
+                if (m_isEndReached || m_isConsumerClosed) {
+                    return null;
+                }
+                final DataRow row = m_queue.take();
+                if (row == END_OF_STREAM) {
+                    m_isEndReached = true;
+                    return null;
+                }
+                return row;
+            }
+
+            /** Rows drained from the queue in one go, reused across calls. */
+            private final List<DataRow> m_drained = new ArrayList<>();
+
+            @Override
+            public int poll(final DataRow[] rows) throws InterruptedException {
+                if (m_isEndReached || m_isConsumerClosed || rows.length == 0) {
+                    return 0;
+                }
+                // block for the first row only, then take whatever is available with a single lock
+                m_drained.clear();
+                m_drained.add(m_queue.take());
+                m_queue.drainTo(m_drained, rows.length - 1);
+                int count = 0;
+                for (DataRow row : m_drained) {
+                    if (row == END_OF_STREAM) {
+                        m_isEndReached = true;
+                        break;
+                    }
+                    rows[count++] = row;
+                }
+                return count;
+            }
+
+            @Override
+            public void close() {
+                m_isConsumerClosed = true;
+                // unblock a waiting producer
+                m_queue.clear();
+            }
+        };
+    }
+}
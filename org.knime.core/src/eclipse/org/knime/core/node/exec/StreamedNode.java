@@ -0,0 +1,454 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.BufferedDataTableHolder;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectHolder;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.port.flowvariable.FlowVariablePortObject;
+import org.knime.core.node.port.inactive.InactiveBranchPortObject;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.MergeOperator;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortObjectInput;
+import org.knime.core.node.streamable.PortObjectOutput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.streamable.StreamableOperatorInternals;
+import org.knime.core.node.workflow.NativeNodeContainer;
+import org.knime.core.node.workflow.NodeContext;
+import org.knime.core.node.workflow.NodeMessage;
+import org.knime.core.node.workflow.execresult.NativeNodeContainerExecutionResult;
+import org.knime.core.node.workflow.execresult.NodeExecutionResult;
+
+/**
+ * A node that is run by the {@link StreamingNodeExecutionJob} concurrently with the other nodes. Its inputs are
+ * either streamed from upstream nodes via {@link RowChannel channels} or - if the node can't consume the rows as they
+ * come - the complete tables once the upstream node has finished. The node is run via its {@link StreamableOperator}
+ * as a single partition.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class StreamedNode extends StreamedTask {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(StreamedNode.class);
+
+    private final NativeNodeContainer m_nnc;
+
+    private final InputPortRole[] m_inputRoles;
+
+    private final StreamableOperatorInternals m_initialInternals;
+
+    /** Input providers, indexed by the model's port index (excluding the flow variable port). */
+    private final InputProvider[] m_inputProviders;
+
+    /** Nodes that are connected via the flow variable port only. */
+    private final List<StreamedNode> m_predecessors = new ArrayList<>();
+
+    /** Channels to streaming consumers, indexed by the node container's port index. */
+    private final List<List<RowChannel>> m_outChannels = new ArrayList<>();
+
+    private final ExecutionContext m_exec;
+
+    private final List<PortInput> m_createdInputs = new ArrayList<>();
+
+    private boolean m_isMaterializeAllInputs;
+
+    private PortObject[] m_outObjects;
+
+    private NativeNodeContainerExecutionResult m_result;
+
+    /**
+     * @param nnc the node to run, in a state that allows remote execution
+     * @param onFailure called from the node's thread if it fails
+     */
+    StreamedNode(final NativeNodeContainer nnc, final Runnable onFailure) {
+        super(onFailure);
+        m_nnc = nnc;
+        m_exec = nnc.createExecutionContext();
+        NodeModel model = nnc.getNodeModel();
+        NodeContext.pushContext(nnc);
+        try {
+            m_inputRoles = model.getInputPortRoles();
+            m_initialInternals = model.createInitialStreamableOperatorInternals();
+        } finally {
+            NodeContext.removeLastContext();
+        }
+        m_inputProviders = new InputProvider[nnc.getNrInPorts() - 1];
+        for (int i = 0; i < nnc.getNrOutPorts(); i++) {
+            m_outChannels.add(new ArrayList<>());
+        }
+    }
+
+    /** @return the underlying node */
+    NativeNodeContainer getNodeContainer() {
+        return m_nnc;
+    }
+
+    /**
+     * Forces all inputs to be materialized, for instance as the node reads several inputs that depend on the same
+     * upstream node (which could deadlock if the node doesn't read them concurrently).
+     */
+    void setMaterializeAllInputs() {
+        m_isMaterializeAllInputs = true;
+    }
+
+    /**
+     * @param inPort the node container's input port index, not the flow variable port
+     * @return whether the node consumes the given input port row by row
+     */
+    boolean isStreamingInput(final int inPort) {
+        return !m_isMaterializeAllInputs && m_initialInternals == null
+            && BufferedDataTable.TYPE.equals(m_nnc.getInPort(inPort).getPortType())
+            && m_inputRoles[inPort - 1].isStreamable();
+    }
+
+    /**
+     * @param outPort the node container's output port index
+     * @return whether the output can be streamed, i.e. it's a data table whose spec is known upfront
+     */
+    boolean isStreamingOutput(final int outPort) {
+        return outPort > 0 && BufferedDataTable.TYPE.equals(m_nnc.getOutPort(outPort).getPortType())
+            && m_nnc.getOutPort(outPort).getPortObjectSpec() instanceof DataTableSpec;
+    }
+
+    /**
+     * Connects an output to a streaming consumer.
+     *
+     * @param outPort the output port, must be {@link #isStreamingOutput(int) streaming}
+     * @param capacity the capacity of the channel
+     * @return the consumer's input
+     */
+    RowInput addChannel(final int outPort, final int capacity) {
+        RowChannel channel =
+            new RowChannel((DataTableSpec)m_nnc.getOutPort(outPort).getPortObjectSpec(), capacity);
+        m_outChannels.get(outPort).add(channel);
+        return channel.createRowInput();
+    }
+
+    /**
+     * @param inPort the node container's input port index, not the flow variable port
+     * @param provider creates the input for the port
+     */
+    void setInputProvider(final int inPort, final InputProvider provider) {
+        m_inputProviders[inPort - 1] = provider;
+    }
+
+    /** @param predecessor a node that needs to finish before this node starts */
+    void addPredecessor(final StreamedNode predecessor) {
+        m_predecessors.add(predecessor);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void onCancel() {
+        m_exec.getProgressMonitor().setExecuteCanceled();
+    }
+
+    /** @return the result, only to be called after the node has finished */
+    synchronized NativeNodeContainerExecutionResult getExecutionResult() {
+        if (m_result == null && getFailure() != null) {
+            // canceled before it was started
+            m_result = createFailure(getFailure());
+        }
+        return m_result;
+    }
+
+    /**
+     * Waits for the node to finish and returns its output.
+     *
+     * @param outPort the node container's output port index
+     * @return the output object
+     * @throws InterruptedException if interrupted while waiting
+     * @throws PredecessorFailedException if the node failed
+     */
+    PortObject getOutputObject(final int outPort) throws InterruptedException, PredecessorFailedException {
+        awaitSuccess();
+        return m_outObjects[outPort];
+    }
+
+    private void awaitSuccess() throws InterruptedException, PredecessorFailedException {
+        join();
+        if (!getExecutionResult().isSuccess()) {
+            throw new PredecessorFailedException();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void execute() throws Exception {
+        NodeContext.pushContext(m_nnc);
+        try {
+            m_result = executeNode();
+        } catch (Throwable t) {
+            m_result = createFailure(t);
+            throw t;
+        } finally {
+            for (PortInput input : m_createdInputs) {
+                if (input instanceof RowInput) {
+                    ((RowInput)input).close();
+                }
+            }
+            NodeContext.removeLastContext();
+        }
+    }
+
+    private NativeNodeContainerExecutionResult executeNode() throws Exception {
+        for (StreamedNode predecessor : m_predecessors) {
+            predecessor.awaitSuccess();
+        }
+        final NodeModel model = m_nnc.getNodeModel();
+        final ExecutionContext exec = m_exec;
+        m_nnc.getNode().openFileStoreHandler(exec);
+
+        PortInput[] inputs = createInputs();
+        final PortObjectSpec[] inSpecs = new PortObjectSpec[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            if (inputs[i] instanceof RowInput) {
+                inSpecs[i] = ((RowInput)inputs[i]).getDataTableSpec();
+            } else if (inputs[i] != null) {
+                inSpecs[i] = ((PortObjectInput)inputs[i]).getPortObject().getSpec();
+            }
+        }
+        final PartitionInfo partitionInfo = new PartitionInfo(0, 1);
+        final MergeOperator mergeOperator = model.createMergeOperator();
+        StreamableOperator operator = model.createStreamableOperator(partitionInfo, inSpecs);
+        PortObjectSpec[] finalSpecs = null;
+        StreamableOperatorInternals internals = m_initialInternals;
+        if (internals != null) {
+            // iterations read the complete (materialized) inputs, hence new inputs for each pass
+            while (model.iterate(internals)) {
+                operator.loadInternals(internals);
+                operator.runIntermediate(inputs, exec);
+                StreamableOperatorInternals opInternals = operator.saveInternals();
+                internals = mergeOperator == null ? opInternals
+                    : mergeOperator.mergeIntermediate(new StreamableOperatorInternals[]{opInternals});
+                inputs = createInputs();
+                operator = model.createStreamableOperator(partitionInfo, inSpecs);
+            }
+            operator.loadInternals(internals);
+            finalSpecs = model.computeFinalOutputSpecs(internals, inSpecs);
+        }
+
+        PortOutput[] outputs = createOutputs(exec, finalSpecs);
+        operator.runFinal(inputs, outputs, exec);
+        if (mergeOperator != null) {
+            StreamableOperatorInternals merged =
+                mergeOperator.mergeFinal(new StreamableOperatorInternals[]{operator.saveInternals()});
+            model.finishStreamableExecution(merged, exec, outputs);
+        }
+
+        m_outObjects = new PortObject[m_nnc.getNrOutPorts()];
+        m_outObjects[0] = FlowVariablePortObject.INSTANCE;
+        for (int i = 1; i < m_outObjects.length; i++) {
+            PortOutput output = outputs[i - 1];
+            if (output instanceof ChannelRowOutput) {
+                ((ChannelRowOutput)output).close();
+                m_outObjects[i] = ((ChannelRowOutput)output).getTable();
+            } else {
+                m_outObjects[i] = ((PortObjectOutput)output).getPortObject();
+            }
+        }
+        exec.setProgress(1.0);
+        return createSuccessResult(m_nnc, exec, m_outObjects);
+    }
+
+    /**
+     * Creates the result of a node that was executed via its {@link StreamableOperator}.
+     *
+     * @param nnc the executed node
+     * @param exec the context the node was executed with
+     * @param outObjects the output objects, including the flow variable port
+     * @return a new result to be loaded into the node
+     * @throws CanceledExecutionException if canceled while saving the node's internals
+     */
+    static NativeNodeContainerExecutionResult createSuccessResult(final NativeNodeContainer nnc,
+        final ExecutionContext exec, final PortObject[] outObjects) throws CanceledExecutionException {
+        PortObjectSpec[] outSpecs = new PortObjectSpec[outObjects.length];
+        for (int i = 0; i < outObjects.length; i++) {
+            if (outObjects[i] == null) {
+                throw new IllegalStateException("Output at port " + i + " is null");
+            }
+            outSpecs[i] = outObjects[i].getSpec();
+        }
+        NodeModel model = nnc.getNodeModel();
+        NodeExecutionResult nodeResult = nnc.getNode().createNodeExecutionResult(exec);
+        nodeResult.setPortObjects(outObjects);
+        nodeResult.setPortObjectSpecs(outSpecs);
+        if (model instanceof PortObjectHolder) {
+            nodeResult.setInternalHeldPortObjects(((PortObjectHolder)model).getInternalPortObjects());
+        } else if (model instanceof BufferedDataTableHolder) {
+            nodeResult.setInternalHeldPortObjects(((BufferedDataTableHolder)model).getInternalTables());
+        }
+        NativeNodeContainerExecutionResult result = new NativeNodeContainerExecutionResult();
+        result.setNodeExecutionResult(nodeResult);
+        result.setSuccess(true);
+        return result;
+    }
+
+    private PortInput[] createInputs() throws InterruptedException, PredecessorFailedException {
+        PortInput[] inputs = new PortInput[m_inputProviders.length];
+        for (int i = 0; i < inputs.length; i++) {
+            if (m_inputProviders[i] != null) {
+                inputs[i] = m_inputProviders[i].createInput();
+                m_createdInputs.add(inputs[i]);
+            }
+        }
+        return inputs;
+    }
+
+    private PortOutput[] createOutputs(final ExecutionContext exec, final PortObjectSpec[] finalSpecs) {
+        PortOutput[] outputs = new PortOutput[m_nnc.getNrOutPorts() - 1];
+        for (int i = 0; i < outputs.length; i++) {
+            int port = i + 1;
+            if (BufferedDataTable.TYPE.equals(m_nnc.getOutPort(port).getPortType())) {
+                PortObjectSpec spec = m_nnc.getOutPort(port).getPortObjectSpec();
+                ChannelRowOutput output = new ChannelRowOutput(
+                    spec instanceof DataTableSpec ? (DataTableSpec)spec : null, m_outChannels.get(port), exec);
+                if (finalSpecs != null && finalSpecs[i] instanceof DataTableSpec) {
+                    output.setFinalSpec((DataTableSpec)finalSpecs[i]);
+                }
+                outputs[i] = output;
+            } else {
+                outputs[i] = new PortObjectOutput();
+            }
+        }
+        return outputs;
+    }
+
+    private NativeNodeContainerExecutionResult createFailure(final Throwable t) {
+        boolean isCanceled = t instanceof PredecessorFailedException || isCanceled();
+        return createFailureResult(m_nnc, t, isCanceled);
+    }
+
+    /**
+     * Creates the result of a node whose execution failed or was canceled.
+     *
+     * @param nnc the node
+     * @param t the cause
+     * @param isCanceled whether the node was canceled (as opposed to failed by itself)
+     * @return a new result to be loaded into the node
+     */
+    static NativeNodeContainerExecutionResult createFailureResult(final NativeNodeContainer nnc, final Throwable t,
+        final boolean isCanceled) {
+        NativeNodeContainerExecutionResult result = new NativeNodeContainerExecutionResult();
+        result.setNodeExecutionResult(new NodeExecutionResult());
+        result.setSuccess(false);
+        if (isCanceled || t instanceof InterruptedException || t instanceof CanceledExecutionException) {
+            LOGGER.debug("Execution of " + nnc.getNameWithID() + " canceled");
+            result.setMessage(new NodeMessage(NodeMessage.Type.WARNING, "Execution canceled"));
+        } else {
+            String message = t.getMessage() != null ? t.getMessage() : t.getClass().getSimpleName();
+            LOGGER.error("Execute failed: " + message, t);
+            result.setMessage(new NodeMessage(NodeMessage.Type.ERROR, "Execute failed: " + message));
+        }
+        return result;
+    }
+
+    /**
+     * Creates an input provider for a complete port object, such as the output of an already executed node.
+     *
+     * @param portObject the port object
+     * @param isRowInput whether the consumer reads the port as a {@link RowInput}
+     * @return a new provider
+     */
+    static InputProvider createInputProvider(final PortObject portObject, final boolean isRowInput) {
+        if (portObject instanceof InactiveBranchPortObject) {
+            throw new IllegalStateException("Inactive branches can't be streamed");
+        }
+        return () -> isRowInput ? new DataTableRowInput((BufferedDataTable)portObject)
+            : new PortObjectInput(portObject);
+    }
+
+    /**
+     * Creates an input provider for an output of a streamed node that is passed on in full once the node has
+     * finished.
+     *
+     * @param producer the upstream node
+     * @param outPort the output port of the upstream node
+     * @param isRowInput whether the consumer reads the port as a {@link RowInput}
+     * @return a new provider
+     */
+    static InputProvider createInputProvider(final StreamedNode producer, final int outPort,
+        final boolean isRowInput) {
+        return () -> {
+            PortObject portObject = producer.getOutputObject(outPort);
+            return isRowInput ? new DataTableRowInput((BufferedDataTable)portObject)
+                : new PortObjectInput(portObject);
+        };
+    }
+
+    /**
+     * Creates the input for a port when the node starts (or starts another iteration).
+     */
+    @FunctionalInterface
+    interface InputProvider {
+
+        /**
+         * @return a new input, blocks until the data is available
+         * @throws InterruptedException if interrupted while waiting
+         * @throws PredecessorFailedException if the upstream node failed
+         */
+        PortInput createInput() throws InterruptedException, PredecessorFailedException;
+    }
+
+    /** Thrown when waiting for an upstream node that failed. */
+    @SuppressWarnings("serial")
+    static final class PredecessorFailedException extends Exception {
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.knime.core.util.ThreadPool;
+
+/**
+ * A unit of work of the {@link StreamingNodeExecutionJob} that runs concurrently with the other tasks of the job and
+ * usually blocks while exchanging rows with them. It runs on a {@link ThreadPool} worker, so the code inside can make
+ * use of {@link ThreadPool#currentPool()}, but invisibly to the parent pool: all tasks of a job need to run at the
+ * same time for the rows to flow, hence counting them against the pool size could deadlock.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+abstract class StreamedTask {
+
+    private final CountDownLatch m_doneLatch = new CountDownLatch(1);
+
+    private final Runnable m_onFailure;
+
+    /** Guards {@link #m_worker}, so that a cancel never interrupts a worker that has moved on to another task. */
+    private final Object m_workerLock = new Object();
+
+    private Thread m_worker;
+
+    private volatile boolean m_isCanceled;
+
+    private Throwable m_failure;
+
+    /**
+     * @param onFailure called from the task's thread if it fails
+     */
+    StreamedTask(final Runnable onFailure) {
+        m_onFailure = onFailure;
+    }
+
+    /**
+     * Runs the task's work, called once from a pool worker.
+     *
+     * @throws Exception if the task fails or is canceled
+     */
+    abstract void execute() throws Exception;
+
+    /** Called when the task is canceled, before its thread is interrupted. */
+    void onCancel() {
+    }
+
+    /**
+     * Queues the task for execution.
+     *
+     * @param pool the pool that runs the task, usually a sub pool of <code>parentPool</code> with enough threads for
+     *            all tasks of the job
+     * @param parentPool the pool the task is invisible to while it runs
+     */
+    final void start(final ThreadPool pool, final ThreadPool parentPool) {
+        pool.enqueue(() -> parentPool.runInvisible(() -> {
+            run();
+            return null;
+        }));
+    }
+
+    /** Cancels the task, also if it's blocked reading or writing rows. A task that hasn't started yet won't run. */
+    final void cancel() {
+        m_isCanceled = true;
+        onCancel();
+        synchronized (m_workerLock) {
+            if (m_worker != null) {
+                m_worker.interrupt();
+            }
+        }
+    }
+
+    /** @return whether {@link #cancel()} has been called */
+    final boolean isCanceled() {
+        return m_isCanceled;
+    }
+
+    /**
+     * Waits for the task to finish.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    final void join() throws InterruptedException {
+        m_doneLatch.await();
+    }
+
+    /** Waits for the task to finish, preserving an interrupt of the current thread. */
+    final void joinUninterruptibly() {
+        boolean isInterrupted = false;
+        while (m_doneLatch.getCount() > 0) {
+            try {
+                m_doneLatch.await();
+            } catch (InterruptedException ie) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** @return why the task failed or null if it succeeded, only to be called after the task has finished */
+    final Throwable getFailure() {
+        return m_failure;
+    }
+
+    private void run() {
+        try {
+            synchronized (m_workerLock) {
+                if (m_isCanceled) {
+                    throw new InterruptedException("Canceled before start");
+                }
+                m_worker = Thread.currentThread();
+            }
+            execute();
+        } catch (Throwable t) {
+            m_failure = t;
+            m_onFailure.run();
+        } finally {
+            synchronized (m_workerLock) {
+                m_worker = null;
+                // don't pass on a pending interrupt to the worker's next task
+                Thread.interrupted();
+            }
+            m_doneLatch.countDown();
+        }
+    }
+}
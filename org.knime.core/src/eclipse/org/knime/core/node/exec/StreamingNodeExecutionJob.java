@@ -0,0 +1,336 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.workflow.ConnectionContainer;
+import org.knime.core.node.workflow.NativeNodeContainer;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeExecutionJob;
+import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.NodeMessage;
+import org.knime.core.node.workflow.ScopeEndNode;
+import org.knime.core.node.workflow.ScopeStartNode;
+import org.knime.core.node.workflow.SubNodeContainer;
+import org.knime.core.node.workflow.WorkflowManager;
+import org.knime.core.node.workflow.WorkflowPersistor.LoadResult;
+import org.knime.core.node.workflow.WorkflowPersistor.LoadResultEntry.LoadResultEntryType;
+import org.knime.core.node.workflow.execresult.NativeNodeContainerExecutionResult;
+import org.knime.core.node.workflow.execresult.NodeContainerExecutionStatus;
+import org.knime.core.node.workflow.execresult.NodeExecutionResult;
+import org.knime.core.node.workflow.execresult.SubnodeContainerExecutionResult;
+import org.knime.core.node.workflow.execresult.WorkflowExecutionResult;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Job that executes the content of a wrapped metanode as a pipeline: all nodes run concurrently, each on a worker of
+ * a sub pool of the job's thread pool, and rows are passed between them as they are produced. The execution result
+ * is collected in a {@link SubnodeContainerExecutionResult} and loaded into the node once all inner nodes have
+ * finished.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @see StreamingNodeExecutionJobManager
+ */
+final class StreamingNodeExecutionJob extends NodeExecutionJob {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(StreamingNodeExecutionJob.class);
+
+    private final int m_queueSize;
+
+    private final List<StreamedNode> m_streamedNodes = new CopyOnWriteArrayList<>();
+
+    private Future<?> m_future;
+
+    private SubnodeContainerExecutionResult m_result;
+
+    /**
+     * @param snc the wrapped metanode to execute
+     * @param data its input data
+     * @param queueSize the maximum number of rows buffered between two nodes
+     */
+    StreamingNodeExecutionJob(final SubNodeContainer snc, final PortObject[] data, final int queueSize) {
+        super(snc, data);
+        m_queueSize = queueSize;
+    }
+
+    /**
+     * Set the future that represents the pending execution.
+     * @param future the future to set
+     */
+    void setFuture(final Future<?> future) {
+        m_future = future;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean cancel() {
+        if (m_future == null) {
+            throw new IllegalStateException("Future that represents the execution has not been set.");
+        }
+        cancelStreamedNodes();
+        return m_future.cancel(true);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isReConnecting() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected NodeContainerExecutionStatus mainExecute() {
+        SubNodeContainer snc = (SubNodeContainer)getNodeContainer();
+        WorkflowManager wfm = snc.getWorkflowManager();
+        WorkflowExecutionResult wfmResult = new WorkflowExecutionResult(wfm.getID());
+        SubnodeContainerExecutionResult result = new SubnodeContainerExecutionResult(snc.getID());
+        result.setWorkflowExecutionResult(wfmResult);
+        boolean isSuccess;
+        try {
+            createStreamedNodes(wfm, wfmResult);
+            isSuccess = runStreamedNodes();
+        } catch (IllegalStateException ise) {
+            LOGGER.error("Unable to stream " + snc.getNameWithID() + ": " + ise.getMessage(), ise);
+            result.setMessage(new NodeMessage(NodeMessage.Type.ERROR, ise.getMessage()));
+            isSuccess = false;
+        }
+        for (StreamedNode streamedNode : m_streamedNodes) {
+            NativeNodeContainerExecutionResult nodeResult = streamedNode.getExecutionResult();
+            if (nodeResult != null) {
+                wfmResult.addNodeExecutionResult(streamedNode.getNodeContainer().getID(), nodeResult);
+            }
+        }
+        wfmResult.setSuccess(isSuccess);
+        result.setSuccess(isSuccess);
+        m_result = result;
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void afterExecute() {
+        if (m_result == null) {
+            return;
+        }
+        NodeContainer nc = getNodeContainer();
+        LoadResult lR = new LoadResult("load streamed result into " + nc.getNameWithID());
+        nc.loadExecutionResult(m_result, new ExecutionMonitor(), lR);
+        if (lR.hasErrors()) {
+            LOGGER.error("Errors loading result of streamed execution into workflow:\n"
+                + lR.getFilteredError("", LoadResultEntryType.Warning));
+        }
+    }
+
+    /**
+     * Creates a {@link StreamedNode} for each node that is not executed yet and connects them. Data is passed from
+     * one node to the next via a channel if the producer can stream its output and the consumer reads the input row
+     * by row, otherwise the full table is handed over once the producer has finished.
+     */
+    private void createStreamedNodes(final WorkflowManager wfm, final WorkflowExecutionResult wfmResult) {
+        Map<NodeID, StreamedNode> streamedNodes = new HashMap<>();
+        Map<NodeID, Set<NodeID>> upstreamNodes = new HashMap<>();
+        for (NativeNodeContainer nnc : sortTopologically(wfm)) {
+            NodeID id = nnc.getID();
+            if (nnc.getNodeContainerState().isExecuted()) {
+                NativeNodeContainerExecutionResult executedResult = new NativeNodeContainerExecutionResult();
+                executedResult.setNodeExecutionResult(new NodeExecutionResult());
+                executedResult.setSuccess(true);
+                wfmResult.addNodeExecutionResult(id, executedResult);
+                continue;
+            }
+            if (nnc.isModelCompatibleTo(ScopeStartNode.class) || nnc.isModelCompatibleTo(ScopeEndNode.class)) {
+                throw new IllegalStateException("Loops and other scopes can't be streamed: " + nnc.getNameWithID());
+            }
+            StreamedNode streamedNode = new StreamedNode(nnc, this::cancelStreamedNodes);
+
+            // a node reading several inputs that derive from the same upstream node gets all its inputs in full
+            // as it may not read them concurrently - streaming them could stall the upstream node
+            Set<NodeID> allUpstream = new HashSet<>();
+            for (int p = 0; p < nnc.getNrInPorts(); p++) {
+                ConnectionContainer cc = wfm.getIncomingConnectionFor(id, p);
+                StreamedNode producer = cc == null ? null : streamedNodes.get(cc.getSource());
+                if (producer != null) {
+                    Set<NodeID> portUpstream = new HashSet<>(upstreamNodes.get(cc.getSource()));
+                    portUpstream.add(cc.getSource());
+                    if (!Collections.disjoint(allUpstream, portUpstream)) {
+                        streamedNode.setMaterializeAllInputs();
+                    }
+                    allUpstream.addAll(portUpstream);
+                }
+            }
+            upstreamNodes.put(id, allUpstream);
+
+            for (int p = 0; p < nnc.getNrInPorts(); p++) {
+                ConnectionContainer cc = wfm.getIncomingConnectionFor(id, p);
+                if (cc == null) {
+                    continue;
+                }
+                StreamedNode producer = streamedNodes.get(cc.getSource());
+                int srcPort = cc.getSourcePort();
+                if (p == 0) {
+                    // flow variable port, only determines the order
+                    if (producer != null) {
+                        streamedNode.addPredecessor(producer);
+                    }
+                    continue;
+                }
+                boolean isStreamingInput = streamedNode.isStreamingInput(p);
+                if (producer == null) {
+                    PortObject portObject = wfm.getNodeContainer(cc.getSource()).getOutPort(srcPort).getPortObject();
+                    streamedNode.setInputProvider(p, StreamedNode.createInputProvider(portObject,
+                        isStreamingInput && portObject instanceof BufferedDataTable));
+                } else if (isStreamingInput && producer.isStreamingOutput(srcPort)) {
+                    final RowInput rowInput = producer.addChannel(srcPort, m_queueSize);
+                    streamedNode.setInputProvider(p, () -> rowInput);
+                } else {
+                    streamedNode.setInputProvider(p,
+                        StreamedNode.createInputProvider(producer, srcPort, isStreamingInput));
+                }
+            }
+            streamedNodes.put(id, streamedNode);
+            m_streamedNodes.add(streamedNode);
+        }
+    }
+
+    /** @return all nodes of the workflow, each node after all its upstream nodes */
+    private static List<NativeNodeContainer> sortTopologically(final WorkflowManager wfm) {
+        Map<NodeID, Integer> nrUnsortedPredecessors = new LinkedHashMap<>();
+        Deque<NodeID> ready = new ArrayDeque<>();
+        for (NodeContainer nc : wfm.getNodeContainers()) {
+            if (!(nc instanceof NativeNodeContainer)) {
+                throw new IllegalStateException(
+                    "Nested metanodes and wrapped metanodes can't be streamed: " + nc.getNameWithID());
+            }
+            int count = 0;
+            for (ConnectionContainer cc : wfm.getIncomingConnectionsFor(nc.getID())) {
+                if (cc.getSource().equals(wfm.getID())) {
+                    throw new IllegalStateException("Connections from the workflow's inputs can't be streamed");
+                }
+                count++;
+            }
+            nrUnsortedPredecessors.put(nc.getID(), count);
+            if (count == 0) {
+                ready.add(nc.getID());
+            }
+        }
+        List<NativeNodeContainer> sorted = new ArrayList<>();
+        while (!ready.isEmpty()) {
+            NodeID id = ready.poll();
+            sorted.add((NativeNodeContainer)wfm.getNodeContainer(id));
+            for (ConnectionContainer cc : wfm.getOutgoingConnectionsFor(id)) {
+                NodeID dest = cc.getDest();
+                if (!dest.equals(wfm.getID()) && nrUnsortedPredecessors.merge(dest, -1, Integer::sum) == 0) {
+                    ready.add(dest);
+                }
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * Starts all streamed nodes and waits for them to finish.
+     *
+     * @return whether all nodes executed successfully
+     */
+    private boolean runStreamedNodes() {
+        ThreadPool currentPool = ThreadPool.currentPool();
+        ThreadPool parentPool = currentPool != null ? currentPool : KNIMEConstants.GLOBAL_THREAD_POOL;
+        ThreadPool nodePool = parentPool.createSubPool(Math.max(m_streamedNodes.size(), 1));
+        for (StreamedNode streamedNode : m_streamedNodes) {
+            streamedNode.start(nodePool, parentPool);
+        }
+        Callable<Void> waitForNodes = () -> {
+            try {
+                for (StreamedNode streamedNode : m_streamedNodes) {
+                    streamedNode.join();
+                }
+            } catch (InterruptedException ie) {
+                cancelStreamedNodes();
+            }
+            return null;
+        };
+        try {
+            if (currentPool != null) {
+                currentPool.runInvisible(waitForNodes);
+            } else {
+                waitForNodes.call();
+            }
+        } catch (Exception e) {
+            LOGGER.error("Waiting for streamed nodes failed: " + e.getMessage(), e);
+            cancelStreamedNodes();
+        }
+        boolean isSuccess = true;
+        for (StreamedNode streamedNode : m_streamedNodes) {
+            streamedNode.joinUninterruptibly();
+            isSuccess &= streamedNode.getExecutionResult().isSuccess();
+        }
+        return isSuccess;
+    }
+
+    private void cancelStreamedNodes() {
+        for (StreamedNode streamedNode : m_streamedNodes) {
+            streamedNode.cancel();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.exec;
+
+import java.net.URL;
+import java.util.concurrent.Future;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.workflow.AbstractNodeExecutionJobManager;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeContainer.NodeContainerSettings.SplitType;
+import org.knime.core.node.workflow.NodeExecutionJob;
+import org.knime.core.node.workflow.NodeExecutionJobManagerPanel;
+import org.knime.core.node.workflow.SubNodeContainer;
+
+/**
+ * Job manager for wrapped metanodes that executes the inner nodes as a pipeline. All nodes run concurrently and pass
+ * their output rows on to downstream nodes through bounded in-memory queues, provided the downstream node declares the
+ * input as streamable (see {@link org.knime.core.node.NodeModel#getInputPortRoles()}). A node only waits for the
+ * complete table where it needs its input in full, i.e. at non-streamable inputs, for nodes iterating their input and
+ * for nodes whose inputs derive from the same upstream node.
+ *
+ * <p>
+ * The output tables of all inner nodes are written in full while the rows are streamed, so that they remain valid
+ * inputs when only some inner nodes are re-executed later on. Loops, nested metanodes and inactive branches are not
+ * supported.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.5
+ */
+public class StreamingNodeExecutionJobManager extends AbstractNodeExecutionJobManager {
+
+    /** Config key for the maximum number of rows buffered between two nodes. */
+    static final String CFG_QUEUE_SIZE = "queueSize";
+
+    /** Default for {@link #CFG_QUEUE_SIZE}. */
+    static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    private int m_queueSize = DEFAULT_QUEUE_SIZE;
+
+    /** {@inheritDoc} */
+    @Override
+    public NodeExecutionJob submitJob(final NodeContainer nc, final PortObject[] data) {
+        if (!(nc instanceof SubNodeContainer)) {
+            throw new IllegalStateException(getClass().getSimpleName()
+                    + " can only execute wrapped metanodes: " + nc.getNameWithID());
+        }
+        StreamingNodeExecutionJob job = new StreamingNodeExecutionJob((SubNodeContainer)nc, data, m_queueSize);
+        Future<?> future = KNIMEConstants.GLOBAL_THREAD_POOL.enqueue(job);
+        job.setFuture(future);
+        return job;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean canExecute(final NodeContainer nc) {
+        return nc instanceof SubNodeContainer;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public NodeExecutionJobManagerPanel getSettingsPanelComponent(final SplitType nodeSplitType) {
+        return new StreamingNodeExecutionJobManagerPanel();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void save(final NodeSettingsWO settings) {
+        settings.addInt(CFG_QUEUE_SIZE, m_queueSize);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void load(final NodeSettingsRO settings) throws InvalidSettingsException {
+        int queueSize = settings.getInt(CFG_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+        if (queueSize <= 0) {
+            throw new InvalidSettingsException("Queue size must be positive: " + queueSize);
+        }
+        m_queueSize = queueSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getID() {
+        return StreamingNodeExecutionJobManagerFactory.INSTANCE.getID();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "Streaming Job Manager";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public URL getIcon() {
+        return null;
+    }
+
+}
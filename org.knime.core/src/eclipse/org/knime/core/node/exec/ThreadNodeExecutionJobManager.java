@@ -50,9 +50,12 @@
 import java.net.URL;
 import java.util.concurrent.Future;
 
+import org.knime.core.node.IOBoundNode;
 import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
 import org.knime.core.node.port.PortObject;
 import org.knime.core.node.workflow.AbstractNodeExecutionJobManager;
+import org.knime.core.node.workflow.NativeNodeContainer;
 import org.knime.core.node.workflow.NodeContainer;
 import org.knime.core.node.workflow.NodeExecutionJob;
 import org.knime.core.node.workflow.SingleNodeContainer;
@@ -64,20 +67,73 @@
  */
 public class ThreadNodeExecutionJobManager extends AbstractNodeExecutionJobManager {
 
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ThreadNodeExecutionJobManager.class);
+
+    /** Pool for {@link IOBoundNode}s, null unless enabled via {@link KNIMEConstants#PROPERTY_IO_THREAD_COUNT}.
+     * (Must be initialized before {@link #INSTANCE}.) */
+    private static final ThreadPool IO_THREAD_POOL = createIOThreadPool();
+
     public static final ThreadNodeExecutionJobManager INSTANCE =
             new ThreadNodeExecutionJobManager();
 
     private final ThreadPool m_pool;
 
+    private final ThreadPool m_ioPool;
+
     public ThreadNodeExecutionJobManager() {
-        this(KNIMEConstants.GLOBAL_THREAD_POOL);
+        this(KNIMEConstants.GLOBAL_THREAD_POOL, IO_THREAD_POOL);
     }
 
     public ThreadNodeExecutionJobManager(final ThreadPool pool) {
+        this(pool, null);
+    }
+
+    /**
+     * Creates a job manager that executes nodes implementing {@link IOBoundNode} in a separate pool.
+     *
+     * @param pool the pool executing the nodes
+     * @param ioPool the pool executing I/O-bound nodes or <code>null</code> to execute them in <code>pool</code>, too
+     * @since 3.5
+     */
+    public ThreadNodeExecutionJobManager(final ThreadPool pool, final ThreadPool ioPool) {
         if (pool == null) {
             throw new NullPointerException("arg must not be null");
         }
         m_pool = pool;
+        m_ioPool = ioPool;
+    }
+
+    private static ThreadPool createIOThreadPool() {
+        String maxThreadsString = System.getProperty(KNIMEConstants.PROPERTY_IO_THREAD_COUNT);
+        if (maxThreadsString == null || maxThreadsString.isEmpty()) {
+            return null;
+        }
+        try {
+            int maxThreads = Integer.parseInt(maxThreadsString);
+            if (maxThreads < 0) {
+                throw new NumberFormatException("Negative");
+            }
+            if (maxThreads == 0) {
+                return null;
+            }
+            LOGGER.debug("Executing I/O-bound nodes in separate thread pool with up to " + maxThreads + " threads");
+            return new ThreadPool(maxThreads);
+        } catch (NumberFormatException nfe) {
+            LOGGER.warn("Unable to parse system property \"" + KNIMEConstants.PROPERTY_IO_THREAD_COUNT + "\" (\""
+                + maxThreadsString + "\") as number: " + nfe.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Whether the argument node is executed in the separate pool for I/O-bound nodes.
+     *
+     * @param nc the node to execute
+     * @return true if a pool for I/O-bound nodes is set and the node implements {@link IOBoundNode}
+     */
+    boolean isExecutedInIOPool(final NodeContainer nc) {
+        return m_ioPool != null && nc instanceof NativeNodeContainer
+            && ((NativeNodeContainer)nc).getNodeModel() instanceof IOBoundNode;
     }
 
     /** {@inheritDoc} */
@@ -88,7 +144,7 @@ public NodeExecutionJob submitJob(final NodeContainer nc, final PortObject[] dat
                     + " is not able to execute a metanode: " + nc.getNameWithID());
         }
         LocalNodeExecutionJob job = new LocalNodeExecutionJob((SingleNodeContainer)nc, data);
-        Future<?> future = m_pool.enqueue(job);
+        Future<?> future = (isExecutedInIOPool(nc) ? m_ioPool : m_pool).enqueue(job);
         job.setFuture(future);
         return job;
     }
@@ -79,6 +79,17 @@ public void push(final DataRow row) throws InterruptedException {
         m_table.addRowToTable(row);
     }
 
+    /**
+     * Adds the rows via {@link BufferedDataContainer#addRowsToTable(DataRow[])}, which updates the table domain
+     * and hands the rows to the writer in one go.
+     * {@inheritDoc}
+     * @since 3.5
+     */
+    @Override
+    public void push(final DataRow[] rows) throws InterruptedException {
+        m_table.addRowsToTable(rows);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -93,6 +93,19 @@ public DataRow poll() throws InterruptedException {
         return null;
     }
 
+    /** Fills the array straight from the table iterator, never returning fewer rows than requested unless the end of
+     * the table is reached.
+     * {@inheritDoc}
+     * @since 3.5 */
+    @Override
+    public int poll(final DataRow[] rows) throws InterruptedException {
+        int count = 0;
+        while (count < rows.length && m_iterator.hasNext()) {
+            rows[count++] = m_iterator.next();
+        }
+        return count;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void close() {
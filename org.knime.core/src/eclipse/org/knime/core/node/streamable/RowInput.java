@@ -83,6 +83,40 @@ public abstract class RowInput extends PortInput {
      */
     public abstract DataRow poll() throws InterruptedException;
 
+    /**
+     * Reads a batch of rows from the input stream into the argument array, starting at index 0. The call blocks until
+     * at least one row is available or the end of the stream has been reached. Implementations may return fewer rows
+     * than the array can hold, e.g. when upstream nodes haven't produced more rows yet; a return value of 0 indicates
+     * the end of the stream (for non-empty arrays). Client code could look like this:
+     *
+     * <pre>
+     * DataRow[] rows = new DataRow[128];
+     * int count;
+     * while ((count = rowInput.poll(rows)) > 0) {
+     *     for (int i = 0; i &lt; count; i++) {
+     *         // do something with rows[i]
+     *     }
+     * }
+     * rowInput.close();
+     * </pre>
+     *
+     * The default implementation calls {@link #poll()} until the array is filled or the end of the stream is
+     * reached. Subclasses are encouraged to overwrite it if they can hand out multiple rows more efficiently.
+     *
+     * @param rows The non-null array to fill, elements beyond the returned count are undefined.
+     * @return The number of rows written into the array, 0 if the end of the stream has been reached.
+     * @throws InterruptedException If canceled.
+     * @since 3.5
+     */
+    public int poll(final DataRow[] rows) throws InterruptedException {
+        int count = 0;
+        DataRow row;
+        while (count < rows.length && (row = poll()) != null) {
+            rows[count++] = row;
+        }
+        return count;
+    }
+
     /** Indicates that no more input is needed. Upstream nodes may stop
      * generating data (unless there are other consumers). */
     public abstract void close();
@@ -69,6 +69,23 @@ public abstract class RowOutput extends PortOutput {
      */
     public abstract void push(final DataRow row) throws InterruptedException;
 
+    /**
+     * Adds a batch of rows to the output, in array order. Semantically equivalent to calling {@link #push(DataRow)}
+     * for each element, which is also what the default implementation does. Subclasses are encouraged to overwrite
+     * it if they can process multiple rows more efficiently (e.g. with a single synchronization per batch). The
+     * array may be reused by the caller after this method returns.
+     *
+     * @param rows Rows to add, must not contain null elements.
+     * @throws InterruptedException If canceled.
+     * @throws OutputClosedException If no consumer is to consume the generated output.
+     * @since 3.5
+     */
+    public void push(final DataRow[] rows) throws InterruptedException {
+        for (DataRow r : rows) {
+            push(r);
+        }
+    }
+
     /** Fully sets the table and closes the output. Only valid to call if no other rows were added previously through
      * {@link #push(DataRow)}.
      * @param table The non-null table to set.
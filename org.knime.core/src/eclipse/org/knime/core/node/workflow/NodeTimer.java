@@ -294,6 +294,28 @@ public synchronized BufferedDataTable getGlobalStatsTable(final ExecutionContext
             result.close();
             return result.getTable();
         }
+        /**
+         * Returns the average execution time of nodes of the same type as the argument, as recorded across all
+         * workflows and sessions of this installation (failed executions included).
+         *
+         * @param nc the node of interest
+         * @return the average execution time in ms or -1 if no execution of that node type has been recorded
+         * @since 3.5
+         */
+        public long getAverageExecutionTime(final NodeContainer nc) {
+            if (DISABLE_GLOBAL_TIMER) {
+                return -1;
+            }
+            synchronized (this) {
+                NodeStats ns = m_globalNodeStats.get(getCanonicalName(nc));
+                if (ns == null) {
+                    return -1;
+                }
+                int count = ns.executionCount + ns.failureCount;
+                return count > 0 ? ns.executionTime / count : -1;
+            }
+        }
+
         /**
          * @return the average up time of this KNIME instance
          */
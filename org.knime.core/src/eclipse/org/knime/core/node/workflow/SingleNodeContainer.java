@@ -94,7 +94,9 @@ public static enum MemoryPolicy {
         /** Hold output in memory. */
         CacheInMemory,
         /**
-         * Cache only small tables in memory, i.e. with cell count &lt;= DataContainer.MAX_CELLS_IN_MEMORY.
+         * Cache only small tables in memory, i.e. as long as all such tables fit into the memory budget defined by
+         * DataContainer.MEMORY_BUDGET_FRACTION (or, if disabled, with cell count &lt;=
+         * DataContainer.MAX_CELLS_IN_MEMORY).
          */
         CacheSmallInMemory,
         /** Buffer on disc. */
@@ -57,11 +57,13 @@
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.workflow.NodeContext;
 
 /**
- * This class contains utility methods for handling {@link NodeContext}s with new threads.
+ * This class contains utility methods for handling {@link NodeContext}s with new threads and for waiting on tasks
+ * that run concurrently.
  *
  * @author Thorsten Meinl, KNIME AG, Zurich, Switzerland
  * @since 2.8
@@ -487,4 +489,38 @@ protected void runWithContext() {
             }
         };
     }
+
+    /**
+     * Waits for the result of a task that runs concurrently with other tasks, e.g. in a {@link ThreadPool}. If the
+     * task failed or the current thread is interrupted while waiting, all other tasks are canceled and the failure is
+     * rethrown: runtime exceptions, errors and {@link CanceledExecutionException}s as they are, other exceptions
+     * wrapped in a {@link RuntimeException}.
+     *
+     * @param future the task to wait for
+     * @param otherFutures the tasks to cancel on failure (may contain <code>future</code>)
+     * @return the task's result
+     * @throws CanceledExecutionException if the task was canceled by the user or the current thread is interrupted
+     * @since 3.5
+     */
+    public static <T> T waitFor(final Future<T> future, final Collection<? extends Future<?>> otherFutures)
+        throws CanceledExecutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            otherFutures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CanceledExecutionException("Interrupted while waiting for concurrent task");
+        } catch (ExecutionException e) {
+            otherFutures.forEach(f -> f.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof CanceledExecutionException) {
+                throw (CanceledExecutionException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
 }